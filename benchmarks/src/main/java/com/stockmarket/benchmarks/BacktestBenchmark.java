@@ -0,0 +1,105 @@
+package com.stockmarket.benchmarks;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.logic.BacktestResult;
+import com.stockmarket.logic.BacktestStrategy;
+import com.stockmarket.logic.Backtester;
+import com.stockmarket.logic.BarSource;
+import com.stockmarket.logic.EquityCurveWriter;
+import com.stockmarket.logic.OhlcFile;
+import com.stockmarket.logic.Portfolio;
+
+// Pełny przebieg backtestu po pliku OHLC (mapowanym albo CSV). Jedna operacja = cały plik,
+// więc świece/s to wynik * barCount. Strategia co jakiś czas składa zlecenia z limitem blisko rynku,
+// żeby ścieżka realizacji względem świec też była obciążona.
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class BacktestBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int barCount;
+
+    @Param({"500"})
+    public int symbolCount;
+
+    @Param({"BINARY", "CSV"})
+    public String format;
+
+    private Path csvFile;
+    private Path binaryFile;
+    private Path curveFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        csvFile = Files.createTempFile("history", ".csv");
+        binaryFile = Files.createTempFile("history", ".ohlc");
+        curveFile = Files.createTempFile("equity", ".csv");
+
+        // Błądzenie losowe ceny zamknięcia per symbol, kolejne dni po symbolCount świec
+        SplittableRandom random = new SplittableRandom(42);
+        double[] prices = new double[symbolCount];
+        Arrays.fill(prices, 100.0);
+        try (Writer out = Files.newBufferedWriter(csvFile)) {
+            for (int i = 0; i < barCount; i++) {
+                int symbol = i % symbolCount;
+                double open = prices[symbol];
+                double close = Math.max(1.0, open * (1.0 + random.nextGaussian() * 0.02));
+                double high = Math.max(open, close) * (1.0 + random.nextDouble() * 0.01);
+                double low = Math.min(open, close) * (1.0 - random.nextDouble() * 0.01);
+                prices[symbol] = close;
+                out.write(String.format(Locale.US, "%d,S%d,%.4f,%.4f,%.4f,%.4f,%d%n",
+                        i / symbolCount, symbol, open, high, low, close, 1000 + random.nextInt(1000)));
+            }
+        }
+        OhlcFile.convertCsv(csvFile, binaryFile);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(csvFile);
+        Files.deleteIfExists(binaryFile);
+        Files.deleteIfExists(curveFile);
+    }
+
+    @Benchmark
+    public BacktestResult run() throws IOException {
+        Portfolio portfolio = new Portfolio(1_000_000_000.0);
+        BacktestStrategy strategy = (bar, p) -> {
+            if ((bar.getDay() & 15) == 0 && p.getOpenOrderCount() < 1000) {
+                p.placeOrder(new Order(bar.getSymbol(), AssetType.SHARE, bar.getClose() * 0.99, 10, OrderType.BUY));
+            }
+        };
+        try (BarSource source = "CSV".equals(format) ? OhlcFile.openCsv(csvFile) : OhlcFile.open(binaryFile);
+             EquityCurveWriter curve = new EquityCurveWriter(Files.newBufferedWriter(curveFile))) {
+            return new Backtester(portfolio).run(source, strategy, curve);
+        }
+    }
+}
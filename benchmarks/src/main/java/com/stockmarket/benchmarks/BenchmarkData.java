@@ -0,0 +1,44 @@
+package com.stockmarket.benchmarks;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetFactory;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.logic.Portfolio;
+
+// Budowanie portfeli testowych (deterministycznie - te same dane w każdym uruchomieniu)
+final class BenchmarkData {
+
+    // Zakres Money to ok. 92 mld
+    static final double INITIAL_CASH = 1e10;
+    static final int CURRENT_DAY = 10_000;
+
+    private BenchmarkData() {
+    }
+
+    // "SHARE" = tylko akcje, "MIXED" = akcje, surowce i waluty na zmianę
+    static AssetType typeFor(String mix, int index) {
+        if ("SHARE".equals(mix)) return AssetType.SHARE;
+        if ("MIXED".equals(mix)) return AssetType.values()[index % AssetType.values().length];
+        throw new IllegalArgumentException("Unknown asset mix: " + mix);
+    }
+
+    static double priceFor(int index) {
+        return 50.0 + (index % 200) * 0.25;
+    }
+
+    // Portfel z lotCount lotami rozłożonymi na symbolCount symboli
+    static Portfolio portfolio(int symbolCount, int lotCount, String mix) {
+        Portfolio portfolio = new Portfolio(INITIAL_CASH);
+        portfolio.setCurrentDay(CURRENT_DAY);
+
+        Asset[] assets = new Asset[symbolCount];
+        for (int s = 0; s < symbolCount; s++) {
+            assets[s] = AssetFactory.create(typeFor(mix, s), "SYM" + s, priceFor(s));
+        }
+        for (int i = 0; i < lotCount; i++) {
+            Asset asset = assets[i % symbolCount];
+            portfolio.loadLot(asset, priceFor(i), 1 + i % 40, (int) ((long) i * CURRENT_DAY / lotCount));
+        }
+        return portfolio;
+    }
+}
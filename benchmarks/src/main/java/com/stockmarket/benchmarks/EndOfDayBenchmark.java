@@ -0,0 +1,77 @@
+package com.stockmarket.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stockmarket.logic.AccountRegistry;
+import com.stockmarket.logic.EndOfDayResult;
+import com.stockmarket.logic.Portfolio;
+
+// Zamknięcie dnia wielu kont: pętla sekwencyjna (dotychczasowy sposób) kontra AccountRegistry
+// przy różnej równoległości puli. Każde wywołanie przesuwa wszystkie konta o dzień, więc
+// wycena zawsze liczy pozycje od nowa (surowce zależą od dnia).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class EndOfDayBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    @Param({"100000"})
+    public int accounts;
+
+    @Param({"5"})
+    public int symbolsPerAccount;
+
+    private Portfolio[] portfolios;
+    private ForkJoinPool pool;
+    private AccountRegistry registry;
+
+    @Setup
+    public void setUp() {
+        portfolios = new Portfolio[accounts];
+        pool = new ForkJoinPool(parallelism);
+        registry = new AccountRegistry(pool);
+        for (int i = 0; i < accounts; i++) {
+            portfolios[i] = BenchmarkData.portfolio(symbolsPerAccount, symbolsPerAccount * 2, "MIXED");
+            registry.register("account-" + i, portfolios[i]);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public double sequentialLoop() {
+        double total = 0.0;
+        for (Portfolio portfolio : portfolios) {
+            portfolio.advanceTime(1);
+            total += portfolio.calculateTotalValue() + portfolio.getReservedCash();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public EndOfDayResult registry() {
+        return registry.runEndOfDay(1, false);
+    }
+}
@@ -0,0 +1,55 @@
+package com.stockmarket.benchmarks;
+
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioExporter;
+
+// Eksport lotów do strumienia, który niczego nie zapisuje - mierzy samo formatowanie.
+// getHoldingsData to dotychczasowy eksport (String[] z String.format na lot) dla porównania.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int lotCount;
+
+    @Param({"CSV", "JSON_LINES", "COLUMNAR"})
+    public PortfolioExporter.Format format;
+
+    private Portfolio portfolio;
+    private PortfolioExporter exporter;
+
+    @Setup
+    public void setUp() {
+        portfolio = BenchmarkData.portfolio(1000, lotCount, "MIXED");
+        exporter = new PortfolioExporter(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void exportLots() {
+        exporter.exportLots(portfolio, format);
+    }
+
+    @Benchmark
+    public String[] holdingsData() {
+        return portfolio.getHoldingsData();
+    }
+}
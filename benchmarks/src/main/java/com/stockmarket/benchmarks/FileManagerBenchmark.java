@@ -0,0 +1,83 @@
+package com.stockmarket.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioFileManager;
+
+// Zapis i odczyt całego portfela (tekst i snapshot binarny). Jedna operacja = cały plik,
+// więc przepustowość w lotach/s to wynik * lotCount.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Benchmark)
+public class FileManagerBenchmark {
+
+    @Param({"10000", "1000000", "10000000"})
+    public int lotCount;
+
+    @Param({"SHARE", "MIXED"})
+    public String mix;
+
+    @Param({"TEXT", "BINARY"})
+    public String format;
+
+    @Param({"1000"})
+    public int symbolCount;
+
+    private final PortfolioFileManager fileManager = new PortfolioFileManager();
+    private Portfolio portfolio;
+    private Path loadFile;
+    private Path saveFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        portfolio = BenchmarkData.portfolio(symbolCount, lotCount, mix);
+        loadFile = Files.createTempFile("portfolio-load", ".dat");
+        saveFile = Files.createTempFile("portfolio-save", ".dat");
+        save(loadFile);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(loadFile);
+        Files.deleteIfExists(saveFile);
+    }
+
+    private void save(Path file) {
+        if ("BINARY".equals(format)) {
+            fileManager.savePortfolioBinary(portfolio, file.toString());
+        } else {
+            fileManager.savePortfolio(portfolio, file.toString());
+        }
+    }
+
+    @Benchmark
+    public void savePortfolio() {
+        save(saveFile);
+    }
+
+    // Format jest rozpoznawany po magicznej liczbie, więc oba warianty idą przez loadPortfolio
+    @Benchmark
+    public Portfolio loadPortfolio() {
+        return fileManager.loadPortfolio(loadFile.toString());
+    }
+}
@@ -0,0 +1,75 @@
+package com.stockmarket.benchmarks;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioFileManager;
+
+// Typowa praca na archiwalnym koncie: odczyt snapshotu, jedna sprzedaż FIFO i wycena.
+// Odczyt pełny (loadPortfolio) kontra leniwy (loadPortfolioLazy); pamięć - przez -prof gc (gc.alloc.rate.norm).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class LazyLoadBenchmark {
+
+    @Param({"1000000"})
+    public int lotCount;
+
+    @Param({"SHARE", "MIXED"})
+    public String mix;
+
+    @Param({"1000"})
+    public int symbolCount;
+
+    @Param({"100000"})
+    public int maxResidentLots;
+
+    private final PortfolioFileManager fileManager = new PortfolioFileManager();
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        Portfolio portfolio = BenchmarkData.portfolio(symbolCount, lotCount, mix);
+        file = Files.createTempFile("portfolio-lazy", ".bin");
+        fileManager.savePortfolioBinary(portfolio, file.toString());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    private double work(Portfolio portfolio) {
+        portfolio.sellAsset("SYM0", 1, 1.0);
+        return portfolio.calculateTotalValue();
+    }
+
+    @Benchmark
+    public double eagerLoadSellAndValue() {
+        return work(fileManager.loadPortfolio(file.toString()));
+    }
+
+    @Benchmark
+    public double lazyLoadSellAndValue() {
+        return work(fileManager.loadPortfolioLazy(file.toString(), maxResidentLots));
+    }
+}
@@ -0,0 +1,61 @@
+package com.stockmarket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.logic.LatencyHistogram;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioMetrics;
+
+// Narzut pomiaru czasów: złożenie i anulowanie zlecenia z metrykami i bez nich
+// oraz sam zapis do histogramu
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MetricsBenchmark {
+
+    @Param({"false", "true"})
+    public boolean enabled;
+
+    private Portfolio portfolio;
+    private Order order;
+    private LatencyHistogram histogram;
+    private long nanos;
+
+    @Setup
+    public void setUp() {
+        portfolio = BenchmarkData.portfolio(100, 10_000, "SHARE");
+        if (enabled) {
+            portfolio.setMetrics(new PortfolioMetrics("benchmark"));
+        }
+        order = new Order("SYM0", AssetType.SHARE, 1.0, 1, OrderType.BUY);
+        histogram = new LatencyHistogram();
+    }
+
+    @Benchmark
+    public boolean placeAndCancel() {
+        return portfolio.cancelOrder(portfolio.placeOrder(order));
+    }
+
+    @Benchmark
+    public void histogramRecord() {
+        histogram.record(nanos++ & 0xFFFFF);
+    }
+}
@@ -0,0 +1,173 @@
+package com.stockmarket.benchmarks;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Money;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+
+// Kwoty stałoprzecinkowe (Money) wobec double i BigDecimal: wycena (cena * ilość po pozycjach)
+// i księgowanie transakcji (rezerwacja po limicie, zwrot nadwyżki, przychód ze sprzedaży).
+// portfolioFill mierzy pełną ścieżkę realizacji zlecenia w Portfolio.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    private static final String SYMBOL = "FILL";
+
+    @Param({"1000", "100000"})
+    public int positions;
+
+    private int[] quantities;
+    private double[] prices;
+    private long[] priceUnits;
+    private BigDecimal[] bigPrices;
+    private double[] limits;
+    private long[] limitUnits;
+    private BigDecimal[] bigLimits;
+
+    private Portfolio portfolio;
+    private Order sell;
+    private Order buy;
+
+    @Setup(Level.Trial)
+    public void setUpData() {
+        SplittableRandom random = new SplittableRandom(42);
+        quantities = new int[positions];
+        prices = new double[positions];
+        priceUnits = new long[positions];
+        bigPrices = new BigDecimal[positions];
+        limits = new double[positions];
+        limitUnits = new long[positions];
+        bigLimits = new BigDecimal[positions];
+        for (int i = 0; i < positions; i++) {
+            // Suma wyceny musi zmieścić się w zakresie Money (ok. 92 mld): do 100 000 * 1000.00 * 100
+            quantities[i] = 1 + random.nextInt(100);
+            // Ceny z groszami, limity nieco powyżej ceny
+            prices[i] = random.nextInt(1, 100_000) / 100.0;
+            limits[i] = prices[i] + random.nextInt(0, 500) / 100.0;
+            priceUnits[i] = Money.of(prices[i]);
+            limitUnits[i] = Money.of(limits[i]);
+            bigPrices[i] = BigDecimal.valueOf(prices[i]);
+            bigLimits[i] = BigDecimal.valueOf(limits[i]);
+        }
+    }
+
+    // Nowy portfel na każdą iterację - każda realizacja dodaje lot
+    @Setup(Level.Iteration)
+    public void setUpPortfolio() {
+        portfolio = new Portfolio(1e9);
+        portfolio.addAsset(new Share(SYMBOL, 50.0), 1_000);
+        sell = new Order(SYMBOL, AssetType.SHARE, 50.25, 1, OrderType.SELL);
+        buy = new Order(SYMBOL, AssetType.SHARE, 50.50, 1, OrderType.BUY);
+    }
+
+    // --- Wycena ---
+
+    @Benchmark
+    public double valuationDouble() {
+        double total = 0.0;
+        for (int i = 0; i < positions; i++) {
+            total += prices[i] * quantities[i];
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long valuationFixed() {
+        long total = 0;
+        for (int i = 0; i < positions; i++) {
+            total = Money.add(total, Money.times(priceUnits[i], quantities[i]));
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal valuationBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int i = 0; i < positions; i++) {
+            total = total.add(bigPrices[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        return total;
+    }
+
+    // --- Księgowanie transakcji ---
+
+    @Benchmark
+    public double fillsDouble() {
+        double cash = 1e9;
+        double reserved = 0.0;
+        for (int i = 0; i < positions; i++) {
+            double reservation = limits[i] * quantities[i];
+            cash -= reservation;
+            reserved += reservation;
+            reserved -= reservation;
+            cash += reservation - prices[i] * quantities[i];
+            cash += prices[i] * quantities[i];
+        }
+        return cash + reserved;
+    }
+
+    @Benchmark
+    public long fillsFixed() {
+        long cash = Money.of(1e9);
+        long reserved = 0;
+        for (int i = 0; i < positions; i++) {
+            long reservation = Money.times(limitUnits[i], quantities[i]);
+            cash -= reservation;
+            reserved += reservation;
+            reserved -= reservation;
+            long cost = Money.times(priceUnits[i], quantities[i]);
+            cash += reservation - cost;
+            cash = Money.add(cash, cost);
+        }
+        return cash + reserved;
+    }
+
+    @Benchmark
+    public BigDecimal fillsBigDecimal() {
+        BigDecimal cash = BigDecimal.valueOf(1_000_000_000L);
+        BigDecimal reserved = BigDecimal.ZERO;
+        for (int i = 0; i < positions; i++) {
+            BigDecimal quantity = BigDecimal.valueOf(quantities[i]);
+            BigDecimal reservation = bigLimits[i].multiply(quantity);
+            cash = cash.subtract(reservation);
+            reserved = reserved.add(reservation);
+            reserved = reserved.subtract(reservation);
+            BigDecimal cost = bigPrices[i].multiply(quantity);
+            cash = cash.add(reservation.subtract(cost));
+            cash = cash.add(cost);
+        }
+        return cash.add(reserved);
+    }
+
+    // Zlecenie SELL w księdze i krzyżujące je BUY - rezerwacja, zwrot nadwyżki, sprzedaż i zakup lotu
+    @Benchmark
+    public long portfolioFill() {
+        portfolio.placeOrder(sell);
+        portfolio.placeOrder(buy);
+        return portfolio.getCashUnits();
+    }
+}
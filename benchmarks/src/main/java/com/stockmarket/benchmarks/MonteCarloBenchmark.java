@@ -0,0 +1,70 @@
+package com.stockmarket.benchmarks;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stockmarket.logic.MonteCarloSimulator;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PricePathModel;
+import com.stockmarket.logic.SimulationResult;
+
+// Skalowanie symulacji Monte Carlo z liczbą wątków: ta sama praca (scenariusze * dni * symbole)
+// przy różnej równoległości puli. Przy liniowym skalowaniu czas spada proporcjonalnie do parallelism.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+@State(Scope.Benchmark)
+public class MonteCarloBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    @Param({"GBM", "JUMP"})
+    public String model;
+
+    @Param({"2000"})
+    public int scenarios;
+
+    @Param({"50"})
+    public int symbolCount;
+
+    @Param({"252"})
+    public int horizonDays;
+
+    private ForkJoinPool pool;
+    private MonteCarloSimulator simulator;
+
+    @Setup
+    public void setUp() {
+        pool = new ForkJoinPool(parallelism);
+        PricePathModel pathModel = "JUMP".equals(model)
+                ? PricePathModel.jumpDiffusion(0.05, 0.25, 5.0, -0.05, 0.1)
+                : PricePathModel.gbm(0.05, 0.25);
+        simulator = new MonteCarloSimulator(pathModel, horizonDays, pool);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public SimulationResult simulate() {
+        return simulator.run(scenario -> BenchmarkData.portfolio(symbolCount, symbolCount * 4, "MIXED"), scenarios, 42L);
+    }
+}
@@ -0,0 +1,79 @@
+package com.stockmarket.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.logic.Portfolio;
+
+// Koszyk zleceń przy rebalansowaniu: placeOrder w pętli wobec placeOrders.
+// Połowa koszyka to SELL posiadanych symboli, połowa BUY - żadne zlecenie się nie krzyżuje,
+// a po złożeniu wszystkie są anulowane, więc stan portfela się nie zmienia.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderBatchBenchmark {
+
+    @Param({"100", "1000"})
+    public int basketSize;
+
+    @Param({"100", "10000"})
+    public int symbolCount;
+
+    private Portfolio portfolio;
+    private List<Order> basket;
+    private long[] orderIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        portfolio = BenchmarkData.portfolio(symbolCount, symbolCount * 10, "SHARE");
+        basket = new ArrayList<>(basketSize);
+        for (int i = 0; i < basketSize; i++) {
+            String symbol = "SYM" + (i % symbolCount);
+            boolean sell = i % 2 == 0;
+            basket.add(new Order(symbol, AssetType.SHARE, sell ? 1_000.0 : 1.0, 1,
+                    sell ? OrderType.SELL : OrderType.BUY));
+        }
+        orderIds = new long[basketSize];
+    }
+
+    @Benchmark
+    public int placeLoop() {
+        for (int i = 0; i < basketSize; i++) {
+            orderIds[i] = portfolio.placeOrder(basket.get(i));
+        }
+        return cancelAll(orderIds);
+    }
+
+    @Benchmark
+    public int placeBatch() {
+        return cancelAll(portfolio.placeOrders(basket, Portfolio.BatchMode.ALL_OR_NOTHING));
+    }
+
+    private int cancelAll(long[] ids) {
+        int cancelled = 0;
+        for (long id : ids) {
+            if (portfolio.cancelOrder(id)) cancelled++;
+        }
+        return cancelled;
+    }
+}
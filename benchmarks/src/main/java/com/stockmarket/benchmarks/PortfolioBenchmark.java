@@ -0,0 +1,97 @@
+package com.stockmarket.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetFactory;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.CostBasisMethod;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.logic.Portfolio;
+
+// Operacje na portfelu z długą historią lotów jednego symbolu
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class PortfolioBenchmark {
+
+    private static final String SYMBOL = "SYM0";
+
+    @Param({"1000", "100000", "1000000"})
+    public int lotCount;
+
+    @Param({"SHARE", "MIXED"})
+    public String mix;
+
+    @Param({"FIFO", "HIFO"})
+    public CostBasisMethod costBasis;
+
+    private Portfolio portfolio;
+    private Asset asset;
+    private Order restingBuy;
+    private Order crossingSell;
+    private Order crossingBuy;
+    private int counter;
+
+    // Nowy portfel na każdą iterację - addAsset zwiększa liczbę lotów
+    @Setup(Level.Iteration)
+    public void setUp() {
+        portfolio = BenchmarkData.portfolio(1, lotCount, mix);
+        portfolio.setCostBasisMethod(costBasis);
+        AssetType type = BenchmarkData.typeFor(mix, 0);
+        asset = AssetFactory.create(type, SYMBOL, BenchmarkData.priceFor(0));
+
+        restingBuy = new Order(SYMBOL, type, 1.0, 1, OrderType.BUY);
+        crossingSell = new Order(SYMBOL, type, 60.0, 1, OrderType.SELL);
+        crossingBuy = new Order(SYMBOL, type, 60.0, 1, OrderType.BUY);
+    }
+
+    @Benchmark
+    public void addAsset() {
+        portfolio.addAsset(asset, 10);
+    }
+
+    // Sprzedaż jednej sztuki z głębokiej historii; zakup uzupełnia pozycję, więc głębokość się nie zmienia
+    @Benchmark
+    public double sellAsset() {
+        double profit = portfolio.sellAsset(SYMBOL, 1, 75.0);
+        portfolio.loadLot(asset, BenchmarkData.priceFor(counter++), 1, BenchmarkData.CURRENT_DAY);
+        return profit;
+    }
+
+    // Zlecenie, które czeka w księdze, i jego anulowanie
+    @Benchmark
+    public boolean placeOrder() {
+        long orderId = portfolio.placeOrder(restingBuy);
+        return portfolio.cancelOrder(orderId);
+    }
+
+    // Dwa zlecenia, które się krzyżują - pełna ścieżka realizacji (sprzedaż lotu + nowy lot)
+    @Benchmark
+    public long placeCrossingOrders() {
+        portfolio.placeOrder(crossingSell);
+        return portfolio.placeOrder(crossingBuy);
+    }
+
+    @Benchmark
+    public double calculateTotalValue() {
+        return portfolio.calculateTotalValue();
+    }
+}
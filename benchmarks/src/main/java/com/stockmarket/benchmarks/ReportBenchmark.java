@@ -0,0 +1,73 @@
+package com.stockmarket.benchmarks;
+
+import java.io.Writer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioReport;
+
+// Wycena i raport dla portfela z tysiącami pozycji: pełny raport jako String, strumieniowo
+// (Writer, który niczego nie zapisuje) oraz top-N i pierwsza strona dla endpointu statusu
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportBenchmark {
+
+    @Param({"1000", "10000"})
+    public int holdings;
+
+    @Param({"10"})
+    public int lotsPerHolding;
+
+    @Param({"SHARE", "MIXED"})
+    public String mix;
+
+    private Portfolio portfolio;
+
+    @Setup
+    public void setUp() {
+        portfolio = BenchmarkData.portfolio(holdings, holdings * lotsPerHolding, mix);
+    }
+
+    @Benchmark
+    public String generateReport() {
+        return portfolio.generateReport();
+    }
+
+    @Benchmark
+    public void streamReport() {
+        portfolio.report().writeTo(Writer.nullWriter());
+    }
+
+    @Benchmark
+    public List<PortfolioReport.Row> topTenShares() {
+        return portfolio.report().topN(AssetType.SHARE, 10);
+    }
+
+    @Benchmark
+    public List<PortfolioReport.Row> firstPage() {
+        return portfolio.report().page(0, 50);
+    }
+
+    @Benchmark
+    public double calculateTotalValue() {
+        return portfolio.calculateTotalValue();
+    }
+}
@@ -0,0 +1,91 @@
+package com.stockmarket.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetFactory;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioFileManager;
+
+// Odczyt pliku tekstowego: obecny parser strumieniowy kontra poprzedni loader (split + parseDouble + Asset
+// na linię) na tym samym pliku. Jedna operacja = cały plik, więc linie/s to wynik * lotCount.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+@State(Scope.Benchmark)
+public class TextLoaderBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int lotCount;
+
+    @Param({"SHARE", "MIXED"})
+    public String mix;
+
+    @Param({"1000"})
+    public int symbolCount;
+
+    private final PortfolioFileManager fileManager = new PortfolioFileManager();
+    private Path file;
+
+    @Setup
+    public void setUp() throws IOException {
+        file = Files.createTempFile("portfolio-text", ".txt");
+        fileManager.savePortfolio(BenchmarkData.portfolio(symbolCount, lotCount, mix), file.toString());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public Portfolio streaming() {
+        return fileManager.loadPortfolio(file.toString());
+    }
+
+    @Benchmark
+    public Portfolio legacySplit() throws IOException {
+        return loadLegacy(file.toString());
+    }
+
+    // Kopia poprzedniego algorytmu PortfolioFileManager.loadPortfolio (punkt odniesienia)
+    private static Portfolio loadLegacy(String filename) throws IOException {
+        Portfolio portfolio = null;
+        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\\|");
+                if (parts.length == 0 || line.trim().isEmpty()) continue;
+                if ("HEADER".equals(parts[0])) {
+                    portfolio = new Portfolio(Double.parseDouble(parts[1]));
+                    portfolio.setCurrentDay(Integer.parseInt(parts[2]));
+                } else {
+                    Asset asset = AssetFactory.create(AssetType.valueOf(parts[1]), parts[2], Double.parseDouble(parts[3]));
+                    portfolio.loadAsset(asset, Integer.parseInt(parts[4]), Integer.parseInt(parts[5]));
+                }
+            }
+        }
+        return portfolio;
+    }
+}
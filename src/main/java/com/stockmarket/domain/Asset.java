@@ -2,14 +2,18 @@ package com.stockmarket.domain;
 
 public abstract class Asset {
     protected String symbol;
+    protected final int symbolId;
+    // Cena na siatce Money (1e-8) - jednostki do księgowania, double do wyceny
+    protected long marketPriceUnits;
     protected double marketPrice;
 
     public Asset(String symbol, double marketPrice) {
         validateSymbol(symbol);
-        validatePrice(marketPrice);
 
-        this.symbol = symbol;
-        this.marketPrice = marketPrice;
+        // Kanoniczna instancja symbolu z rejestru (wczytane loty nie trzymają własnych kopii)
+        this.symbolId = SymbolRegistry.intern(symbol);
+        this.symbol = SymbolRegistry.symbolOf(symbolId);
+        setMarketPrice(marketPrice);
     }
 
     private void validateSymbol(String symbol) {
@@ -18,20 +22,36 @@ public abstract class Asset {
         }
     }
 
-    private void validatePrice(double price) {
-        if (price <= 0) {
+    private static long validatePrice(double price) {
+        long units = price > 0 && price < Double.POSITIVE_INFINITY ? Money.of(price) : 0;
+        if (units <= 0) {
             throw new IllegalArgumentException("Asset price must be positive.");
         }
+        return units;
     }
 
     public String getSymbol() {
         return symbol;
     }
 
+    public int getSymbolId() {
+        return symbolId;
+    }
+
     public double getMarketPrice() {
         return marketPrice;
     }
 
+    public long getMarketPriceUnits() {
+        return marketPriceUnits;
+    }
+
+    // Wycena rynkowa (mark-to-market) bez tworzenia nowego obiektu na każdy tick
+    public void setMarketPrice(double marketPrice) {
+        this.marketPriceUnits = validatePrice(marketPrice);
+        this.marketPrice = Money.toDouble(marketPriceUnits);
+    }
+
     public abstract AssetType getType();
 
     public abstract double calculateRealValue(int quantity, long daysHeld);
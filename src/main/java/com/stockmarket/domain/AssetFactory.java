@@ -0,0 +1,24 @@
+package com.stockmarket.domain;
+
+public final class AssetFactory {
+
+    private AssetFactory() {
+    }
+
+    // Tworzenie instancji Asset na podstawie typu (wspólne dla I/O i realizacji zleceń)
+    public static Asset create(AssetType type, String symbol, double price) {
+        if (type == null) {
+            throw new IllegalArgumentException("Asset type cannot be null.");
+        }
+        switch (type) {
+            case SHARE:
+                return new Share(symbol, price);
+            case COMMODITY:
+                return new Commodity(symbol, price);
+            case CURRENCY:
+                return new Currency(symbol, price);
+            default:
+                throw new IllegalArgumentException("Unsupported asset type: " + type);
+        }
+    }
+}
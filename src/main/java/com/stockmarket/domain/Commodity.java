@@ -11,11 +11,16 @@ public class Commodity extends Asset {
     public double calculateRealValue(int quantity, long daysHeld) {
         double nominalValue = super.marketPrice * quantity;
         long daysCharged = Math.max(1, daysHeld);
-        double totalStorageCost = quantity * STORAGE_COST_PER_UNIT * daysCharged;
+        double totalStorageCost = calculateStorageCost(quantity * daysCharged);
         
         return nominalValue - totalStorageCost;
     }
 
+    // Koszt magazynowania liczony od sumy (ilość * dni) - pozwala wycenić całą pozycję naraz
+    public double calculateStorageCost(long quantityDays) {
+        return quantityDays * STORAGE_COST_PER_UNIT;
+    }
+
     @Override
     public double calculateInitialCost(int quantity) {
         return 0.0;
@@ -0,0 +1,10 @@
+package com.stockmarket.domain;
+
+// Metoda wyboru lotów (i kosztu nabycia) przy sprzedaży
+public enum CostBasisMethod {
+    FIFO,           // najstarsze loty najpierw
+    LIFO,           // najnowsze loty najpierw
+    HIFO,           // najdroższe loty najpierw
+    AVERAGE_COST,   // koszt = średnia cena wszystkich lotów, loty zdejmowane FIFO
+    SPECIFIC_LOT    // wskazany lot (po id)
+}
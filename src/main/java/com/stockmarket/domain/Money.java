@@ -0,0 +1,158 @@
+package com.stockmarket.domain;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Kwoty stałoprzecinkowe: long w jednostkach 1e-8 (SCALE jednostek = 1.0).
+// Dodawanie i mnożenie przez ilość są dokładne (przepełnienie -> ArithmeticException),
+// a zapis tekstowy i odczyt nie tracą cyfr - w odróżnieniu od double z zaokrągleniem do %.2f.
+// Zakres: ok. +/- 92 mld.
+public final class Money {
+
+    public static final int FRACTION_DIGITS = 8;
+    public static final long SCALE = 100_000_000L;
+
+    // Największa wartość double, którą da się zamienić na jednostki bez przepełnienia
+    private static final double MAX_DOUBLE = (double) Long.MAX_VALUE / SCALE;
+    // Najdłuższy zapis: znak + 11 cyfr całości + kropka + 8 cyfr ułamka
+    public static final int MAX_FORMAT_LENGTH = 21;
+
+    private Money() {
+    }
+
+    // --- Konwersje ---
+
+    // Zaokrąglenie do najbliższej jednostki
+    public static long of(double value) {
+        if (!(Math.abs(value) < MAX_DOUBLE)) {
+            throw new IllegalArgumentException("Amount out of fixed-point range: " + value);
+        }
+        return Math.round(value * SCALE);
+    }
+
+    public static double toDouble(long units) {
+        return units / (double) SCALE;
+    }
+
+    // Wartość double leżąca na siatce 1e-8 (ceny w Asset i Order)
+    public static double quantize(double value) {
+        return toDouble(of(value));
+    }
+
+    // --- Arytmetyka ---
+
+    public static long add(long a, long b) {
+        return Math.addExact(a, b);
+    }
+
+    public static long subtract(long a, long b) {
+        return Math.subtractExact(a, b);
+    }
+
+    // Cena jednostkowa * ilość - dokładnie
+    public static long times(long unitPrice, long quantity) {
+        return Math.multiplyExact(unitPrice, quantity);
+    }
+
+    // amount * numerator / denominator z zaokrągleniem (np. średni koszt części pozycji)
+    public static long mulDiv(long amount, long numerator, long denominator) {
+        if (denominator == 0) throw new ArithmeticException("Division by zero");
+        long high = Math.multiplyHigh(amount, numerator);
+        long low = amount * numerator;
+        // Iloczyn mieści się w long - zwykłe dzielenie z zaokrągleniem połówek od zera
+        if (high == (low >> 63)) {
+            long quotient = low / denominator;
+            long remainder = low % denominator;
+            if (Math.abs(remainder) * 2 >= Math.abs(denominator)) {
+                quotient += (low < 0) == (denominator < 0) ? 1 : -1;
+            }
+            return quotient;
+        }
+        return BigDecimal.valueOf(amount).multiply(BigDecimal.valueOf(numerator))
+                .divide(BigDecimal.valueOf(denominator), 0, RoundingMode.HALF_UP)
+                .longValueExact();
+    }
+
+    // --- Tekst ---
+
+    // Dokładny zapis dziesiętny: co najmniej 2 cyfry po kropce, bez zbędnych zer (150.00, 0.07, 150.256)
+    public static String format(long units) {
+        char[] buffer = new char[MAX_FORMAT_LENGTH];
+        int length = format(units, buffer, 0);
+        return new String(buffer, 0, length);
+    }
+
+    // Zapis do bufora znaków od pozycji offset (musi być miejsce na MAX_FORMAT_LENGTH); zwraca nową pozycję
+    public static int format(long units, char[] buffer, int offset) {
+        int position = offset;
+        long whole = units / SCALE;
+        long fraction = units % SCALE;
+        if (units < 0) {
+            buffer[position++] = '-';
+            whole = -whole;
+            fraction = -fraction;
+        }
+
+        int digits = 1;
+        for (long v = whole; v >= 10; v /= 10) digits++;
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + whole % 10);
+            whole /= 10;
+        }
+        position += digits;
+
+        buffer[position++] = '.';
+        int fractionDigits = FRACTION_DIGITS;
+        while (fractionDigits > 2 && fraction % 10 == 0) {
+            fraction /= 10;
+            fractionDigits--;
+        }
+        for (int i = position + fractionDigits - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        return position + fractionDigits;
+    }
+
+    public static long parse(String text) {
+        long units = parse(text.toCharArray(), 0, text.length());
+        if (units == Long.MIN_VALUE) {
+            throw new IllegalArgumentException("Invalid amount: " + text);
+        }
+        return units;
+    }
+
+    // [-]cyfry[.cyfry] bez wykładnika, najwyżej 8 cyfr po kropce; Long.MIN_VALUE = niepoprawny zapis
+    public static long parse(char[] text, int start, int end) {
+        boolean negative = start < end && text[start] == '-';
+        int i = negative || (start < end && text[start] == '+') ? start + 1 : start;
+
+        long whole = 0;
+        boolean anyDigit = false;
+        for (; i < end; i++) {
+            char c = text[i];
+            if (c < '0' || c > '9') break;
+            whole = whole * 10 + (c - '0');
+            anyDigit = true;
+            if (whole > Long.MAX_VALUE / SCALE) return Long.MIN_VALUE;
+        }
+
+        long fraction = 0;
+        int fractionDigits = 0;
+        if (i < end && text[i] == '.') {
+            for (i++; i < end; i++) {
+                char c = text[i];
+                if (c < '0' || c > '9' || fractionDigits == FRACTION_DIGITS) return Long.MIN_VALUE;
+                fraction = fraction * 10 + (c - '0');
+                fractionDigits++;
+                anyDigit = true;
+            }
+        }
+        if (!anyDigit || i != end) return Long.MIN_VALUE;
+
+        for (int d = fractionDigits; d < FRACTION_DIGITS; d++) fraction *= 10;
+        if (whole > (Long.MAX_VALUE - fraction) / SCALE) return Long.MIN_VALUE;
+        long units = whole * SCALE + fraction;
+        return negative ? -units : units;
+    }
+}
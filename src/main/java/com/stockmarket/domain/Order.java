@@ -2,27 +2,52 @@ package com.stockmarket.domain;
 
 public class Order {
     private final String symbol;
+    private final int symbolId;
     private final AssetType assetType;
-    private final double priceLimit; // Cena, po której chcemy kupić/sprzedać
+    private final double priceLimit; // Cena, po której chcemy kupić/sprzedać (na siatce Money)
+    private final long priceLimitUnits;
     private final int quantity;
     private final OrderType type;
+    private final TimeInForce timeInForce;
 
     public Order(String symbol, AssetType assetType, double priceLimit, int quantity, OrderType type) {
-        if (priceLimit <= 0 || quantity <= 0) {
+        this(symbol, assetType, priceLimit, quantity, type, TimeInForce.GTC);
+    }
+
+    public Order(String symbol, AssetType assetType, double priceLimit, int quantity, OrderType type,
+                 TimeInForce timeInForce) {
+        long limitUnits = priceLimit > 0 ? Money.of(priceLimit) : 0;
+        if (limitUnits <= 0 || quantity <= 0) {
             throw new IllegalArgumentException("Price and quantity must be positive.");
         }
-        this.symbol = symbol;
+        if (timeInForce == null) {
+            throw new IllegalArgumentException("Time in force cannot be null.");
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("Order type cannot be null.");
+        }
+        // Realizacja BUY tworzy nowy lot przez AssetFactory - bez typu zawiodłaby dopiero po stronie sprzedającego
+        if (type == OrderType.BUY && assetType == null) {
+            throw new IllegalArgumentException("BUY order needs an asset type.");
+        }
+        this.symbolId = SymbolRegistry.intern(symbol);
+        this.symbol = SymbolRegistry.symbolOf(symbolId);
         this.assetType = assetType;
-        this.priceLimit = priceLimit;
+        this.priceLimitUnits = limitUnits;
+        this.priceLimit = Money.toDouble(limitUnits);
         this.quantity = quantity;
         this.type = type;
+        this.timeInForce = timeInForce;
     }
 
     public String getSymbol() { return symbol; }
+    public int getSymbolId() { return symbolId; }
     public double getPriceLimit() { return priceLimit; }
+    public long getPriceLimitUnits() { return priceLimitUnits; }
     public int getQuantity() { return quantity; }
     public OrderType getType() { return type; }
     public AssetType getAssetType() { return assetType; }
+    public TimeInForce getTimeInForce() { return timeInForce; }
 
     @Override
     public String toString() {
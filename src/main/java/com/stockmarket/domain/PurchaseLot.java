@@ -1,27 +1,49 @@
 package com.stockmarket.domain;
 
 public class PurchaseLot {
+    private final long lotId;
     private final long purchaseDate; 
-    private final double unitPrice;
+    private final long unitPrice; // jednostki Money
     private int quantity; 
 
     public PurchaseLot(long purchaseDate, double unitPrice, int quantity) {
+        this(0, purchaseDate, unitPrice, quantity);
+    }
+
+    // Dla widoków (flyweight), które nadpisują gettery i czytają dane z innego magazynu
+    protected PurchaseLot() {
+        this.lotId = 0;
+        this.purchaseDate = 0;
+        this.unitPrice = 0;
+        this.quantity = 0;
+    }
+
+    public PurchaseLot(long lotId, long purchaseDate, double unitPrice, int quantity) {
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be positive");
         }
         if (unitPrice < 0) {
             throw new IllegalArgumentException("Price cannot be negative");
         }
+        this.lotId = lotId;
         this.purchaseDate = purchaseDate;
-        this.unitPrice = unitPrice;
+        this.unitPrice = Money.of(unitPrice);
         this.quantity = quantity;
     }
 
+    public long getLotId() {
+        return lotId;
+    }
+
     public long getPurchaseDate() {
         return purchaseDate;
     }
 
     public double getUnitPrice() {
+        return Money.toDouble(unitPrice);
+    }
+
+    public long getUnitPriceUnits() {
         return unitPrice;
     }
 
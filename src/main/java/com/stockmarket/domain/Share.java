@@ -17,15 +17,34 @@ public class Share extends Asset {
 
     @Override
     public double calculateInitialCost(int quantity) {
-        double transactionValue = quantity * super.marketPrice;
-        
-        if (transactionValue < SMALL_TRANSACTION_THRESHOLD){
+        if (isSmallTransaction(quantity)){
             return TRANSACTION_FEE;
         } else {
             return 0.0;
         }
     }
 
+    public boolean isSmallTransaction(int quantity) {
+        double transactionValue = quantity * super.marketPrice;
+        return transactionValue < SMALL_TRANSACTION_THRESHOLD;
+    }
+
+    // Największa ilość, dla której transakcja jest jeszcze "mała" (0 = żadna)
+    public int getSmallTransactionLimit() {
+        double estimate = Math.ceil(SMALL_TRANSACTION_THRESHOLD / super.marketPrice) - 1;
+        if (estimate >= Integer.MAX_VALUE) return Integer.MAX_VALUE;
+        int limit = (int) Math.max(0, estimate);
+        // Korekta o błąd zaokrąglenia dzielenia - granica zgodna z isSmallTransaction
+        while (limit < Integer.MAX_VALUE && isSmallTransaction(limit + 1)) limit++;
+        while (limit > 0 && !isSmallTransaction(limit)) limit--;
+        return limit;
+    }
+
+    // Wycena pozycji z agregatów: opłata dotyczy każdego małego lotu osobno
+    public double calculatePositionValue(long totalQuantity, int smallLots) {
+        return super.marketPrice * totalQuantity - smallLots * TRANSACTION_FEE;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
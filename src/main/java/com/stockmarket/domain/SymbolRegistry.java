@@ -0,0 +1,65 @@
+package com.stockmarket.domain;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+// Globalny rejestr symboli: każdy symbol dostaje przy pierwszym użyciu gęste id (0, 1, 2, ...).
+// Asset i Order niosą id, więc portfel i księgi zleceń indeksują tablicami zamiast haszować Stringi.
+// Rejestr trzyma też kanoniczną instancję symbolu - wiele aktywów o tym samym symbolu dzieli jeden String.
+// Id są ważne tylko w obrębie procesu (pliki zapisują symbole tekstem albo własne słowniki).
+// Symbole nie są usuwane - rejestr rośnie do rozmiaru używanego uniwersum.
+public final class SymbolRegistry {
+
+    private static final ConcurrentHashMap<String, Integer> IDS = new ConcurrentHashMap<>();
+    private static final Object LOCK = new Object();
+    // Zapis pod LOCK; wpis trafia do tablicy przed IDS.put, więc id z mapy zawsze ma już swój symbol
+    private static volatile String[] symbols = new String[1024];
+    private static volatile int size;
+
+    private SymbolRegistry() {}
+
+    // Zwraca id symbolu, nadając nowe przy pierwszym użyciu
+    public static int intern(String symbol) {
+        // ConcurrentHashMap nie przyjmuje null - walidacja przed odczytem z mapy
+        if (symbol == null) {
+            throw new IllegalArgumentException("Symbol cannot be empty.");
+        }
+        Integer id = IDS.get(symbol);
+        if (id != null) return id;
+        if (symbol.trim().isEmpty()) {
+            throw new IllegalArgumentException("Symbol cannot be empty.");
+        }
+        synchronized (LOCK) {
+            id = IDS.get(symbol);
+            if (id != null) return id;
+
+            int next = size;
+            String[] table = symbols;
+            if (next == table.length) {
+                String[] grown = new String[table.length * 2];
+                System.arraycopy(table, 0, grown, 0, next);
+                table = grown;
+            }
+            table[next] = symbol;
+            symbols = table;
+            size = next + 1;
+            IDS.put(symbol, next);
+            return next;
+        }
+    }
+
+    // Id bez rejestrowania; -1 = symbol jeszcze nie wystąpił
+    public static int find(String symbol) {
+        if (symbol == null) return -1;
+        Integer id = IDS.get(symbol);
+        return id != null ? id : -1;
+    }
+
+    public static String symbolOf(int id) {
+        if (id < 0 || id >= size) {
+            throw new IllegalArgumentException("Unknown symbol id: " + id);
+        }
+        return symbols[id];
+    }
+
+    public static int size() { return size; }
+}
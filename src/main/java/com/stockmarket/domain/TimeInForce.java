@@ -0,0 +1,14 @@
+package com.stockmarket.domain;
+
+// Ważność zlecenia
+public enum TimeInForce {
+    GTC,    // do anulowania
+    DAY,    // do końca dnia złożenia (wygasa przy zmianie dnia)
+    IOC,    // natychmiast - niezrealizowana część jest anulowana
+    FOK;    // w całości od razu albo wcale
+
+    // Czy niezrealizowana część czeka w księdze
+    public boolean restsInBook() {
+        return this == GTC || this == DAY;
+    }
+}
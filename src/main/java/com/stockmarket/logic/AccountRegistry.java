@@ -0,0 +1,230 @@
+package com.stockmarket.logic;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Rejestr wielu kont (portfeli) z równoległym zamknięciem dnia.
+//
+// Konta leżą w tablicy w kolejności rejestracji; zamknięcie dnia dzieli jej zakres rekurencyjnie
+// na zadania ForkJoin (po batchSize kont), a wolne wątki kradną niezrobione połowy - konta z dużą
+// liczbą lotów nie blokują reszty. Każde konto jest w danym momencie obsługiwane przez jeden wątek,
+// więc Portfolio nie potrzebuje blokad; sumy częściowe są łączone przy join(). Drzewo podziału zależy
+// tylko od liczby kont i batchSize, więc sumy są identyczne niezależnie od liczby wątków.
+//
+// Zamknięcie dnia konta: advanceTime (wygasają zlecenia DAY, nowy dzień nalicza koszt składowania
+// surowców przy wycenie), pełna wycena i - dla kont trwałych - opcjonalny checkpoint.
+// Rejestr nie jest bezpieczny wątkowo: rejestracja i runEndOfDay z jednego wątku sterującego,
+// a w trakcie runEndOfDay nikt inny nie może zmieniać portfeli.
+public class AccountRegistry {
+
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    private final ForkJoinPool pool;
+    private final Map<String, Integer> indexById = new HashMap<>();
+    private Account[] accounts = new Account[16];
+    private int size;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+
+    public AccountRegistry() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public AccountRegistry(ForkJoinPool pool) {
+        if (pool == null) throw new IllegalArgumentException("Pool cannot be null.");
+        this.pool = pool;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive.");
+        this.batchSize = batchSize;
+    }
+
+    // --- Rejestracja ---
+
+    public void register(String accountId, Portfolio portfolio) {
+        if (portfolio == null) throw new IllegalArgumentException("Portfolio cannot be null.");
+        add(accountId, portfolio, null);
+    }
+
+    // Konto trwałe - zamknięcie dnia może zrobić jego checkpoint
+    public void register(String accountId, DurablePortfolioStore store) {
+        if (store == null) throw new IllegalArgumentException("Store cannot be null.");
+        add(accountId, store.getPortfolio(), store);
+    }
+
+    private void add(String accountId, Portfolio portfolio, DurablePortfolioStore store) {
+        if (accountId == null || accountId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Account id cannot be empty.");
+        }
+        if (indexById.containsKey(accountId)) {
+            throw new IllegalArgumentException("Account already registered: " + accountId);
+        }
+        if (size == accounts.length) {
+            accounts = Arrays.copyOf(accounts, size * 2);
+        }
+        indexById.put(accountId, size);
+        accounts[size++] = new Account(accountId, portfolio, store);
+    }
+
+    // Usunięcie przenosi ostatnie konto na zwolnione miejsce - O(1), kolejność kont się zmienia
+    public boolean unregister(String accountId) {
+        Integer index = indexById.remove(accountId);
+        if (index == null) return false;
+        Account last = accounts[--size];
+        accounts[size] = null;
+        if (index < size) {
+            accounts[index] = last;
+            indexById.put(last.id, index);
+        }
+        return true;
+    }
+
+    public Portfolio getPortfolio(String accountId) {
+        Integer index = indexById.get(accountId);
+        return index != null ? accounts[index].portfolio : null;
+    }
+
+    public int size() { return size; }
+
+    // --- Zamknięcie Dnia ---
+
+    public EndOfDayResult runEndOfDay(int days, boolean checkpoint) {
+        if (days < 0) throw new IllegalArgumentException("Days cannot be negative.");
+        Totals totals = size == 0 ? new Totals() : pool.invoke(new EndOfDayTask(accounts, days, checkpoint, 0, size));
+        String[] failed = totals.failedIds != null ? Arrays.copyOf(totals.failedIds, totals.failedCount) : new String[0];
+        if (totals.count == 0) {
+            return new EndOfDayResult(0, 0.0, 0.0, 0.0, 0.0, 0.0, null, null, failed);
+        }
+        return new EndOfDayResult(totals.count, totals.cash, totals.reservedCash, totals.holdingsValue,
+                totals.minValue, totals.maxValue, totals.minAccount, totals.maxAccount, failed);
+    }
+
+    // Błąd jednego konta (np. zapis checkpointu) nie przerywa pozostałych - trafia do listy nieudanych
+    private static void closeDay(Account account, int days, boolean checkpoint, Totals totals) {
+        try {
+            Portfolio portfolio = account.portfolio;
+            portfolio.advanceTime(days);
+            double holdingsValue = portfolio.calculateHoldingsValue();
+            if (checkpoint && account.store != null) {
+                account.store.checkpoint();
+            }
+            totals.add(account.id, portfolio.getCash(), portfolio.getReservedCash(), holdingsValue);
+        } catch (RuntimeException e) {
+            totals.fail(account.id);
+        }
+    }
+
+    // --- Zadania ForkJoin ---
+
+    private final class EndOfDayTask extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+
+        // Tablica przekazana jawnie - zadania nie czytają pola accounts, które rośnie przy rejestracji
+        private final Account[] snapshot;
+        private final int days;
+        private final boolean checkpoint;
+        private final int from;
+        private final int to;
+
+        EndOfDayTask(Account[] snapshot, int days, boolean checkpoint, int from, int to) {
+            this.snapshot = snapshot;
+            this.days = days;
+            this.checkpoint = checkpoint;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= batchSize) {
+                Totals totals = new Totals();
+                for (int i = from; i < to; i++) {
+                    closeDay(snapshot[i], days, checkpoint, totals);
+                }
+                return totals;
+            }
+            int middle = (from + to) >>> 1;
+            EndOfDayTask left = new EndOfDayTask(snapshot, days, checkpoint, from, middle);
+            EndOfDayTask right = new EndOfDayTask(snapshot, days, checkpoint, middle, to);
+            left.fork();
+            Totals result = right.compute();
+            // Kolejność lewa + prawa jak w pętli sekwencyjnej - te same sumy przy każdej liczbie wątków
+            return left.join().merge(result);
+        }
+    }
+
+    // Sumy częściowe jednego poddrzewa zadań
+    private static final class Totals {
+        long count;
+        double cash;
+        double reservedCash;
+        double holdingsValue;
+        double minValue = Double.POSITIVE_INFINITY;
+        double maxValue = Double.NEGATIVE_INFINITY;
+        String minAccount;
+        String maxAccount;
+        // Zwykle puste - tablica powstaje dopiero przy pierwszym błędzie
+        String[] failedIds;
+        int failedCount;
+
+        void add(String accountId, double accountCash, double accountReserved, double accountHoldings) {
+            count++;
+            cash += accountCash;
+            reservedCash += accountReserved;
+            holdingsValue += accountHoldings;
+            double value = accountCash + accountReserved + accountHoldings;
+            if (value < minValue) {
+                minValue = value;
+                minAccount = accountId;
+            }
+            if (value > maxValue) {
+                maxValue = value;
+                maxAccount = accountId;
+            }
+        }
+
+        void fail(String accountId) {
+            if (failedIds == null) {
+                failedIds = new String[4];
+            } else if (failedCount == failedIds.length) {
+                failedIds = Arrays.copyOf(failedIds, failedCount * 2);
+            }
+            failedIds[failedCount++] = accountId;
+        }
+
+        Totals merge(Totals other) {
+            count += other.count;
+            cash += other.cash;
+            reservedCash += other.reservedCash;
+            holdingsValue += other.holdingsValue;
+            // Przy remisie wygrywa konto wcześniejsze w tablicy (lewa strona)
+            if (other.minValue < minValue) {
+                minValue = other.minValue;
+                minAccount = other.minAccount;
+            }
+            if (other.maxValue > maxValue) {
+                maxValue = other.maxValue;
+                maxAccount = other.maxAccount;
+            }
+            for (int i = 0; i < other.failedCount; i++) {
+                fail(other.failedIds[i]);
+            }
+            return this;
+        }
+    }
+
+    private static final class Account {
+        final String id;
+        final Portfolio portfolio;
+        final DurablePortfolioStore store;
+
+        Account(String id, Portfolio portfolio, DurablePortfolioStore store) {
+            this.id = id;
+            this.portfolio = portfolio;
+            this.store = store;
+        }
+    }
+}
@@ -0,0 +1,390 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetFactory;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.CostBasisMethod;
+import com.stockmarket.domain.Money;
+import com.stockmarket.domain.Share;
+
+// Stan posiadania jednego symbolu: definicja aktywa, loty i agregaty
+class AssetEntry {
+    // Zawsze własna kopia pozycji (ustawiana przez define) - obiekt przekazany do addAsset zostaje u wołającego,
+    // więc zmiana jego ceny nie omija wyceny przyrostowej. Tylko do odczytu poza AssetEntry.
+    Asset assetDefinition;
+    // Loty w kolejności zakupu, z indeksami dla LIFO/HIFO/konkretnego lotu (w trybie leniwym - tylko wczytane)
+    private LotStore lots;
+    int reservedQuantity; // Ilość zablokowana przez oczekujące zlecenia SELL
+
+    // Agregaty aktualizowane przy każdym zakupie/sprzedaży (bez iterowania po lotach)
+    private int totalQuantity;
+    private long costBasis;         // suma (ilość * cena zakupu), jednostki Money - dokładnie
+    private long quantityDaySum;    // suma (ilość * dzień zakupu)
+    private long maxPurchaseDay;    // ograniczenie górne dnia zakupu
+    private int maxDayQuantity;     // ilość z lotów kupionych w maxPurchaseDay
+
+    // Loty wg ilości - liczba "małych" lotów akcji (z opłatą) dla dowolnej ceny bez przeglądania lotów
+    private final QuantityHistogram lotQuantities = new QuantityHistogram();
+
+    // Ostatnia wycena - ważna, dopóki nie zmienią się loty, definicja aktywa ani (dla surowców) dzień
+    private boolean valueValid;
+    private double cachedValue;
+    private int cachedDay;
+    private Asset cachedAsset;
+    private double cachedPrice;
+
+    // Księgowanie Portfolio: wartość wliczona do sumy portfela i znacznik listy "do przeliczenia"
+    double contributedValue;
+    boolean valuationDirty;
+
+    // Tryb leniwy: loty [nextLot, endLot) są jeszcze tylko w pliku; pager == null - wszystkie loty w pamięci.
+    // Dopóki pozycja jest podpięta, loty schodzą wyłącznie z początku (FIFO), więc wczytane loty to zawsze
+    // [nextLot - lots.size(), nextLot) z pliku, z ewentualnie częściowo sprzedanym pierwszym lotem.
+    private LotPager pager;
+    private int nextLot;
+    private int endLot;
+    private int headQuantity = -1;  // ilość pierwszego lotu do wczytania (-1 = jak w pliku)
+    private int pagedLots;          // loty wczytane od ostatniego oddania - liczone do limitu pagera
+
+    AssetEntry(Asset asset) {
+        define(asset);
+        this.lots = new LotStore();
+    }
+
+    // Nowa definicja (cena z ostatniego zakupu): kopia przy pierwszym wpisie albo zmianie typu,
+    // potem cena zmieniana w miejscu
+    void define(Asset asset) {
+        if (assetDefinition == null || assetDefinition.getType() != asset.getType()) {
+            assetDefinition = AssetFactory.create(asset.getType(), asset.getSymbol(), asset.getMarketPrice());
+        } else if (assetDefinition.getMarketPriceUnits() != asset.getMarketPriceUnits()) {
+            assetDefinition.setMarketPrice(asset.getMarketPrice());
+        }
+        valueValid = false;
+    }
+
+    void addLot(long lotId, long purchaseDay, long price, int quantity) {
+        // Nowy lot musi trafić za loty z pliku
+        detachLots();
+        lots.add(lotId, purchaseDay, price, quantity);
+        valueValid = false;
+        addAggregates(purchaseDay, price, quantity);
+    }
+
+    private void addAggregates(long purchaseDay, long price, int quantity) {
+        if (totalQuantity == 0 || purchaseDay > maxPurchaseDay) {
+            maxPurchaseDay = purchaseDay;
+            maxDayQuantity = quantity;
+        } else if (purchaseDay == maxPurchaseDay) {
+            maxDayQuantity += quantity;
+        }
+        totalQuantity += quantity;
+        costBasis = Money.add(costBasis, Money.times(price, quantity));
+        quantityDaySum += quantity * purchaseDay;
+        lotQuantities.add(quantity);
+    }
+
+    // --- Tryb leniwy ---
+
+    // Podpina zakres [firstLot, firstLot + count) kolumn snapshotu: agregaty z jednego przejścia po kolumnach
+    // (bez zapisu lotów), z tą samą walidacją co LotStore.add. Zwraca największe lotId.
+    long attachLots(LotPager source, int firstLot, int count) {
+        long previousId = Long.MIN_VALUE;
+        for (int lot = firstLot, end = firstLot + count; lot < end; lot++) {
+            int quantity = source.quantityAt(lot);
+            long price = source.unitPriceAt(lot);
+            long lotId = source.lotIdAt(lot);
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive");
+            }
+            if (price < 0) {
+                throw new IllegalArgumentException("Price cannot be negative");
+            }
+            if (lotId <= previousId) {
+                throw new IllegalArgumentException("Lot ids must be increasing.");
+            }
+            previousId = lotId;
+            addAggregates(source.purchaseDayAt(lot), price, quantity);
+        }
+        this.pager = source;
+        this.nextLot = firstLot;
+        this.endLot = firstLot + count;
+        return previousId;
+    }
+
+    // Wszystkie loty (wczytane i z pliku); O(1)
+    int lotCount() {
+        return pager != null ? lots.size() + endLot - nextLot : lots.size();
+    }
+
+    int residentLotCount() {
+        return lots.size();
+    }
+
+    // Pełny dostęp do lotów (zapis, eksport, iteracja): wczytuje resztę z pliku, ale pozycja
+    // zostaje podpięta i może oddać loty, gdy w pamięci zabraknie miejsca dla innych pozycji
+    LotStore lots() {
+        if (pager != null) {
+            if (nextLot < endLot) {
+                pageIn(endLot - nextLot);
+            } else {
+                pager.touch(this);
+            }
+        }
+        return lots;
+    }
+
+    // Przed zmianą inną niż FIFO (LIFO, HIFO, konkretny lot, nowy lot): wszystkie loty na stałe w pamięci
+    void detachLots() {
+        if (pager == null) return;
+        if (nextLot < endLot) {
+            pageIn(endLot - nextLot);
+        }
+        pager.forget(this, pagedLots);
+        pager = null;
+        pagedLots = 0;
+    }
+
+    private void pageIn(int count) {
+        int from = nextLot;
+        int to = Math.min(endLot, from + count);
+        for (int lot = from; lot < to; lot++) {
+            int quantity = pager.quantityAt(lot);
+            if (headQuantity >= 0) {
+                quantity = headQuantity;
+                headQuantity = -1;
+            }
+            lots.add(pager.lotIdAt(lot), pager.purchaseDayAt(lot), pager.unitPriceAt(lot), quantity);
+        }
+        nextLot = to;
+        if (to > from) {
+            pagedLots += to - from;
+            pager.paged(this, to - from);
+        }
+    }
+
+    // Wywoływane przez pager (LRU): loty wracają do pliku, zapamiętany zostaje tylko stan pierwszego lotu.
+    // Zwraca liczbę lotów zwolnionych z limitu.
+    int evictLots() {
+        int resident = lots.size();
+        if (resident > 0) {
+            nextLot -= resident;
+            headQuantity = lots.quantityAt(lots.firstIndex());
+        }
+        lots = new LotStore();
+        int released = pagedLots;
+        pagedLots = 0;
+        return released;
+    }
+
+    // --- Wycena rynkowa ---
+
+    // Nowa cena rynkowa bez alokacji na tick - definicja jest własna, więc cena zmieniana w miejscu
+    boolean markPrice(double price) {
+        if (Money.quantize(price) == assetDefinition.getMarketPrice()) return false;
+        assetDefinition.setMarketPrice(price);
+        valueValid = false;
+        return true;
+    }
+
+    // --- Sprzedaż ---
+
+    // Zwraca zysk (jednostki Money) liczony względem kosztu nabycia wg wybranej metody
+    long processSale(int quantityToSell, long currentMarketPrice, CostBasisMethod method) {
+        if (pager != null) {
+            if (method == CostBasisMethod.LIFO || method == CostBasisMethod.HIFO) {
+                detachLots();
+            } else {
+                pager.touch(this);
+            }
+        }
+        long totalCostBase;
+
+        switch (method) {
+            case FIFO:
+            case LIFO:
+            case HIFO:
+                totalCostBase = consumeLots(quantityToSell, method);
+                break;
+            case AVERAGE_COST:
+                // Koszt wg średniej ceny, a loty (ilość, dni magazynowania) schodzą FIFO.
+                // Pula kosztów maleje o koszt średni, nie o koszt zdjętych lotów - inaczej średnia by dryfowała.
+                long averageCostBase = Money.mulDiv(costBasis, quantityToSell, totalQuantity);
+                long lotCostBase = consumeLots(quantityToSell, CostBasisMethod.FIFO);
+                if (totalQuantity > 0) {
+                    costBasis += lotCostBase - averageCostBase;
+                }
+                totalCostBase = averageCostBase;
+                break;
+            default:
+                throw new IllegalArgumentException("Cost basis method requires a lot id: " + method);
+        }
+
+        return Money.times(currentMarketPrice, quantityToSell) - totalCostBase;
+    }
+
+    // Sprzedaż z konkretnego lotu (SPECIFIC_LOT)
+    long processLotSale(long lotId, int quantityToSell, long currentMarketPrice) {
+        detachLots();
+        int index = lots.indexOf(lotId);
+        if (index < 0) {
+            throw new IllegalArgumentException("Lot not found: " + lotId);
+        }
+        if (lots.quantityAt(index) < quantityToSell) {
+            throw new IllegalArgumentException("Not enough quantity in lot " + lotId);
+        }
+        long totalCostBase = takeFromLot(index, quantityToSell);
+        return Money.times(currentMarketPrice, quantityToSell) - totalCostBase;
+    }
+
+    private long consumeLots(int quantityToSell, CostBasisMethod method) {
+        int remainingToSell = quantityToSell;
+        long totalCostBase = 0;
+
+        // Bez alokacji: każdy krok bierze kolejny lot z odpowiedniego indeksu
+        while (remainingToSell > 0) {
+            int index;
+            if (method == CostBasisMethod.LIFO) {
+                index = lots.lastIndex();
+            } else if (method == CostBasisMethod.HIFO) {
+                index = lots.highestPricedIndex();
+            } else {
+                index = lots.firstIndex();
+                if (index < 0 && pager != null) {
+                    // Wczytane loty się skończyły - następna strona początku historii
+                    pageIn(LotPager.PAGE_SIZE);
+                    index = lots.firstIndex();
+                }
+            }
+
+            int quantityFromLot = Math.min(remainingToSell, lots.quantityAt(index));
+            totalCostBase += takeFromLot(index, quantityFromLot);
+            remainingToSell -= quantityFromLot;
+        }
+        return totalCostBase;
+    }
+
+    private long takeFromLot(int index, int quantity) {
+        int lotQuantity = lots.quantityAt(index);
+        long unitPrice = lots.unitPriceUnitsAt(index);
+        long purchaseDay = lots.purchaseDayAt(index);
+
+        lotQuantities.remove(lotQuantity);
+        lotQuantities.add(lotQuantity - quantity);
+        // Uwaga: po wyzerowaniu lotu magazyn może przesunąć indeksy
+        lots.decreaseQuantity(index, quantity);
+        valueValid = false;
+        consumeAggregates(purchaseDay, unitPrice, quantity);
+        return unitPrice * quantity;
+    }
+
+    private void consumeAggregates(long purchaseDay, long unitPrice, int quantity) {
+        totalQuantity -= quantity;
+        costBasis -= unitPrice * quantity;
+        quantityDaySum -= quantity * purchaseDay;
+        if (purchaseDay == maxPurchaseDay) {
+            maxDayQuantity -= quantity;
+        }
+        if (totalQuantity == 0) {
+            // Koszt średni (mulDiv) jest zaokrąglany przy każdej sprzedaży - reszta puli znika z pozycją
+            costBasis = 0;
+            quantityDaySum = 0;
+            maxDayQuantity = 0;
+        }
+    }
+
+    // --- Wycena ---
+
+    double calculateValue(int currentDay) {
+        if (valueValid && cachedAsset == assetDefinition && cachedPrice == assetDefinition.getMarketPrice()
+                && (cachedDay == currentDay || !isDayDependent())) {
+            return cachedValue;
+        }
+        cachedValue = computeValue(currentDay);
+        cachedDay = currentDay;
+        cachedAsset = assetDefinition;
+        cachedPrice = assetDefinition.getMarketPrice();
+        valueValid = true;
+        return cachedValue;
+    }
+
+    // Czy wycena zmienia się z upływem dni (koszt magazynowania surowców)
+    boolean isDayDependent() {
+        AssetType type = assetDefinition.getType();
+        return type != AssetType.SHARE && type != AssetType.CURRENCY;
+    }
+
+    private double computeValue(int currentDay) {
+        if (totalQuantity == 0) return 0.0;
+
+        switch (assetDefinition.getType()) {
+            case CURRENCY:
+                // Spread jest liniowy względem ilości - cała pozycja naraz
+                return assetDefinition.calculateRealValue(totalQuantity, 0);
+            case COMMODITY:
+                if (currentDay >= maxPurchaseDay) {
+                    // Loty kupione dziś są liczone jako 1 dzień (jak w Commodity)
+                    long sameDayQuantity = currentDay == maxPurchaseDay ? maxDayQuantity : 0;
+                    long quantityDays = (long) totalQuantity * currentDay - quantityDaySum + sameDayQuantity;
+                    Commodity commodity = (Commodity) assetDefinition;
+                    return commodity.getMarketPrice() * totalQuantity - commodity.calculateStorageCost(quantityDays);
+                }
+                // Loty "z przyszłości" (np. wczytane z pliku) - liczymy dokładnie
+                return calculateValueByLots(currentDay);
+            case SHARE:
+                Share share = (Share) assetDefinition;
+                int smallLots = lotQuantities.countAtMost(share.getSmallTransactionLimit());
+                if (smallLots < 0) {
+                    smallLots = countSmallLotsByScan(share);
+                }
+                return share.calculatePositionValue(totalQuantity, smallLots);
+            default:
+                return calculateValueByLots(currentDay);
+        }
+    }
+
+    // Liniowy przebieg po kolumnach (bez obiektów lotów)
+    private double calculateValueByLots(int currentDay) {
+        LotStore lots = lots();
+        double value = 0.0;
+        for (int i = lots.start(), end = lots.end(); i < end; i++) {
+            int quantity = lots.quantityAt(i);
+            if (quantity > 0) {
+                int daysHeld = currentDay - (int) lots.purchaseDayAt(i);
+                value += assetDefinition.calculateRealValue(quantity, daysHeld);
+            }
+        }
+        return value;
+    }
+
+    // Tylko dla bardzo niskich cen (próg powyżej zakresu histogramu) przy lotach spoza tego zakresu
+    private int countSmallLotsByScan(Share share) {
+        LotStore lots = lots();
+        int count = 0;
+        for (int i = lots.start(), end = lots.end(); i < end; i++) {
+            int quantity = lots.quantityAt(i);
+            if (quantity > 0 && share.isSmallTransaction(quantity)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // --- Gettery ---
+
+    int getTotalQuantity() {
+        return totalQuantity;
+    }
+
+    int getAvailableQuantity() {
+        return totalQuantity - reservedQuantity;
+    }
+
+    long getCostBasis() {
+        return costBasis;
+    }
+
+    long getQuantityDaySum() {
+        return quantityDaySum;
+    }
+}
@@ -0,0 +1,52 @@
+package com.stockmarket.logic;
+
+import java.util.Locale;
+
+// Podsumowanie przebiegu backtestu - same liczniki, krzywa kapitału idzie strumieniowo do EquityListener
+public final class BacktestResult {
+
+    private final long barCount;
+    private final int dayCount;
+    private final int firstDay;
+    private final int lastDay;
+    private final long filledQuantity;
+    private final double initialEquity;
+    private final double finalEquity;
+    private final double peakEquity;
+    private final double maxDrawdown;
+
+    BacktestResult(long barCount, int dayCount, int firstDay, int lastDay, long filledQuantity,
+                   double initialEquity, double finalEquity, double peakEquity, double maxDrawdown) {
+        this.barCount = barCount;
+        this.dayCount = dayCount;
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+        this.filledQuantity = filledQuantity;
+        this.initialEquity = initialEquity;
+        this.finalEquity = finalEquity;
+        this.peakEquity = peakEquity;
+        this.maxDrawdown = maxDrawdown;
+    }
+
+    public long getBarCount() { return barCount; }
+    public int getDayCount() { return dayCount; }
+    public int getFirstDay() { return firstDay; }
+    public int getLastDay() { return lastDay; }
+    // Łączna ilość ze zleceń oczekujących zrealizowanych względem świec
+    public long getFilledQuantity() { return filledQuantity; }
+    public double getInitialEquity() { return initialEquity; }
+    public double getFinalEquity() { return finalEquity; }
+    public double getPeakEquity() { return peakEquity; }
+    // Największy spadek od szczytu jako ułamek szczytu (0.25 = -25%)
+    public double getMaxDrawdown() { return maxDrawdown; }
+
+    public double getTotalReturn() {
+        return initialEquity > 0 ? finalEquity / initialEquity - 1.0 : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "bars=%d days=%d equity %.2f -> %.2f (return %.2f%%, max drawdown %.2f%%)",
+                barCount, dayCount, initialEquity, finalEquity, getTotalReturn() * 100, maxDrawdown * 100);
+    }
+}
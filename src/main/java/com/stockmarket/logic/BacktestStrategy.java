@@ -0,0 +1,12 @@
+package com.stockmarket.logic;
+
+// Strategia wywoływana przez Backtester dla każdej świecy.
+// Bar jest współdzielony - ważny tylko do powrotu z onBar.
+@FunctionalInterface
+public interface BacktestStrategy {
+
+    void onBar(Bar bar, Portfolio portfolio);
+
+    // Po ostatniej świecy dnia, gdy pozycje są już wycenione po cenach zamknięcia
+    default void onDayEnd(int day, Portfolio portfolio) {}
+}
@@ -0,0 +1,131 @@
+package com.stockmarket.logic;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+// Backtest strategii na historii OHLC: świece są czytane strumieniowo ze źródła (BarSource),
+// a portfel przechodzi przez kolejne dni tak jak w symulacji na żywo.
+//
+// Dla każdej świecy:  zmiana dnia -> advanceTime, realizacja zleceń oczekujących względem open/low/high,
+//                     tick ceny zamknięcia do feedu, wywołanie strategii.
+// Na koniec dnia:     jedna partia ticków (mark-to-market), onDayEnd strategii, punkt krzywej kapitału.
+// Nic nie jest zatrzymywane w pamięci per świeca ani per dzień - wynik to same liczniki.
+public class Backtester {
+
+    // Punkt krzywej kapitału (koniec dnia); gotówka zawiera kwoty zarezerwowane przez zlecenia BUY
+    @FunctionalInterface
+    public interface EquityListener {
+        void onEquity(int day, double cash, double holdingsValue);
+    }
+
+    private final Portfolio portfolio;
+    private final PriceFeed feed;
+
+    // Id symbolu ze źródła -> id w feedzie + 1 (0 = jeszcze nie zarejestrowany)
+    private int[] feedIds = new int[64];
+
+    public Backtester(Portfolio portfolio) {
+        this(portfolio, new PriceFeed());
+    }
+
+    public Backtester(Portfolio portfolio, PriceFeed feed) {
+        if (portfolio == null) throw new IllegalArgumentException("Portfolio cannot be null.");
+        if (feed == null) throw new IllegalArgumentException("Price feed cannot be null.");
+        this.portfolio = portfolio;
+        this.feed = feed;
+    }
+
+    public PriceFeed getFeed() { return feed; }
+
+    // Źródło jest czytane do końca, ale nie zamykane (należy do wywołującego); equity może być null
+    public BacktestResult run(BarSource source, BacktestStrategy strategy, EquityListener equity) throws IOException {
+        if (source == null) throw new IllegalArgumentException("Bar source cannot be null.");
+        if (strategy == null) throw new IllegalArgumentException("Strategy cannot be null.");
+
+        Arrays.fill(feedIds, 0);
+        PriceFeed.PriceListener marker = portfolio::markToMarket;
+        feed.subscribe(marker);
+        try {
+            return replay(source, strategy, equity);
+        } finally {
+            feed.unsubscribe(marker);
+        }
+    }
+
+    private BacktestResult replay(BarSource source, BacktestStrategy strategy, EquityListener equity) throws IOException {
+        Bar bar = new Bar();
+        double initialEquity = equity();
+        double lastEquity = initialEquity;
+        double peak = initialEquity;
+        double maxDrawdown = 0.0;
+
+        long bars = 0;
+        long filled = 0;
+        int days = 0;
+        int firstDay = 0;
+        int day = 0;
+        boolean inDay = false;
+
+        while (source.next(bar)) {
+            if (!inDay || bar.day != day) {
+                if (inDay) {
+                    lastEquity = endDay(day, strategy, equity);
+                    peak = Math.max(peak, lastEquity);
+                    maxDrawdown = Math.max(maxDrawdown, drawdown(lastEquity, peak));
+                }
+                if (bar.day < portfolio.getCurrentDay()) {
+                    throw new DataIntegrityException("Bar day " + bar.day + " is before portfolio day " + portfolio.getCurrentDay());
+                }
+                portfolio.advanceTime(bar.day - portfolio.getCurrentDay());
+                if (!inDay) firstDay = bar.day;
+                day = bar.day;
+                inDay = true;
+                days++;
+            }
+
+            filled += portfolio.matchMarket(bar.symbol, bar.open, bar.low, bar.high);
+            feed.tick(feedId(bar), bar.close);
+            strategy.onBar(bar, portfolio);
+            bars++;
+        }
+        if (inDay) {
+            lastEquity = endDay(day, strategy, equity);
+            peak = Math.max(peak, lastEquity);
+            maxDrawdown = Math.max(maxDrawdown, drawdown(lastEquity, peak));
+        }
+        return new BacktestResult(bars, days, firstDay, inDay ? day : firstDay, filled,
+                initialEquity, lastEquity, peak, maxDrawdown);
+    }
+
+    private double endDay(int day, BacktestStrategy strategy, EquityListener equity) {
+        feed.flush();
+        strategy.onDayEnd(day, portfolio);
+        double cash = portfolio.getCash() + portfolio.getReservedCash();
+        double holdingsValue = portfolio.calculateHoldingsValue();
+        if (equity != null) {
+            equity.onEquity(day, cash, holdingsValue);
+        }
+        return cash + holdingsValue;
+    }
+
+    private static double drawdown(double equity, double peak) {
+        return peak > 0 ? 1.0 - equity / peak : 0.0;
+    }
+
+    private double equity() {
+        return portfolio.getCash() + portfolio.getReservedCash() + portfolio.calculateHoldingsValue();
+    }
+
+    private int feedId(Bar bar) {
+        int sourceId = bar.symbolId;
+        if (sourceId >= feedIds.length) {
+            feedIds = Arrays.copyOf(feedIds, Math.max(feedIds.length * 2, sourceId + 1));
+        }
+        int id = feedIds[sourceId] - 1;
+        if (id < 0) {
+            id = feed.register(bar.symbol);
+            feedIds[sourceId] = id + 1;
+        }
+        return id;
+    }
+}
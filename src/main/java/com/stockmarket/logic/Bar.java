@@ -0,0 +1,54 @@
+package com.stockmarket.logic;
+
+import java.util.Locale;
+
+// Świeca OHLC jednego symbolu z jednego dnia.
+// Obiekt jest wielokrotnego użytku: źródło nadpisuje go przy każdym next(), więc strategia
+// nie może go przechowywać (trzeba skopiować potrzebne wartości).
+public final class Bar {
+
+    int day;
+    int symbolId;
+    String symbol;
+    double open;
+    double high;
+    double low;
+    double close;
+    long volume;
+
+    public int getDay() { return day; }
+    // Id symbolu nadane przez źródło (0..n-1 w kolejności pierwszego wystąpienia)
+    public int getSymbolId() { return symbolId; }
+    public String getSymbol() { return symbol; }
+    public double getOpen() { return open; }
+    public double getHigh() { return high; }
+    public double getLow() { return low; }
+    public double getClose() { return close; }
+    public long getVolume() { return volume; }
+
+    void set(int day, int symbolId, String symbol, double open, double high, double low, double close, long volume) {
+        this.day = day;
+        this.symbolId = symbolId;
+        this.symbol = symbol;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+    }
+
+    // Spójność świecy: low <= open, close <= high i ceny dodatnie
+    boolean isValid() {
+        return isValid(open, high, low, close, volume);
+    }
+
+    static boolean isValid(double open, double high, double low, double close, long volume) {
+        return low > 0 && low <= high && open >= low && open <= high && close >= low && close <= high && volume >= 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%d %s O=%.4f H=%.4f L=%.4f C=%.4f V=%d",
+                day, symbol, open, high, low, close, volume);
+    }
+}
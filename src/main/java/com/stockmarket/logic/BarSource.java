@@ -0,0 +1,11 @@
+package com.stockmarket.logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+// Strumień świec posortowanych rosnąco po dniu (kolejność symboli w obrębie dnia dowolna)
+public interface BarSource extends Closeable {
+
+    // Wypełnia przekazany obiekt kolejną świecą; false = koniec danych
+    boolean next(Bar bar) throws IOException;
+}
@@ -0,0 +1,345 @@
+package com.stockmarket.logic;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetFactory;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.CostBasisMethod;
+import com.stockmarket.domain.Money;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.TimeInForce;
+
+// Binarny snapshot portfela zapisywany i czytany przez pliki mapowane w pamięci.
+//
+// Układ (big endian):
+//   NAGŁÓWEK   magic(int) | wersja(short) | zarezerwowane(short) | cash(double) | dzień(int)
+//              | liczba symboli(int) | liczba lotów(long)
+//   (v2)       | ostatnie id lotu(long) | ostatnie id zlecenia(long) | metoda kosztu(byte) | 3x(byte)
+//              | liczba zleceń(int)
+//   SŁOWNIK    dla każdego symbolu: typ(byte) | długość(ushort) | symbol UTF-8 | cena(double) | liczba lotów(int)
+//   KOLUMNY    unitPrice double[lotów] | quantity int[lotów] | purchaseDay int[lotów] | (v2) lotId long[lotów]
+//   (v2) ZLECENIA  dla każdego zlecenia oczekującego, rosnąco po id:
+//              id(long) | strona(byte) | typ aktywa(byte, -1 = brak) | długość(ushort) | symbol UTF-8
+//              | limit(double) | ilość(int) | pozostało(int)
+// Loty w kolumnach są pogrupowane w kolejności symboli ze słownika.
+// Wersja 2 zapisuje pełny stan (id lotów i zleceń), od którego można odtwarzać dziennik - v1 jest nadal czytana.
+// Wersja 3 ma ten sam układ, ale kwoty (cash, cena, unitPrice, limit) to long w jednostkach Money zamiast double.
+// Wersja 4 dopisuje na końcu zlecenia czas ważności(byte); zlecenia z wcześniejszych wersji to GTC.
+// Odczyt leniwy (v3+) nie kopiuje lotów: pozycje dostają agregaty z jednego przejścia po kolumnach
+// i zakres swoich lotów w pliku (LotPager), z którego wczytują loty dopiero przy potrzebie.
+final class BinaryPortfolioFormat {
+
+    static final int MAGIC = 0x534D5053; // "SMPS"
+    static final short VERSION = 4;
+
+    private static final int HEADER_SIZE = 4 + 2 + 2 + 8 + 4 + 4 + 8 + 8 + 8 + 1 + 3 + 4;
+    private static final int LOT_SIZE_V1 = 8 + 4 + 4;
+    private static final int LOT_SIZE = LOT_SIZE_V1 + 8;
+    private static final int ORDER_FIXED_SIZE = 8 + 1 + 1 + 2 + 8 + 4 + 4;
+    private static final int ORDER_TIF_SIZE = 1;
+
+    private BinaryPortfolioFormat() {
+    }
+
+    // --- Zapis ---
+
+    static void write(Portfolio portfolio, Path path) throws IOException {
+        // Plik zostanie obcięty i nadpisany - portfel wczytany z niego leniwie musi najpierw mieć loty w pamięci
+        if (portfolio.readsLotsFrom(path)) {
+            portfolio.materializeLots();
+        }
+        Collection<AssetEntry> entries = portfolio.entries();
+
+        // Jedno przejście po symbolach, żeby policzyć rozmiar pliku
+        byte[][] symbols = new byte[entries.size()][];
+        long dictionarySize = 0;
+        long lotCount = 0;
+        int s = 0;
+        for (AssetEntry entry : entries) {
+            symbols[s] = entry.assetDefinition.getSymbol().getBytes(StandardCharsets.UTF_8);
+            if (symbols[s].length > 0xFFFF) {
+                throw new DataIntegrityException("Symbol too long for binary format: " + entry.assetDefinition.getSymbol());
+            }
+            dictionarySize += 1 + 2 + symbols[s].length + 8 + 4;
+            lotCount += entry.lotCount();
+            s++;
+        }
+
+        // Zlecenia w kolejności id - przy odtwarzaniu zachowują priorytet czasowy w poziomach cenowych
+        List<OrderBook.RestingOrder> orders = new ArrayList<>(portfolio.openOrders());
+        orders.sort(Comparator.comparingLong(OrderBook.RestingOrder::getOrderId));
+        byte[][] orderSymbols = new byte[orders.size()][];
+        long ordersSize = 0;
+        for (int o = 0; o < orders.size(); o++) {
+            orderSymbols[o] = orders.get(o).getOrder().getSymbol().getBytes(StandardCharsets.UTF_8);
+            if (orderSymbols[o].length > 0xFFFF) {
+                throw new DataIntegrityException("Symbol too long for binary format: " + orders.get(o).getOrder().getSymbol());
+            }
+            ordersSize += ORDER_FIXED_SIZE + ORDER_TIF_SIZE + orderSymbols[o].length;
+        }
+
+        long fileSize = HEADER_SIZE + dictionarySize + lotCount * LOT_SIZE + ordersSize;
+        if (fileSize > Integer.MAX_VALUE) {
+            throw new DataIntegrityException("Portfolio too large for a single mapped snapshot: " + fileSize + " bytes");
+        }
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            buffer.putShort((short) 0);
+            buffer.putLong(portfolio.getCashUnits());
+            buffer.putInt(portfolio.getCurrentDay());
+            buffer.putInt(entries.size());
+            buffer.putLong(lotCount);
+            buffer.putLong(portfolio.getLastLotId());
+            buffer.putLong(portfolio.getLastOrderId());
+            buffer.put((byte) portfolio.getCostBasisMethod().ordinal());
+            buffer.put(new byte[3]);
+            buffer.putInt(orders.size());
+
+            s = 0;
+            for (AssetEntry entry : entries) {
+                buffer.put((byte) entry.assetDefinition.getType().ordinal());
+                buffer.putShort((short) symbols[s].length);
+                buffer.put(symbols[s]);
+                buffer.putLong(entry.assetDefinition.getMarketPriceUnits());
+                buffer.putInt(entry.lotCount());
+                s++;
+            }
+
+            // Kolumny piszemy pozycyjnie - każda ma znany offset początku
+            int priceOffset = buffer.position();
+            int quantityOffset = (int) (priceOffset + lotCount * 8);
+            int dayOffset = (int) (quantityOffset + lotCount * 4);
+            int idOffset = (int) (dayOffset + lotCount * 4);
+            int lot = 0;
+            for (AssetEntry entry : entries) {
+                LotStore lots = entry.lots();
+                for (int i = lots.start(), end = lots.end(); i < end; i++) {
+                    int quantity = lots.quantityAt(i);
+                    if (quantity == 0) continue;
+                    buffer.putLong(priceOffset + lot * 8, lots.unitPriceUnitsAt(i));
+                    buffer.putInt(quantityOffset + lot * 4, quantity);
+                    buffer.putInt(dayOffset + lot * 4, (int) lots.purchaseDayAt(i));
+                    buffer.putLong(idOffset + lot * 8, lots.lotIdAt(i));
+                    lot++;
+                }
+            }
+
+            buffer.position((int) (idOffset + lotCount * 8));
+            for (int o = 0; o < orders.size(); o++) {
+                OrderBook.RestingOrder resting = orders.get(o);
+                Order order = resting.getOrder();
+                buffer.putLong(resting.getOrderId());
+                buffer.put((byte) order.getType().ordinal());
+                buffer.put((byte) (order.getAssetType() != null ? order.getAssetType().ordinal() : -1));
+                buffer.putShort((short) orderSymbols[o].length);
+                buffer.put(orderSymbols[o]);
+                buffer.putLong(order.getPriceLimitUnits());
+                buffer.putInt(order.getQuantity());
+                buffer.putInt(resting.getRemainingQuantity());
+                buffer.put((byte) order.getTimeInForce().ordinal());
+            }
+            buffer.force();
+        }
+    }
+
+    // --- Odczyt ---
+
+    static boolean hasMagic(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < 4) return false;
+            ByteBuffer head = ByteBuffer.allocate(4);
+            while (head.hasRemaining()) {
+                if (channel.read(head) < 0) return false;
+            }
+            return head.getInt(0) == MAGIC;
+        }
+    }
+
+    static Portfolio read(Path path) throws IOException {
+        return read(path, 0);
+    }
+
+    // maxResidentLots > 0 - odczyt leniwy z limitem lotów w pamięci (snapshoty sprzed v3 są wczytywane w całości)
+    static Portfolio read(Path path, long maxResidentLots) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new DataIntegrityException("Snapshot too large to map: " + fileSize + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            return read(buffer, path, maxResidentLots);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new DataIntegrityException("Truncated binary snapshot", e);
+        }
+    }
+
+    private static Portfolio read(MappedByteBuffer buffer, Path path, long maxResidentLots) {
+        if (buffer.getInt() != MAGIC) {
+            throw new DataIntegrityException("Not a binary portfolio snapshot");
+        }
+        short version = buffer.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new DataIntegrityException("Unsupported snapshot version: " + version);
+        }
+        boolean full = version >= 2;
+        boolean exact = version >= 3;
+        boolean timeInForce = version >= 4;
+        buffer.getShort();
+        long cash = exact ? buffer.getLong() : Money.of(buffer.getDouble());
+        int day = buffer.getInt();
+        int symbolCount = buffer.getInt();
+        long lotCount = buffer.getLong();
+        long lastLotId = 0;
+        long lastOrderId = 0;
+        CostBasisMethod method = CostBasisMethod.FIFO;
+        int orderCount = 0;
+        if (full) {
+            lastLotId = buffer.getLong();
+            lastOrderId = buffer.getLong();
+            int methodIndex = buffer.get();
+            CostBasisMethod[] methods = CostBasisMethod.values();
+            if (methodIndex < 0 || methodIndex >= methods.length || methods[methodIndex] == CostBasisMethod.SPECIFIC_LOT) {
+                throw new DataIntegrityException("Invalid cost basis method id in snapshot: " + methodIndex);
+            }
+            method = methods[methodIndex];
+            buffer.position(buffer.position() + 3);
+            orderCount = buffer.getInt();
+        }
+        long lotSize = full ? LOT_SIZE : LOT_SIZE_V1;
+        if (symbolCount < 0 || symbolCount > buffer.remaining() / 15
+                || lotCount < 0 || lotCount * lotSize > buffer.remaining()
+                || orderCount < 0 || orderCount > buffer.remaining() / ORDER_FIXED_SIZE) {
+            throw new DataIntegrityException("Corrupted snapshot header");
+        }
+
+        Portfolio portfolio;
+        try {
+            portfolio = new Portfolio(0.0);
+            portfolio.restoreCash(cash);
+        } catch (IllegalArgumentException e) {
+            throw new DataIntegrityException("Data format error: " + e.getMessage(), e);
+        }
+        portfolio.setCurrentDay(day);
+
+        AssetType[] types = AssetType.values();
+        Asset[] assets = new Asset[symbolCount];
+        int[] lotsPerSymbol = new int[symbolCount];
+        long declaredLots = 0;
+        for (int s = 0; s < symbolCount; s++) {
+            int typeIndex = buffer.get();
+            if (typeIndex < 0 || typeIndex >= types.length) {
+                throw new DataIntegrityException("Unknown asset type id in snapshot: " + typeIndex);
+            }
+            byte[] symbol = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(symbol);
+            double price = exact ? Money.toDouble(buffer.getLong()) : buffer.getDouble();
+            lotsPerSymbol[s] = buffer.getInt();
+            declaredLots += lotsPerSymbol[s];
+            try {
+                assets[s] = AssetFactory.create(types[typeIndex], new String(symbol, StandardCharsets.UTF_8), price);
+            } catch (IllegalArgumentException e) {
+                throw new DataIntegrityException("Data format error: " + e.getMessage(), e);
+            }
+        }
+        if (declaredLots != lotCount) {
+            throw new DataIntegrityException("Lot count mismatch: header " + lotCount + ", dictionary " + declaredLots);
+        }
+
+        int priceOffset = buffer.position();
+        int quantityOffset = (int) (priceOffset + lotCount * 8);
+        int dayOffset = (int) (quantityOffset + lotCount * 4);
+        int idOffset = (int) (dayOffset + lotCount * 4);
+        int lot = 0;
+        try {
+            if (maxResidentLots > 0 && exact) {
+                LotPager pager = new LotPager(path, buffer, priceOffset, lotCount, maxResidentLots);
+                for (int s = 0; s < symbolCount; s++) {
+                    // Pozycje bez lotów nie powstają (jak przy odczycie pełnym)
+                    if (lotsPerSymbol[s] > 0) {
+                        portfolio.loadLazyHolding(assets[s], pager, lot, lotsPerSymbol[s]);
+                        lot += lotsPerSymbol[s];
+                    }
+                }
+            } else {
+                for (int s = 0; s < symbolCount; s++) {
+                    for (int i = 0; i < lotsPerSymbol[s]; i++, lot++) {
+                        long unitPrice = exact ? buffer.getLong(priceOffset + lot * 8)
+                                : unitsOf(buffer.getDouble(priceOffset + lot * 8));
+                        int quantity = buffer.getInt(quantityOffset + lot * 4);
+                        int purchaseDay = buffer.getInt(dayOffset + lot * 4);
+                        long lotId = full ? buffer.getLong(idOffset + lot * 8) : portfolio.getLastLotId() + 1;
+                        portfolio.loadLotUnits(assets[s], unitPrice, quantity, purchaseDay, lotId);
+                    }
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            throw new DataIntegrityException("Invalid lot #" + lot + " in snapshot: " + e.getMessage(), e);
+        }
+
+        if (full) {
+            buffer.position((int) (idOffset + lotCount * 8));
+            readOrders(buffer, portfolio, orderCount, exact, timeInForce);
+            portfolio.restoreCounters(lastLotId, lastOrderId);
+            portfolio.setCostBasisMethod(method);
+        }
+        return portfolio;
+    }
+
+    private static void readOrders(ByteBuffer buffer, Portfolio portfolio, int orderCount, boolean exact,
+                                   boolean withTimeInForce) {
+        AssetType[] types = AssetType.values();
+        OrderType[] sides = OrderType.values();
+        TimeInForce[] validities = TimeInForce.values();
+        for (int o = 0; o < orderCount; o++) {
+            long orderId = buffer.getLong();
+            int sideIndex = buffer.get();
+            int typeIndex = buffer.get();
+            if (sideIndex < 0 || sideIndex >= sides.length || typeIndex < -1 || typeIndex >= types.length) {
+                throw new DataIntegrityException("Invalid order #" + orderId + " in snapshot");
+            }
+            byte[] symbol = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(symbol);
+            double limit = exact ? Money.toDouble(buffer.getLong()) : buffer.getDouble();
+            int quantity = buffer.getInt();
+            int remaining = buffer.getInt();
+            int validityIndex = withTimeInForce ? buffer.get() : TimeInForce.GTC.ordinal();
+            if (validityIndex < 0 || validityIndex >= validities.length) {
+                throw new DataIntegrityException("Invalid order #" + orderId + " in snapshot");
+            }
+            try {
+                Order order = new Order(new String(symbol, StandardCharsets.UTF_8),
+                        typeIndex >= 0 ? types[typeIndex] : null, limit, quantity, sides[sideIndex],
+                        validities[validityIndex]);
+                portfolio.restoreOrder(orderId, order, remaining);
+            } catch (IllegalArgumentException e) {
+                throw new DataIntegrityException("Invalid order #" + orderId + " in snapshot: " + e.getMessage(), e);
+            }
+        }
+    }
+
+    // Ceny z wersji 1-2 (double) - ujemne i NaN odrzuca walidacja lotu
+    private static long unitsOf(double price) {
+        if (!(price >= 0)) {
+            throw new IllegalArgumentException("Price cannot be negative");
+        }
+        return Money.of(price);
+    }
+}
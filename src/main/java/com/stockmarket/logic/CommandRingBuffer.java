@@ -0,0 +1,76 @@
+package com.stockmarket.logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Ograniczona kolejka MPSC bez blokad na wstępnie zaalokowanych komendach.
+//
+// Każdy slot ma numer sekwencyjny:
+//   sequence == pozycja            -> slot wolny dla producenta, który zajmie tę pozycję,
+//   sequence == pozycja + 1        -> komenda opublikowana, gotowa dla konsumenta,
+//   sequence == pozycja + pojemność -> slot zwolniony przez konsumenta dla następnego okrążenia.
+// Producenci rywalizują tylko o licznik tail (CAS); konsument jest jeden, więc head to zwykłe pole.
+final class CommandRingBuffer {
+
+    private final PortfolioCommand[] slots;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    CommandRingBuffer(int capacity) {
+        if (capacity < 2 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("Ring buffer capacity must be a power of two: " + capacity);
+        }
+        this.slots = new PortfolioCommand[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new PortfolioCommand(i);
+        }
+    }
+
+    int capacity() { return slots.length; }
+
+    // --- Producenci ---
+
+    // Zajmuje slot do wypełnienia albo zwraca null, gdy bufor jest pełny
+    PortfolioCommand tryClaim() {
+        while (true) {
+            long position = tail.get();
+            PortfolioCommand slot = slots[(int) position & mask];
+            long difference = slot.sequence - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    return slot;
+                }
+            } else if (difference < 0) {
+                return null; // konsument jeszcze nie zwolnił slotu z poprzedniego okrążenia
+            }
+            // difference > 0: inny producent zajął tę pozycję - ponawiamy z nowym tail
+        }
+    }
+
+    // Udostępnia wypełnioną komendę konsumentowi (zapis volatile publikuje wszystkie pola)
+    void publish(PortfolioCommand slot) {
+        slot.sequence = slot.sequence + 1;
+    }
+
+    // --- Konsument ---
+
+    PortfolioCommand poll() {
+        PortfolioCommand slot = slots[(int) head & mask];
+        if (slot.sequence != head + 1) {
+            return null;
+        }
+        return slot;
+    }
+
+    // Oddaje slot producentom po obsłużeniu komendy
+    void release(PortfolioCommand slot) {
+        slot.clear();
+        slot.sequence = head + slots.length;
+        head++;
+    }
+
+    boolean isEmpty() {
+        return tail.get() == head;
+    }
+}
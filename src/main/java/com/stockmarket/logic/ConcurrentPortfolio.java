@@ -0,0 +1,361 @@
+package com.stockmarket.logic;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetFactory;
+import com.stockmarket.domain.CostBasisMethod;
+import com.stockmarket.domain.Money;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.PurchaseLot;
+import com.stockmarket.domain.TimeInForce;
+
+// Wariant portfela bezpieczny wątkowo: każdy symbol ma własną blokadę (stan posiadania + księga zleceń),
+// a gotówka (jednostki Money w AtomicLong) jest rezerwowana przez CAS. Operacje na różnych symbolach nie czekają na siebie nawzajem.
+//
+// Zasady:
+//  - gotówka jest pobierana (CAS) przed wzięciem blokady symbolu, więc zakupy nie mogą jej przekroczyć,
+//  - wszystkie skutki realizacji zlecenia dotyczą jednego symbolu, więc wystarcza blokada tego symbolu,
+//  - odczyty zbiorcze (wycena) są spójne per symbol, ale nie tworzą globalnej migawki.
+public class ConcurrentPortfolio {
+
+    private final AtomicLong cash;
+    private final AtomicInteger currentDay = new AtomicInteger();
+
+    // Sloty nigdy nie są usuwane - blokada danego symbolu jest zawsze ta sama
+    private final ConcurrentHashMap<String, SymbolSlot> slots = new ConcurrentHashMap<>();
+    private final Map<Long, OrderBook.RestingOrder> openOrders = new ConcurrentHashMap<>();
+    private final AtomicLong lastOrderId = new AtomicLong();
+    private final AtomicLong lastLotId = new AtomicLong();
+
+    private volatile CostBasisMethod costBasisMethod = CostBasisMethod.FIFO;
+
+    public ConcurrentPortfolio(double initialCash) {
+        if (initialCash < 0) {
+            throw new IllegalArgumentException("Initial cash cannot be negative.");
+        }
+        this.cash = new AtomicLong(Money.of(initialCash));
+    }
+
+    // --- Obsługa Czasu ---
+
+    // Zlecenia DAY wygasają przy zmianie dnia; zlecenie składane równolegle z advanceTime może wygasnąć albo nie
+    public void advanceTime(int days) {
+        if (days > 0) {
+            currentDay.addAndGet(days);
+            for (OrderBook.RestingOrder resting : openOrders.values()) {
+                if (resting.getOrder().getTimeInForce() == TimeInForce.DAY) {
+                    cancelOrder(resting.getOrderId());
+                }
+            }
+        }
+    }
+
+    public int getCurrentDay() { return currentDay.get(); }
+
+    // --- Gotówka (CAS) ---
+
+    public double getCash() {
+        return Money.toDouble(cash.get());
+    }
+
+    public long getCashUnits() {
+        return cash.get();
+    }
+
+    // Pobiera kwotę tylko wtedy, gdy wystarcza środków (bez blokady)
+    private boolean tryReserveCash(long amount) {
+        while (true) {
+            long current = cash.get();
+            if (amount > current) {
+                return false;
+            }
+            if (cash.compareAndSet(current, current - amount)) {
+                return true;
+            }
+        }
+    }
+
+    // Dodawanie jednostek jest dokładne i przemienne - wystarcza jedno getAndAdd zamiast pętli CAS
+    private void addCash(long amount) {
+        cash.addAndGet(amount);
+    }
+
+    // --- Obsługa Zleceń ---
+
+    public long placeOrder(Order order) {
+        if (order == null) throw new IllegalArgumentException("Order cannot be null.");
+
+        SymbolSlot slot = slotFor(order.getSymbol());
+        boolean isBuy = order.getType() == OrderType.BUY;
+        // Rezerwacja gotówki po cenie limitu, jeszcze bez blokady symbolu
+        if (isBuy && !tryReserveCash(Money.times(order.getPriceLimitUnits(), order.getQuantity()))) {
+            throw new IllegalArgumentException("Not enough cash to place BUY order.");
+        }
+
+        slot.lock.lock();
+        try {
+            if (!isBuy) {
+                AssetEntry entry = slot.entry;
+                if (entry == null || entry.getAvailableQuantity() < order.getQuantity()) {
+                    throw new IllegalArgumentException("Not enough assets to place SELL order.");
+                }
+                entry.reservedQuantity += order.getQuantity();
+            }
+            long orderId = lastOrderId.incrementAndGet();
+            int unfilled = slot.book.submit(orderId, order, slot);
+            // Niezrealizowana część IOC/FOK nie czeka w księdze - zwracamy rezerwację
+            if (unfilled > 0 && !order.getTimeInForce().restsInBook()) {
+                if (isBuy) {
+                    addCash(Money.times(order.getPriceLimitUnits(), unfilled));
+                } else {
+                    slot.entry.reservedQuantity -= unfilled;
+                }
+            }
+            return orderId;
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+
+    public boolean cancelOrder(long orderId) {
+        OrderBook.RestingOrder resting = openOrders.get(orderId);
+        if (resting == null) {
+            return false;
+        }
+        SymbolSlot slot = slots.get(resting.getBook().getSymbol());
+        slot.lock.lock();
+        try {
+            // Zlecenie mogło zostać zrealizowane między odczytem indeksu a blokadą
+            if (slot.book.cancel(orderId) == null) {
+                return false;
+            }
+            Order order = resting.getOrder();
+            int remaining = resting.getRemainingQuantity();
+            if (order.getType() == OrderType.BUY) {
+                addCash(Money.times(order.getPriceLimitUnits(), remaining));
+            } else {
+                slot.entry.reservedQuantity -= remaining;
+            }
+            return true;
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+
+    // --- Obsługa Aktywów (Add/Sell) ---
+
+    public void addAsset(Asset asset, int quantity) {
+        if (asset == null) throw new IllegalArgumentException("Asset cannot be null.");
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive.");
+
+        SymbolSlot slot = slotFor(asset.getSymbol());
+        long totalCost = Money.add(Money.times(asset.getMarketPriceUnits(), quantity),
+                Money.of(asset.calculateInitialCost(quantity)));
+        if (!tryReserveCash(totalCost)) {
+            throw new IllegalArgumentException("Insufficient funds. Cost: " + Money.format(totalCost));
+        }
+
+        slot.lock.lock();
+        try {
+            slot.receiveLot(asset, quantity, asset.getMarketPriceUnits());
+        } catch (RuntimeException e) {
+            addCash(totalCost);
+            throw e;
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+
+    public double sellAsset(String symbol, int quantity, double currentPrice) {
+        return sellAsset(symbol, quantity, currentPrice, this.costBasisMethod);
+    }
+
+    public double sellAsset(String symbol, int quantity, double currentPrice, CostBasisMethod method) {
+        if (method == null || method == CostBasisMethod.SPECIFIC_LOT) {
+            throw new IllegalArgumentException("Use sellLot for specific lot identification.");
+        }
+        SymbolSlot slot = slotForSale(symbol);
+        slot.lock.lock();
+        try {
+            AssetEntry entry = slot.entryForSale(symbol, quantity);
+            long price = Portfolio.salePrice(currentPrice);
+            long profit = entry.processSale(quantity, price, method);
+            slot.settleSale(quantity, price);
+            return Money.toDouble(profit);
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+
+    public double sellLot(String symbol, long lotId, int quantity, double currentPrice) {
+        SymbolSlot slot = slotForSale(symbol);
+        slot.lock.lock();
+        try {
+            AssetEntry entry = slot.entryForSale(symbol, quantity);
+            long price = Portfolio.salePrice(currentPrice);
+            long profit = entry.processLotSale(lotId, quantity, price);
+            slot.settleSale(quantity, price);
+            return Money.toDouble(profit);
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+
+    private SymbolSlot slotForSale(String symbol) {
+        SymbolSlot slot = symbol != null ? slots.get(symbol) : null;
+        if (slot == null) {
+            throw new IllegalArgumentException("Asset not found in portfolio: " + symbol);
+        }
+        return slot;
+    }
+
+    private SymbolSlot slotFor(String symbol) {
+        if (symbol == null) throw new IllegalArgumentException("Symbol cannot be null.");
+        SymbolSlot slot = slots.get(symbol);
+        return slot != null ? slot : slots.computeIfAbsent(symbol, SymbolSlot::new);
+    }
+
+    public void setCostBasisMethod(CostBasisMethod method) {
+        if (method == null || method == CostBasisMethod.SPECIFIC_LOT) {
+            throw new IllegalArgumentException("Default cost basis method must select lots automatically.");
+        }
+        this.costBasisMethod = method;
+    }
+
+    public CostBasisMethod getCostBasisMethod() { return this.costBasisMethod; }
+
+    // --- Wycena ---
+
+    public double calculateHoldingsValue() {
+        int day = currentDay.get();
+        double totalValue = 0.0;
+        for (SymbolSlot slot : slots.values()) {
+            slot.lock.lock();
+            try {
+                if (slot.entry != null) totalValue += slot.entry.calculateValue(day);
+            } finally {
+                slot.lock.unlock();
+            }
+        }
+        return totalValue;
+    }
+
+    public double calculateTotalValue() {
+        return getCash() + calculateHoldingsValue();
+    }
+
+    // --- Gettery pomocnicze ---
+
+    public int getHoldingsCount() {
+        int count = 0;
+        for (SymbolSlot slot : slots.values()) {
+            if (slot.entry != null) count++;
+        }
+        return count;
+    }
+
+    public int getAssetQuantity(String symbol) {
+        SymbolSlot slot = slots.get(symbol);
+        if (slot == null) return 0;
+        slot.lock.lock();
+        try {
+            return slot.entry != null ? slot.entry.getTotalQuantity() : 0;
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+
+    public double getCostBasis(String symbol) {
+        SymbolSlot slot = slots.get(symbol);
+        if (slot == null) return 0.0;
+        slot.lock.lock();
+        try {
+            return slot.entry != null ? Money.toDouble(slot.entry.getCostBasis()) : 0.0;
+        } finally {
+            slot.lock.unlock();
+        }
+    }
+
+    public List<PurchaseLot> getLots(String symbol) {
+        List<PurchaseLot> result = new ArrayList<>();
+        SymbolSlot slot = slots.get(symbol);
+        if (slot == null) return result;
+        slot.lock.lock();
+        try {
+            if (slot.entry != null) {
+                for (PurchaseLot lot : slot.entry.lots()) {
+                    result.add(new PurchaseLot(lot.getLotId(), lot.getPurchaseDate(), lot.getUnitPrice(), lot.getQuantity()));
+                }
+            }
+        } finally {
+            slot.lock.unlock();
+        }
+        return result;
+    }
+
+    public int getOpenOrderCount() { return openOrders.size(); }
+
+    // --- Klasy Wewnętrzne ---
+
+    // Stan jednego symbolu chroniony jego blokadą; jest też odbiorcą realizacji z księgi tego symbolu
+    private final class SymbolSlot implements FillListener {
+        final ReentrantLock lock = new ReentrantLock();
+        final OrderBook book;
+        volatile AssetEntry entry; // null, gdy nic nie posiadamy (zapis tylko pod blokadą)
+
+        SymbolSlot(String symbol) {
+            this.book = new OrderBook(symbol, openOrders);
+        }
+
+        // Wywoływane przez księgę pod blokadą slotu
+        @Override
+        public void onFill(Order buyOrder, Order sellOrder, double price, int quantity) {
+            Asset asset = AssetFactory.create(buyOrder.getAssetType(), buyOrder.getSymbol(), price);
+            long fillPrice = asset.getMarketPriceUnits();
+            entry.reservedQuantity -= quantity;
+            entry.processSale(quantity, fillPrice, costBasisMethod);
+            settleSale(quantity, fillPrice);
+
+            // Rezerwacja była po cenie limitu - nadwyżkę zwracamy
+            addCash(Money.times(buyOrder.getPriceLimitUnits() - fillPrice, quantity));
+            receiveLot(asset, quantity, fillPrice);
+        }
+
+        void receiveLot(Asset asset, int quantity, long unitPrice) {
+            if (entry == null) {
+                entry = new AssetEntry(asset);
+            }
+            entry.define(asset);
+            // Id pobierane pod blokadą, więc w obrębie symbolu rosną tak jak w Portfolio
+            entry.addLot(lastLotId.incrementAndGet(), currentDay.get(), unitPrice, quantity);
+        }
+
+        AssetEntry entryForSale(String symbol, int quantity) {
+            if (entry == null) {
+                throw new IllegalArgumentException("Asset not found in portfolio: " + symbol);
+            }
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be positive.");
+            }
+            if (entry.getAvailableQuantity() < quantity) {
+                throw new IllegalArgumentException("Not enough asset quantity to sell.");
+            }
+            return entry;
+        }
+
+        void settleSale(int quantity, long price) {
+            addCash(Money.times(price, quantity));
+            if (entry.getTotalQuantity() == 0) {
+                entry = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,319 @@
+package com.stockmarket.logic;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Strumieniowy parser historii OHLC w CSV: DZIEŃ,SYMBOL,OPEN,HIGH,LOW,CLOSE[,WOLUMEN]
+// (opcjonalny wiersz nagłówka jest pomijany). Dane są czytane blokami bajtów i parsowane w miejscu,
+// symbole są internowane - po pierwszym wystąpieniu symbolu kolejne wiersze nic nie alokują.
+// Do wielokrotnych przebiegów lepiej raz skonwertować plik do formatu binarnego (OhlcFile.convertCsv).
+final class CsvBarSource implements BarSource {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_FIELDS = 7;
+    private static final byte SEPARATOR = ',';
+    private static final double[] POWERS_OF_TEN = new double[23];
+
+    static {
+        POWERS_OF_TEN[0] = 1.0;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10.0;
+        }
+    }
+
+    private final InputStream in;
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+
+    // Bieżąca linia i granice jej pól
+    private int lineNumber;
+    private int lineStart;
+    private final int[] fieldStart = new int[MAX_FIELDS];
+    private final int[] fieldEnd = new int[MAX_FIELDS];
+    private int fieldCount;
+    private int lastDay = Integer.MIN_VALUE;
+    private boolean dataSeen;
+
+    private final SymbolTable symbols = new SymbolTable();
+
+    CsvBarSource(Path path) throws IOException {
+        this.in = Files.newInputStream(path);
+    }
+
+    @Override
+    public boolean next(Bar bar) throws IOException {
+        while (nextLine()) {
+            if (fieldCount == 0) continue; // pusta linia
+
+            if (!dataSeen && !isNumberStart(buffer[fieldStart[0]])) {
+                continue; // nagłówek kolumn
+            }
+            dataSeen = true;
+            if (fieldCount < 6) {
+                throw error("Invalid bar format", 0);
+            }
+            int day = parseInt(0);
+            if (day < lastDay) {
+                throw error("Bars out of order: day " + day + " after " + lastDay, 0);
+            }
+            int symbolId = symbols.idFor(1);
+            double open = parseDouble(2);
+            double high = parseDouble(3);
+            double low = parseDouble(4);
+            double close = parseDouble(5);
+            long volume = fieldCount > 6 ? parseLong(6) : 0;
+
+            bar.set(day, symbolId, symbols.names[symbolId], open, high, low, close, volume);
+            if (!bar.isValid()) {
+                throw error("Invalid OHLC values", 2);
+            }
+            lastDay = day;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // --- Podział na linie i pola ---
+
+    private boolean nextLine() throws IOException {
+        int end = findLineEnd();
+        if (end < 0) return false;
+
+        lineNumber++;
+        lineStart = position;
+        int lineEnd = end;
+        if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') lineEnd--;
+
+        splitFields(lineStart, lineEnd);
+        position = end < limit ? end + 1 : end;
+        return true;
+    }
+
+    // Zwraca indeks '\n' (albo koniec danych), doczytując i ewentualnie powiększając bufor
+    private int findLineEnd() throws IOException {
+        int scanFrom = position;
+        while (true) {
+            for (int i = scanFrom; i < limit; i++) {
+                if (buffer[i] == '\n') return i;
+            }
+            if (endOfInput) {
+                return position < limit ? limit : -1;
+            }
+            scanFrom = limit - position;
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        } else if (remaining == buffer.length) {
+            // Linia dłuższa niż bufor
+            byte[] grown = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, grown, 0, remaining);
+            buffer = grown;
+        }
+        position = 0;
+        limit = remaining;
+
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private void splitFields(int start, int end) {
+        fieldCount = 0;
+        if (isBlank(start, end)) return;
+
+        int fieldFrom = start;
+        for (int i = start; i <= end && fieldCount < MAX_FIELDS; i++) {
+            if (i == end || buffer[i] == SEPARATOR) {
+                // Spacje wokół pól są dopuszczalne
+                int from = fieldFrom;
+                int to = i;
+                while (from < to && buffer[from] == ' ') from++;
+                while (to > from && buffer[to - 1] == ' ') to--;
+                fieldStart[fieldCount] = from;
+                fieldEnd[fieldCount] = to;
+                fieldCount++;
+                fieldFrom = i + 1;
+            }
+        }
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (buffer[i] > ' ') return false;
+        }
+        return true;
+    }
+
+    // --- Parsowanie pól w miejscu ---
+
+    private static boolean isNumberStart(byte b) {
+        return b >= '0' && b <= '9' || b == '-' || b == '+';
+    }
+
+    private int parseInt(int field) {
+        long value = parseLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw error("Integer out of range: " + fieldText(field), field);
+        }
+        return (int) value;
+    }
+
+    private long parseLong(int field) {
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        boolean negative = start < end && buffer[start] == '-';
+        int i = negative || (start < end && buffer[start] == '+') ? start + 1 : start;
+        if (i == end) throw error("Invalid integer: " + fieldText(field), field);
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) throw error("Invalid integer: " + fieldText(field), field);
+            if (value > (Long.MAX_VALUE - digit) / 10) throw error("Integer out of range: " + fieldText(field), field);
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // Szybka ścieżka dla [-]cyfry[.cyfry] do 15 cyfr znaczących (dokładne zaokrąglenie);
+    // inne zapisy (wykładnik, bardzo długie liczby) przez Double.parseDouble
+    private double parseDouble(int field) {
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        boolean negative = start < end && buffer[start] == '-';
+        int i = negative ? start + 1 : start;
+
+        long mantissa = 0;
+        boolean anyDigit = false;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenDot = false;
+        boolean fastPath = true;
+        for (; i < end && fastPath; i++) {
+            byte c = buffer[i];
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                anyDigit = true;
+                if (mantissa != 0) digits++;
+                if (seenDot) fractionDigits++;
+            } else if (c == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                fastPath = false;
+            }
+        }
+        if (fastPath && anyDigit && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+            double value = mantissa / POWERS_OF_TEN[fractionDigits];
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(fieldText(field));
+        } catch (NumberFormatException e) {
+            throw error("Invalid number: " + fieldText(field), field);
+        }
+    }
+
+    private String fieldText(int field) {
+        return new String(buffer, fieldStart[field], fieldEnd[field] - fieldStart[field], StandardCharsets.UTF_8);
+    }
+
+    private DataIntegrityException error(String message, int field) {
+        int column = (field < fieldCount ? fieldStart[field] : position) - lineStart + 1;
+        return new DataIntegrityException(message + " at line " + lineNumber + ", column " + column);
+    }
+
+    // --- Internowanie symboli ---
+
+    // Tablica z adresowaniem otwartym: bajty symbolu (z bufora) -> id nadawane w kolejności wystąpienia
+    private final class SymbolTable {
+        private byte[][] keys = new byte[64][];
+        private int[] ids = new int[64];
+        private int[] hashes = new int[64];
+        private String[] names = new String[16];
+        private int size;
+
+        int idFor(int field) {
+            int start = fieldStart[field];
+            int end = fieldEnd[field];
+            if (start == end) throw error("Bar symbol cannot be empty", field);
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + buffer[i];
+            }
+
+            int mask = keys.length - 1;
+            int slot = mix(hash) & mask;
+            while (keys[slot] != null) {
+                if (hashes[slot] == hash && sameSymbol(keys[slot], start, end)) {
+                    return ids[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            byte[] key = new byte[end - start];
+            System.arraycopy(buffer, start, key, 0, key.length);
+            if (size == names.length) {
+                String[] grown = new String[names.length * 2];
+                System.arraycopy(names, 0, grown, 0, size);
+                names = grown;
+            }
+            names[size] = new String(key, StandardCharsets.UTF_8);
+            keys[slot] = key;
+            ids[slot] = size;
+            hashes[slot] = hash;
+            int id = size++;
+            if (size * 2 > keys.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        private boolean sameSymbol(byte[] key, int start, int end) {
+            if (key.length != end - start) return false;
+            for (int i = start; i < end; i++) {
+                if (key[i - start] != buffer[i]) return false;
+            }
+            return true;
+        }
+
+        private void rehash() {
+            byte[][] oldKeys = keys;
+            int[] oldIds = ids;
+            int[] oldHashes = hashes;
+            keys = new byte[oldKeys.length * 2][];
+            ids = new int[oldKeys.length * 2];
+            hashes = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == null) continue;
+                int slot = mix(oldHashes[i]) & mask;
+                while (keys[slot] != null) slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                ids[slot] = oldIds[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+
+        private int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.stockmarket.logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.CostBasisMethod;
+import com.stockmarket.domain.Order;
+
+// Trwały portfel w katalogu: snapshot binarny + dziennik zmian od tego snapshotu.
+//
+// Pliki są numerowane pokoleniami: snapshot-N.bin zawiera stan, journal-N.log zmiany po nim.
+// Checkpoint zapisuje snapshot-(N+1) (przez plik tymczasowy i atomowe przeniesienie), zaczyna
+// journal-(N+1) i dopiero wtedy usuwa pokolenie N - awaria w dowolnym momencie zostawia spójną parę.
+// Odtwarzanie: najnowszy snapshot + poprawna część jego dziennika (ucięty ogon jest obcinany).
+public class DurablePortfolioStore implements PortfolioListener, Closeable {
+
+    public static final int DEFAULT_GROUP_COMMIT_SIZE = 64;
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 100_000;
+
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    private static final String JOURNAL_PREFIX = "journal-";
+    private static final String JOURNAL_SUFFIX = ".log";
+
+    private final Path directory;
+    private final Portfolio portfolio;
+    private final int groupCommitSize;
+    private final int checkpointInterval;
+
+    private long generation;
+    private PortfolioJournal journal;
+
+    private DurablePortfolioStore(Path directory, Portfolio portfolio, long generation,
+                                  int groupCommitSize, int checkpointInterval) throws IOException {
+        this.directory = directory;
+        this.portfolio = portfolio;
+        this.generation = generation;
+        this.groupCommitSize = groupCommitSize;
+        this.checkpointInterval = checkpointInterval;
+        this.journal = new PortfolioJournal(journalPath(generation), groupCommitSize);
+        portfolio.setListener(this);
+    }
+
+    public static DurablePortfolioStore open(Path directory, double initialCash) {
+        return open(directory, initialCash, DEFAULT_GROUP_COMMIT_SIZE, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    // Odtwarza portfel z katalogu; pusty katalog dostaje nowy portfel z initialCash
+    public static DurablePortfolioStore open(Path directory, double initialCash,
+                                             int groupCommitSize, int checkpointInterval) {
+        if (groupCommitSize <= 0 || checkpointInterval <= 0) {
+            throw new IllegalArgumentException("Group commit size and checkpoint interval must be positive.");
+        }
+        try {
+            Files.createDirectories(directory);
+            long generation = latestGeneration(directory);
+            Portfolio portfolio;
+
+            if (generation < 0) {
+                generation = 0;
+                portfolio = new Portfolio(initialCash);
+                writeSnapshot(directory, portfolio, generation);
+            } else {
+                portfolio = BinaryPortfolioFormat.read(snapshotPath(directory, generation));
+                Path journalPath = journalPath(directory, generation);
+                if (Files.exists(journalPath)) {
+                    long validLength = PortfolioJournal.replay(journalPath, portfolio);
+                    truncate(journalPath, validLength);
+                }
+            }
+            deleteOlderGenerations(directory, generation);
+            return new DurablePortfolioStore(directory, portfolio, generation, groupCommitSize, checkpointInterval);
+        } catch (IOException e) {
+            throw new DataIntegrityException("Error opening portfolio store: " + e.getMessage(), e);
+        }
+    }
+
+    public Portfolio getPortfolio() { return portfolio; }
+    public long getGeneration() { return generation; }
+    public long getJournalRecordCount() { return journal.getRecordCount(); }
+
+    // --- Checkpoint ---
+
+    // Nowy snapshot i pusty dziennik - koszt O(portfel), ale tylko co checkpointInterval zmian
+    public void checkpoint() {
+        try {
+            journal.sync();
+            long next = generation + 1;
+            writeSnapshot(directory, portfolio, next);
+
+            PortfolioJournal previous = journal;
+            journal = new PortfolioJournal(journalPath(next), groupCommitSize);
+            generation = next;
+            previous.close();
+            deleteOlderGenerations(directory, generation);
+        } catch (IOException e) {
+            throw new DataIntegrityException("Error writing checkpoint: " + e.getMessage(), e);
+        }
+    }
+
+    // Wymusza fsync rekordów czekających na zatwierdzenie grupowe
+    public void sync() {
+        journal.sync();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (portfolio.getListener() == this) {
+            portfolio.setListener(null);
+        }
+        journal.close();
+    }
+
+    // --- Przekazywanie zmian do dziennika ---
+
+    @Override
+    public void onAssetAdded(Asset asset, int quantity) {
+        journal.onAssetAdded(asset, quantity);
+        afterRecord();
+    }
+
+    @Override
+    public void onAssetSold(String symbol, int quantity, double price, CostBasisMethod method) {
+        journal.onAssetSold(symbol, quantity, price, method);
+        afterRecord();
+    }
+
+    @Override
+    public void onLotSold(String symbol, long lotId, int quantity, double price) {
+        journal.onLotSold(symbol, lotId, quantity, price);
+        afterRecord();
+    }
+
+    @Override
+    public void onOrderPlaced(long orderId, Order order) {
+        journal.onOrderPlaced(orderId, order);
+        afterRecord();
+    }
+
+    @Override
+    public void onOrderCancelled(long orderId) {
+        journal.onOrderCancelled(orderId);
+        afterRecord();
+    }
+
+    @Override
+    public void onOrderReplaced(long orderId, long newOrderId, double newPriceLimit, int newQuantity) {
+        journal.onOrderReplaced(orderId, newOrderId, newPriceLimit, newQuantity);
+        afterRecord();
+    }
+
+    @Override
+    public void onMarketMatched(String symbol, double open, double low, double high) {
+        journal.onMarketMatched(symbol, open, low, high);
+        afterRecord();
+    }
+
+    @Override
+    public void onTimeAdvanced(int days) {
+        journal.onTimeAdvanced(days);
+        afterRecord();
+    }
+
+    @Override
+    public void onCurrentDaySet(int day) {
+        journal.onCurrentDaySet(day);
+        afterRecord();
+    }
+
+    @Override
+    public void onCostBasisMethodChanged(CostBasisMethod method) {
+        journal.onCostBasisMethodChanged(method);
+        afterRecord();
+    }
+
+    private void afterRecord() {
+        if (journal.getRecordCount() >= checkpointInterval) {
+            checkpoint();
+        }
+    }
+
+    // --- Pliki ---
+
+    private Path journalPath(long generation) {
+        return journalPath(directory, generation);
+    }
+
+    private static Path snapshotPath(Path directory, long generation) {
+        return directory.resolve(SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX);
+    }
+
+    private static Path journalPath(Path directory, long generation) {
+        return directory.resolve(JOURNAL_PREFIX + generation + JOURNAL_SUFFIX);
+    }
+
+    private static void writeSnapshot(Path directory, Portfolio portfolio, long generation) throws IOException {
+        Path temporary = directory.resolve(SNAPSHOT_PREFIX + generation + SNAPSHOT_SUFFIX + ".tmp");
+        BinaryPortfolioFormat.write(portfolio, temporary);
+        Files.move(temporary, snapshotPath(directory, generation),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static void truncate(Path journalPath, long validLength) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            if (validLength < PortfolioJournal.HEADER_SIZE) {
+                // Brak nawet nagłówka - nowy dziennik zapisze go od początku
+                channel.truncate(0);
+            } else if (channel.size() > validLength) {
+                channel.truncate(validLength);
+                channel.force(true);
+            }
+        }
+    }
+
+    private static long latestGeneration(Path directory) throws IOException {
+        long latest = -1;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SNAPSHOT_PREFIX + "*" + SNAPSHOT_SUFFIX)) {
+            for (Path file : files) {
+                long generation = generationOf(file.getFileName().toString(), SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+                latest = Math.max(latest, generation);
+            }
+        }
+        return latest;
+    }
+
+    private static void deleteOlderGenerations(Path directory, long current) throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long generation = Math.max(generationOf(name, SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX),
+                        generationOf(name, JOURNAL_PREFIX, JOURNAL_SUFFIX));
+                if (generation >= 0 && generation < current) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    // Numer pokolenia z nazwy pliku albo -1, jeśli nazwa nie pasuje
+    private static long generationOf(String name, String prefix, String suffix) {
+        if (!name.startsWith(prefix) || !name.endsWith(suffix)) return -1;
+        String number = name.substring(prefix.length(), name.length() - suffix.length());
+        if (number.isEmpty()) return -1;
+        for (int i = 0; i < number.length(); i++) {
+            if (!Character.isDigit(number.charAt(i))) return -1;
+        }
+        return Long.parseLong(number);
+    }
+}
@@ -0,0 +1,60 @@
+package com.stockmarket.logic;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// Sumy po zamknięciu dnia wszystkich kont rejestru. Wartość konta = gotówka + gotówka zarezerwowana
+// przez zlecenia BUY + wycena pozycji. Konta, których zamknięcie się nie udało, nie wchodzą do sum.
+public final class EndOfDayResult {
+
+    private final long accountCount;
+    private final double totalCash;
+    private final double totalReservedCash;
+    private final double totalHoldingsValue;
+    private final double minAccountValue;
+    private final double maxAccountValue;
+    private final String minAccountId;
+    private final String maxAccountId;
+    private final List<String> failedAccounts;
+
+    EndOfDayResult(long accountCount, double totalCash, double totalReservedCash, double totalHoldingsValue,
+                   double minAccountValue, double maxAccountValue, String minAccountId, String maxAccountId,
+                   String[] failedAccounts) {
+        this.accountCount = accountCount;
+        this.totalCash = totalCash;
+        this.totalReservedCash = totalReservedCash;
+        this.totalHoldingsValue = totalHoldingsValue;
+        this.minAccountValue = minAccountValue;
+        this.maxAccountValue = maxAccountValue;
+        this.minAccountId = minAccountId;
+        this.maxAccountId = maxAccountId;
+        this.failedAccounts = Collections.unmodifiableList(Arrays.asList(failedAccounts));
+    }
+
+    public long getAccountCount() { return accountCount; }
+    public double getTotalCash() { return totalCash; }
+    public double getTotalReservedCash() { return totalReservedCash; }
+    public double getTotalHoldingsValue() { return totalHoldingsValue; }
+    public double getMinAccountValue() { return minAccountValue; }
+    public double getMaxAccountValue() { return maxAccountValue; }
+    public String getMinAccountId() { return minAccountId; }
+    public String getMaxAccountId() { return maxAccountId; }
+    public List<String> getFailedAccounts() { return failedAccounts; }
+
+    public double getTotalValue() {
+        return totalCash + totalReservedCash + totalHoldingsValue;
+    }
+
+    public double getMeanAccountValue() {
+        return accountCount == 0 ? 0.0 : getTotalValue() / accountCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "accounts=%d total %.2f (cash %.2f, holdings %.2f), min %.2f max %.2f, failed=%d",
+                accountCount, getTotalValue(), totalCash, totalHoldingsValue, minAccountValue, maxAccountValue,
+                failedAccounts.size());
+    }
+}
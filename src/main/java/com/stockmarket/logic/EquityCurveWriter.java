@@ -0,0 +1,54 @@
+package com.stockmarket.logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+// Krzywa kapitału zapisywana strumieniowo jako CSV: DAY,CASH,HOLDINGS,EQUITY (jeden wiersz na dzień).
+// Wiersz jest składany we wspólnym StringBuilderze - bez String.format na dzień.
+public class EquityCurveWriter implements Backtester.EquityListener, Closeable {
+
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(64);
+    private long rowCount;
+
+    public EquityCurveWriter(Writer out) {
+        if (out == null) throw new IllegalArgumentException("Writer cannot be null.");
+        this.out = out;
+        write("DAY,CASH,HOLDINGS,EQUITY\n");
+    }
+
+    @Override
+    public void onEquity(int day, double cash, double holdingsValue) {
+        line.setLength(0);
+        line.append(day).append(',');
+        appendFixed2(cash);
+        line.append(',');
+        appendFixed2(holdingsValue);
+        line.append(',');
+        appendFixed2(cash + holdingsValue);
+        line.append('\n');
+        write(line);
+        rowCount++;
+    }
+
+    public long getRowCount() { return rowCount; }
+
+    private void write(CharSequence text) {
+        try {
+            out.append(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing equity curve", e);
+        }
+    }
+
+    private void appendFixed2(double value) {
+        PortfolioReport.appendFixed2(line, value);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,10 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Order;
+
+// Powiadomienie o realizacji (części) zlecenia w księdze.
+// Przy realizacji względem rynku (OrderBook.matchMarket) strona przeciwna to null.
+@FunctionalInterface
+public interface FillListener {
+    void onFill(Order buyOrder, Order sellOrder, double price, int quantity);
+}
@@ -0,0 +1,161 @@
+package com.stockmarket.logic;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+// Metryki portfela jako MBean (com.stockmarket:type=PortfolioMetrics,name=<nazwa>).
+// Wartości są czytane przy każdym odczycie atrybutu - export() tylko rejestruje MBean.
+// Atrybuty: <OPERACJA>.Count / .MeanNanos / .P50Nanos / .P99Nanos / .P999Nanos / .MaxNanos
+// oraz Gauge.<nazwa> dla wskaźników; operacja reset() zeruje histogramy.
+public class JmxMetricsExporter implements MetricsExporter, AutoCloseable {
+
+    private static final String[] STATISTICS = {"Count", "MeanNanos", "P50Nanos", "P99Nanos", "P999Nanos", "MaxNanos"};
+    private static final String GAUGE_PREFIX = "Gauge.";
+
+    private final MBeanServer server;
+    private ObjectName registeredName;
+
+    public JmxMetricsExporter() {
+        this(ManagementFactory.getPlatformMBeanServer());
+    }
+
+    public JmxMetricsExporter(MBeanServer server) {
+        if (server == null) throw new IllegalArgumentException("MBean server cannot be null.");
+        this.server = server;
+    }
+
+    @Override
+    public synchronized void export(PortfolioMetrics metrics) {
+        if (metrics == null) throw new IllegalArgumentException("Metrics cannot be null.");
+        if (registeredName != null) {
+            return;
+        }
+        try {
+            ObjectName name = objectName(metrics.getName());
+            server.registerMBean(new MetricsBean(metrics), name);
+            registeredName = name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics MBean: " + e.getMessage(), e);
+        }
+    }
+
+    public static ObjectName objectName(String metricsName) throws JMException {
+        return new ObjectName("com.stockmarket:type=PortfolioMetrics,name=" + ObjectName.quote(metricsName));
+    }
+
+    @Override
+    public synchronized void close() {
+        if (registeredName == null) {
+            return;
+        }
+        try {
+            server.unregisterMBean(registeredName);
+        } catch (JMException e) {
+            // MBean mógł zostać wyrejestrowany z zewnątrz
+        }
+        registeredName = null;
+    }
+
+    // --- Klasy Wewnętrzne ---
+
+    private static final class MetricsBean implements DynamicMBean {
+        private final PortfolioMetrics metrics;
+
+        MetricsBean(PortfolioMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object getAttribute(String attribute) throws AttributeNotFoundException {
+            if (attribute != null && attribute.startsWith(GAUGE_PREFIX)) {
+                Long value = metrics.readGauges().get(attribute.substring(GAUGE_PREFIX.length()));
+                if (value != null) return value;
+                throw new AttributeNotFoundException(attribute);
+            }
+            int dot = attribute != null ? attribute.indexOf('.') : -1;
+            if (dot < 0) throw new AttributeNotFoundException(attribute);
+            PortfolioMetrics.Operation operation;
+            try {
+                operation = PortfolioMetrics.Operation.valueOf(attribute.substring(0, dot));
+            } catch (IllegalArgumentException e) {
+                throw new AttributeNotFoundException(attribute);
+            }
+            LatencyHistogram histogram = metrics.histogram(operation);
+            switch (attribute.substring(dot + 1)) {
+                case "Count": return histogram.getCount();
+                case "MeanNanos": return histogram.getMeanNanos();
+                case "P50Nanos": return histogram.getPercentileNanos(50);
+                case "P99Nanos": return histogram.getPercentileNanos(99);
+                case "P999Nanos": return histogram.getPercentileNanos(99.9);
+                case "MaxNanos": return histogram.getMaxNanos();
+                default: throw new AttributeNotFoundException(attribute);
+            }
+        }
+
+        @Override
+        public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+            throw new AttributeNotFoundException("Metrics attributes are read-only: " + attribute.getName());
+        }
+
+        @Override
+        public AttributeList getAttributes(String[] attributes) {
+            AttributeList list = new AttributeList();
+            for (String attribute : attributes) {
+                try {
+                    list.add(new Attribute(attribute, getAttribute(attribute)));
+                } catch (AttributeNotFoundException e) {
+                    // Zgodnie z kontraktem DynamicMBean nieznane atrybuty są pomijane
+                }
+            }
+            return list;
+        }
+
+        @Override
+        public AttributeList setAttributes(AttributeList attributes) {
+            return new AttributeList();
+        }
+
+        @Override
+        public Object invoke(String actionName, Object[] params, String[] signature) {
+            if ("reset".equals(actionName)) {
+                metrics.reset();
+                return null;
+            }
+            throw new UnsupportedOperationException("Unknown operation: " + actionName);
+        }
+
+        // Lista wskaźników może się zmienić po rejestracji, więc opis jest budowany przy każdym pytaniu
+        @Override
+        public MBeanInfo getMBeanInfo() {
+            List<MBeanAttributeInfo> attributes = new ArrayList<>();
+            for (PortfolioMetrics.Operation operation : PortfolioMetrics.Operation.values()) {
+                for (String statistic : STATISTICS) {
+                    String type = statistic.equals("MeanNanos") ? "double" : "long";
+                    attributes.add(new MBeanAttributeInfo(operation.name() + "." + statistic, type,
+                            operation.name() + " " + statistic, true, false, false));
+                }
+            }
+            for (Map.Entry<String, Long> gauge : metrics.readGauges().entrySet()) {
+                attributes.add(new MBeanAttributeInfo(GAUGE_PREFIX + gauge.getKey(), "long",
+                        "Gauge " + gauge.getKey(), true, false, false));
+            }
+            MBeanOperationInfo reset = new MBeanOperationInfo("reset", "Clears latency histograms",
+                    null, "void", MBeanOperationInfo.ACTION);
+            return new MBeanInfo(PortfolioMetrics.class.getName(), "Portfolio metrics " + metrics.getName(),
+                    attributes.toArray(new MBeanAttributeInfo[0]), null, new MBeanOperationInfo[] {reset}, null);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.stockmarket.logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Histogram czasów (ns) w stylu HDR: przedział [2^k, 2^(k+1)) jest podzielony na 16 kubełków,
+// więc błąd względny percentyla to najwyżej ~6%, a całość to stała tablica 960 liczników.
+// Jeden wątek zapisujący (wątek portfela): zapis to kilka operacji bitowych i zapisów z semantyką
+// release (lazySet) zamiast atomowych inkrementacji - bez alokacji, blokad i instrukcji lock.
+// Odczyt (percentyle) z innego wątku może się przeplatać z zapisem i daje wtedy wynik przybliżony.
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Wartości do 2^63 - 1: przesunięcie najwyżej 58, czyli 60 grup po 16 kubełków
+    private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        int bucket = bucketOf(value);
+        counts.lazySet(bucket, counts.get(bucket) + 1);
+        totalNanos.lazySet(totalNanos.get() + value);
+        if (value > maxNanos.get()) maxNanos.lazySet(value);
+        // Licznik na końcu: czytelnik, który widzi count, widzi też wcześniejsze zapisy
+        totalCount.lazySet(totalCount.get() + 1);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+        return (shift + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Największa wartość, która trafia do kubełka (jak highestEquivalentValue w HdrHistogram)
+    static long highestValueIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    // --- Odczyt ---
+
+    public long getCount() { return totalCount.get(); }
+    public long getMaxNanos() { return maxNanos.get(); }
+
+    public double getMeanNanos() {
+        long count = totalCount.get();
+        return count == 0 ? 0.0 : (double) totalNanos.get() / count;
+    }
+
+    // Percentyl w ns (0-100]; 0 dla pustego histogramu
+    public long getPercentileNanos(double percentile) {
+        if (!(percentile > 0 && percentile <= 100)) {
+            throw new IllegalArgumentException("Percentile must be in (0, 100].");
+        }
+        long count = totalCount.get();
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            seen += counts.get(bucket);
+            if (seen >= rank) {
+                return Math.min(highestValueIn(bucket), maxNanos.get());
+            }
+        }
+        return maxNanos.get();
+    }
+
+    public void reset() {
+        for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+            counts.set(bucket, 0);
+        }
+        totalCount.set(0);
+        totalNanos.set(0);
+        maxNanos.set(0);
+    }
+}
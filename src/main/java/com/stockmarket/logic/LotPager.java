@@ -0,0 +1,78 @@
+package com.stockmarket.logic;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+// Źródło lotów portfela wczytanego leniwie: kolumny lotów w zmapowanym snapshocie (v3+) i limit lotów w pamięci.
+//
+// Każda pozycja zna swój zakres lotów w kolumnach (indeks = suma lotów poprzednich symboli ze słownika)
+// i wczytuje go stronami dopiero wtedy, gdy operacja potrzebuje konkretnych lotów. Pozycje z wczytanymi
+// lotami tworzą listę LRU; po przekroczeniu limitu najdawniej używane pozycje oddają loty (wracają do pliku).
+// Pozycja w trakcie użycia nie jest usuwana, więc jedna bardzo duża pozycja może chwilowo przekroczyć limit.
+// Plik nie może być zmieniany, dopóki portfel z niego korzysta. Zapisy przez PortfolioFileManager
+// i BinaryPortfolioFormat w to samo miejsce najpierw wczytują loty (Portfolio.readsLotsFrom).
+final class LotPager {
+
+    // Loty wczytywane naraz przy sprzedaży FIFO (tylko początek historii)
+    static final int PAGE_SIZE = 1024;
+
+    private final Path path;
+    private final ByteBuffer columns;
+    private final int priceOffset;
+    private final int quantityOffset;
+    private final int dayOffset;
+    private final int idOffset;
+    private final long maxResidentLots;
+
+    private long residentLots;
+    // Pozycje z lotami w pamięci, od najdawniej używanej
+    private final LinkedHashMap<AssetEntry, AssetEntry> recent = new LinkedHashMap<>(16, 0.75f, true);
+
+    LotPager(Path path, ByteBuffer columns, int priceOffset, long lotCount, long maxResidentLots) {
+        this.path = path;
+        this.columns = columns;
+        this.priceOffset = priceOffset;
+        this.quantityOffset = (int) (priceOffset + lotCount * 8);
+        this.dayOffset = (int) (quantityOffset + lotCount * 4);
+        this.idOffset = (int) (dayOffset + lotCount * 4);
+        this.maxResidentLots = maxResidentLots;
+    }
+
+    Path getPath() { return path; }
+    long getResidentLots() { return residentLots; }
+
+    // --- Kolumny (lot = indeks w pliku) ---
+
+    long unitPriceAt(int lot) { return columns.getLong(priceOffset + lot * 8); }
+    int quantityAt(int lot) { return columns.getInt(quantityOffset + lot * 4); }
+    int purchaseDayAt(int lot) { return columns.getInt(dayOffset + lot * 4); }
+    long lotIdAt(int lot) { return columns.getLong(idOffset + lot * 8); }
+
+    // --- LRU ---
+
+    // Pozycja wczytała `count` lotów - zostaje najświeższa, a najstarsze oddają loty do limitu
+    void paged(AssetEntry entry, int count) {
+        residentLots += count;
+        recent.put(entry, entry);
+        Iterator<AssetEntry> eldest = recent.keySet().iterator();
+        while (residentLots > maxResidentLots && eldest.hasNext()) {
+            AssetEntry victim = eldest.next();
+            if (victim == entry) break;
+            eldest.remove();
+            residentLots -= victim.evictLots();
+        }
+    }
+
+    void touch(AssetEntry entry) {
+        recent.get(entry);
+    }
+
+    // Pozycja odłączona od pliku (wszystkie loty w pamięci na stałe) - nie podlega już limitowi
+    void forget(AssetEntry entry, int pagedLots) {
+        if (recent.remove(entry) != null) {
+            residentLots -= pagedLots;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.stockmarket.logic;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.stockmarket.domain.Money;
+import com.stockmarket.domain.PurchaseLot;
+
+// Loty jednej pozycji w kolejności zakupu (rosnące lotId), trzymane kolumnowo w tablicach prymitywów.
+// Wyczerpane loty (ilość 0) zostają jako "nagrobki" i są usuwane z końców lub przy kompaktowaniu,
+// dzięki czemu sprzedaż z początku, końca lub środka nie przesuwa tablic.
+// Na zewnątrz loty są widoczne jako PurchaseLot przez widok (flyweight) przesuwany po indeksach.
+class LotStore implements Iterable<PurchaseLot> {
+
+    private static final int INITIAL_CAPACITY = 8;
+    private static final int MIN_HEAP_PURGE = 64;
+
+    // Kolumny: 8 + 4 + 8 + 4 = 24 bajty na lot (bez nagłówków obiektów i referencji)
+    private long[] lotIds = new long[INITIAL_CAPACITY];
+    private int[] purchaseDays = new int[INITIAL_CAPACITY];
+    private long[] unitPrices = new long[INITIAL_CAPACITY]; // jednostki Money
+    private int[] quantities = new int[INITIAL_CAPACITY];
+
+    private int head;       // pierwszy zajęty indeks
+    private int tail;       // pierwszy wolny indeks
+    private int deadCount;  // wyczerpane loty pomiędzy head i tail
+
+    // Indeks HIFO: max-heap indeksów po cenie - budowany przy pierwszym użyciu,
+    // unieważniany przy kompaktowaniu (indeksy się przesuwają)
+    private int[] priceHeap;
+    private int heapSize;
+
+    int add(long lotId, long purchaseDay, long unitPrice, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        if (unitPrice < 0) {
+            throw new IllegalArgumentException("Price cannot be negative");
+        }
+        if (tail > head && lotId <= lotIds[tail - 1]) {
+            throw new IllegalArgumentException("Lot ids must be increasing.");
+        }
+        if (tail == lotIds.length) {
+            makeRoom();
+        }
+        int index = tail++;
+        lotIds[index] = lotId;
+        purchaseDays[index] = Math.toIntExact(purchaseDay);
+        unitPrices[index] = unitPrice;
+        quantities[index] = quantity;
+
+        if (priceHeap != null) {
+            heapPush(index);
+        }
+        return index;
+    }
+
+    int size() {
+        return tail - head - deadCount;
+    }
+
+    boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // --- Dostęp kolumnowy (indeksy z zakresu [start, end), ilość 0 = nagrobek) ---
+
+    int start() { return head; }
+    int end() { return tail; }
+
+    long lotIdAt(int index) { return lotIds[index]; }
+    long purchaseDayAt(int index) { return purchaseDays[index]; }
+    double unitPriceAt(int index) { return Money.toDouble(unitPrices[index]); }
+    long unitPriceUnitsAt(int index) { return unitPrices[index]; }
+    int quantityAt(int index) { return quantities[index]; }
+
+    // Po wyzerowaniu lotu indeksy mogą się przesunąć (kompaktowanie) - nie używać starego indeksu
+    void decreaseQuantity(int index, int amount) {
+        if (amount > quantities[index]) {
+            throw new IllegalArgumentException("Cannot remove more than exists in lot");
+        }
+        quantities[index] -= amount;
+        if (quantities[index] == 0) {
+            lotEmptied();
+        }
+    }
+
+    // --- Dostęp według metody (-1 gdy brak lotów) ---
+
+    int firstIndex() {
+        return head < tail ? head : -1;
+    }
+
+    int lastIndex() {
+        return head < tail ? tail - 1 : -1;
+    }
+
+    int highestPricedIndex() {
+        if (priceHeap == null) {
+            rebuildPriceHeap();
+        }
+        // Leniwe usuwanie - wyczerpane loty wypadają z kopca dopiero tutaj
+        while (heapSize > 0 && quantities[priceHeap[0]] == 0) {
+            heapPop();
+        }
+        return heapSize > 0 ? priceHeap[0] : -1;
+    }
+
+    // Wyszukiwanie binarne po lotId (O(log n))
+    int indexOf(long lotId) {
+        int low = head;
+        int high = tail - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midId = lotIds[mid];
+            if (midId < lotId) {
+                low = mid + 1;
+            } else if (midId > lotId) {
+                high = mid - 1;
+            } else {
+                return quantities[mid] > 0 ? mid : -1;
+            }
+        }
+        return -1;
+    }
+
+    private void lotEmptied() {
+        deadCount++;
+        while (head < tail && quantities[head] == 0) {
+            head++;
+            deadCount--;
+        }
+        if (tail > head && quantities[tail - 1] == 0) {
+            // Zwolnione sloty na końcu zajmą nowe loty - indeksy w kopcu przestałyby być aktualne
+            priceHeap = null;
+            while (tail > head && quantities[tail - 1] == 0) {
+                tail--;
+                deadCount--;
+            }
+        }
+        if (head == tail) {
+            head = 0;
+            tail = 0;
+            priceHeap = null;
+        } else if (deadCount > size()) {
+            compact();
+        }
+        if (priceHeap != null && heapSize > MIN_HEAP_PURGE && heapSize > 2 * size()) {
+            rebuildPriceHeap();
+        }
+    }
+
+    // --- Zarządzanie pamięcią ---
+
+    private void makeRoom() {
+        if (deadCount > 0 || head > lotIds.length / 2) {
+            compact();
+        }
+        if (tail == lotIds.length) {
+            int capacity = lotIds.length * 2;
+            lotIds = grow(lotIds, capacity);
+            purchaseDays = grow(purchaseDays, capacity);
+            unitPrices = grow(unitPrices, capacity);
+            quantities = grow(quantities, capacity);
+            tail -= head;
+            head = 0;
+            // Loty przesunęły się o head - indeksy w kopcu są nieaktualne
+            priceHeap = null;
+        }
+    }
+
+    private long[] grow(long[] column, int capacity) {
+        long[] grown = new long[capacity];
+        System.arraycopy(column, head, grown, 0, tail - head);
+        return grown;
+    }
+
+    private int[] grow(int[] column, int capacity) {
+        int[] grown = new int[capacity];
+        System.arraycopy(column, head, grown, 0, tail - head);
+        return grown;
+    }
+
+    // Przesuwa żywe loty na początek tablic (kolejność zostaje zachowana)
+    private void compact() {
+        int write = 0;
+        for (int read = head; read < tail; read++) {
+            if (quantities[read] > 0) {
+                lotIds[write] = lotIds[read];
+                purchaseDays[write] = purchaseDays[read];
+                unitPrices[write] = unitPrices[read];
+                quantities[write] = quantities[read];
+                write++;
+            }
+        }
+        head = 0;
+        tail = write;
+        deadCount = 0;
+        priceHeap = null;
+    }
+
+    // --- Kopiec HIFO (najwyższa cena, przy remisie najstarszy lot) ---
+
+    private boolean higher(int a, int b) {
+        int byUnitPrice = Long.compare(unitPrices[a], unitPrices[b]);
+        return byUnitPrice != 0 ? byUnitPrice > 0 : lotIds[a] < lotIds[b];
+    }
+
+    private void rebuildPriceHeap() {
+        priceHeap = new int[Math.max(INITIAL_CAPACITY, size())];
+        heapSize = 0;
+        for (int i = head; i < tail; i++) {
+            if (quantities[i] > 0) {
+                priceHeap[heapSize++] = i;
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    private void heapPush(int index) {
+        if (heapSize == priceHeap.length) {
+            int[] grown = new int[priceHeap.length * 2];
+            System.arraycopy(priceHeap, 0, grown, 0, heapSize);
+            priceHeap = grown;
+        }
+        int position = heapSize++;
+        priceHeap[position] = index;
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (!higher(priceHeap[position], priceHeap[parent])) break;
+            swap(position, parent);
+            position = parent;
+        }
+    }
+
+    private void heapPop() {
+        priceHeap[0] = priceHeap[--heapSize];
+        siftDown(0);
+    }
+
+    private void siftDown(int position) {
+        while (true) {
+            int left = 2 * position + 1;
+            if (left >= heapSize) return;
+            int best = left;
+            int right = left + 1;
+            if (right < heapSize && higher(priceHeap[right], priceHeap[left])) {
+                best = right;
+            }
+            if (!higher(priceHeap[best], priceHeap[position])) return;
+            swap(position, best);
+            position = best;
+        }
+    }
+
+    private void swap(int a, int b) {
+        int tmp = priceHeap[a];
+        priceHeap[a] = priceHeap[b];
+        priceHeap[b] = tmp;
+    }
+
+    // --- Widok PurchaseLot ---
+
+    // Iteracja po żywych lotach w kolejności zakupu; zwracany jest ciągle ten sam widok
+    @Override
+    public Iterator<PurchaseLot> iterator() {
+        return new Iterator<PurchaseLot>() {
+            private final LotView view = new LotView();
+            private int index = skipDead(head);
+
+            private int skipDead(int from) {
+                while (from < tail && quantities[from] == 0) from++;
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return index < tail;
+            }
+
+            @Override
+            public PurchaseLot next() {
+                if (index >= tail) throw new NoSuchElementException();
+                view.index = index;
+                index = skipDead(index + 1);
+                return view;
+            }
+        };
+    }
+
+    // Flyweight: czyta kolumny pod bieżącym indeksem, nie kopiuje danych. Tylko do odczytu -
+    // zmiana ilości z pominięciem AssetEntry rozspójniłaby agregaty i wycenę pozycji.
+    private final class LotView extends PurchaseLot {
+        private int index;
+
+        @Override
+        public long getLotId() { return lotIds[index]; }
+
+        @Override
+        public long getPurchaseDate() { return purchaseDays[index]; }
+
+        @Override
+        public double getUnitPrice() { return Money.toDouble(unitPrices[index]); }
+
+        @Override
+        public long getUnitPriceUnits() { return unitPrices[index]; }
+
+        @Override
+        public int getQuantity() { return quantities[index]; }
+
+        @Override
+        public void decreaseQuantity(int amount) {
+            throw new UnsupportedOperationException("Stored lots are read-only; sell through the portfolio.");
+        }
+    }
+}
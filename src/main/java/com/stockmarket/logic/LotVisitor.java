@@ -0,0 +1,10 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+
+// Odwiedzanie lotów portfela bez kopiowania (eksport, zapis strumieniowy).
+// Cena zakupu w jednostkach Money (1e-8) - bez przejścia przez double.
+@FunctionalInterface
+public interface LotVisitor {
+    void visitLot(Asset asset, long lotId, long purchaseDay, long unitPriceUnits, int quantity);
+}
@@ -0,0 +1,6 @@
+package com.stockmarket.logic;
+
+// Publikacja metryk portfela (zrzut tekstowy, JMX, ...)
+public interface MetricsExporter {
+    void export(PortfolioMetrics metrics);
+}
@@ -0,0 +1,221 @@
+package com.stockmarket.logic;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Równoległa symulacja Monte Carlo wielu niezależnych portfeli.
+//
+// Scenariusze są dzielone rekurencyjnie na zadania ForkJoin; każdy podział bierze split() generatora,
+// a drzewo podziału zależy tylko od liczby scenariuszy i batchSize - wynik dla danego seeda jest
+// identyczny niezależnie od liczby wątków. Każdy wątek ma własny bufor ścieżek i PriceFeed
+// (używane ponownie dla kolejnych scenariuszy), scenariusz zapisuje wynik do swojej komórki
+// wspólnej tablicy, a statystyki są łączone przy join() - bez blokad i współdzielonych liczników.
+//
+// Symulowane są symbole, które portfel ma na starcie (ceny startowe = ceny z definicji aktywów);
+// ścieżki symboli są niezależne.
+public class MonteCarloSimulator {
+
+    // Tworzy portfel scenariusza (każde wywołanie musi zwrócić nowy, niezależny obiekt)
+    @FunctionalInterface
+    public interface PortfolioFactory {
+        Portfolio create(int scenario);
+    }
+
+    // Wywoływany po wycenie każdego dnia scenariusza (np. strategia rebalansowania)
+    @FunctionalInterface
+    public interface StepListener {
+        void onStep(int scenario, int day, Portfolio portfolio);
+    }
+
+    public static final int DEFAULT_BATCH_SIZE = 16;
+
+    private final PricePathModel model;
+    private final int horizonDays;
+    private final ForkJoinPool pool;
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private StepListener stepListener;
+
+    private final ThreadLocal<Workspace> workspaces = ThreadLocal.withInitial(Workspace::new);
+
+    public MonteCarloSimulator(PricePathModel model, int horizonDays) {
+        this(model, horizonDays, ForkJoinPool.commonPool());
+    }
+
+    public MonteCarloSimulator(PricePathModel model, int horizonDays, ForkJoinPool pool) {
+        if (model == null) throw new IllegalArgumentException("Price model cannot be null.");
+        if (horizonDays <= 0) throw new IllegalArgumentException("Horizon must be positive.");
+        if (pool == null) throw new IllegalArgumentException("Pool cannot be null.");
+        this.model = model;
+        this.horizonDays = horizonDays;
+        this.pool = pool;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("Batch size must be positive.");
+        this.batchSize = batchSize;
+    }
+
+    public void setStepListener(StepListener stepListener) { this.stepListener = stepListener; }
+
+    public int getHorizonDays() { return horizonDays; }
+
+    public SimulationResult run(PortfolioFactory factory, int scenarios, long seed) {
+        if (factory == null) throw new IllegalArgumentException("Portfolio factory cannot be null.");
+        if (scenarios <= 0) throw new IllegalArgumentException("Scenario count must be positive.");
+
+        double[] profits = new double[scenarios];
+        Moments moments = pool.invoke(new ScenarioTask(factory, profits, 0, scenarios, new SplittableRandom(seed)));
+        return new SimulationResult(profits, moments.count, moments.initialSum / moments.count,
+                moments.mean, Math.sqrt(moments.m2 / moments.count), moments.min, moments.max);
+    }
+
+    // --- Pojedynczy scenariusz ---
+
+    private void simulate(PortfolioFactory factory, int scenario, SplittableRandom random,
+                          double[] profits, Moments moments) {
+        Portfolio portfolio = factory.create(scenario);
+        if (portfolio == null) throw new IllegalStateException("Portfolio factory returned null for scenario " + scenario);
+        Workspace workspace = workspaces.get();
+        int symbolCount = workspace.prepare(portfolio, horizonDays);
+
+        int stride = horizonDays + 1;
+        double[] paths = workspace.paths;
+        for (int s = 0; s < symbolCount; s++) {
+            model.generate(workspace.startPrices[s], paths, s * stride, horizonDays, random);
+        }
+
+        double initialValue = valueOf(portfolio);
+        PriceFeed feed = workspace.feed;
+        int[] feedIds = workspace.feedIds;
+        PriceFeed.PriceListener marker = portfolio::markToMarket;
+        feed.subscribe(marker);
+        try {
+            for (int day = 1; day <= horizonDays; day++) {
+                portfolio.advanceTime(1);
+                for (int s = 0; s < symbolCount; s++) {
+                    feed.tick(feedIds[s], paths[s * stride + day]);
+                }
+                feed.flush();
+                if (stepListener != null) {
+                    stepListener.onStep(scenario, day, portfolio);
+                }
+            }
+        } finally {
+            feed.unsubscribe(marker);
+        }
+
+        double terminalValue = valueOf(portfolio);
+        profits[scenario] = terminalValue - initialValue;
+        moments.add(initialValue, terminalValue);
+    }
+
+    // Wartość portfela razem z gotówką zarezerwowaną przez zlecenia BUY
+    private static double valueOf(Portfolio portfolio) {
+        return portfolio.calculateTotalValue() + portfolio.getReservedCash();
+    }
+
+    // --- Zadania ForkJoin ---
+
+    private final class ScenarioTask extends RecursiveTask<Moments> {
+        private static final long serialVersionUID = 1L;
+
+        private final PortfolioFactory factory;
+        private final double[] profits;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        ScenarioTask(PortfolioFactory factory, double[] profits, int from, int to, SplittableRandom random) {
+            this.factory = factory;
+            this.profits = profits;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected Moments compute() {
+            if (to - from <= batchSize) {
+                Moments moments = new Moments();
+                for (int scenario = from; scenario < to; scenario++) {
+                    simulate(factory, scenario, random.split(), profits, moments);
+                }
+                return moments;
+            }
+            int middle = (from + to) >>> 1;
+            ScenarioTask left = new ScenarioTask(factory, profits, from, middle, random.split());
+            ScenarioTask right = new ScenarioTask(factory, profits, middle, to, random);
+            left.fork();
+            Moments result = right.compute();
+            return left.join().merge(result);
+        }
+    }
+
+    // Momenty rozkładu wartości końcowej (algorytm Chana - łączenie średnich i M2 bez utraty dokładności)
+    private static final class Moments {
+        long count;
+        double mean;
+        double m2;
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        double initialSum;
+
+        void add(double initialValue, double terminalValue) {
+            count++;
+            double delta = terminalValue - mean;
+            mean += delta / count;
+            m2 += delta * (terminalValue - mean);
+            min = Math.min(min, terminalValue);
+            max = Math.max(max, terminalValue);
+            initialSum += initialValue;
+        }
+
+        Moments merge(Moments other) {
+            if (other.count == 0) return this;
+            if (count == 0) return other;
+            long total = count + other.count;
+            double delta = other.mean - mean;
+            mean += delta * other.count / total;
+            m2 += other.m2 + delta * delta * ((double) count * other.count / total);
+            count = total;
+            min = Math.min(min, other.min);
+            max = Math.max(max, other.max);
+            initialSum += other.initialSum;
+            return this;
+        }
+    }
+
+    // --- Bufory wątku ---
+
+    // Stan jednego wątku roboczego, używany ponownie przez kolejne scenariusze
+    private static final class Workspace {
+        final PriceFeed feed = new PriceFeed();
+        double[] paths = new double[0];
+        int[] feedIds = new int[16];
+        double[] startPrices = new double[16];
+
+        // Zbiera symbole portfela i zapewnia miejsce na ich ścieżki; zwraca liczbę symboli
+        int prepare(Portfolio portfolio, int horizonDays) {
+            int count = 0;
+            for (AssetEntry entry : portfolio.holdingEntries()) {
+                if (count == feedIds.length) {
+                    feedIds = Arrays.copyOf(feedIds, count * 2);
+                    startPrices = Arrays.copyOf(startPrices, count * 2);
+                }
+                feedIds[count] = feed.register(entry.assetDefinition.getSymbol());
+                startPrices[count] = entry.assetDefinition.getMarketPrice();
+                count++;
+            }
+            long needed = (long) count * (horizonDays + 1);
+            if (needed > Integer.MAX_VALUE - 8) {
+                throw new IllegalArgumentException("Too many symbols for horizon: " + count + " x " + horizonDays);
+            }
+            if (paths.length < needed) {
+                paths = new double[(int) needed];
+            }
+            return count;
+        }
+    }
+}
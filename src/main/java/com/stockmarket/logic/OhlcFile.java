@@ -0,0 +1,254 @@
+package com.stockmarket.logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Binarny plik historii OHLC czytany przez mapowanie pamięci (okno po oknie - plik nie trafia w całości na stertę).
+//
+// Układ (big endian):
+//   NAGŁÓWEK   magic(int) | wersja(short) | zarezerwowane(short) | liczba świec(long)
+//              | liczba symboli(int) | offset tablicy symboli(long) | wyrównanie(int)
+//   ŚWIECE     dzień(int) | id symbolu(int) | open | high | low | close (double) | wolumen(long)
+//   SYMBOLE    długość(ushort) | UTF-8 - w kolejności id
+// Tablica symboli jest na końcu, więc Writer nie musi znać symboli z góry. Nagłówek jest zapisywany
+// przy zamknięciu - plik przerwany w trakcie zapisu nie przejdzie kontroli magic.
+public final class OhlcFile {
+
+    static final int MAGIC = 0x534D4F48; // "SMOH"
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 4 + 4 + 4 * 8 + 8;
+
+    // Liczba świec w jednym oknie mapowania (~192 MB)
+    private static final int WINDOW_RECORDS = 1 << 22;
+
+    private OhlcFile() {}
+
+    public static BarSource open(Path path) throws IOException {
+        return new MappedBarSource(path);
+    }
+
+    // Strumieniowy odczyt CSV: DZIEŃ,SYMBOL,OPEN,HIGH,LOW,CLOSE[,WOLUMEN]
+    public static BarSource openCsv(Path path) throws IOException {
+        return new CsvBarSource(path);
+    }
+
+    // Jednorazowy import CSV do formatu binarnego (strumieniowo); zwraca liczbę świec
+    public static long convertCsv(Path csv, Path target) throws IOException {
+        Bar bar = new Bar();
+        try (BarSource source = new CsvBarSource(csv); Writer writer = new Writer(target)) {
+            while (source.next(bar)) {
+                writer.append(bar);
+            }
+            return writer.getBarCount();
+        }
+    }
+
+    // --- Odczyt ---
+
+    private static final class MappedBarSource implements BarSource {
+        private final FileChannel channel;
+        private final String[] symbols;
+        private final long barCount;
+
+        private MappedByteBuffer window;
+        private long windowFirst;
+        private int windowCount;
+        private long nextBar;
+        private int lastDay = Integer.MIN_VALUE;
+
+        MappedBarSource(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                if (size < HEADER_SIZE) {
+                    throw new DataIntegrityException("OHLC file too short: " + path);
+                }
+                ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                if (header.getInt() != MAGIC) {
+                    throw new DataIntegrityException("Not an OHLC file (or incomplete write): " + path);
+                }
+                short version = header.getShort();
+                if (version != VERSION) {
+                    throw new DataIntegrityException("Unsupported OHLC file version: " + version);
+                }
+                header.getShort();
+                this.barCount = header.getLong();
+                int symbolCount = header.getInt();
+                long symbolOffset = header.getLong();
+                if (barCount < 0 || symbolCount < 0 || symbolOffset != HEADER_SIZE + barCount * RECORD_SIZE
+                        || symbolOffset > size) {
+                    throw new DataIntegrityException("Corrupted OHLC header: " + path);
+                }
+                this.symbols = readSymbols(symbolOffset, size - symbolOffset, symbolCount);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private String[] readSymbols(long offset, long length, int count) throws IOException {
+            ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            String[] result = new String[count];
+            try {
+                for (int i = 0; i < count; i++) {
+                    byte[] bytes = new byte[table.getShort() & 0xFFFF];
+                    table.get(bytes);
+                    result[i] = new String(bytes, StandardCharsets.UTF_8);
+                }
+            } catch (BufferUnderflowException e) {
+                throw new DataIntegrityException("Truncated OHLC symbol table.");
+            }
+            return result;
+        }
+
+        @Override
+        public boolean next(Bar bar) throws IOException {
+            if (nextBar >= barCount) {
+                return false;
+            }
+            if (nextBar - windowFirst >= windowCount) {
+                mapWindow();
+            }
+            int at = (int) (nextBar - windowFirst) * RECORD_SIZE;
+            int day = window.getInt(at);
+            int symbolId = window.getInt(at + 4);
+            if (symbolId < 0 || symbolId >= symbols.length) {
+                throw new DataIntegrityException("Invalid symbol id " + symbolId + " in bar " + nextBar);
+            }
+            if (day < lastDay) {
+                throw new DataIntegrityException("Bars out of order at bar " + nextBar + ": day " + day + " after " + lastDay);
+            }
+            bar.set(day, symbolId, symbols[symbolId],
+                    window.getDouble(at + 8), window.getDouble(at + 16), window.getDouble(at + 24),
+                    window.getDouble(at + 32), window.getLong(at + 40));
+            if (!bar.isValid()) {
+                throw new DataIntegrityException("Invalid OHLC values in bar " + nextBar + ": " + bar);
+            }
+            lastDay = day;
+            nextBar++;
+            return true;
+        }
+
+        private void mapWindow() throws IOException {
+            windowFirst = nextBar;
+            windowCount = (int) Math.min(WINDOW_RECORDS, barCount - nextBar);
+            window = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE + windowFirst * RECORD_SIZE, (long) windowCount * RECORD_SIZE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            window = null;
+            channel.close();
+        }
+    }
+
+    // --- Zapis ---
+
+    // Strumieniowy zapis świec; symbole dostają kolejne id przy pierwszym wystąpieniu
+    public static final class Writer implements Closeable {
+        private static final int BUFFER_SIZE = 1 << 16;
+
+        private final FileChannel channel;
+        // Bufor musi pomieścić wpis z najdłuższym możliwym symbolem
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE + 2 + 0xFFFF);
+        private final Map<String, Integer> symbolIds = new HashMap<>();
+        private final List<byte[]> symbols = new ArrayList<>();
+        private long barCount;
+        private int lastDay = Integer.MIN_VALUE;
+        private boolean closed;
+
+        public Writer(Path path) throws IOException {
+            this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            // Miejsce na nagłówek (zera - magic zostanie wpisany przy zamknięciu)
+            buffer.position(HEADER_SIZE);
+        }
+
+        public void append(Bar bar) throws IOException {
+            append(bar.day, bar.symbol, bar.open, bar.high, bar.low, bar.close, bar.volume);
+        }
+
+        public void append(int day, String symbol, double open, double high, double low, double close, long volume)
+                throws IOException {
+            if (symbol == null || symbol.trim().isEmpty()) {
+                throw new IllegalArgumentException("Bar symbol cannot be empty.");
+            }
+            if (day < lastDay) {
+                throw new IllegalArgumentException("Bars must be appended in day order: " + day + " after " + lastDay);
+            }
+            if (!Bar.isValid(open, high, low, close, volume)) {
+                throw new IllegalArgumentException("Invalid OHLC values for " + symbol + " on day " + day);
+            }
+            Integer symbolId = symbolIds.get(symbol);
+            if (symbolId == null) {
+                byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+                if (bytes.length > 0xFFFF) {
+                    throw new IllegalArgumentException("Symbol too long: " + symbol);
+                }
+                symbolId = symbols.size();
+                symbols.add(bytes);
+                symbolIds.put(symbol, symbolId);
+            }
+
+            if (buffer.position() + RECORD_SIZE > BUFFER_SIZE) {
+                flush();
+            }
+            buffer.putInt(day).putInt(symbolId)
+                    .putDouble(open).putDouble(high).putDouble(low).putDouble(close)
+                    .putLong(volume);
+            lastDay = day;
+            barCount++;
+        }
+
+        public long getBarCount() { return barCount; }
+
+        private void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) return;
+            closed = true;
+            try {
+                long symbolOffset = HEADER_SIZE + barCount * RECORD_SIZE;
+                for (byte[] symbol : symbols) {
+                    if (buffer.position() + 2 + symbol.length > buffer.capacity()) {
+                        flush();
+                    }
+                    buffer.putShort((short) symbol.length).put(symbol);
+                }
+                flush();
+
+                buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                        .putLong(barCount).putInt(symbols.size()).putLong(symbolOffset).putInt(0);
+                buffer.flip();
+                long position = 0;
+                while (buffer.hasRemaining()) {
+                    position += channel.write(buffer, position);
+                }
+                buffer.clear();
+                channel.force(true);
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,316 @@
+package com.stockmarket.logic;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.SymbolRegistry;
+import com.stockmarket.domain.TimeInForce;
+
+// Księga zleceń dla jednego symbolu (priorytet: cena, potem kolejność złożenia)
+public class OrderBook {
+
+    private final String symbol;
+    private final int symbolId;
+
+    // Poziomy cenowe - pierwszy klucz to zawsze najlepsza cena danej strony
+    private final TreeMap<Double, PriceLevel> bids;
+    private final TreeMap<Double, PriceLevel> asks;
+
+    // Najlepsze poziomy trzymane osobno, żeby peek był O(1)
+    private PriceLevel bestBid;
+    private PriceLevel bestAsk;
+
+    // Indeks id -> zlecenie (może być współdzielony przez księgi jednego portfela)
+    private final Map<Long, RestingOrder> index;
+    private int restingCount;
+
+    public OrderBook(String symbol) {
+        this(symbol, new HashMap<>());
+    }
+
+    public OrderBook(String symbol, Map<Long, RestingOrder> index) {
+        if (symbol == null || symbol.trim().isEmpty()) {
+            throw new IllegalArgumentException("Order book symbol cannot be empty.");
+        }
+        if (index == null) {
+            throw new IllegalArgumentException("Order index cannot be null.");
+        }
+        this.symbolId = SymbolRegistry.intern(symbol);
+        this.symbol = SymbolRegistry.symbolOf(symbolId);
+        this.bids = new TreeMap<>(Collections.reverseOrder());
+        this.asks = new TreeMap<>();
+        this.index = index;
+    }
+
+    // --- Składanie i dopasowanie ---
+
+    // Zwraca niezrealizowaną ilość (0 = zrealizowane w całości). Dla GTC/DAY ta część czeka w księdze,
+    // dla IOC/FOK jest odrzucana; FOK bez wystarczającej płynności nie jest realizowany wcale.
+    public int submit(long orderId, Order order, FillListener listener) {
+        if (order == null) throw new IllegalArgumentException("Order cannot be null.");
+        if (order.getSymbolId() != symbolId) {
+            throw new IllegalArgumentException("Order symbol " + order.getSymbol() + " does not match book " + symbol);
+        }
+        if (index.containsKey(orderId)) {
+            throw new IllegalArgumentException("Duplicate order id: " + orderId);
+        }
+
+        TimeInForce timeInForce = order.getTimeInForce();
+        if (timeInForce == TimeInForce.FOK && crossingQuantity(order, order.getQuantity()) < order.getQuantity()) {
+            return order.getQuantity();
+        }
+        int remaining = match(order, order.getQuantity(), listener);
+        if (remaining > 0 && timeInForce.restsInBook()) {
+            rest(orderId, order, remaining);
+        }
+        return remaining;
+    }
+
+    // Ilość po stronie przeciwnej w cenach akceptowalnych dla zlecenia (liczona do osiągnięcia `needed`)
+    private int crossingQuantity(Order incoming, int needed) {
+        boolean isBuy = incoming.getType() == OrderType.BUY;
+        long available = 0;
+        for (PriceLevel level : (isBuy ? asks : bids).values()) {
+            boolean crosses = isBuy
+                    ? level.price <= incoming.getPriceLimit()
+                    : level.price >= incoming.getPriceLimit();
+            if (!crosses) break;
+            available += level.totalQuantity;
+            if (available >= needed) break;
+        }
+        return (int) Math.min(available, Integer.MAX_VALUE);
+    }
+
+    // Umieszcza zlecenie w księdze bez dopasowania (odtwarzanie stanu ze snapshotu)
+    void restore(long orderId, Order order, int remaining) {
+        if (order.getSymbolId() != symbolId || index.containsKey(orderId) || remaining <= 0) {
+            throw new IllegalArgumentException("Cannot restore order " + orderId);
+        }
+        rest(orderId, order, remaining);
+    }
+
+    private int match(Order incoming, int quantity, FillListener listener) {
+        boolean isBuy = incoming.getType() == OrderType.BUY;
+        int remaining = quantity;
+
+        while (remaining > 0) {
+            PriceLevel level = isBuy ? bestAsk : bestBid;
+            if (level == null) break;
+
+            boolean crosses = isBuy
+                    ? level.price <= incoming.getPriceLimit()
+                    : level.price >= incoming.getPriceLimit();
+            if (!crosses) break;
+
+            // FIFO w obrębie poziomu - zawsze zaczynamy od najstarszego zlecenia
+            RestingOrder resting = level.head;
+            int fillQuantity = Math.min(remaining, resting.remaining);
+
+            resting.remaining -= fillQuantity;
+            level.totalQuantity -= fillQuantity;
+            remaining -= fillQuantity;
+
+            if (resting.remaining == 0) {
+                unlink(resting);
+            }
+
+            if (listener != null) {
+                // Transakcja zawsze po cenie zlecenia oczekującego
+                if (isBuy) {
+                    listener.onFill(incoming, resting.order, level.price, fillQuantity);
+                } else {
+                    listener.onFill(resting.order, incoming, level.price, fillQuantity);
+                }
+            }
+        }
+        return remaining;
+    }
+
+    // Realizacja zleceń oczekujących względem rynku (świeca open/low/high zamiast zlecenia przeciwnego).
+    // BUY z limitem >= low i SELL z limitem <= high są realizowane w całości; przy luce cenowej
+    // po cenie otwarcia, w przeciwnym razie po limicie. Druga strona w FillListener to null.
+    // Zwraca łączną zrealizowaną ilość.
+    public int matchMarket(double open, double low, double high, FillListener listener) {
+        int filled = 0;
+        while (bestBid != null && bestBid.price >= low) {
+            RestingOrder resting = bestBid.head;
+            double price = Math.min(bestBid.price, open);
+            filled += fillResting(resting);
+            if (listener != null) listener.onFill(resting.order, null, price, resting.remaining);
+        }
+        while (bestAsk != null && bestAsk.price <= high) {
+            RestingOrder resting = bestAsk.head;
+            double price = Math.max(bestAsk.price, open);
+            filled += fillResting(resting);
+            if (listener != null) listener.onFill(null, resting.order, price, resting.remaining);
+        }
+        return filled;
+    }
+
+    // Zdejmuje zlecenie z księgi; pole remaining zostaje (ilość do rozliczenia przez listenera)
+    private int fillResting(RestingOrder resting) {
+        resting.level.totalQuantity -= resting.remaining;
+        unlink(resting);
+        return resting.remaining;
+    }
+
+    private void rest(long orderId, Order order, int quantity) {
+        boolean isBuy = order.getType() == OrderType.BUY;
+        TreeMap<Double, PriceLevel> side = isBuy ? bids : asks;
+        double price = order.getPriceLimit();
+
+        PriceLevel level = side.get(price);
+        if (level == null) {
+            level = new PriceLevel(price, order.getType());
+            side.put(price, level);
+
+            if (isBuy) {
+                if (bestBid == null || price > bestBid.price) bestBid = level;
+            } else {
+                if (bestAsk == null || price < bestAsk.price) bestAsk = level;
+            }
+        }
+
+        RestingOrder resting = new RestingOrder(orderId, order, quantity, this);
+        level.append(resting);
+        index.put(orderId, resting);
+        restingCount++;
+    }
+
+    // --- Anulowanie ---
+
+    // Zwraca anulowane zlecenie (z ilością, która nie została zrealizowana) albo null
+    public RestingOrder cancel(long orderId) {
+        RestingOrder resting = index.get(orderId);
+        if (resting == null || resting.book != this) {
+            return null;
+        }
+        resting.level.totalQuantity -= resting.remaining;
+        unlink(resting);
+        return resting;
+    }
+
+    // Zmniejsza niezrealizowaną ilość zlecenia w miejscu - bez utraty priorytetu w poziomie cenowym
+    boolean reduce(long orderId, int newRemaining) {
+        RestingOrder resting = getRestingOrder(orderId);
+        if (resting == null || newRemaining <= 0 || newRemaining >= resting.remaining) {
+            return false;
+        }
+        resting.level.totalQuantity -= resting.remaining - newRemaining;
+        resting.remaining = newRemaining;
+        return true;
+    }
+
+    private void unlink(RestingOrder resting) {
+        PriceLevel level = resting.level;
+        level.remove(resting);
+        index.remove(resting.orderId);
+        restingCount--;
+
+        if (level.isEmpty()) {
+            boolean isBuy = level.side == OrderType.BUY;
+            TreeMap<Double, PriceLevel> side = isBuy ? bids : asks;
+            side.remove(level.price);
+
+            if (isBuy && level == bestBid) {
+                bestBid = side.isEmpty() ? null : side.firstEntry().getValue();
+            } else if (!isBuy && level == bestAsk) {
+                bestAsk = side.isEmpty() ? null : side.firstEntry().getValue();
+            }
+        }
+    }
+
+    // --- Odczyt stanu ---
+
+    public String getSymbol() { return symbol; }
+    public int getSymbolId() { return symbolId; }
+    public int getRestingCount() { return restingCount; }
+    public boolean isEmpty() { return restingCount == 0; }
+    public int getBidLevelCount() { return bids.size(); }
+    public int getAskLevelCount() { return asks.size(); }
+
+    public Order peekBestBuyOrder() { return bestBid != null ? bestBid.head.order : null; }
+    public Order peekBestSellOrder() { return bestAsk != null ? bestAsk.head.order : null; }
+
+    public double getBestBidPrice() { return bestBid != null ? bestBid.price : Double.NaN; }
+    public double getBestAskPrice() { return bestAsk != null ? bestAsk.price : Double.NaN; }
+
+    public int getQuantityAtPrice(OrderType type, double price) {
+        PriceLevel level = (type == OrderType.BUY ? bids : asks).get(price);
+        return level != null ? level.totalQuantity : 0;
+    }
+
+    public RestingOrder getRestingOrder(long orderId) {
+        RestingOrder resting = index.get(orderId);
+        return resting != null && resting.book == this ? resting : null;
+    }
+
+    // --- Klasy Wewnętrzne ---
+
+    // Zlecenie oczekujące - węzeł listy dwukierunkowej w obrębie poziomu cenowego
+    public static final class RestingOrder {
+        private final long orderId;
+        private final Order order;
+        private final OrderBook book;
+        private int remaining;
+
+        private PriceLevel level;
+        private RestingOrder prev;
+        private RestingOrder next;
+
+        private RestingOrder(long orderId, Order order, int remaining, OrderBook book) {
+            this.orderId = orderId;
+            this.order = order;
+            this.remaining = remaining;
+            this.book = book;
+        }
+
+        public long getOrderId() { return orderId; }
+        public Order getOrder() { return order; }
+        public int getRemainingQuantity() { return remaining; }
+        public OrderBook getBook() { return book; }
+    }
+
+    // Poziom cenowy - kolejka FIFO zleceń o tej samej cenie
+    private static final class PriceLevel {
+        final double price;
+        final OrderType side;
+        int totalQuantity;
+        RestingOrder head;
+        RestingOrder tail;
+
+        PriceLevel(double price, OrderType side) {
+            this.price = price;
+            this.side = side;
+        }
+
+        void append(RestingOrder resting) {
+            resting.level = this;
+            resting.prev = tail;
+            if (tail != null) {
+                tail.next = resting;
+            } else {
+                head = resting;
+            }
+            tail = resting;
+            totalQuantity += resting.remaining;
+        }
+
+        void remove(RestingOrder resting) {
+            if (resting.prev != null) resting.prev.next = resting.next;
+            else head = resting.next;
+            if (resting.next != null) resting.next.prev = resting.prev;
+            else tail = resting.prev;
+            resting.prev = null;
+            resting.next = null;
+        }
+
+        boolean isEmpty() {
+            return head == null;
+        }
+    }
+}
@@ -1,74 +1,331 @@
 package com.stockmarket.logic;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.Locale;
 
 import com.stockmarket.domain.*;
 
 public class Portfolio {
 
-    private double cash;
-    private int currentDay;
+    // Tryb składania koszyka zleceń (placeOrders)
+    public enum BatchMode {
+        ALL_OR_NOTHING,
+        BEST_EFFORT
+    }
 
-    // Mapa przechowująca stan posiadania (Klucz: Symbol)
-    private Map<String, AssetEntry> holdings;
+    // Gotówka w jednostkach Money (1e-8) - księgowanie bez błędów zaokrągleń
+    private long cash;
+    private int currentDay;
 
-    // Kolejki zleceń
-    private Queue<Order> buyOrders;
-    private Queue<Order> sellOrders;
+    // Stan posiadania i księgi zleceń indeksowane id symbolu (SymbolRegistry)
+    private SymbolMap<AssetEntry> holdings;
+
+    // Księgi zleceń per symbol + wspólny indeks id -> zlecenie oczekujące
+    private SymbolMap<OrderBook> orderBooks;
+    private Map<Long, OrderBook.RestingOrder> openOrders;
+    private long lastOrderId;
+    private long lastLotId;
+    // Gotówka zablokowana przez oczekujące zlecenia BUY (po cenie limitu) - już odjęta od cash
+    private long reservedCash;
+    // Zlecenia DAY złożone w bieżącym dniu (mogą być już zrealizowane lub anulowane) - wygasają przy zmianie dnia
+    private final ArrayDeque<OrderBook.RestingOrder> dayOrders = new ArrayDeque<>();
+
+    // Domyślna metoda wyboru lotów przy sprzedaży (także przy realizacji zleceń)
+    private CostBasisMethod costBasisMethod = CostBasisMethod.FIFO;
+    private final FillListener fillHandler = this::applyFill;
+
+    // Obserwator zmian stanu (np. dziennik zapisu z wyprzedzeniem); null = brak
+    private PortfolioListener listener;
+    // Metryki czasów operacji; null = wyłączone (koszt: jedno porównanie na operację)
+    private PortfolioMetrics metrics;
+    // Wskaźniki rejestrowane w setMetrics
+    private static final String[] GAUGES = {"holdings", "lots", "maxLotsPerHolding", "openOrders"};
+
+    // Wycena przyrostowa: suma wartości pozycji + lista pozycji zmienionych od ostatniej wyceny
+    private static final int VALUATION_RESYNC_INTERVAL = 1 << 12;
+    private final List<AssetEntry> dirtyEntries = new ArrayList<>();
+    private double holdingsValue;
+    private boolean holdingsValueValid;
+    private int valuedDay;
+    private int incrementalUpdates;
+
+    // Źródło lotów portfela wczytanego leniwie (PortfolioFileManager.loadPortfolioLazy); null = loty w pamięci
+    private LotPager lotPager;
 
     public Portfolio(double initialCash) {
         if (initialCash < 0) {
             throw new IllegalArgumentException("Initial cash cannot be negative.");
         }
-        this.cash = initialCash;
+        this.cash = Money.of(initialCash);
         this.currentDay = 0;
-        this.holdings = new HashMap<>();
-
-        // Inicjalizacja Kolejek Priorytetowych
-        this.buyOrders = new PriorityQueue<>(new Comparator<Order>() {
-            @Override
-            public int compare(Order o1, Order o2) {
-                return Double.compare(o2.getPriceLimit(), o1.getPriceLimit());
-            }
-        });
-
-        this.sellOrders = new PriorityQueue<>(new Comparator<Order>() {
-            @Override
-            public int compare(Order o1, Order o2) {
-                return Double.compare(o1.getPriceLimit(), o2.getPriceLimit());
-            }
-        });
+        this.holdings = new SymbolMap<>();
+        this.orderBooks = new SymbolMap<>();
+        this.openOrders = new HashMap<>();
     }
 
     // --- Obsługa Czasu ---
     public void advanceTime(int days) {
-        if (days > 0) this.currentDay += days;
+        if (days > 0) {
+            this.currentDay += days;
+            expireDayOrders();
+            if (listener != null) listener.onTimeAdvanced(days);
+        }
+    }
+
+    // Wygaśnięcie wynika ze zmiany dnia, więc nie jest zgłaszane listenerowi (odtworzenie dziennika da to samo)
+    private void expireDayOrders() {
+        while (!dayOrders.isEmpty()) {
+            OrderBook.RestingOrder resting = dayOrders.poll();
+            if (openOrders.get(resting.getOrderId()) == resting) {
+                cancelResting(resting);
+            }
+        }
     }
 
     // --- Obsługa Zleceń ---
-    public void placeOrder(Order order) {
+
+    // Składa zlecenie w księdze symbolu i od razu dopasowuje je do strony przeciwnej.
+    // Zwraca id zlecenia (potrzebne do anulowania części, która czeka w księdze).
+    // Niezrealizowana część IOC/FOK nie trafia do księgi, a jej rezerwacja jest od razu zwalniana.
+    public long placeOrder(Order order) {
         if (order == null) throw new IllegalArgumentException("Order cannot be null.");
+        long start = metrics != null ? System.nanoTime() : 0L;
+        long orderId = submitOrder(order);
+        if (listener != null) listener.onOrderPlaced(orderId, order);
+        if (metrics != null) metrics.record(PortfolioMetrics.Operation.PLACE_ORDER, start);
+        return orderId;
+    }
 
+    private long submitOrder(Order order) {
         if (order.getType() == OrderType.BUY) {
-            double estimatedCost = order.getQuantity() * order.getPriceLimit();
+            long estimatedCost = Money.times(order.getPriceLimitUnits(), order.getQuantity());
             if (estimatedCost > cash) {
                 throw new IllegalArgumentException("Not enough cash to place BUY order.");
             }
+            // Rezerwacja gotówki po cenie limitu
             this.cash -= estimatedCost;
-            buyOrders.add(order);
+            this.reservedCash += estimatedCost;
         } else {
-            AssetEntry entry = holdings.get(order.getSymbol());
-            if (entry == null || entry.getTotalQuantity() < order.getQuantity()) {
+            AssetEntry entry = holdings.get(order.getSymbolId());
+            if (entry == null || entry.getAvailableQuantity() < order.getQuantity()) {
                 throw new IllegalArgumentException("Not enough assets to place SELL order.");
             }
-            sellOrders.add(order);
+            // Rezerwacja aktywów, żeby kolejne zlecenia nie sprzedały ich drugi raz
+            entry.reservedQuantity += order.getQuantity();
+        }
+        return bookOrder(order);
+    }
+
+    // Koszyk zleceń (np. przy rebalansowaniu): najpierw jedno przejście sprawdza pokrycie - gotówkę łącznie
+    // dla wszystkich BUY i ilości per symbol dla SELL (licznikiem jest chwilowo reservedQuantity pozycji) - ze
+    // stanu sprzed koszyka. Potem każde przyjęte zlecenie jest rezerwowane i składane osobno, dokładnie jak
+    // w placeOrder, i dopiero wtedy zgłaszane obserwatorowi: dziennik zapisuje zwykłe PLACE_ORDER, a checkpoint
+    // wywołany w trakcie koszyka widzi stan zgodny z zapisanymi rekordami. Realizacje wewnątrz koszyka mogą
+    // tylko zwiększyć gotówkę i dostępne aktywa, więc sprawdzone wcześniej zlecenie zawsze da się złożyć.
+    // ALL_OR_NOTHING: brak środków na którekolwiek zlecenie -> wyjątek i brak zmian.
+    // BEST_EFFORT: zlecenia bez pokrycia są pomijane (id 0), pozostałe składane.
+    // Zwraca id zleceń w kolejności koszyka.
+    public long[] placeOrders(Collection<Order> orders, BatchMode mode) {
+        if (orders == null) throw new IllegalArgumentException("Orders cannot be null.");
+        if (mode == null) throw new IllegalArgumentException("Batch mode cannot be null.");
+
+        Order[] basket = orders.toArray(new Order[0]);
+        for (Order order : basket) {
+            if (order == null) throw new IllegalArgumentException("Order cannot be null.");
+        }
+
+        boolean[] accepted = new boolean[basket.length];
+        long basketCost = 0;
+        for (int i = 0; i < basket.length; i++) {
+            Order order = basket[i];
+            if (order.getType() == OrderType.BUY) {
+                long estimatedCost = Money.times(order.getPriceLimitUnits(), order.getQuantity());
+                if (estimatedCost <= cash - basketCost) {
+                    basketCost += estimatedCost;
+                    accepted[i] = true;
+                }
+            } else {
+                AssetEntry entry = holdings.get(order.getSymbolId());
+                if (entry != null && entry.getAvailableQuantity() >= order.getQuantity()) {
+                    entry.reservedQuantity += order.getQuantity();
+                    accepted[i] = true;
+                }
+            }
+            if (!accepted[i] && mode == BatchMode.ALL_OR_NOTHING) {
+                releaseBasket(basket, accepted, i);
+                throw new IllegalArgumentException("Not enough " + (order.getType() == OrderType.BUY ? "cash" : "assets")
+                        + " for order #" + i + " of the basket.");
+            }
+        }
+        releaseBasket(basket, accepted, basket.length);
+
+        long[] orderIds = new long[basket.length];
+        for (int i = 0; i < basket.length; i++) {
+            if (!accepted[i]) continue;
+            // Każde zlecenie koszyka to osobna próbka PLACE_ORDER
+            long start = metrics != null ? System.nanoTime() : 0L;
+            orderIds[i] = submitOrder(basket[i]);
+            if (listener != null) listener.onOrderPlaced(orderIds[i], basket[i]);
+            if (metrics != null) metrics.record(PortfolioMetrics.Operation.PLACE_ORDER, start);
+        }
+        return orderIds;
+    }
+
+    // Cofa liczniki SELL z pierwszych `count` zleceń koszyka po sprawdzeniu pokrycia
+    private void releaseBasket(Order[] basket, boolean[] accepted, int count) {
+        for (int i = 0; i < count; i++) {
+            if (accepted[i] && basket[i].getType() == OrderType.SELL) {
+                holdings.get(basket[i].getSymbolId()).reservedQuantity -= basket[i].getQuantity();
+            }
+        }
+    }
+
+    // Zlecenie z gotową rezerwacją: dopasowanie w księdze i rozliczenie części, która nie zostaje w księdze
+    private long bookOrder(Order order) {
+        long orderId = ++lastOrderId;
+        OrderBook book = orderBookFor(order);
+        int unfilled = book.submit(orderId, order, fillHandler);
+        if (unfilled > 0) {
+            if (!order.getTimeInForce().restsInBook()) {
+                releaseReservation(order, unfilled);
+            } else if (order.getTimeInForce() == TimeInForce.DAY) {
+                trackDayOrder(book.getRestingOrder(orderId));
+            }
+        }
+        return orderId;
+    }
+
+    private void trackDayOrder(OrderBook.RestingOrder resting) {
+        dayOrders.add(resting);
+        // Przy częstym anulowaniu usuwamy wpisy zleceń, których już nie ma w księgach
+        if (dayOrders.size() > 2 * openOrders.size() + 64) {
+            dayOrders.removeIf(r -> openOrders.get(r.getOrderId()) != r);
+        }
+    }
+
+    // Anuluje niezrealizowaną część zlecenia i zwalnia rezerwację
+    public boolean cancelOrder(long orderId) {
+        OrderBook.RestingOrder resting = openOrders.get(orderId);
+        if (resting == null) {
+            return false;
+        }
+        long start = metrics != null ? System.nanoTime() : 0L;
+        cancelResting(resting);
+        if (listener != null) listener.onOrderCancelled(orderId);
+        if (metrics != null) metrics.record(PortfolioMetrics.Operation.CANCEL_ORDER, start);
+        return true;
+    }
+
+    private void cancelResting(OrderBook.RestingOrder resting) {
+        resting.getBook().cancel(resting.getOrderId());
+        releaseReservation(resting.getOrder(), resting.getRemainingQuantity());
+    }
+
+    private void releaseReservation(Order order, int quantity) {
+        if (order.getType() == OrderType.BUY) {
+            long released = Money.times(order.getPriceLimitUnits(), quantity);
+            this.reservedCash -= released;
+            this.cash += released;
+        } else {
+            holdings.get(order.getSymbolId()).reservedQuantity -= quantity;
+        }
+    }
+
+    // Zmiana limitu i/lub niezrealizowanej ilości zlecenia oczekującego (cancel/replace).
+    // Zmniejszenie ilości przy tym samym limicie odbywa się w miejscu: zlecenie zachowuje id i priorytet.
+    // W pozostałych przypadkach zlecenie jest anulowane i składane od nowa (nowe id, koniec kolejki, może
+    // się od razu zrealizować). Zwraca id zlecenia po zmianie; przy braku środków nic się nie zmienia.
+    public long replaceOrder(long orderId, double newPriceLimit, int newQuantity) {
+        OrderBook.RestingOrder resting = openOrders.get(orderId);
+        if (resting == null) {
+            throw new IllegalArgumentException("Order is not open: " + orderId);
+        }
+        Order original = resting.getOrder();
+        Order replacement = new Order(original.getSymbol(), original.getAssetType(), newPriceLimit, newQuantity,
+                original.getType(), original.getTimeInForce());
+        int remaining = resting.getRemainingQuantity();
+
+        // Metryki: zmniejszenie w miejscu i anulowanie starego zlecenia liczą się jako CANCEL_ORDER,
+        // złożenie nowego jako PLACE_ORDER
+        long start = metrics != null ? System.nanoTime() : 0L;
+        long resultId;
+        if (replacement.getPriceLimitUnits() == original.getPriceLimitUnits() && newQuantity <= remaining) {
+            if (newQuantity == remaining) {
+                return orderId;
+            }
+            resting.getBook().reduce(orderId, newQuantity);
+            releaseReservation(original, remaining - newQuantity);
+            resultId = orderId;
+            if (metrics != null) metrics.record(PortfolioMetrics.Operation.CANCEL_ORDER, start);
+        } else {
+            checkReplacement(original, remaining, replacement);
+            cancelResting(resting);
+            if (metrics != null) {
+                metrics.record(PortfolioMetrics.Operation.CANCEL_ORDER, start);
+                start = System.nanoTime();
+            }
+            resultId = submitOrder(replacement);
+            if (metrics != null) metrics.record(PortfolioMetrics.Operation.PLACE_ORDER, start);
+        }
+        if (listener != null) listener.onOrderReplaced(orderId, resultId, replacement.getPriceLimit(), newQuantity);
+        return resultId;
+    }
+
+    // Czy po zwolnieniu rezerwacji starego zlecenia wystarczy środków na nowe
+    private void checkReplacement(Order original, int remaining, Order replacement) {
+        if (original.getType() == OrderType.BUY) {
+            long available = cash + Money.times(original.getPriceLimitUnits(), remaining);
+            if (Money.times(replacement.getPriceLimitUnits(), replacement.getQuantity()) > available) {
+                throw new IllegalArgumentException("Not enough cash to replace BUY order.");
+            }
+        } else {
+            AssetEntry entry = holdings.get(original.getSymbolId());
+            if (entry.getAvailableQuantity() + remaining < replacement.getQuantity()) {
+                throw new IllegalArgumentException("Not enough assets to replace SELL order.");
+            }
+        }
+    }
+
+    public boolean isOrderOpen(long orderId) {
+        return openOrders.containsKey(orderId);
+    }
+
+    // Realizuje zlecenia oczekujące symbolu względem świecy rynkowej (backtest, zob. OrderBook.matchMarket).
+    // Zwraca zrealizowaną ilość.
+    public int matchMarket(String symbol, double open, double low, double high) {
+        OrderBook book = orderBooks.get(symbol);
+        if (book == null || book.isEmpty()) {
+            return 0;
+        }
+        int filled = book.matchMarket(open, low, high, fillHandler);
+        if (filled > 0 && listener != null) listener.onMarketMatched(symbol, open, low, high);
+        return filled;
+    }
+
+    // Realizacja transakcji: kupujący dostaje nowy lot, sprzedający oddaje loty (FIFO).
+    // Null po jednej stronie = drugą stroną jest rynek.
+    private void applyFill(Order buyOrder, Order sellOrder, double price, int quantity) {
+        if (sellOrder != null) {
+            AssetEntry sellEntry = holdings.get(sellOrder.getSymbolId());
+            sellEntry.reservedQuantity -= quantity;
+            executeSale(sellEntry, quantity, Money.of(price));
+        }
+
+        if (buyOrder != null) {
+            // Rezerwacja była po cenie limitu - nadwyżkę zwracamy
+            Asset asset = AssetFactory.create(buyOrder.getAssetType(), buyOrder.getSymbol(), price);
+            long reserved = Money.times(buyOrder.getPriceLimitUnits(), quantity);
+            this.reservedCash -= reserved;
+            this.cash += reserved - Money.times(asset.getMarketPriceUnits(), quantity);
+            receiveLot(asset, quantity, asset.getMarketPriceUnits());
         }
     }
 
@@ -77,143 +334,418 @@ public class Portfolio {
     public void addAsset(Asset asset, int quantity) {
         if (asset == null) throw new IllegalArgumentException("Asset cannot be null.");
         if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive.");
+        long start = metrics != null ? System.nanoTime() : 0L;
 
-        double nominalCost = asset.getMarketPrice() * quantity;
-        double initialCost = asset.calculateInitialCost(quantity);
-        double totalCost = nominalCost + initialCost;
+        long nominalCost = Money.times(asset.getMarketPriceUnits(), quantity);
+        long initialCost = Money.of(asset.calculateInitialCost(quantity));
+        long totalCost = Money.add(nominalCost, initialCost);
 
         if (totalCost > this.cash) {
-            throw new IllegalArgumentException("Insufficient funds. Cost: " + totalCost);
+            throw new IllegalArgumentException("Insufficient funds. Cost: " + Money.format(totalCost));
         }
 
         // Realizacja zakupu
         this.cash -= totalCost;
-        String symbol = asset.getSymbol();
+        receiveLot(asset, quantity, asset.getMarketPriceUnits());
+        if (listener != null) listener.onAssetAdded(asset, quantity);
+        if (metrics != null) metrics.record(PortfolioMetrics.Operation.ADD_ASSET, start);
+    }
 
-        // Jeśli nie mamy tego aktywa, tworzymy wpis (bez sprawdzania limitu MAX_HOLDINGS)
-        if (!holdings.containsKey(symbol)) {
-            holdings.put(symbol, new AssetEntry(asset));
-        }
-        
-        AssetEntry entry = holdings.get(symbol);
-        entry.assetDefinition = asset; // Aktualizacja definicji (ceny)
-        entry.addLot(this.currentDay, asset.getMarketPrice(), quantity);
+    private void receiveLot(Asset asset, int quantity, long unitPrice) {
+        AssetEntry entry = entryFor(asset);
+        entry.define(asset); // Aktualizacja definicji (ceny)
+        entry.addLot(++lastLotId, this.currentDay, unitPrice, quantity);
+        markDirty(entry);
     }
 
     public double sellAsset(String symbol, int quantity, double currentPrice) {
-        if (!holdings.containsKey(symbol)) {
+        return sellAsset(symbol, quantity, currentPrice, this.costBasisMethod);
+    }
+
+    public double sellAsset(String symbol, int quantity, double currentPrice, CostBasisMethod method) {
+        if (method == null || method == CostBasisMethod.SPECIFIC_LOT) {
+            throw new IllegalArgumentException("Use sellLot for specific lot identification.");
+        }
+        long start = metrics != null ? System.nanoTime() : 0L;
+        AssetEntry entry = entryForSale(symbol, quantity);
+        long price = salePrice(currentPrice);
+        long profit = entry.processSale(quantity, price, method);
+        settleSale(entry, quantity, price);
+        if (listener != null) listener.onAssetSold(symbol, quantity, currentPrice, method);
+        if (metrics != null) metrics.record(PortfolioMetrics.Operation.SELL_ASSET, start);
+        return Money.toDouble(profit);
+    }
+
+    // Sprzedaż z konkretnego lotu (SPECIFIC_LOT), id z getLots()
+    public double sellLot(String symbol, long lotId, int quantity, double currentPrice) {
+        long start = metrics != null ? System.nanoTime() : 0L;
+        AssetEntry entry = entryForSale(symbol, quantity);
+        long price = salePrice(currentPrice);
+        long profit = entry.processLotSale(lotId, quantity, price);
+        settleSale(entry, quantity, price);
+        if (listener != null) listener.onLotSold(symbol, lotId, quantity, currentPrice);
+        if (metrics != null) metrics.record(PortfolioMetrics.Operation.SELL_ASSET, start);
+        return Money.toDouble(profit);
+    }
+
+    // Cena sprzedaży w jednostkach Money (także dla ConcurrentPortfolio)
+    static long salePrice(double price) {
+        if (!(price >= 0)) {
+            throw new IllegalArgumentException("Sale price cannot be negative.");
+        }
+        return Money.of(price);
+    }
+
+    private AssetEntry entryForSale(String symbol, int quantity) {
+        AssetEntry entry = holdings.get(symbol);
+        if (entry == null) {
             throw new IllegalArgumentException("Asset not found in portfolio: " + symbol);
         }
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be positive.");
         }
 
-        AssetEntry entry = holdings.get(symbol);
-        if (entry.getTotalQuantity() < quantity) {
+        // Ilość zarezerwowana przez zlecenia SELL nie jest dostępna do sprzedaży
+        if (entry.getAvailableQuantity() < quantity) {
             throw new IllegalArgumentException("Not enough asset quantity to sell.");
         }
+        return entry;
+    }
 
-        // FIFO
-        double profit = entry.processSale(quantity, currentPrice);
+    private void executeSale(AssetEntry entry, int quantity, long price) {
+        entry.processSale(quantity, price, this.costBasisMethod);
+        settleSale(entry, quantity, price);
+    }
 
-        this.cash += quantity * currentPrice;
+    private void settleSale(AssetEntry entry, int quantity, long price) {
+        this.cash = Money.add(this.cash, Money.times(price, quantity));
+        // Także przy usunięciu wpisu - wycena zejdzie do 0 i odejmie się od sumy
+        markDirty(entry);
 
         // Jeśli sprzedaliśmy wszystko, usuwamy wpis z mapy
         if (entry.getTotalQuantity() == 0) {
-            holdings.remove(symbol);
+            holdings.remove(entry.assetDefinition.getSymbolId());
         }
+    }
 
-        return profit;
+    public void setCostBasisMethod(CostBasisMethod method) {
+        if (method == null || method == CostBasisMethod.SPECIFIC_LOT) {
+            throw new IllegalArgumentException("Default cost basis method must select lots automatically.");
+        }
+        this.costBasisMethod = method;
+        if (listener != null) listener.onCostBasisMethodChanged(method);
     }
 
+    public CostBasisMethod getCostBasisMethod() { return this.costBasisMethod; }
+
     // --- Wycena ---
 
+    // Bez zmian od ostatniego wywołania - O(1); zmiana lotów lub ceny - O(1) na zmieniony symbol.
+    // Zmiana dnia (surowce) albo co VALUATION_RESYNC_INTERVAL poprawek - pełne sumowanie
+    // wartości z pamięci podręcznej pozycji, żeby błędy zaokrągleń z różnic się nie kumulowały.
     public double calculateHoldingsValue() {
-        double totalValue = 0.0;
-        for (AssetEntry entry : holdings.values()) {
-            totalValue += entry.calculateValue(this.currentDay);
+        if (!holdingsValueValid || valuedDay != currentDay || incrementalUpdates >= VALUATION_RESYNC_INTERVAL) {
+            double totalValue = 0.0;
+            for (AssetEntry entry : holdings.values()) {
+                entry.contributedValue = entry.calculateValue(this.currentDay);
+                totalValue += entry.contributedValue;
+            }
+            clearDirtyEntries();
+            holdingsValue = totalValue;
+            holdingsValueValid = true;
+            valuedDay = currentDay;
+            incrementalUpdates = 0;
+            return holdingsValue;
+        }
+
+        for (int i = 0; i < dirtyEntries.size(); i++) {
+            AssetEntry entry = dirtyEntries.get(i);
+            double value = entry.calculateValue(this.currentDay);
+            holdingsValue += value - entry.contributedValue;
+            entry.contributedValue = value;
+            incrementalUpdates++;
         }
-        return totalValue;
+        clearDirtyEntries();
+        return holdingsValue;
     }
 
-    public double calculateTotalValue() {
-        return this.cash + calculateHoldingsValue();
+    // Pozycja zmieniona od ostatniej wyceny (loty albo definicja aktywa)
+    void markDirty(AssetEntry entry) {
+        // Bez ważnej sumy nie ma czego poprawiać - następna wycena i tak liczy wszystko
+        if (!holdingsValueValid || entry.valuationDirty) return;
+        entry.valuationDirty = true;
+        dirtyEntries.add(entry);
+        // Długo nikt nie pytał o wycenę (np. wiele usuniętych pozycji) - zamiast rosnącej listy pełne przeliczenie
+        if (dirtyEntries.size() > holdings.size() + VALUATION_RESYNC_INTERVAL) {
+            clearDirtyEntries();
+            holdingsValueValid = false;
+        }
     }
 
-    // --- RAPORTOWANIE (Naprawione) ---
-    public String generateReport() {
-        // Kopiujemy wartości z mapy do listy, aby móc posortować
-        List<AssetEntry> entries = new ArrayList<>(holdings.values());
-
-        // Sortowanie z własnym Comparatorem
-        entries.sort(new Comparator<AssetEntry>() {
-            @Override
-            public int compare(AssetEntry e1, AssetEntry e2) {
-                // 1. Sortowanie po typie (SHARE -> COMMODITY -> CURRENCY)
-                AssetType type1 = e1.assetDefinition.getType();
-                AssetType type2 = e2.assetDefinition.getType();
-                int typeComparison = type1.compareTo(type2);
-                
-                if (typeComparison != 0) {
-                    return typeComparison;
-                }
-                
-                // 2. Sortowanie po wartości (malejąco)
-                double val1 = e1.calculateValue(currentDay);
-                double val2 = e2.calculateValue(currentDay);
-                return Double.compare(val2, val1);
+    private void clearDirtyEntries() {
+        for (int i = 0; i < dirtyEntries.size(); i++) {
+            dirtyEntries.get(i).valuationDirty = false;
+        }
+        dirtyEntries.clear();
+    }
+
+    // Odbiorca partii z PriceFeed (feed.subscribe(portfolio::markToMarket)):
+    // O(1) na zmieniony symbol, bez nowych obiektów aktywów na tick
+    public void markToMarket(PriceFeed feed, int[] symbolIds, int count) {
+        for (int i = 0; i < count; i++) {
+            int symbolId = symbolIds[i];
+            AssetEntry entry = holdings.get(symbolId);
+            if (entry != null && entry.markPrice(feed.getPrice(symbolId))) {
+                markDirty(entry);
             }
-        });
+        }
+    }
 
-        StringBuilder report = new StringBuilder();
-        report.append(String.format("PORTFOLIO REPORT (Day %d)\n", currentDay));
-        report.append("--------------------------------------------------\n");
-        report.append(String.format("%-10s | %-10s | %-10s | %s\n", "TYPE", "SYMBOL", "QUANTITY", "VALUE"));
-        report.append("--------------------------------------------------\n");
-
-        for (AssetEntry entry : entries) {
-            // Liczymy wartość na bieżący dzień
-            double value = entry.calculateValue(currentDay);
-            
-            if (entry.getTotalQuantity() > 0) {
-                report.append(String.format(Locale.US, "%-10s | %-10s | %-10d | %.2f\n",
-                        entry.assetDefinition.getType(),
-                        entry.assetDefinition.getSymbol(),
-                        entry.getTotalQuantity(),
-                        value
-                ));
+    // Wycena wszystkich pozycji po bieżących cenach (np. po podpięciu portfela do działającego feedu)
+    public void markToMarket(PriceFeed feed) {
+        for (AssetEntry entry : holdings.values()) {
+            double price = feed.getPrice(entry.assetDefinition.getSymbol());
+            if (!Double.isNaN(price) && entry.markPrice(price)) {
+                markDirty(entry);
             }
         }
-        report.append("--------------------------------------------------\n");
-        report.append(String.format(Locale.US, "CASH: %.2f\n", this.cash));
-        report.append(String.format(Locale.US, "TOTAL NET WORTH: %.2f\n", calculateTotalValue()));
+    }
 
+    public double calculateTotalValue() {
+        if (metrics == null) {
+            return Money.toDouble(this.cash) + calculateHoldingsValue();
+        }
+        long start = System.nanoTime();
+        double total = Money.toDouble(this.cash) + calculateHoldingsValue();
+        metrics.record(PortfolioMetrics.Operation.CALCULATE_TOTAL_VALUE, start);
+        return total;
+    }
+
+    // --- RAPORTOWANIE (Naprawione) ---
+
+    // Migawka pozycji z wartościami policzonymi raz - top-N per typ, strony, zapis strumieniowy
+    public PortfolioReport report() {
+        double holdingsValue = calculateHoldingsValue();
+        return new PortfolioReport(currentDay, getCash(), holdingsValue, holdings.values(), holdings.size());
+    }
+
+    public String generateReport() {
+        StringBuilder report = new StringBuilder();
+        report().writeTo(report);
         return report.toString();
     }
 
     // --- Metody dla I/O ---
 
-    public void setCurrentDay(int day) { this.currentDay = day; }
+    public void setCurrentDay(int day) {
+        if (day != this.currentDay) {
+            expireDayOrders();
+        }
+        this.currentDay = day;
+        if (listener != null) listener.onCurrentDaySet(day);
+    }
     public int getCurrentDay() { return this.currentDay; }
 
     public void loadAsset(Asset asset, int quantity, int purchaseDay) {
-        String symbol = asset.getSymbol();
-        if (!holdings.containsKey(symbol)) {
-            holdings.put(symbol, new AssetEntry(asset));
+        loadLot(asset, asset.getMarketPrice(), quantity, purchaseDay);
+    }
+
+    // Wczytanie lotu z własną ceną zakupu (definicja aktywa niesie cenę rynkową)
+    public void loadLot(Asset asset, double unitPrice, int quantity, int purchaseDay) {
+        loadLot(asset, unitPrice, quantity, purchaseDay, lastLotId + 1);
+    }
+
+    // Wczytanie lotu z zachowaniem jego id (pełne snapshoty - sellLot po odtworzeniu)
+    void loadLot(Asset asset, double unitPrice, int quantity, int purchaseDay, long lotId) {
+        if (!(unitPrice >= 0)) {
+            throw new IllegalArgumentException("Price cannot be negative");
+        }
+        loadLotUnits(asset, Money.of(unitPrice), quantity, purchaseDay, lotId);
+    }
+
+    // Cena zakupu w jednostkach Money (formaty zapisu, które przechowują ją dokładnie)
+    void loadLotUnits(Asset asset, long unitPrice, int quantity, int purchaseDay, long lotId) {
+        AssetEntry entry = entryFor(asset);
+        entry.addLot(lotId, purchaseDay, unitPrice, quantity);
+        lastLotId = Math.max(lastLotId, lotId);
+        markDirty(entry);
+    }
+
+    // Pozycja wczytana leniwie: agregaty od razu, loty z pliku dopiero przy potrzebie
+    void loadLazyHolding(Asset asset, LotPager pager, int firstLot, int lotCount) {
+        if (holdings.get(asset.getSymbolId()) != null) {
+            throw new IllegalArgumentException("Duplicate symbol: " + asset.getSymbol());
+        }
+        AssetEntry entry = new AssetEntry(asset);
+        long maxLotId = entry.attachLots(pager, firstLot, lotCount);
+        holdings.put(asset.getSymbolId(), entry);
+        lastLotId = Math.max(lastLotId, maxLotId);
+        lotPager = pager;
+    }
+
+    // Czy loty są (częściowo) czytane z tego pliku - nadpisanie go wymaga najpierw materializeLots()
+    boolean readsLotsFrom(Path path) throws IOException {
+        return lotPager != null && Files.exists(path) && Files.isSameFile(lotPager.getPath(), path);
+    }
+
+    // Wczytuje wszystkie loty i odłącza portfel od pliku
+    void materializeLots() {
+        for (AssetEntry entry : holdings.values()) {
+            entry.detachLots();
         }
+        lotPager = null;
+    }
+
+    // Odtworzenie zlecenia oczekującego ze snapshotu: gotówka jest już zarezerwowana w zapisanym cash
+    void restoreOrder(long orderId, Order order, int remaining) {
+        if (order.getType() == OrderType.BUY) {
+            this.reservedCash += Money.times(order.getPriceLimitUnits(), remaining);
+        } else {
+            AssetEntry entry = holdings.get(order.getSymbolId());
+            if (entry == null || entry.getAvailableQuantity() < remaining) {
+                throw new IllegalArgumentException("Not enough assets to restore SELL order " + orderId);
+            }
+            entry.reservedQuantity += remaining;
+        }
+        OrderBook book = orderBookFor(order);
+        book.restore(orderId, order, remaining);
+        // Zlecenia DAY w snapshocie pochodzą z dnia zapisu (starsze wygasły przy zmianie dnia)
+        if (order.getTimeInForce() == TimeInForce.DAY) {
+            dayOrders.add(book.getRestingOrder(orderId));
+        }
+        lastOrderId = Math.max(lastOrderId, orderId);
+    }
+
+    private AssetEntry entryFor(Asset asset) {
+        // Jeśli nie mamy tego aktywa, tworzymy wpis (bez sprawdzania limitu MAX_HOLDINGS)
+        AssetEntry entry = holdings.get(asset.getSymbolId());
+        if (entry == null) {
+            entry = new AssetEntry(asset);
+            holdings.put(asset.getSymbolId(), entry);
+        }
+        return entry;
+    }
+
+    private OrderBook orderBookFor(Order order) {
+        OrderBook book = orderBooks.get(order.getSymbolId());
+        if (book == null) {
+            book = new OrderBook(order.getSymbol(), openOrders);
+            orderBooks.put(order.getSymbolId(), book);
+        }
+        return book;
+    }
+
+    Collection<AssetEntry> holdingEntries() {
+        return holdings.values();
+    }
+
+    Collection<OrderBook.RestingOrder> openOrders() {
+        return openOrders.values();
+    }
+
+    long getLastLotId() { return lastLotId; }
+    long getLastOrderId() { return lastOrderId; }
+
+    // Dokładna gotówka z zapisu (konstruktor przyjmuje double)
+    void restoreCash(long cash) {
+        if (cash < 0) {
+            throw new IllegalArgumentException("Initial cash cannot be negative.");
+        }
+        this.cash = cash;
+    }
+
+    void restoreCounters(long lastLotId, long lastOrderId) {
+        this.lastLotId = Math.max(this.lastLotId, lastLotId);
+        this.lastOrderId = Math.max(this.lastOrderId, lastOrderId);
+    }
+
+    public void setListener(PortfolioListener listener) { this.listener = listener; }
+
+    // Włącza pomiar czasów operacji (null = wyłącza) i rejestruje wskaźniki rozmiaru portfela.
+    // Wskaźniki lotów przechodzą po pozycjach, więc są liczone dopiero przy eksporcie metryk.
+    // Wymiana metryk wyrejestrowuje wskaźniki z poprzednich - inaczej trzymałyby referencję do portfela
+    public void setMetrics(PortfolioMetrics metrics) {
+        if (this.metrics != null && this.metrics != metrics) {
+            for (String gauge : GAUGES) {
+                this.metrics.removeGauge(gauge);
+            }
+        }
+        this.metrics = metrics;
+        if (metrics == null) return;
+        metrics.registerGauge("holdings", () -> holdings.size());
+        metrics.registerGauge("lots", this::countLots);
+        metrics.registerGauge("maxLotsPerHolding", this::maxLotsPerHolding);
+        metrics.registerGauge("openOrders", () -> openOrders.size());
+    }
+
+    public PortfolioMetrics getMetrics() { return metrics; }
+
+    private long countLots() {
+        long lots = 0;
+        for (AssetEntry entry : holdings.values()) {
+            lots += entry.lotCount();
+        }
+        return lots;
+    }
+
+    // Loty faktycznie trzymane w pamięci (przy portfelu wczytanym leniwie zwykle mniej niż wszystkie)
+    public long getResidentLotCount() {
+        long lots = 0;
+        for (AssetEntry entry : holdings.values()) {
+            lots += entry.residentLotCount();
+        }
+        return lots;
+    }
+
+    private long maxLotsPerHolding() {
+        int deepest = 0;
+        for (AssetEntry entry : holdings.values()) {
+            deepest = Math.max(deepest, entry.lotCount());
+        }
+        return deepest;
+    }
+    public PortfolioListener getListener() { return this.listener; }
+
+    // Przejście po wszystkich lotach (symbol po symbolu, loty w kolejności zakupu) bez alokacji
+    public void forEachLot(LotVisitor visitor) {
+        for (AssetEntry entry : holdings.values()) {
+            LotStore lots = entry.lots();
+            for (int i = lots.start(), end = lots.end(); i < end; i++) {
+                int quantity = lots.quantityAt(i);
+                if (quantity > 0) {
+                    visitor.visitLot(entry.assetDefinition, lots.lotIdAt(i), lots.purchaseDayAt(i),
+                            lots.unitPriceUnitsAt(i), quantity);
+                }
+            }
+        }
+    }
+
+    // Bezpośredni dostęp dla formatów zapisu w tym pakiecie (bez kopiowania)
+    Collection<AssetEntry> entries() {
+        return holdings.values();
+    }
+
+    // Kopie pozostałych lotów (w kolejności zakupu) - m.in. do wyboru lotId dla sellLot
+    public List<PurchaseLot> getLots(String symbol) {
+        List<PurchaseLot> result = new ArrayList<>();
         AssetEntry entry = holdings.get(symbol);
-        entry.addLot(purchaseDay, asset.getMarketPrice(), quantity);
+        if (entry != null) {
+            for (PurchaseLot lot : entry.lots()) {
+                result.add(new PurchaseLot(lot.getLotId(), lot.getPurchaseDate(), lot.getUnitPrice(), lot.getQuantity()));
+            }
+        }
+        return result;
     }
 
     public String[] getHoldingsData() {
         List<String> dataList = new ArrayList<>();
         for (AssetEntry entry : holdings.values()) {
-            for (PurchaseLot lot : entry.lots) {
+            for (PurchaseLot lot : entry.lots()) {
                 if (lot.getQuantity() > 0) {
-                    dataList.add(String.format(Locale.US, "%s|%s|%.2f|%d|%d",
+                    dataList.add(String.format(Locale.US, "%s|%s|%s|%d|%d",
                             entry.assetDefinition.getType(),
                             entry.assetDefinition.getSymbol(),
-                            lot.getUnitPrice(),
+                            Money.format(lot.getUnitPriceUnits()),
                             lot.getQuantity(),
                             lot.getPurchaseDate()
                     ));
@@ -224,73 +756,65 @@ public class Portfolio {
     }
 
     // --- Gettery pomocnicze ---
-    public double getCash() { return this.cash; }
+    public double getCash() { return Money.toDouble(this.cash); }
+    public double getReservedCash() { return Money.toDouble(this.reservedCash); }
+    public long getCashUnits() { return this.cash; }
+    public long getReservedCashUnits() { return this.reservedCash; }
     public int getHoldingsCount() { return holdings.size(); }
     
     public int getAssetQuantity(Asset asset) {
         if (asset == null) return 0;
-        AssetEntry entry = holdings.get(asset.getSymbol());
+        AssetEntry entry = holdings.get(asset.getSymbolId());
         return entry != null ? entry.getTotalQuantity() : 0;
     }
 
-    public Order peekBestBuyOrder() { return buyOrders.peek(); }
-    public Order peekBestSellOrder() { return sellOrders.peek(); }
-
-    // --- Klasa Wewnętrzna ---
-    private static class AssetEntry {
-        Asset assetDefinition; 
-        List<PurchaseLot> lots; 
-
-        AssetEntry(Asset asset) {
-            this.assetDefinition = asset;
-            this.lots = new ArrayList<>();
-        }
-
-        void addLot(long purchaseDay, double price, int quantity) {
-            lots.add(new PurchaseLot(purchaseDay, price, quantity));
-        }
-
-        double processSale(int quantityToSell, double currentMarketPrice) {
-            int remainingToSell = quantityToSell;
-            double totalCostBase = 0.0;
-            List<PurchaseLot> emptyLots = new ArrayList<>();
-
-            for (PurchaseLot lot : lots) {
-                if (remainingToSell == 0) break;
-
-                int quantityFromLot = Math.min(remainingToSell, lot.getQuantity());
-                totalCostBase += quantityFromLot * lot.getUnitPrice();
+    // Suma (ilość * cena zakupu) pozostałych lotów - O(1)
+    public double getCostBasis(String symbol) {
+        AssetEntry entry = holdings.get(symbol);
+        return entry != null ? Money.toDouble(entry.getCostBasis()) : 0.0;
+    }
 
-                lot.decreaseQuantity(quantityFromLot);
-                remainingToSell -= quantityFromLot;
+    // Średni dzień zakupu ważony ilością - O(1)
+    public double getAveragePurchaseDay(String symbol) {
+        AssetEntry entry = holdings.get(symbol);
+        if (entry == null || entry.getTotalQuantity() == 0) return 0.0;
+        return (double) entry.getQuantityDaySum() / entry.getTotalQuantity();
+    }
 
-                if (lot.getQuantity() == 0) {
-                    emptyLots.add(lot);
-                }
+    // Najlepsze zlecenie spośród wszystkich ksiąg (O(liczba symboli))
+    public Order peekBestBuyOrder() {
+        OrderBook best = null;
+        for (OrderBook book : orderBooks.values()) {
+            if (!book.isEmpty() && book.peekBestBuyOrder() != null
+                    && (best == null || book.getBestBidPrice() > best.getBestBidPrice())) {
+                best = book;
             }
-            lots.removeAll(emptyLots);
-
-            double revenue = quantityToSell * currentMarketPrice;
-            return revenue - totalCostBase;
         }
+        return best != null ? best.peekBestBuyOrder() : null;
+    }
 
-        double calculateValue(int currentDay) {
-            double value = 0.0;
-            for (PurchaseLot lot : lots) {
-                if (lot.getQuantity() > 0) {
-                    int daysHeld = currentDay - (int) lot.getPurchaseDate();
-                    value += assetDefinition.calculateRealValue(lot.getQuantity(), daysHeld);
-                }
+    public Order peekBestSellOrder() {
+        OrderBook best = null;
+        for (OrderBook book : orderBooks.values()) {
+            if (!book.isEmpty() && book.peekBestSellOrder() != null
+                    && (best == null || book.getBestAskPrice() < best.getBestAskPrice())) {
+                best = book;
             }
-            return value;
         }
+        return best != null ? best.peekBestSellOrder() : null;
+    }
 
-        int getTotalQuantity() {
-            int total = 0;
-            for (PurchaseLot lot : lots) {
-                total += lot.getQuantity();
-            }
-            return total;
-        }
+    // Najlepsze zlecenia dla konkretnego symbolu (O(1))
+    public Order peekBestBuyOrder(String symbol) {
+        OrderBook book = orderBooks.get(symbol);
+        return book != null ? book.peekBestBuyOrder() : null;
     }
-}
\ No newline at end of file
+
+    public Order peekBestSellOrder(String symbol) {
+        OrderBook book = orderBooks.get(symbol);
+        return book != null ? book.peekBestSellOrder() : null;
+    }
+
+    public OrderBook getOrderBook(String symbol) { return orderBooks.get(symbol); }
+    public int getOpenOrderCount() { return openOrders.size(); }
+}
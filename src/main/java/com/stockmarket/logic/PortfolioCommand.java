@@ -0,0 +1,71 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.CostBasisMethod;
+import com.stockmarket.domain.Order;
+
+// Komenda dla PortfolioEngine - jeden obiekt na slot bufora pierścieniowego, używany wielokrotnie.
+// W callbacku zakończenia jest ważna tylko do powrotu z onComplete (potem slot trafia do kolejnego producenta).
+public final class PortfolioCommand {
+
+    public enum Type {
+        ADD_ASSET, SELL_ASSET, PLACE_ORDER, CANCEL_ORDER, REPLACE_ORDER, ADVANCE_TIME
+    }
+
+    // Numer sekwencyjny slotu (protokół bufora, zob. CommandRingBuffer)
+    volatile long sequence;
+
+    // Argumenty
+    Type type;
+    long correlationId;
+    Asset asset;
+    String symbol;
+    int quantity;
+    double price;
+    CostBasisMethod method;
+    Order order;
+    long orderId;
+    int days;
+    CompletionCallback callback;
+
+    // Wynik
+    long resultId;
+    double resultValue;
+    RuntimeException error;
+
+    PortfolioCommand(long sequence) {
+        this.sequence = sequence;
+    }
+
+    // Czyści referencje, żeby slot nie przytrzymywał obiektów poprzedniej komendy
+    void clear() {
+        asset = null;
+        symbol = null;
+        method = null;
+        order = null;
+        callback = null;
+        error = null;
+        resultId = 0;
+        resultValue = 0.0;
+    }
+
+    public Type getType() { return type; }
+    public long getCorrelationId() { return correlationId; }
+    public String getSymbol() { return symbol; }
+    public int getQuantity() { return quantity; }
+    public Order getOrder() { return order; }
+
+    // PLACE_ORDER: id nowego zlecenia; CANCEL_ORDER: 1 = anulowano, 0 = nie było czego anulować;
+    // REPLACE_ORDER: id zlecenia po zmianie
+    public long getResultId() { return resultId; }
+    // SELL_ASSET: zysk ze sprzedaży
+    public double getResultValue() { return resultValue; }
+    public RuntimeException getError() { return error; }
+    public boolean isSuccess() { return error == null; }
+
+    // Wywoływany w wątku silnika po wykonaniu komendy
+    @FunctionalInterface
+    public interface CompletionCallback {
+        void onComplete(PortfolioCommand command);
+    }
+}
@@ -0,0 +1,229 @@
+package com.stockmarket.logic;
+
+import java.util.concurrent.locks.LockSupport;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.CostBasisMethod;
+import com.stockmarket.domain.Order;
+
+// Silnik z jednym wątkiem piszącym: tylko on dotyka Portfolio, więc portfel nie potrzebuje blokad.
+// Producenci (dowolna liczba wątków) wpisują komendy do bufora pierścieniowego i nie czekają na portfel;
+// wynik wraca przez CompletionCallback wywołany w wątku silnika.
+// Sloty bufora są używane wielokrotnie - ścieżka wysyłania komendy nic nie alokuje.
+public class PortfolioEngine implements AutoCloseable {
+
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+
+    // Oczekiwanie konsumenta na pracę: najpierw aktywne, potem yield, na końcu krótkie uśpienie
+    private static final int SPIN_LIMIT = 1_000;
+    private static final int YIELD_LIMIT = 1_100;
+    private static final long PARK_NANOS = 50_000;
+
+    private final Portfolio portfolio;
+    private final CommandRingBuffer ring;
+    private final Thread worker;
+    private volatile boolean running;
+    private volatile long processedCount;
+
+    public PortfolioEngine(Portfolio portfolio) {
+        this(portfolio, DEFAULT_CAPACITY);
+    }
+
+    public PortfolioEngine(Portfolio portfolio, int capacity) {
+        if (portfolio == null) throw new IllegalArgumentException("Portfolio cannot be null.");
+        this.portfolio = portfolio;
+        this.ring = new CommandRingBuffer(capacity);
+        this.worker = new Thread(this::runLoop, "portfolio-engine");
+        this.worker.setDaemon(true);
+    }
+
+    public void start() {
+        if (running) return;
+        running = true;
+        worker.start();
+    }
+
+    // Zatrzymuje silnik po obsłużeniu komend, które już są w buforze.
+    // Komendy wysyłane równolegle z close() są albo wykonane, albo odrzucone: wywołanie po zamknięciu
+    // rzuca IllegalStateException, a producent czekający w claim() dostaje błąd w callbacku.
+    // Przerwanie w trakcie czekania na wątek silnika kończy close() z ustawioną flagą przerwania.
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+        if (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public long getProcessedCount() { return processedCount; }
+
+    // --- Wysyłanie komend (dowolny wątek) ---
+
+    public void addAsset(Asset asset, int quantity, long correlationId, PortfolioCommand.CompletionCallback callback) {
+        PortfolioCommand command = claim(PortfolioCommand.Type.ADD_ASSET, correlationId, callback);
+        if (command == null) return;
+        command.asset = asset;
+        command.quantity = quantity;
+        ring.publish(command);
+    }
+
+    public void sellAsset(String symbol, int quantity, double price, CostBasisMethod method,
+                          long correlationId, PortfolioCommand.CompletionCallback callback) {
+        PortfolioCommand command = claim(PortfolioCommand.Type.SELL_ASSET, correlationId, callback);
+        if (command == null) return;
+        command.symbol = symbol;
+        command.quantity = quantity;
+        command.price = price;
+        command.method = method;
+        ring.publish(command);
+    }
+
+    public void placeOrder(Order order, long correlationId, PortfolioCommand.CompletionCallback callback) {
+        PortfolioCommand command = claim(PortfolioCommand.Type.PLACE_ORDER, correlationId, callback);
+        if (command == null) return;
+        command.order = order;
+        ring.publish(command);
+    }
+
+    public void cancelOrder(long orderId, long correlationId, PortfolioCommand.CompletionCallback callback) {
+        PortfolioCommand command = claim(PortfolioCommand.Type.CANCEL_ORDER, correlationId, callback);
+        if (command == null) return;
+        command.orderId = orderId;
+        ring.publish(command);
+    }
+
+    // Cena i ilość trafiają do pól price/quantity komendy
+    public void replaceOrder(long orderId, double newPriceLimit, int newQuantity,
+                             long correlationId, PortfolioCommand.CompletionCallback callback) {
+        PortfolioCommand command = claim(PortfolioCommand.Type.REPLACE_ORDER, correlationId, callback);
+        if (command == null) return;
+        command.orderId = orderId;
+        command.price = newPriceLimit;
+        command.quantity = newQuantity;
+        ring.publish(command);
+    }
+
+    public void advanceTime(int days, long correlationId, PortfolioCommand.CompletionCallback callback) {
+        PortfolioCommand command = claim(PortfolioCommand.Type.ADVANCE_TIME, correlationId, callback);
+        if (command == null) return;
+        command.days = days;
+        ring.publish(command);
+    }
+
+    // Czeka tylko na wolny slot (pełny bufor = silnik nie nadąża), nigdy na sam portfel.
+    // Zwraca null, gdy silnik został zamknięty w trakcie czekania - komenda jest wtedy odrzucona przez callback.
+    private PortfolioCommand claim(PortfolioCommand.Type type, long correlationId,
+                                   PortfolioCommand.CompletionCallback callback) {
+        if (!running) {
+            throw new IllegalStateException("Portfolio engine is not running.");
+        }
+        PortfolioCommand command;
+        int attempts = 0;
+        while ((command = ring.tryClaim()) == null) {
+            if (!running) {
+                reject(type, correlationId, callback);
+                return null;
+            }
+            if (++attempts < SPIN_LIMIT) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        // Wątek silnika kończy pracę dopiero przy pustym buforze, a zajęty slot go nie opróżnia: jeśli
+        // running jest nadal true po zajęciu slotu, silnik na pewno wykona tę komendę. W przeciwnym razie
+        // slot jest publikowany pusty (silnik go pomija), a komenda odrzucana.
+        if (!running) {
+            command.type = null;
+            ring.publish(command);
+            reject(type, correlationId, callback);
+            return null;
+        }
+        command.type = type;
+        command.correlationId = correlationId;
+        command.callback = callback;
+        return command;
+    }
+
+    // Komenda spoza bufora (tylko na ścieżce odrzucenia), callback w wątku producenta
+    private static void reject(PortfolioCommand.Type type, long correlationId,
+                               PortfolioCommand.CompletionCallback callback) {
+        if (callback == null) return;
+        PortfolioCommand rejected = new PortfolioCommand(-1);
+        rejected.type = type;
+        rejected.correlationId = correlationId;
+        rejected.error = new IllegalStateException("Portfolio engine was closed.");
+        callback.onComplete(rejected);
+    }
+
+    // --- Wątek silnika ---
+
+    private void runLoop() {
+        int idle = 0;
+        while (true) {
+            PortfolioCommand command = ring.poll();
+            if (command != null) {
+                // Pusty slot producenta odrzuconego przy zamykaniu
+                if (command.type != null) {
+                    execute(command);
+                    processedCount++;
+                }
+                ring.release(command);
+                idle = 0;
+                continue;
+            }
+            if (!running && ring.isEmpty()) {
+                return;
+            }
+            if (++idle < SPIN_LIMIT) {
+                Thread.onSpinWait();
+            } else if (idle < YIELD_LIMIT) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+    }
+
+    private void execute(PortfolioCommand command) {
+        try {
+            switch (command.type) {
+                case ADD_ASSET:
+                    portfolio.addAsset(command.asset, command.quantity);
+                    break;
+                case SELL_ASSET:
+                    command.resultValue = command.method != null
+                            ? portfolio.sellAsset(command.symbol, command.quantity, command.price, command.method)
+                            : portfolio.sellAsset(command.symbol, command.quantity, command.price);
+                    break;
+                case PLACE_ORDER:
+                    command.resultId = portfolio.placeOrder(command.order);
+                    break;
+                case CANCEL_ORDER:
+                    command.resultId = portfolio.cancelOrder(command.orderId) ? 1 : 0;
+                    break;
+                case REPLACE_ORDER:
+                    command.resultId = portfolio.replaceOrder(command.orderId, command.price, command.quantity);
+                    break;
+                case ADVANCE_TIME:
+                    portfolio.advanceTime(command.days);
+                    break;
+            }
+        } catch (RuntimeException e) {
+            command.error = e;
+        }
+
+        if (command.callback != null) {
+            try {
+                command.callback.onComplete(command);
+            } catch (RuntimeException e) {
+                // Błąd w callbacku producenta nie może zatrzymać silnika
+            }
+        }
+    }
+}
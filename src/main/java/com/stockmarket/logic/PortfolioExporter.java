@@ -0,0 +1,420 @@
+package com.stockmarket.logic;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+import com.stockmarket.domain.Money;
+
+// Eksport stanu portfela dla systemów analitycznych: pozycje albo loty jako CSV, JSON lines
+// lub prosty układ kolumnowy. Dane są czytane wprost z AssetEntry/LotStore i formatowane do jednego
+// bufora bajtów (bez String na wiersz), więc pamięć nie zależy od liczby lotów.
+// Kwoty są zapisywane dokładnie (Money.format / jednostki Money w układzie kolumnowym).
+// Strumień nie jest zamykany - należy do wywołującego.
+//
+// Pola:
+//   pozycje  SYMBOL, TYPE, QUANTITY, RESERVED, MARKET_PRICE, COST_BASIS, VALUE
+//   loty     SYMBOL, TYPE, LOT_ID, PURCHASE_DAY, UNIT_PRICE, QUANTITY
+//
+// Układ kolumnowy (big endian):
+//   NAGŁÓWEK  magic(int) | wersja(short) | rodzaj(byte: 1 = pozycje, 2 = loty) | zarezerwowane(byte)
+//             | dzień(int) | cash(long)
+//   BLOK      liczba wierszy(int, 0 = koniec pliku) | ...
+//   pozycje:  typ byte[n] | quantity int[n] | reserved int[n] | cena long[n] | koszt long[n] | wartość long[n]
+//             | n x (długość(ushort) | symbol UTF-8)
+//   loty:     typ(byte) | długość(ushort) | symbol UTF-8 | lotId long[n] | purchaseDay long[n]
+//             | unitPrice long[n] | quantity int[n]      (blok lotów dotyczy jednej pozycji)
+public final class PortfolioExporter {
+
+    public enum Format {
+        CSV,
+        JSON_LINES,
+        COLUMNAR
+    }
+
+    static final int COLUMNAR_MAGIC = 0x534D5058; // "SMPX"
+    static final short COLUMNAR_VERSION = 1;
+    static final byte KIND_HOLDINGS = 1;
+    static final byte KIND_LOTS = 2;
+
+    private static final int BLOCK_ROWS = 4096;
+    private static final int HOLDING_ROW_SIZE = 1 + 4 + 4 + 8 + 8 + 8;
+    private static final int LOT_ROW_SIZE = 8 + 8 + 8 + 4;
+    // Blok o stałym rozmiarze + najdłuższy symbol muszą się zmieścić w buforze
+    private static final int BUFFER_SIZE = BLOCK_ROWS * HOLDING_ROW_SIZE + 2 + 0xFFFF + 64;
+
+    private static final byte[] HOLDINGS_CSV_HEADER =
+            "SYMBOL,TYPE,QUANTITY,RESERVED,MARKET_PRICE,COST_BASIS,VALUE\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LOTS_CSV_HEADER =
+            "SYMBOL,TYPE,LOT_ID,PURCHASE_DAY,UNIT_PRICE,QUANTITY\n".getBytes(StandardCharsets.US_ASCII);
+
+    // Stałe fragmenty wiersza JSON lotu
+    private static final byte[] JSON_SYMBOL = ascii("{\"symbol\":");
+    private static final byte[] JSON_LOT_ID = ascii(",\"lotId\":");
+    private static final byte[] JSON_PURCHASE_DAY = ascii(",\"purchaseDay\":");
+    private static final byte[] JSON_UNIT_PRICE = ascii(",\"unitPrice\":");
+    private static final byte[] JSON_QUANTITY = ascii(",\"quantity\":");
+    private static final byte[] JSON_END = ascii("}\n");
+
+    private final OutputStream out;
+    private final ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private final char[] digits = new char[Money.MAX_FORMAT_LENGTH];
+
+    // Wiersze bieżącego bloku kolumnowego
+    private final AssetEntry[] blockEntries = new AssetEntry[BLOCK_ROWS];
+    private final int[] blockLots = new int[BLOCK_ROWS];
+
+    public PortfolioExporter(OutputStream out) {
+        if (out == null) throw new IllegalArgumentException("Output stream cannot be null.");
+        this.out = out;
+    }
+
+    public PortfolioExporter(WritableByteChannel channel) {
+        this(Channels.newOutputStream(requireChannel(channel)));
+    }
+
+    private static WritableByteChannel requireChannel(WritableByteChannel channel) {
+        if (channel == null) throw new IllegalArgumentException("Channel cannot be null.");
+        return channel;
+    }
+
+    // --- API ---
+
+    public void exportHoldings(Portfolio portfolio, Format format) {
+        requireArguments(portfolio, format);
+        // Wartości pozycji z wyceny przyrostowej (contributedValue) - bez ponownego liczenia
+        portfolio.calculateHoldingsValue();
+        try {
+            switch (format) {
+                case CSV:
+                    putBytes(HOLDINGS_CSV_HEADER);
+                    for (AssetEntry entry : portfolio.entries()) {
+                        if (entry.getTotalQuantity() > 0) writeHoldingCsv(entry);
+                    }
+                    break;
+                case JSON_LINES:
+                    for (AssetEntry entry : portfolio.entries()) {
+                        if (entry.getTotalQuantity() > 0) writeHoldingJson(entry);
+                    }
+                    break;
+                case COLUMNAR:
+                    writeHoldingsColumnar(portfolio);
+                    break;
+            }
+            finish();
+        } catch (IOException e) {
+            throw new DataIntegrityException("Error exporting holdings: " + e.getMessage(), e);
+        }
+    }
+
+    public void exportLots(Portfolio portfolio, Format format) {
+        requireArguments(portfolio, format);
+        try {
+            switch (format) {
+                case CSV:
+                    putBytes(LOTS_CSV_HEADER);
+                    for (AssetEntry entry : portfolio.entries()) {
+                        writeLotsText(entry, csvField(entry.assetDefinition.getSymbol()), false);
+                    }
+                    break;
+                case JSON_LINES:
+                    for (AssetEntry entry : portfolio.entries()) {
+                        writeLotsText(entry, jsonString(entry.assetDefinition.getSymbol()), true);
+                    }
+                    break;
+                case COLUMNAR:
+                    writeLotsColumnar(portfolio);
+                    break;
+            }
+            finish();
+        } catch (IOException e) {
+            throw new DataIntegrityException("Error exporting lots: " + e.getMessage(), e);
+        }
+    }
+
+    private static void requireArguments(Portfolio portfolio, Format format) {
+        if (portfolio == null) throw new IllegalArgumentException("Portfolio cannot be null.");
+        if (format == null) throw new IllegalArgumentException("Export format cannot be null.");
+    }
+
+    // --- CSV / JSON lines ---
+
+    private void writeHoldingCsv(AssetEntry entry) throws IOException {
+        putBytes(csvField(entry.assetDefinition.getSymbol()));
+        putByte(',');
+        putAscii(entry.assetDefinition.getType().name());
+        putByte(',');
+        putLong(entry.getTotalQuantity());
+        putByte(',');
+        putLong(entry.reservedQuantity);
+        putByte(',');
+        putMoney(entry.assetDefinition.getMarketPriceUnits());
+        putByte(',');
+        putMoney(entry.getCostBasis());
+        putByte(',');
+        putMoney(Money.of(entry.contributedValue));
+        putByte('\n');
+    }
+
+    private void writeHoldingJson(AssetEntry entry) throws IOException {
+        putAscii("{\"symbol\":");
+        putBytes(jsonString(entry.assetDefinition.getSymbol()));
+        putAscii(",\"type\":\"");
+        putAscii(entry.assetDefinition.getType().name());
+        putAscii("\",\"quantity\":");
+        putLong(entry.getTotalQuantity());
+        putAscii(",\"reserved\":");
+        putLong(entry.reservedQuantity);
+        putAscii(",\"marketPrice\":");
+        putMoney(entry.assetDefinition.getMarketPriceUnits());
+        putAscii(",\"costBasis\":");
+        putMoney(entry.getCostBasis());
+        putAscii(",\"value\":");
+        putMoney(Money.of(entry.contributedValue));
+        putAscii("}\n");
+    }
+
+    // Symbol (już zakodowany dla formatu) i typ są przygotowane raz na pozycję, nie na lot
+    private void writeLotsText(AssetEntry entry, byte[] symbol, boolean json) throws IOException {
+        String typeName = entry.assetDefinition.getType().name();
+        byte[] type = json ? ascii(",\"type\":\"" + typeName + "\"") : ascii("," + typeName + ",");
+        LotStore lots = entry.lots();
+        for (int i = lots.start(), end = lots.end(); i < end; i++) {
+            int quantity = lots.quantityAt(i);
+            if (quantity == 0) continue;
+            if (json) {
+                putBytes(JSON_SYMBOL);
+                putBytes(symbol);
+                putBytes(type);
+                putBytes(JSON_LOT_ID);
+                putLong(lots.lotIdAt(i));
+                putBytes(JSON_PURCHASE_DAY);
+                putLong(lots.purchaseDayAt(i));
+                putBytes(JSON_UNIT_PRICE);
+                putMoney(lots.unitPriceUnitsAt(i));
+                putBytes(JSON_QUANTITY);
+                putLong(quantity);
+                putBytes(JSON_END);
+            } else {
+                putBytes(symbol);
+                putBytes(type);
+                putLong(lots.lotIdAt(i));
+                putByte(',');
+                putLong(lots.purchaseDayAt(i));
+                putByte(',');
+                putMoney(lots.unitPriceUnitsAt(i));
+                putByte(',');
+                putLong(quantity);
+                putByte('\n');
+            }
+        }
+    }
+
+    // Pole CSV w cudzysłowie tylko wtedy, gdy zawiera separator, cudzysłów lub koniec linii
+    static byte[] csvField(String text) {
+        boolean quote = false;
+        for (int i = 0; i < text.length() && !quote; i++) {
+            char c = text.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) return text.getBytes(StandardCharsets.UTF_8);
+        return ('"' + text.replace("\"", "\"\"") + '"').getBytes(StandardCharsets.UTF_8);
+    }
+
+    static byte[] jsonString(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '"' || c == '\\') {
+                escaped.append('\\').append(c);
+            } else if (c < 0x20) {
+                escaped.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.append('"').toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // --- Układ kolumnowy ---
+
+    private void writeColumnarHeader(Portfolio portfolio, byte kind) throws IOException {
+        ensureCapacity(4 + 2 + 1 + 1 + 4 + 8);
+        buffer.putInt(COLUMNAR_MAGIC);
+        buffer.putShort(COLUMNAR_VERSION);
+        buffer.put(kind);
+        buffer.put((byte) 0);
+        buffer.putInt(portfolio.getCurrentDay());
+        buffer.putLong(portfolio.getCashUnits());
+    }
+
+    private void writeHoldingsColumnar(Portfolio portfolio) throws IOException {
+        writeColumnarHeader(portfolio, KIND_HOLDINGS);
+        int rows = 0;
+        for (AssetEntry entry : portfolio.entries()) {
+            if (entry.getTotalQuantity() == 0) continue;
+            blockEntries[rows++] = entry;
+            if (rows == BLOCK_ROWS) {
+                writeHoldingsBlock(rows);
+                rows = 0;
+            }
+        }
+        if (rows > 0) writeHoldingsBlock(rows);
+        endColumnar();
+    }
+
+    private void writeHoldingsBlock(int rows) throws IOException {
+        ensureCapacity(4 + rows * HOLDING_ROW_SIZE);
+        buffer.putInt(rows);
+        int types = buffer.position();
+        int quantities = types + rows;
+        int reserved = quantities + rows * 4;
+        int prices = reserved + rows * 4;
+        int costs = prices + rows * 8;
+        int values = costs + rows * 8;
+        for (int row = 0; row < rows; row++) {
+            AssetEntry entry = blockEntries[row];
+            buffer.put(types + row, (byte) entry.assetDefinition.getType().ordinal());
+            buffer.putInt(quantities + row * 4, entry.getTotalQuantity());
+            buffer.putInt(reserved + row * 4, entry.reservedQuantity);
+            buffer.putLong(prices + row * 8, entry.assetDefinition.getMarketPriceUnits());
+            buffer.putLong(costs + row * 8, entry.getCostBasis());
+            buffer.putLong(values + row * 8, Money.of(entry.contributedValue));
+        }
+        buffer.position(values + rows * 8);
+        for (int row = 0; row < rows; row++) {
+            putSymbol(blockEntries[row].assetDefinition.getSymbol().getBytes(StandardCharsets.UTF_8));
+            blockEntries[row] = null;
+        }
+    }
+
+    private void writeLotsColumnar(Portfolio portfolio) throws IOException {
+        writeColumnarHeader(portfolio, KIND_LOTS);
+        for (AssetEntry entry : portfolio.entries()) {
+            byte[] symbol = entry.assetDefinition.getSymbol().getBytes(StandardCharsets.UTF_8);
+            LotStore lots = entry.lots();
+            int rows = 0;
+            for (int i = lots.start(), end = lots.end(); i < end; i++) {
+                if (lots.quantityAt(i) == 0) continue;
+                blockLots[rows++] = i;
+                if (rows == BLOCK_ROWS) {
+                    writeLotsBlock(entry, symbol, rows);
+                    rows = 0;
+                }
+            }
+            if (rows > 0) writeLotsBlock(entry, symbol, rows);
+        }
+        endColumnar();
+    }
+
+    private void writeLotsBlock(AssetEntry entry, byte[] symbol, int rows) throws IOException {
+        ensureCapacity(4 + 1 + 2 + symbol.length + rows * LOT_ROW_SIZE);
+        buffer.putInt(rows);
+        buffer.put((byte) entry.assetDefinition.getType().ordinal());
+        putSymbol(symbol);
+        LotStore lots = entry.lots();
+        int ids = buffer.position();
+        int days = ids + rows * 8;
+        int prices = days + rows * 8;
+        int quantities = prices + rows * 8;
+        for (int row = 0; row < rows; row++) {
+            int lot = blockLots[row];
+            buffer.putLong(ids + row * 8, lots.lotIdAt(lot));
+            buffer.putLong(days + row * 8, lots.purchaseDayAt(lot));
+            buffer.putLong(prices + row * 8, lots.unitPriceUnitsAt(lot));
+            buffer.putInt(quantities + row * 4, lots.quantityAt(lot));
+        }
+        buffer.position(quantities + rows * 4);
+    }
+
+    private void putSymbol(byte[] symbol) throws IOException {
+        if (symbol.length > 0xFFFF) {
+            throw new DataIntegrityException("Symbol too long for columnar export.");
+        }
+        ensureCapacity(2 + symbol.length);
+        buffer.putShort((short) symbol.length);
+        buffer.put(symbol);
+    }
+
+    private void endColumnar() throws IOException {
+        ensureCapacity(4);
+        buffer.putInt(0);
+    }
+
+    // --- Bufor ---
+
+    private void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+    }
+
+    private void finish() throws IOException {
+        flushBuffer();
+        out.flush();
+    }
+
+    private void putByte(char c) throws IOException {
+        ensureCapacity(1);
+        buffer.put((byte) c);
+    }
+
+    private void putBytes(byte[] bytes) throws IOException {
+        if (bytes.length > buffer.capacity()) {
+            flushBuffer();
+            out.write(bytes);
+            return;
+        }
+        ensureCapacity(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static byte[] ascii(String text) {
+        return text.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    // Stałe nazwy pól i typów - wyłącznie ASCII
+    private void putAscii(String text) throws IOException {
+        int length = text.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+
+    private void putLong(long value) throws IOException {
+        ensureCapacity(20);
+        if (value == Long.MIN_VALUE) {
+            putAscii(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buffer.put((byte) '-');
+            value = -value;
+        }
+        int count = 1;
+        for (long v = value; v >= 10; v /= 10) count++;
+        int position = buffer.position();
+        for (int i = position + count - 1; i >= position; i--) {
+            buffer.put(i, (byte) ('0' + value % 10));
+            value /= 10;
+        }
+        buffer.position(position + count);
+    }
+
+    private void putMoney(long units) throws IOException {
+        ensureCapacity(Money.MAX_FORMAT_LENGTH);
+        int length = Money.format(units, digits, 0);
+        for (int i = 0; i < length; i++) {
+            buffer.put((byte) digits[i]);
+        }
+    }
+}
@@ -1,109 +1,111 @@
 package com.stockmarket.logic; 
-import java.io.BufferedReader;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.Locale;
-
-import com.stockmarket.domain.Asset;
-import com.stockmarket.domain.AssetType;
-import com.stockmarket.domain.Commodity;
-import com.stockmarket.domain.Currency;
-import com.stockmarket.domain.Share;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 
 public class PortfolioFileManager {
 
-    private static final String SEPARATOR = "\\|"; // Regex do podziału po znaku '|'
+    // Czasy zapisu i odczytu; null = bez pomiaru
+    private PortfolioMetrics metrics;
 
-    // Zapis do pliku
-    public void savePortfolio(Portfolio portfolio, String filename) {
-        // Try-with-resources zapewnia zamknięcie pliku
-        try (PrintWriter writer = new PrintWriter(new FileWriter(filename))) {
-            
-            // 1. Zapisz NAGŁÓWEK (Gotówka i Dzień)
-            // Format: HEADER|CASH|DAY
-            // Locale.US wymusza kropkę w liczbach zmiennoprzecinkowych (100.50 zamiast 100,50)
-            writer.println(String.format(Locale.US, "HEADER|%.2f|%d", 
-                portfolio.getCash(), 
-                portfolio.getCurrentDay()));
+    public void setMetrics(PortfolioMetrics metrics) { this.metrics = metrics; }
 
-            // 2. Pobierz dane o aktywach i zapisz je linia po linii
-            String[] holdingsData = portfolio.getHoldingsData();
-            
-            for (String line : holdingsData) {
-                // Format linii: LOT|TYPE|SYMBOL|PRICE|QTY|PURCHASE_DAY
-                writer.println("LOT|" + line);
+    // Zapis do pliku (strumieniowo - loty trafiają od razu do bufora, bez listy linii).
+    // Portfel wczytany leniwie z tego samego pliku najpierw wczytuje wszystkie loty - FileWriter
+    // obcina plik, zanim writer zdąży je przeczytać.
+    public void savePortfolio(Portfolio portfolio, String filename) {
+        long start = metrics != null ? System.nanoTime() : 0L;
+        try {
+            if (portfolio.readsLotsFrom(Paths.get(filename))) {
+                portfolio.materializeLots();
             }
+        } catch (IOException e) {
+            throw new DataIntegrityException("Error saving portfolio: " + e.getMessage(), e);
+        }
+        // Try-with-resources zapewnia zamknięcie pliku
+        try (Writer writer = new FileWriter(filename)) {
+            new TextPortfolioWriter(writer).write(portfolio);
+        } catch (IOException e) {
+            throw new DataIntegrityException("Error saving portfolio: " + e.getMessage(), e);
+        }
+        if (metrics != null) metrics.record(PortfolioMetrics.Operation.SAVE_PORTFOLIO, start);
+    }
 
+    // Zapis binarny (snapshot mapowany w pamięci) - szybszy dla dużych portfeli
+    public void savePortfolioBinary(Portfolio portfolio, String filename) {
+        long start = metrics != null ? System.nanoTime() : 0L;
+        try {
+            BinaryPortfolioFormat.write(portfolio, Paths.get(filename));
         } catch (IOException e) {
             throw new DataIntegrityException("Error saving portfolio: " + e.getMessage(), e);
         }
+        if (metrics != null) metrics.record(PortfolioMetrics.Operation.SAVE_PORTFOLIO, start);
     }
 
-    // Odczyt z pliku
+    // Odczyt z pliku - format (tekstowy/binarny) rozpoznawany po magicznej liczbie
     public Portfolio loadPortfolio(String filename) {
-        Portfolio portfolio = null;
-
-        try (BufferedReader reader = new BufferedReader(new FileReader(filename))) {
-            String line;
-            int lineNumber = 0;
-
-            while ((line = reader.readLine()) != null) {
-                lineNumber++;
-                String[] parts = line.split(SEPARATOR);
-
-                if (parts.length == 0 || line.trim().isEmpty()) continue;
-
-                String recordType = parts[0];
+        if (metrics == null) {
+            return readPortfolio(filename);
+        }
+        long start = System.nanoTime();
+        Portfolio portfolio = readPortfolio(filename);
+        metrics.record(PortfolioMetrics.Operation.LOAD_PORTFOLIO, start);
+        return portfolio;
+    }
 
-                if ("HEADER".equals(recordType)) {
-                    // Walidacja nagłówka
-                    if (parts.length < 3) {
-                        throw new DataIntegrityException("Invalid header format at line " + lineNumber);
-                    }
-                    double cash = Double.parseDouble(parts[1]);
-                    int day = Integer.parseInt(parts[2]);
-                    
-                    portfolio = new Portfolio(cash);
-                    portfolio.setCurrentDay(day);
+    // Odczyt leniwy dużych archiwów: gotówka, zlecenia i agregaty pozycji od razu, loty z pliku dopiero
+    // przy potrzebie (sprzedaż, wycena wymagająca lotów, zapis), najwyżej maxResidentLots w pamięci (LRU).
+    // Tylko snapshot binarny v3+; starsze snapshoty i pliki tekstowe są wczytywane w całości.
+    // Plik nie może być zmieniany z zewnątrz, dopóki portfel jest używany.
+    public Portfolio loadPortfolioLazy(String filename, int maxResidentLots) {
+        if (maxResidentLots <= 0) {
+            throw new IllegalArgumentException("Resident lot limit must be positive.");
+        }
+        long start = metrics != null ? System.nanoTime() : 0L;
+        Path path = Paths.get(filename);
+        Portfolio portfolio;
+        try {
+            if (Files.isRegularFile(path) && BinaryPortfolioFormat.hasMagic(path)) {
+                portfolio = BinaryPortfolioFormat.read(path, maxResidentLots);
+            } else {
+                portfolio = loadTextPortfolio(filename);
+            }
+        } catch (IOException e) {
+            throw new DataIntegrityException("IO Error reading portfolio", e);
+        }
+        if (metrics != null) metrics.record(PortfolioMetrics.Operation.LOAD_PORTFOLIO, start);
+        return portfolio;
+    }
 
-                } else if ("LOT".equals(recordType)) {
-                    // Walidacja spójności: Nagłówek musi być pierwszy
-                    if (portfolio == null) {
-                        throw new DataIntegrityException("Missing HEADER before LOT data.");
-                    }
-                    // Format: LOT|TYPE|SYMBOL|PRICE|QTY|PURCHASE_DAY
-                    if (parts.length < 6) {
-                        throw new DataIntegrityException("Invalid lot format at line " + lineNumber);
-                    }
+    private Portfolio readPortfolio(String filename) {
+        Path path = Paths.get(filename);
+        try {
+            if (Files.isRegularFile(path) && BinaryPortfolioFormat.hasMagic(path)) {
+                return BinaryPortfolioFormat.read(path);
+            }
+        } catch (IOException e) {
+            throw new DataIntegrityException("IO Error reading portfolio", e);
+        }
+        return loadTextPortfolio(filename);
+    }
 
-                    // Parsowanie pól
-                    String typeStr = parts[1];
-                    String symbol = parts[2];
-                    double price = Double.parseDouble(parts[3]);
-                    int quantity = Integer.parseInt(parts[4]);
-                    int purchaseDay = Integer.parseInt(parts[5]);
+    private Portfolio loadTextPortfolio(String filename) {
+        Portfolio portfolio;
 
-                    // Tworzenie obiektu Asset na podstawie Enuma (Factory logic)
-                    Asset asset = createAssetFromType(typeStr, symbol, price);
-                    
-                    // Wczytanie do portfela (omijając logikę zakupową i pobieranie gotówki)
-                    portfolio.loadAsset(asset, quantity, purchaseDay);
-                } else {
-                    // Nieznany typ rekordu
-                    throw new DataIntegrityException("Unknown record type at line " + lineNumber + ": " + recordType);
-                }
-            }
+        // Parser ma własny duży bufor znaków, więc nie potrzebujemy BufferedReader
+        try (Reader reader = new FileReader(filename)) {
+            portfolio = new TextPortfolioReader(reader).read();
         } catch (FileNotFoundException e) {
             throw new DataIntegrityException("File not found: " + filename, e);
         } catch (IOException e) {
             throw new DataIntegrityException("IO Error reading portfolio", e);
-        } catch (IllegalArgumentException e) {
-            // Łapie błędy parsowania liczb oraz błędy z Enum.valueOf
-            throw new DataIntegrityException("Data format error: " + e.getMessage(), e);
         }
 
         if (portfolio == null) {
@@ -111,20 +113,4 @@ public class PortfolioFileManager {
         }
         return portfolio;
     }
-
-    // Pomocnicza metoda do tworzenia instancji Asset na podstawie stringa z pliku
-    private Asset createAssetFromType(String typeStr, String symbol, double price) {
-        AssetType type = AssetType.valueOf(typeStr); // Może rzucić IllegalArgumentException
-        
-        switch (type) {
-            case SHARE:
-                return new Share(symbol, price);
-            case COMMODITY:
-                return new Commodity(symbol, price);
-            case CURRENCY:
-                return new Currency(symbol, price);
-            default:
-                throw new DataIntegrityException("Unsupported asset type: " + type);
-        }
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,511 @@
+package com.stockmarket.logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetFactory;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.CostBasisMethod;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.SymbolRegistry;
+import com.stockmarket.domain.TimeInForce;
+
+// Dziennik zapisu z wyprzedzeniem: każda zmiana portfela to jeden krótki rekord binarny.
+//
+// Układ (big endian):
+//   NAGŁÓWEK  magic(int) | wersja(short) | zarezerwowane(short)
+//   REKORD    długość danych(int) | crc32 danych(int) | kod operacji(byte) | argumenty
+// Od wersji 2 symbol w rekordzie to int - numer z rekordu DEFINE_SYMBOL (numer | długość(ushort) | UTF-8),
+// dopisywanego przed pierwszym użyciem symbolu. Definicja obowiązuje od miejsca wystąpienia, więc po
+// ponownym otwarciu pliku numery mogą być nadawane od nowa. Pliki w wersji 1 (symbol tekstem
+// w każdym rekordzie) są nadal czytane i dopisywane w swoim formacie.
+// Rekordy trafiają do bufora, a fsync jest wykonywany zbiorczo co groupCommitSize rekordów
+// (albo przez sync()). Po awarii uszkodzony lub niedopisany ogon jest pomijany przy odtwarzaniu.
+public class PortfolioJournal implements PortfolioListener, Closeable {
+
+    static final int MAGIC = 0x534D504A; // "SMPJ"
+    static final short VERSION = 2;
+    private static final short VERSION_INLINE_SYMBOLS = 1;
+    static final int HEADER_SIZE = 4 + 2 + 2;
+
+    private static final int RECORD_HEADER_SIZE = 4 + 4;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    // Kody operacji
+    private static final byte ADD_ASSET = 1;
+    private static final byte SELL_ASSET = 2;
+    private static final byte SELL_LOT = 3;
+    private static final byte PLACE_ORDER = 4;
+    private static final byte CANCEL_ORDER = 5;
+    private static final byte ADVANCE_TIME = 6;
+    private static final byte SET_DAY = 7;
+    private static final byte SET_COST_BASIS = 8;
+    private static final byte MATCH_MARKET = 9;
+    private static final byte DEFINE_SYMBOL = 10;
+    // Zlecenie z czasem ważności innym niż GTC: układ PLACE_ORDER + czas ważności(byte)
+    private static final byte PLACE_ORDER_TIF = 11;
+    private static final byte REPLACE_ORDER = 12;
+
+    private final FileChannel channel;
+    private final int groupCommitSize;
+    // Bufor musi pomieścić rekord z najdłuższym możliwym symbolem
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE + 0xFFFF);
+    private final CRC32 crc = new CRC32();
+
+    private int pendingRecords;
+    private long recordCount;
+    private int recordStart;
+
+    // Słownik symboli pliku: id z SymbolRegistry -> numer w dzienniku + 1 (0 = jeszcze nie zdefiniowany)
+    private final boolean inlineSymbols;
+    private int[] symbolRefs = new int[64];
+    private int nextSymbolRef;
+    // Symbol przygotowany przez prepareSymbol dla bieżącego rekordu
+    private byte[] pendingSymbolBytes;
+    private int pendingSymbolRef;
+
+    // Otwiera dziennik do dopisywania (nowy plik dostaje nagłówek)
+    public PortfolioJournal(Path path, int groupCommitSize) throws IOException {
+        if (groupCommitSize <= 0) {
+            throw new IllegalArgumentException("Group commit size must be positive.");
+        }
+        this.groupCommitSize = groupCommitSize;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (channel.size() == 0) {
+            this.inlineSymbols = false;
+            buffer.putInt(MAGIC);
+            buffer.putShort(VERSION);
+            buffer.putShort((short) 0);
+            sync();
+        } else {
+            this.inlineSymbols = readVersion() == VERSION_INLINE_SYMBOLS;
+            channel.position(channel.size());
+        }
+    }
+
+    private short readVersion() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining() && channel.read(header, header.position()) > 0) {
+            // czytamy do pełnego nagłówka
+        }
+        header.flip();
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new DataIntegrityException("Not a portfolio journal");
+        }
+        short version = header.getShort();
+        if (version != VERSION && version != VERSION_INLINE_SYMBOLS) {
+            throw new DataIntegrityException("Unsupported journal version: " + version);
+        }
+        return version;
+    }
+
+    // --- Zapis rekordów ---
+
+    @Override
+    public void onAssetAdded(Asset asset, int quantity) {
+        int symbolSize = prepareSymbol(asset.getSymbolId(), asset.getSymbol());
+        begin(ADD_ASSET, 1 + symbolSize + 8 + 4);
+        buffer.put((byte) asset.getType().ordinal());
+        putSymbol();
+        buffer.putDouble(asset.getMarketPrice());
+        buffer.putInt(quantity);
+        end();
+    }
+
+    @Override
+    public void onAssetSold(String symbol, int quantity, double price, CostBasisMethod method) {
+        int symbolSize = prepareSymbol(symbol);
+        begin(SELL_ASSET, symbolSize + 4 + 8 + 1);
+        putSymbol();
+        buffer.putInt(quantity);
+        buffer.putDouble(price);
+        buffer.put((byte) method.ordinal());
+        end();
+    }
+
+    @Override
+    public void onLotSold(String symbol, long lotId, int quantity, double price) {
+        int symbolSize = prepareSymbol(symbol);
+        begin(SELL_LOT, symbolSize + 8 + 4 + 8);
+        putSymbol();
+        buffer.putLong(lotId);
+        buffer.putInt(quantity);
+        buffer.putDouble(price);
+        end();
+    }
+
+    @Override
+    public void onOrderPlaced(long orderId, Order order) {
+        int symbolSize = prepareSymbol(order.getSymbolId(), order.getSymbol());
+        boolean gtc = order.getTimeInForce() == TimeInForce.GTC;
+        begin(gtc ? PLACE_ORDER : PLACE_ORDER_TIF, 8 + 1 + 1 + symbolSize + 8 + 4 + (gtc ? 0 : 1));
+        // Id jest zapisywane tylko do kontroli - przy odtwarzaniu portfel nada je ponownie
+        buffer.putLong(orderId);
+        buffer.put((byte) order.getType().ordinal());
+        buffer.put((byte) (order.getAssetType() != null ? order.getAssetType().ordinal() : -1));
+        putSymbol();
+        buffer.putDouble(order.getPriceLimit());
+        buffer.putInt(order.getQuantity());
+        if (!gtc) buffer.put((byte) order.getTimeInForce().ordinal());
+        end();
+    }
+
+    @Override
+    public void onOrderCancelled(long orderId) {
+        begin(CANCEL_ORDER, 8);
+        buffer.putLong(orderId);
+        end();
+    }
+
+    @Override
+    public void onOrderReplaced(long orderId, long newOrderId, double newPriceLimit, int newQuantity) {
+        begin(REPLACE_ORDER, 8 + 8 + 8 + 4);
+        buffer.putLong(orderId);
+        buffer.putLong(newOrderId);
+        buffer.putDouble(newPriceLimit);
+        buffer.putInt(newQuantity);
+        end();
+    }
+
+    @Override
+    public void onMarketMatched(String symbol, double open, double low, double high) {
+        int symbolSize = prepareSymbol(symbol);
+        begin(MATCH_MARKET, symbolSize + 8 + 8 + 8);
+        putSymbol();
+        buffer.putDouble(open);
+        buffer.putDouble(low);
+        buffer.putDouble(high);
+        end();
+    }
+
+    @Override
+    public void onTimeAdvanced(int days) {
+        begin(ADVANCE_TIME, 4);
+        buffer.putInt(days);
+        end();
+    }
+
+    @Override
+    public void onCurrentDaySet(int day) {
+        begin(SET_DAY, 4);
+        buffer.putInt(day);
+        end();
+    }
+
+    @Override
+    public void onCostBasisMethodChanged(CostBasisMethod method) {
+        begin(SET_COST_BASIS, 1);
+        buffer.put((byte) method.ordinal());
+        end();
+    }
+
+    private void begin(byte opcode, int argumentsSize) {
+        if (buffer.remaining() < RECORD_HEADER_SIZE + 1 + argumentsSize) {
+            flush();
+        }
+        recordStart = buffer.position();
+        buffer.position(recordStart + RECORD_HEADER_SIZE);
+        buffer.put(opcode);
+    }
+
+    private void end() {
+        seal();
+        recordCount++;
+        if (++pendingRecords >= groupCommitSize) {
+            sync();
+        } else if (buffer.position() >= BUFFER_SIZE) {
+            flush();
+        }
+    }
+
+    // Uzupełnia długość i crc bieżącego rekordu
+    private void seal() {
+        int dataStart = recordStart + RECORD_HEADER_SIZE;
+        int dataLength = buffer.position() - dataStart;
+
+        ByteBuffer data = buffer.duplicate();
+        data.position(dataStart).limit(dataStart + dataLength);
+        crc.reset();
+        crc.update(data);
+        buffer.putInt(recordStart, dataLength);
+        buffer.putInt(recordStart + 4, (int) crc.getValue());
+    }
+
+    private static byte[] symbolBytes(String symbol) {
+        byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new DataIntegrityException("Symbol too long for journal: " + symbol);
+        }
+        return bytes;
+    }
+
+    private int prepareSymbol(String symbol) {
+        return prepareSymbol(SymbolRegistry.intern(symbol), symbol);
+    }
+
+    // Przygotowuje pole symbolu bieżącego rekordu (w v2 może najpierw dopisać DEFINE_SYMBOL);
+    // zwraca rozmiar pola w bajtach
+    private int prepareSymbol(int symbolId, String symbol) {
+        if (inlineSymbols) {
+            pendingSymbolBytes = symbolBytes(symbol);
+            return 2 + pendingSymbolBytes.length;
+        }
+        if (symbolId >= symbolRefs.length) {
+            symbolRefs = Arrays.copyOf(symbolRefs, Math.max(symbolRefs.length * 2, symbolId + 1));
+        }
+        if (symbolRefs[symbolId] == 0) {
+            byte[] bytes = symbolBytes(symbol);
+            int ref = nextSymbolRef++;
+            begin(DEFINE_SYMBOL, 4 + 2 + bytes.length);
+            buffer.putInt(ref);
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+            // Definicja nie jest osobną zmianą portfela - trafia na dysk razem z rekordem, który jej używa
+            seal();
+            symbolRefs[symbolId] = ref + 1;
+        }
+        pendingSymbolRef = symbolRefs[symbolId] - 1;
+        return 4;
+    }
+
+    private void putSymbol() {
+        if (inlineSymbols) {
+            buffer.putShort((short) pendingSymbolBytes.length);
+            buffer.put(pendingSymbolBytes);
+        } else {
+            buffer.putInt(pendingSymbolRef);
+        }
+    }
+
+    // --- Zatwierdzanie ---
+
+    // Zapisuje bufor do pliku bez fsync
+    public void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new DataIntegrityException("Error writing journal: " + e.getMessage(), e);
+        } finally {
+            buffer.clear();
+        }
+    }
+
+    // Zatwierdzenie grupy rekordów: zapis bufora i jeden fsync dla wszystkich
+    public void sync() {
+        flush();
+        try {
+            channel.force(false);
+        } catch (IOException e) {
+            throw new DataIntegrityException("Error syncing journal: " + e.getMessage(), e);
+        }
+        pendingRecords = 0;
+    }
+
+    public long getRecordCount() { return recordCount; }
+    public int getPendingRecords() { return pendingRecords; }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            sync();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // --- Odtwarzanie ---
+
+    // Stosuje rekordy dziennika do portfela i zwraca długość poprawnej części pliku.
+    // Odczyt kończy się na pierwszym niepełnym albo uszkodzonym rekordzie (niedokończony zapis przed awarią).
+    public static long replay(Path path, Portfolio portfolio) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new DataIntegrityException("Journal too large to map: " + fileSize + " bytes");
+            }
+            if (fileSize < HEADER_SIZE) {
+                return 0;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            if (buffer.getInt() != MAGIC) {
+                throw new DataIntegrityException("Not a portfolio journal");
+            }
+            short version = buffer.getShort();
+            if (version != VERSION && version != VERSION_INLINE_SYMBOLS) {
+                throw new DataIntegrityException("Unsupported journal version: " + version);
+            }
+            buffer.getShort();
+            return replay(buffer, portfolio, new SymbolTable(version == VERSION_INLINE_SYMBOLS));
+        }
+    }
+
+    private static long replay(ByteBuffer buffer, Portfolio portfolio, SymbolTable symbols) {
+        CRC32 crc = new CRC32();
+        long record = 0;
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int recordStart = buffer.position();
+            int dataLength = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (dataLength <= 0 || dataLength > buffer.remaining()) {
+                return recordStart;
+            }
+
+            ByteBuffer data = buffer.slice();
+            data.limit(dataLength);
+            crc.reset();
+            crc.update(data.duplicate());
+            if ((int) crc.getValue() != checksum) {
+                return recordStart;
+            }
+
+            try {
+                apply(data, portfolio, symbols);
+            } catch (IllegalArgumentException | BufferUnderflowException e) {
+                throw new DataIntegrityException("Journal record #" + record + " cannot be applied: " + e.getMessage(), e);
+            }
+            buffer.position(recordStart + RECORD_HEADER_SIZE + dataLength);
+            record++;
+        }
+        return buffer.position();
+    }
+
+    private static void apply(ByteBuffer data, Portfolio portfolio, SymbolTable symbols) {
+        byte opcode = data.get();
+        switch (opcode) {
+            case DEFINE_SYMBOL: {
+                int ref = data.getInt();
+                symbols.define(ref, readSymbolBytes(data));
+                break;
+            }
+            case ADD_ASSET: {
+                AssetType type = enumAt(AssetType.values(), data.get());
+                String symbol = symbols.read(data);
+                double price = data.getDouble();
+                portfolio.addAsset(AssetFactory.create(type, symbol, price), data.getInt());
+                break;
+            }
+            case SELL_ASSET: {
+                String symbol = symbols.read(data);
+                int quantity = data.getInt();
+                double price = data.getDouble();
+                portfolio.sellAsset(symbol, quantity, price, enumAt(CostBasisMethod.values(), data.get()));
+                break;
+            }
+            case SELL_LOT: {
+                String symbol = symbols.read(data);
+                long lotId = data.getLong();
+                int quantity = data.getInt();
+                portfolio.sellLot(symbol, lotId, quantity, data.getDouble());
+                break;
+            }
+            case PLACE_ORDER:
+            case PLACE_ORDER_TIF: {
+                long orderId = data.getLong();
+                OrderType side = enumAt(OrderType.values(), data.get());
+                int typeIndex = data.get();
+                AssetType type = typeIndex >= 0 ? enumAt(AssetType.values(), typeIndex) : null;
+                String symbol = symbols.read(data);
+                double limit = data.getDouble();
+                int quantity = data.getInt();
+                TimeInForce timeInForce = opcode == PLACE_ORDER_TIF
+                        ? enumAt(TimeInForce.values(), data.get()) : TimeInForce.GTC;
+                long assigned = portfolio.placeOrder(new Order(symbol, type, limit, quantity, side, timeInForce));
+                checkOrderId(orderId, assigned);
+                break;
+            }
+            case CANCEL_ORDER:
+                portfolio.cancelOrder(data.getLong());
+                break;
+            case REPLACE_ORDER: {
+                long orderId = data.getLong();
+                long newOrderId = data.getLong();
+                double limit = data.getDouble();
+                checkOrderId(newOrderId, portfolio.replaceOrder(orderId, limit, data.getInt()));
+                break;
+            }
+            case MATCH_MARKET: {
+                String symbol = symbols.read(data);
+                double open = data.getDouble();
+                double low = data.getDouble();
+                portfolio.matchMarket(symbol, open, low, data.getDouble());
+                break;
+            }
+            case ADVANCE_TIME:
+                portfolio.advanceTime(data.getInt());
+                break;
+            case SET_DAY:
+                portfolio.setCurrentDay(data.getInt());
+                break;
+            case SET_COST_BASIS:
+                portfolio.setCostBasisMethod(enumAt(CostBasisMethod.values(), data.get()));
+                break;
+            default:
+                throw new DataIntegrityException("Unknown journal opcode: " + opcode);
+        }
+    }
+
+    private static void checkOrderId(long expected, long assigned) {
+        if (assigned != expected) {
+            throw new DataIntegrityException("Order id mismatch during replay: expected " + expected + ", got " + assigned);
+        }
+    }
+
+    private static String readSymbolBytes(ByteBuffer data) {
+        byte[] symbol = new byte[data.getShort() & 0xFFFF];
+        data.get(symbol);
+        return new String(symbol, StandardCharsets.UTF_8);
+    }
+
+    // Słownik symboli odczytywanego pliku (w wersji 1 symbole są zapisane w rekordach)
+    private static final class SymbolTable {
+        private final boolean inline;
+        private String[] symbols = new String[64];
+
+        SymbolTable(boolean inline) {
+            this.inline = inline;
+        }
+
+        void define(int ref, String symbol) {
+            if (inline || ref < 0) {
+                throw new DataIntegrityException("Invalid symbol definition in journal: " + ref);
+            }
+            if (ref >= symbols.length) {
+                symbols = Arrays.copyOf(symbols, Math.max(symbols.length * 2, ref + 1));
+            }
+            symbols[ref] = SymbolRegistry.symbolOf(SymbolRegistry.intern(symbol));
+        }
+
+        String read(ByteBuffer data) {
+            if (inline) {
+                return readSymbolBytes(data);
+            }
+            int ref = data.getInt();
+            String symbol = ref >= 0 && ref < symbols.length ? symbols[ref] : null;
+            if (symbol == null) {
+                throw new DataIntegrityException("Undefined symbol reference in journal: " + ref);
+            }
+            return symbol;
+        }
+    }
+
+    private static <E> E enumAt(E[] values, int index) {
+        if (index < 0 || index >= values.length) {
+            throw new DataIntegrityException("Invalid enum id in journal: " + index);
+        }
+        return values[index];
+    }
+}
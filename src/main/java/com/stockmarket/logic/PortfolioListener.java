@@ -0,0 +1,21 @@
+package com.stockmarket.logic;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.CostBasisMethod;
+import com.stockmarket.domain.Order;
+
+// Powiadomienia o udanych zmianach stanu portfela (wywoływane po wykonaniu operacji).
+// Realizacje zleceń nie są zgłaszane osobno - wynikają deterministycznie z placeOrder i matchMarket,
+// podobnie jak wygaśnięcie zleceń DAY (ze zmiany dnia).
+public interface PortfolioListener {
+    default void onAssetAdded(Asset asset, int quantity) {}
+    default void onAssetSold(String symbol, int quantity, double price, CostBasisMethod method) {}
+    default void onLotSold(String symbol, long lotId, int quantity, double price) {}
+    default void onOrderPlaced(long orderId, Order order) {}
+    default void onOrderCancelled(long orderId) {}
+    default void onOrderReplaced(long orderId, long newOrderId, double newPriceLimit, int newQuantity) {}
+    default void onMarketMatched(String symbol, double open, double low, double high) {}
+    default void onTimeAdvanced(int days) {}
+    default void onCurrentDaySet(int day) {}
+    default void onCostBasisMethodChanged(CostBasisMethod method) {}
+}
@@ -0,0 +1,92 @@
+package com.stockmarket.logic;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+// Metryki jednego konta (portfela): liczniki i histogramy czasów operacji oraz wskaźniki
+// rozmiaru (liczba pozycji, lotów, najgłębsza historia lotów), odczytywane dopiero przy eksporcie.
+// Wyłączone metryki (portfel bez setMetrics) kosztują jedno porównanie z null na operację.
+// Zapis tylko z wątku portfela (jeden obiekt metryk na konto), odczyt (MetricsExporter) z dowolnego wątku;
+// wskaźniki odczytane spoza wątku portfela są przybliżone (-1, gdy odczyt trafił na zmianę struktury).
+public final class PortfolioMetrics {
+
+    public enum Operation {
+        ADD_ASSET,
+        SELL_ASSET,
+        PLACE_ORDER,
+        CANCEL_ORDER,
+        CALCULATE_TOTAL_VALUE,
+        LOAD_PORTFOLIO,
+        SAVE_PORTFOLIO
+    }
+
+    private final String name;
+    private final LatencyHistogram[] histograms;
+    // Rejestracja wskaźników nie jest na gorącej ścieżce - zwykła mapa pod blokadą
+    private final Map<String, LongSupplier> gauges = new LinkedHashMap<>();
+
+    public PortfolioMetrics(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Metrics name cannot be empty.");
+        }
+        this.name = name;
+        Operation[] operations = Operation.values();
+        this.histograms = new LatencyHistogram[operations.length];
+        for (int i = 0; i < operations.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    // Czas od startNanos (System.nanoTime() przed operacją) do teraz
+    public void record(Operation operation, long startNanos) {
+        histograms[operation.ordinal()].record(System.nanoTime() - startNanos);
+    }
+
+    public String getName() { return name; }
+
+    public LatencyHistogram histogram(Operation operation) {
+        return histograms[operation.ordinal()];
+    }
+
+    public long getCount(Operation operation) {
+        return histograms[operation.ordinal()].getCount();
+    }
+
+    // --- Wskaźniki ---
+
+    public synchronized void registerGauge(String gaugeName, LongSupplier supplier) {
+        if (gaugeName == null || gaugeName.trim().isEmpty()) {
+            throw new IllegalArgumentException("Gauge name cannot be empty.");
+        }
+        if (supplier == null) throw new IllegalArgumentException("Gauge supplier cannot be null.");
+        gauges.put(gaugeName, supplier);
+    }
+
+    public synchronized void removeGauge(String gaugeName) {
+        gauges.remove(gaugeName);
+    }
+
+    // Bieżące wartości wskaźników (w kolejności rejestracji)
+    public synchronized Map<String, Long> readGauges() {
+        Map<String, Long> values = new LinkedHashMap<>();
+        for (Map.Entry<String, LongSupplier> gauge : gauges.entrySet()) {
+            long value;
+            try {
+                value = gauge.getValue().getAsLong();
+            } catch (RuntimeException e) {
+                // Odczyt z innego wątku w trakcie zmiany portfela (np. przez JMX) - wartość nieznana
+                value = -1;
+            }
+            values.put(gauge.getKey(), value);
+        }
+        return Collections.unmodifiableMap(values);
+    }
+
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+}
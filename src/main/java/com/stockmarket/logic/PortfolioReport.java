@@ -0,0 +1,299 @@
+package com.stockmarket.logic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+import com.stockmarket.domain.AssetType;
+
+// Migawka pozycji do raportu: wartość każdej pozycji jest liczona raz (z wyceny przyrostowej portfela),
+// a kolejność (typ, potem wartość malejąco, potem symbol) jest wyznaczana tylko dla potrzebnych wierszy:
+//  - topN(typ, n)        - kopiec ograniczony do n, O(m log n) dla m pozycji danego typu,
+//  - page(offset, limit) - jak top-(offset + limit) kolejno po typach, bez sortowania reszty,
+//  - writeTo(out)        - pełny raport strumieniowo do Appendable, bez String.format na wiersz.
+// Migawka nie śledzi późniejszych zmian portfela.
+public final class PortfolioReport {
+
+    private static final String SEPARATOR = "--------------------------------------------------\n";
+    private static final int COLUMN_WIDTH = 10;
+    // Szybkie formatowanie %.2f tylko w zakresie, w którym grosze mieszczą się dokładnie w double
+    private static final double FAST_FORMAT_LIMIT = 1e13;
+    // Odległość (w groszach) od połowy grosza, poniżej której błąd mnożenia double mógłby zmienić wynik
+    private static final double HALF_CENT_TOLERANCE = 1e-6;
+
+    private final int day;
+    private final double cash;
+    private final double totalValue;
+
+    // Wiersze jako kolumny; byType[t] - indeksy wierszy typu t (w kolejności holdings)
+    private final String[] symbols;
+    private final AssetType[] types;
+    private final int[] quantities;
+    private final double[] values;
+    private final int[][] byType;
+    private final int rowCount;
+
+    PortfolioReport(int day, double cash, double holdingsValue, Iterable<AssetEntry> entries, int capacity) {
+        this.day = day;
+        this.cash = cash;
+        this.totalValue = cash + holdingsValue;
+
+        AssetType[] allTypes = AssetType.values();
+        String[] symbols = new String[capacity];
+        AssetType[] types = new AssetType[capacity];
+        int[] quantities = new int[capacity];
+        double[] values = new double[capacity];
+        int[] typeCounts = new int[allTypes.length];
+        int count = 0;
+        for (AssetEntry entry : entries) {
+            int quantity = entry.getTotalQuantity();
+            if (quantity <= 0) continue;
+            symbols[count] = entry.assetDefinition.getSymbol();
+            types[count] = entry.assetDefinition.getType();
+            quantities[count] = quantity;
+            // Portfel odświeżył wycenę przed utworzeniem raportu - contributedValue jest aktualne
+            values[count] = entry.contributedValue;
+            typeCounts[types[count].ordinal()]++;
+            count++;
+        }
+
+        this.byType = new int[allTypes.length][];
+        for (int t = 0; t < allTypes.length; t++) {
+            byType[t] = new int[typeCounts[t]];
+            typeCounts[t] = 0;
+        }
+        for (int row = 0; row < count; row++) {
+            int t = types[row].ordinal();
+            byType[t][typeCounts[t]++] = row;
+        }
+        this.symbols = symbols;
+        this.types = types;
+        this.quantities = quantities;
+        this.values = values;
+        this.rowCount = count;
+    }
+
+    public int getDay() { return day; }
+    public double getCash() { return cash; }
+    public double getTotalValue() { return totalValue; }
+    public int getRowCount() { return rowCount; }
+
+    public int getRowCount(AssetType type) {
+        if (type == null) throw new IllegalArgumentException("Asset type cannot be null.");
+        return byType[type.ordinal()].length;
+    }
+
+    // --- Wybór wierszy ---
+
+    // n najcenniejszych pozycji danego typu, malejąco
+    public List<Row> topN(AssetType type, int n) {
+        if (type == null) throw new IllegalArgumentException("Asset type cannot be null.");
+        if (n < 0) throw new IllegalArgumentException("N cannot be negative.");
+        List<Row> rows = new ArrayList<>(Math.min(n, byType[type.ordinal()].length));
+        for (int row : top(byType[type.ordinal()], n)) {
+            rows.add(rowAt(row));
+        }
+        return Collections.unmodifiableList(rows);
+    }
+
+    // Wiersze [offset, offset + limit) pełnego raportu
+    public List<Row> page(int offset, int limit) {
+        List<Row> rows = new ArrayList<>();
+        for (int row : pageRows(offset, limit)) {
+            rows.add(rowAt(row));
+        }
+        return Collections.unmodifiableList(rows);
+    }
+
+    private int[] pageRows(int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("Offset and limit cannot be negative.");
+        }
+        int end = (int) Math.min((long) offset + limit, rowCount);
+        int[] page = new int[Math.max(0, end - offset)];
+        int position = 0; // pozycja w pełnym raporcie, od której zaczyna się bieżący typ
+        int filled = 0;
+        for (int[] rows : byType) {
+            if (position + rows.length > offset && position < end) {
+                int[] sorted = top(rows, end - position);
+                for (int i = Math.max(0, offset - position); i < sorted.length; i++) {
+                    page[filled++] = sorted[i];
+                }
+            }
+            position += rows.length;
+        }
+        return page;
+    }
+
+    // Indeksy n największych wartości spośród rows, malejąco - kopiec minimalny ograniczony do n
+    private int[] top(int[] rows, int n) {
+        int size = Math.min(n, rows.length);
+        int[] heap = new int[size];
+        if (size == 0) return heap;
+        int filled = 0;
+        for (int row : rows) {
+            if (filled < size) {
+                heap[filled] = row;
+                siftUp(heap, filled++);
+            } else if (before(row, heap[0])) {
+                heap[0] = row;
+                siftDown(heap, 0, size);
+            }
+        }
+        // Sortowanie przez kopcowanie w miejscu: najmniejszy na koniec, więc wynik jest malejący
+        for (int last = size - 1; last > 0; last--) {
+            int smallest = heap[0];
+            heap[0] = heap[last];
+            heap[last] = smallest;
+            siftDown(heap, 0, last);
+        }
+        return heap;
+    }
+
+    // Kolejność raportu: wyższa wartość pierwsza, przy remisie symbol alfabetycznie
+    private boolean before(int a, int b) {
+        int byValue = Double.compare(values[a], values[b]);
+        return byValue != 0 ? byValue > 0 : symbols[a].compareTo(symbols[b]) < 0;
+    }
+
+    // Korzeń kopca to wiersz, który w raporcie byłby ostatni
+    private void siftUp(int[] heap, int i) {
+        int row = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!before(heap[parent], row)) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = row;
+    }
+
+    private void siftDown(int[] heap, int i, int size) {
+        int row = heap[i];
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && before(heap[child], heap[child + 1])) child++;
+            if (!before(row, heap[child])) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = row;
+    }
+
+    private Row rowAt(int row) {
+        return new Row(types[row], symbols[row], quantities[row], values[row]);
+    }
+
+    // --- Zapis ---
+
+    // Pełny raport w formacie generateReport
+    public void writeTo(Appendable out) {
+        writeTo(out, 0, rowCount);
+    }
+
+    // Nagłówek, wiersze [offset, offset + limit) i podsumowanie
+    public void writeTo(Appendable out, int offset, int limit) {
+        if (out == null) throw new IllegalArgumentException("Output cannot be null.");
+        int[] rows = pageRows(offset, limit);
+        StringBuilder line = new StringBuilder(64);
+        try {
+            line.append("PORTFOLIO REPORT (Day ").append(day).append(")\n").append(SEPARATOR);
+            appendPadded(line, "TYPE");
+            line.append(" | ");
+            appendPadded(line, "SYMBOL");
+            line.append(" | ");
+            appendPadded(line, "QUANTITY");
+            line.append(" | VALUE\n").append(SEPARATOR);
+            out.append(line);
+
+            for (int row : rows) {
+                line.setLength(0);
+                appendPadded(line, types[row].name());
+                line.append(" | ");
+                appendPadded(line, symbols[row]);
+                line.append(" | ");
+                int start = line.length();
+                line.append(quantities[row]);
+                pad(line, start);
+                line.append(" | ");
+                appendFixed2(line, values[row]);
+                line.append('\n');
+                out.append(line);
+            }
+
+            line.setLength(0);
+            line.append(SEPARATOR).append("CASH: ");
+            appendFixed2(line, cash);
+            line.append("\nTOTAL NET WORTH: ");
+            appendFixed2(line, totalValue);
+            line.append('\n');
+            out.append(line);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing portfolio report", e);
+        }
+    }
+
+    // Odpowiednik "%-10s"
+    private static void appendPadded(StringBuilder line, String text) {
+        int start = line.length();
+        line.append(text);
+        pad(line, start);
+    }
+
+    private static void pad(StringBuilder line, int start) {
+        for (int i = line.length() - start; i < COLUMN_WIDTH; i++) {
+            line.append(' ');
+        }
+    }
+
+    // Odpowiednik String.format(Locale.US, "%.2f"): HALF_UP na dziesiętnym zapisie double (jak Double.toString).
+    // Poza okolicą połowy grosza wystarcza zaokrąglenie w double; przypadki graniczne (1.005, -0.125) przez BigDecimal.
+    static void appendFixed2(StringBuilder line, double value) {
+        if (Double.isNaN(value) || Math.abs(value) >= FAST_FORMAT_LIMIT) {
+            line.append(String.format(Locale.US, "%.2f", value));
+            return;
+        }
+        double scaled = Math.abs(value) * 100.0;
+        double fraction = scaled - Math.floor(scaled);
+        long cents;
+        if (Math.abs(fraction - 0.5) > HALF_CENT_TOLERANCE) {
+            cents = (long) (scaled + 0.5);
+        } else {
+            cents = BigDecimal.valueOf(Math.abs(value)).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+        }
+        // Znak jak w %.2f także dla wartości zaokrąglonych do zera (-0.004 -> "-0.00")
+        if (Double.doubleToRawLongBits(value) < 0) {
+            line.append('-');
+        }
+        line.append(cents / 100).append('.');
+        long remainder = cents % 100;
+        line.append((char) ('0' + remainder / 10)).append((char) ('0' + remainder % 10));
+    }
+
+    // --- Klasy Wewnętrzne ---
+
+    public static final class Row {
+        private final AssetType type;
+        private final String symbol;
+        private final int quantity;
+        private final double value;
+
+        private Row(AssetType type, String symbol, int quantity, double value) {
+            this.type = type;
+            this.symbol = symbol;
+            this.quantity = quantity;
+            this.value = value;
+        }
+
+        public AssetType getType() { return type; }
+        public String getSymbol() { return symbol; }
+        public int getQuantity() { return quantity; }
+        public double getValue() { return value; }
+    }
+}
@@ -0,0 +1,146 @@
+package com.stockmarket.logic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.stockmarket.domain.SymbolRegistry;
+
+// Tablica cen rynkowych indeksowana id symbolu (kolumny prymitywne, bez obiektu na tick).
+// Ticki trafiają do bieżącej partii; flush() przekazuje odbiorcom listę zmienionych symboli
+// (każdy raz, z ostatnią ceną), np. Portfolio::markToMarket.
+public class PriceFeed {
+
+    // Odbiorca partii zmian - tablica id jest ważna tylko w trakcie wywołania
+    @FunctionalInterface
+    public interface PriceListener {
+        void onPricesChanged(PriceFeed feed, int[] symbolIds, int count);
+    }
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // Kolumny indeksowane globalnym id symbolu (SymbolRegistry) - to samo id co w Asset i Order
+    private boolean[] registered = new boolean[INITIAL_CAPACITY];
+    private double[] prices = new double[INITIAL_CAPACITY];
+    private int size;
+
+    // Bieżąca partia: id zmienionych symboli bez powtórzeń
+    private int[] changed = new int[INITIAL_CAPACITY];
+    private boolean[] inBatch = new boolean[INITIAL_CAPACITY];
+    private int changedCount;
+
+    private final List<PriceListener> listeners = new ArrayList<>();
+    private long tickCount;
+
+    // --- Symbole ---
+
+    // Dodaje symbol do feedu i zwraca jego id z SymbolRegistry
+    public int register(String symbol) {
+        int id = SymbolRegistry.intern(symbol);
+        if (id >= registered.length) {
+            grow(id + 1);
+        }
+        if (!registered[id]) {
+            registered[id] = true;
+            prices[id] = Double.NaN; // brak notowania
+            size++;
+        }
+        return id;
+    }
+
+    // Id symbolu, jeśli jest w feedzie; -1 w przeciwnym razie
+    public int idOf(String symbol) {
+        int id = SymbolRegistry.find(symbol);
+        return isRegistered(id) ? id : -1;
+    }
+
+    public String getSymbol(int symbolId) {
+        checkId(symbolId);
+        return SymbolRegistry.symbolOf(symbolId);
+    }
+
+    public double getPrice(int symbolId) {
+        checkId(symbolId);
+        return prices[symbolId];
+    }
+
+    public double getPrice(String symbol) {
+        int id = idOf(symbol);
+        return id >= 0 ? prices[id] : Double.NaN;
+    }
+
+    // Liczba symboli w feedzie
+    public int size() { return size; }
+    public long getTickCount() { return tickCount; }
+
+    // --- Ticki ---
+
+    public void tick(int symbolId, double price) {
+        checkId(symbolId);
+        if (!(price > 0) || Double.isInfinite(price)) {
+            throw new IllegalArgumentException("Price must be positive: " + price);
+        }
+        prices[symbolId] = price;
+        tickCount++;
+        if (!inBatch[symbolId]) {
+            inBatch[symbolId] = true;
+            changed[changedCount++] = symbolId;
+        }
+    }
+
+    public void tick(String symbol, double price) {
+        tick(register(symbol), price);
+    }
+
+    // Partia ticków z kolumn (id[i], cena[i]) i od razu publikacja zmian
+    public void applyBatch(int[] symbolIds, double[] newPrices, int count) {
+        if (count < 0 || count > symbolIds.length || count > newPrices.length) {
+            throw new IllegalArgumentException("Invalid batch size: " + count);
+        }
+        for (int i = 0; i < count; i++) {
+            tick(symbolIds[i], newPrices[i]);
+        }
+        flush();
+    }
+
+    // Powiadamia odbiorców o symbolach zmienionych od ostatniego flush
+    public void flush() {
+        if (changedCount == 0) return;
+        for (int i = 0; i < listeners.size(); i++) {
+            listeners.get(i).onPricesChanged(this, changed, changedCount);
+        }
+        for (int i = 0; i < changedCount; i++) {
+            inBatch[changed[i]] = false;
+        }
+        changedCount = 0;
+    }
+
+    public void subscribe(PriceListener listener) {
+        if (listener == null) throw new IllegalArgumentException("Listener cannot be null.");
+        listeners.add(listener);
+    }
+
+    public boolean unsubscribe(PriceListener listener) {
+        return listeners.remove(listener);
+    }
+
+    // --- Pomocnicze ---
+
+    private boolean isRegistered(int symbolId) {
+        return symbolId >= 0 && symbolId < registered.length && registered[symbolId];
+    }
+
+    private void checkId(int symbolId) {
+        if (!isRegistered(symbolId)) {
+            throw new IllegalArgumentException("Unknown symbol id: " + symbolId);
+        }
+    }
+
+    private void grow(int minimum) {
+        int capacity = Math.max(registered.length * 2, minimum);
+        registered = Arrays.copyOf(registered, capacity);
+        prices = Arrays.copyOf(prices, capacity);
+        changed = Arrays.copyOf(changed, capacity);
+        inBatch = Arrays.copyOf(inBatch, capacity);
+    }
+}
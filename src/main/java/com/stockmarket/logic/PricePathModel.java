@@ -0,0 +1,98 @@
+package com.stockmarket.logic;
+
+import java.util.SplittableRandom;
+
+import com.stockmarket.domain.Money;
+
+// Model ścieżki cen dziennych dla symulacji Monte Carlo.
+//   GBM:              d ln S = (mu - sigma^2/2) dt + sigma dW
+//   Jump-diffusion:   jak wyżej + skoki Poissona (intensywność lambda/rok) o log-normalnej wielkości;
+//                     dryf jest kompensowany (- lambda * k), więc oczekiwana cena jest taka sama jak w GBM.
+// Parametry są roczne, krok to jeden dzień sesyjny. Model jest niezmienny - jeden obiekt może być
+// używany przez wiele wątków, każdy z własnym generatorem.
+public final class PricePathModel {
+
+    public static final int STEPS_PER_YEAR = 252;
+    // Ceny nie mogą spaść do zera (walidacja Asset) - dolne ograniczenie ścieżki to jedna jednostka Money
+    static final double MIN_PRICE = Money.toDouble(1);
+
+    private final double drift;
+    private final double volatility;
+    private final double jumpIntensity;
+    private final double jumpMean;
+    private final double jumpVolatility;
+
+    // Stałe kroku liczone raz
+    private final double stepDrift;
+    private final double stepVolatility;
+    private final double noJumpProbability;
+
+    private PricePathModel(double drift, double volatility, double jumpIntensity, double jumpMean, double jumpVolatility) {
+        if (!Double.isFinite(drift)) throw new IllegalArgumentException("Drift must be finite.");
+        if (!(volatility >= 0) || !Double.isFinite(volatility)) throw new IllegalArgumentException("Volatility cannot be negative.");
+        if (!(jumpIntensity >= 0) || !Double.isFinite(jumpIntensity)) throw new IllegalArgumentException("Jump intensity cannot be negative.");
+        if (!Double.isFinite(jumpMean)) throw new IllegalArgumentException("Jump mean must be finite.");
+        if (!(jumpVolatility >= 0) || !Double.isFinite(jumpVolatility)) throw new IllegalArgumentException("Jump volatility cannot be negative.");
+        this.drift = drift;
+        this.volatility = volatility;
+        this.jumpIntensity = jumpIntensity;
+        this.jumpMean = jumpMean;
+        this.jumpVolatility = jumpVolatility;
+
+        double dt = 1.0 / STEPS_PER_YEAR;
+        double jumpCompensation = jumpIntensity * (Math.exp(jumpMean + 0.5 * jumpVolatility * jumpVolatility) - 1.0);
+        this.stepDrift = (drift - 0.5 * volatility * volatility - jumpCompensation) * dt;
+        this.stepVolatility = volatility * Math.sqrt(dt);
+        this.noJumpProbability = Math.exp(-jumpIntensity * dt);
+    }
+
+    public static PricePathModel gbm(double drift, double volatility) {
+        return new PricePathModel(drift, volatility, 0.0, 0.0, 0.0);
+    }
+
+    public static PricePathModel jumpDiffusion(double drift, double volatility,
+                                               double jumpsPerYear, double jumpMean, double jumpVolatility) {
+        return new PricePathModel(drift, volatility, jumpsPerYear, jumpMean, jumpVolatility);
+    }
+
+    public double getDrift() { return drift; }
+    public double getVolatility() { return volatility; }
+    public double getJumpIntensity() { return jumpIntensity; }
+    public double getJumpMean() { return jumpMean; }
+    public double getJumpVolatility() { return jumpVolatility; }
+
+    // Zapisuje ścieżkę do out[offset .. offset + steps]: out[offset] = startPrice, potem ceny kolejnych dni
+    public void generate(double startPrice, double[] out, int offset, int steps, SplittableRandom random) {
+        if (!(startPrice > 0)) throw new IllegalArgumentException("Start price must be positive.");
+        if (steps < 0 || offset < 0 || offset + steps >= out.length) {
+            throw new IllegalArgumentException("Path buffer too small for " + steps + " steps.");
+        }
+        double logPrice = Math.log(startPrice);
+        out[offset] = startPrice;
+        for (int step = 1; step <= steps; step++) {
+            double increment = stepDrift;
+            if (stepVolatility > 0) {
+                increment += stepVolatility * random.nextGaussian();
+            }
+            if (jumpIntensity > 0) {
+                int jumps = poisson(random);
+                for (int j = 0; j < jumps; j++) {
+                    increment += jumpMean + jumpVolatility * random.nextGaussian();
+                }
+            }
+            logPrice += increment;
+            out[offset + step] = Math.max(MIN_PRICE, Math.exp(logPrice));
+        }
+    }
+
+    // Liczba skoków w jednym kroku (metoda Knutha - przy lambda*dt << 1 zwykle jedno losowanie)
+    private int poisson(SplittableRandom random) {
+        int count = 0;
+        double product = random.nextDouble();
+        while (product > noJumpProbability) {
+            count++;
+            product *= random.nextDouble();
+        }
+        return count;
+    }
+}
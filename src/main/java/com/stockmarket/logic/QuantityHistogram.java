@@ -0,0 +1,62 @@
+package com.stockmarket.logic;
+
+// Liczba lotów wg ilości (drzewo Fenwicka) - ile lotów ma ilość <= limit w O(log n).
+// Potrzebne do opłat za małe transakcje akcji: próg zależy od ceny, więc po zmianie ceny
+// nie trzeba przeglądać lotów. Tablica rośnie (potęgi dwójki) do największej spotkanej ilości.
+final class QuantityHistogram {
+
+    // Większe ilości są tylko zliczane; zapytanie o taki limit wymaga przejścia po lotach
+    static final int MAX_TRACKED_QUANTITY = 1 << 16;
+
+    private int[] tree = new int[16 + 1]; // indeksy 1..capacity
+    private int capacity = 16;
+    private int untracked;
+
+    void add(int quantity) {
+        update(quantity, 1);
+    }
+
+    void remove(int quantity) {
+        update(quantity, -1);
+    }
+
+    // Liczba lotów z ilością w [1, limit] albo -1, jeśli odpowiedź wymaga lotów spoza zakresu
+    int countAtMost(int limit) {
+        if (limit <= 0) return 0;
+        if (limit >= MAX_TRACKED_QUANTITY && untracked > 0) return -1;
+
+        int count = 0;
+        for (int i = Math.min(limit, capacity); i > 0; i -= i & -i) {
+            count += tree[i];
+        }
+        return count;
+    }
+
+    private void update(int quantity, int delta) {
+        if (quantity <= 0) return;
+        if (quantity > MAX_TRACKED_QUANTITY) {
+            untracked += delta;
+            return;
+        }
+        if (quantity > capacity) {
+            grow(quantity);
+        }
+        for (int i = quantity; i <= capacity; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    // Dla rozmiarów będących potęgą dwójki węzły 1..n się nie zmieniają, a węzeł 2n to suma wszystkiego
+    private void grow(int quantity) {
+        int newCapacity = capacity;
+        while (newCapacity < quantity) newCapacity <<= 1;
+
+        int[] grown = new int[newCapacity + 1];
+        System.arraycopy(tree, 0, grown, 0, capacity + 1);
+        for (int size = capacity; size < newCapacity; size <<= 1) {
+            grown[size << 1] = grown[size];
+        }
+        tree = grown;
+        capacity = newCapacity;
+    }
+}
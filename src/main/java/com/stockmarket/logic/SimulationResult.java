@@ -0,0 +1,85 @@
+package com.stockmarket.logic;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// Rozkład wyników symulacji Monte Carlo. Zysk scenariusza = wartość końcowa - wartość początkowa
+// (calculateTotalValue + gotówka zarezerwowana przez zlecenia). VaR i ES są podawane jako dodatnia strata.
+public final class SimulationResult {
+
+    // Zyski posortowane rosnąco - najgorsze scenariusze na początku
+    private final double[] sortedProfits;
+    private final long scenarioCount;
+    private final double meanInitialValue;
+    private final double meanTerminalValue;
+    private final double terminalStdDev;
+    private final double minTerminalValue;
+    private final double maxTerminalValue;
+
+    SimulationResult(double[] profits, long scenarioCount, double meanInitialValue, double meanTerminalValue,
+                     double terminalStdDev, double minTerminalValue, double maxTerminalValue) {
+        Arrays.parallelSort(profits);
+        this.sortedProfits = profits;
+        this.scenarioCount = scenarioCount;
+        this.meanInitialValue = meanInitialValue;
+        this.meanTerminalValue = meanTerminalValue;
+        this.terminalStdDev = terminalStdDev;
+        this.minTerminalValue = minTerminalValue;
+        this.maxTerminalValue = maxTerminalValue;
+    }
+
+    public long getScenarioCount() { return scenarioCount; }
+    public double getMeanInitialValue() { return meanInitialValue; }
+    public double getMeanTerminalValue() { return meanTerminalValue; }
+    public double getTerminalStdDev() { return terminalStdDev; }
+    public double getMinTerminalValue() { return minTerminalValue; }
+    public double getMaxTerminalValue() { return maxTerminalValue; }
+
+    public double getMeanProfit() {
+        return meanTerminalValue - meanInitialValue;
+    }
+
+    // Kwantyl rozkładu zysku (p = 0.05 -> zysk, poniżej którego jest 5% scenariuszy)
+    public double getProfitQuantile(double p) {
+        return sortedProfits[tailCount(p) - 1];
+    }
+
+    // Strata, której nie przekroczy `confidence` scenariuszy (np. 0.99)
+    public double getValueAtRisk(double confidence) {
+        checkConfidence(confidence);
+        return -getProfitQuantile(1.0 - confidence);
+    }
+
+    // Średnia strata w ogonie (1 - confidence) najgorszych scenariuszy - zawsze >= VaR
+    public double getExpectedShortfall(double confidence) {
+        checkConfidence(confidence);
+        int tail = tailCount(1.0 - confidence);
+        double sum = 0.0;
+        for (int i = 0; i < tail; i++) {
+            sum += sortedProfits[i];
+        }
+        return -sum / tail;
+    }
+
+    // Liczba najgorszych scenariuszy w ogonie p (co najmniej jeden)
+    private int tailCount(double p) {
+        if (!(p >= 0.0 && p <= 1.0)) {
+            throw new IllegalArgumentException("Probability must be between 0 and 1: " + p);
+        }
+        int count = (int) Math.ceil(p * sortedProfits.length - 1e-9);
+        return Math.min(sortedProfits.length, Math.max(1, count));
+    }
+
+    private static void checkConfidence(double confidence) {
+        if (!(confidence > 0.0 && confidence < 1.0)) {
+            throw new IllegalArgumentException("Confidence must be between 0 and 1: " + confidence);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "scenarios=%d mean %.2f -> %.2f (sd %.2f), VaR95=%.2f ES95=%.2f VaR99=%.2f ES99=%.2f",
+                scenarioCount, meanInitialValue, meanTerminalValue, terminalStdDev,
+                getValueAtRisk(0.95), getExpectedShortfall(0.95), getValueAtRisk(0.99), getExpectedShortfall(0.99));
+    }
+}
@@ -0,0 +1,167 @@
+package com.stockmarket.logic;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.stockmarket.domain.SymbolRegistry;
+
+// Mapa id symbolu (SymbolRegistry) -> wartość: wyszukiwanie to haszowanie inta, bez haszowania Stringów.
+// Indeks to własna tablica z adresowaniem otwartym (id -> pozycja), więc rozmiar mapy zależy od liczby
+// jej symboli, a nie od największego id w rejestrze - portfel z 3 symbolami w uniwersum miliona
+// symboli zajmuje kilkadziesiąt intów. Wartości są trzymane w gęstej tablicy (usuwanie przez zamianę
+// z ostatnim), więc iteracja przechodzi tylko po zajętych pozycjach. Kolejność iteracji nie jest
+// stabilna po usunięciu.
+final class SymbolMap<V> {
+
+    // Indeks: keys[i] = id + 1 (0 = wolne miejsce), slots[i] = pozycja w dense; wypełnienie najwyżej 1/2
+    private int[] keys = new int[16];
+    private int[] slots = new int[16];
+    private Object[] dense = new Object[8];
+    private int[] denseIds = new int[8];
+    private int size;
+
+    private final Collection<V> values = new AbstractCollection<V>() {
+        @Override
+        public Iterator<V> iterator() {
+            return new ValueIterator();
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    };
+
+    @SuppressWarnings("unchecked")
+    V get(int id) {
+        if (id < 0) return null;
+        int index = indexOf(id);
+        return index >= 0 ? (V) dense[slots[index]] : null;
+    }
+
+    // Dla publicznego API po symbolu: jedno wyszukanie w rejestrze, dalej jak get(id)
+    V get(String symbol) {
+        return get(SymbolRegistry.find(symbol));
+    }
+
+    boolean containsKey(int id) {
+        return get(id) != null;
+    }
+
+    void put(int id, V value) {
+        if (value == null) throw new IllegalArgumentException("Value cannot be null.");
+        if (id < 0) throw new IllegalArgumentException("Invalid symbol id: " + id);
+        int index = indexOf(id);
+        if (index >= 0) {
+            dense[slots[index]] = value;
+            return;
+        }
+        if (size == dense.length) {
+            dense = Arrays.copyOf(dense, size * 2);
+            denseIds = Arrays.copyOf(denseIds, size * 2);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash(keys.length * 2);
+        }
+        insert(id, size);
+        dense[size] = value;
+        denseIds[size] = id;
+        size++;
+    }
+
+    @SuppressWarnings("unchecked")
+    V remove(int id) {
+        if (id < 0) return null;
+        int index = indexOf(id);
+        if (index < 0) return null;
+
+        int position = slots[index];
+        V value = (V) dense[position];
+        deleteAt(index);
+        int last = --size;
+        if (position != last) {
+            dense[position] = dense[last];
+            denseIds[position] = denseIds[last];
+            slots[indexOf(denseIds[position])] = position;
+        }
+        dense[last] = null;
+        return value;
+    }
+
+    int size() { return size; }
+    boolean isEmpty() { return size == 0; }
+
+    // Widok wartości (bez kopiowania)
+    Collection<V> values() { return values; }
+
+    // --- Indeks (adresowanie otwarte, próbkowanie liniowe) ---
+
+    // Id z rejestru są kolejnymi liczbami - mieszanie rozrzuca je po całej tablicy
+    private int home(int id) {
+        int hash = id * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (keys.length - 1);
+    }
+
+    private int indexOf(int id) {
+        int key = id + 1;
+        int mask = keys.length - 1;
+        for (int index = home(id); ; index = (index + 1) & mask) {
+            int current = keys[index];
+            if (current == key) return index;
+            if (current == 0) return -1;
+        }
+    }
+
+    private void insert(int id, int position) {
+        int mask = keys.length - 1;
+        int index = home(id);
+        while (keys[index] != 0) {
+            index = (index + 1) & mask;
+        }
+        keys[index] = id + 1;
+        slots[index] = position;
+    }
+
+    // Usuwanie bez znaczników: kolejne wpisy tego samego ciągu są przesuwane w lukę,
+    // jeśli luka leży między ich miejscem docelowym a obecnym
+    private void deleteAt(int index) {
+        int mask = keys.length - 1;
+        int gap = index;
+        for (int next = (index + 1) & mask; keys[next] != 0; next = (next + 1) & mask) {
+            int target = home(keys[next] - 1);
+            if (((next - target) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                slots[gap] = slots[next];
+                gap = next;
+            }
+        }
+        keys[gap] = 0;
+    }
+
+    private void rehash(int capacity) {
+        keys = new int[capacity];
+        slots = new int[capacity];
+        for (int position = 0; position < size; position++) {
+            insert(denseIds[position], position);
+        }
+    }
+
+    private final class ValueIterator implements Iterator<V> {
+        private int next;
+
+        @Override
+        public boolean hasNext() {
+            return next < size;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (next >= size) throw new NoSuchElementException();
+            return (V) dense[next++];
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.stockmarket.logic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+
+// Zrzut metryk jako tekst - jedna linia na operację, potem wskaźniki:
+//   METRICS <nazwa>
+//   PLACE_ORDER count=120 mean_us=1.42 p50_us=1.18 p99_us=6.91 p999_us=14.33 max_us=20.50
+//   GAUGE lots=1000000
+// Operacje bez wywołań są pomijane.
+public class TextMetricsExporter implements MetricsExporter {
+
+    private final Appendable out;
+
+    public TextMetricsExporter(Appendable out) {
+        if (out == null) throw new IllegalArgumentException("Output cannot be null.");
+        this.out = out;
+    }
+
+    @Override
+    public void export(PortfolioMetrics metrics) {
+        if (metrics == null) throw new IllegalArgumentException("Metrics cannot be null.");
+        StringBuilder text = new StringBuilder(512);
+        text.append("METRICS ").append(metrics.getName()).append('\n');
+        for (PortfolioMetrics.Operation operation : PortfolioMetrics.Operation.values()) {
+            LatencyHistogram histogram = metrics.histogram(operation);
+            long count = histogram.getCount();
+            if (count == 0) continue;
+            text.append(operation.name()).append(" count=").append(count);
+            appendMicros(text, " mean_us=", Math.round(histogram.getMeanNanos()));
+            appendMicros(text, " p50_us=", histogram.getPercentileNanos(50));
+            appendMicros(text, " p99_us=", histogram.getPercentileNanos(99));
+            appendMicros(text, " p999_us=", histogram.getPercentileNanos(99.9));
+            appendMicros(text, " max_us=", histogram.getMaxNanos());
+            text.append('\n');
+        }
+        for (Map.Entry<String, Long> gauge : metrics.readGauges().entrySet()) {
+            text.append("GAUGE ").append(gauge.getKey()).append('=').append(gauge.getValue()).append('\n');
+        }
+        try {
+            out.append(text);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error writing metrics", e);
+        }
+    }
+
+    // Mikrosekundy z dwoma miejscami po przecinku (ns / 1000 zaokrąglone do 10 ns)
+    private static void appendMicros(StringBuilder text, String label, long nanos) {
+        long hundredths = (nanos + 5) / 10;
+        long fraction = hundredths % 100;
+        text.append(label).append(hundredths / 100).append('.')
+                .append((char) ('0' + fraction / 10)).append((char) ('0' + fraction % 10));
+    }
+}
@@ -0,0 +1,311 @@
+package com.stockmarket.logic;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.AssetFactory;
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Money;
+
+// Strumieniowy parser formatu tekstowego (HEADER|CASH|DAY, LOT|TYPE|SYMBOL|PRICE|QTY|PURCHASE_DAY).
+// Pola są parsowane w miejscu, bezpośrednio z bufora znaków - bez split, substringów i tablic na linię.
+// Definicje aktywów są współdzielone per symbol, więc dla kolejnych lotów nic nie jest alokowane.
+final class TextPortfolioReader {
+
+    private static final int INITIAL_BUFFER = 1 << 16;
+    private static final int MAX_FIELDS = 6;
+    private static final char SEPARATOR = '|';
+
+    private static final char[] HEADER = "HEADER".toCharArray();
+    private static final char[] LOT = "LOT".toCharArray();
+    private static final AssetType[] TYPES = AssetType.values();
+    private static final char[][] TYPE_NAMES = new char[TYPES.length][];
+
+    static {
+        for (int i = 0; i < TYPES.length; i++) {
+            TYPE_NAMES[i] = TYPES[i].name().toCharArray();
+        }
+    }
+
+    private final Reader in;
+    private char[] buffer = new char[INITIAL_BUFFER];
+    private int position;
+    private int limit;
+    private boolean endOfInput;
+
+    // Bieżąca linia i granice jej pól
+    private int lineNumber;
+    private int lineStart;
+    private final int[] fieldStart = new int[MAX_FIELDS];
+    private final int[] fieldEnd = new int[MAX_FIELDS];
+    private int fieldCount;
+
+    private final SymbolTable symbols = new SymbolTable();
+
+    TextPortfolioReader(Reader in) {
+        this.in = in;
+    }
+
+    Portfolio read() throws IOException {
+        Portfolio portfolio = null;
+
+        while (nextLine()) {
+            if (fieldCount == 0) continue; // pusta linia
+
+            if (fieldEquals(0, HEADER)) {
+                // Walidacja nagłówka
+                if (fieldCount < 3) {
+                    throw error("Invalid header format", 0);
+                }
+                long cash = parseMoney(1);
+                int day = parseInt(2);
+                try {
+                    portfolio = new Portfolio(0.0);
+                    portfolio.restoreCash(cash);
+                } catch (IllegalArgumentException e) {
+                    throw error(e.getMessage(), 1);
+                }
+                portfolio.setCurrentDay(day);
+
+            } else if (fieldEquals(0, LOT)) {
+                // Walidacja spójności: Nagłówek musi być pierwszy
+                if (portfolio == null) {
+                    throw new DataIntegrityException("Missing HEADER before LOT data.");
+                }
+                if (fieldCount < 6) {
+                    throw error("Invalid lot format", 0);
+                }
+                AssetType type = parseType(1);
+                long price = parseMoney(3);
+                int quantity = parseInt(4);
+                int purchaseDay = parseInt(5);
+                Asset asset = symbols.assetFor(type, Money.toDouble(price));
+
+                try {
+                    portfolio.loadLotUnits(asset, price, quantity, purchaseDay, portfolio.getLastLotId() + 1);
+                } catch (IllegalArgumentException e) {
+                    throw error(e.getMessage(), 4);
+                }
+            } else {
+                throw error("Unknown record type: " + fieldText(0), 0);
+            }
+        }
+        return portfolio;
+    }
+
+    // --- Podział na linie i pola ---
+
+    private boolean nextLine() throws IOException {
+        int end = findLineEnd();
+        if (end < 0) return false;
+
+        lineNumber++;
+        lineStart = position;
+        int lineEnd = end;
+        if (lineEnd > lineStart && buffer[lineEnd - 1] == '\r') lineEnd--;
+
+        splitFields(lineStart, lineEnd);
+        position = end < limit ? end + 1 : end;
+        return true;
+    }
+
+    // Zwraca indeks '\n' (albo koniec danych), doczytując i ewentualnie powiększając bufor
+    private int findLineEnd() throws IOException {
+        int scanFrom = position;
+        while (true) {
+            for (int i = scanFrom; i < limit; i++) {
+                if (buffer[i] == '\n') return i;
+            }
+            if (endOfInput) {
+                return position < limit ? limit : -1;
+            }
+            scanFrom = limit - position;
+            fill();
+        }
+    }
+
+    private void fill() throws IOException {
+        int remaining = limit - position;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+        } else if (remaining == buffer.length) {
+            // Linia dłuższa niż bufor
+            char[] grown = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, grown, 0, remaining);
+            buffer = grown;
+        }
+        position = 0;
+        limit = remaining;
+
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private void splitFields(int start, int end) {
+        fieldCount = 0;
+        if (isBlank(start, end)) return;
+
+        int fieldFrom = start;
+        for (int i = start; i <= end && fieldCount < MAX_FIELDS; i++) {
+            if (i == end || buffer[i] == SEPARATOR) {
+                fieldStart[fieldCount] = fieldFrom;
+                fieldEnd[fieldCount] = i;
+                fieldCount++;
+                fieldFrom = i + 1;
+            }
+        }
+        // Puste pola na końcu są pomijane (tak jak w String.split)
+        while (fieldCount > 0 && fieldStart[fieldCount - 1] == fieldEnd[fieldCount - 1]) {
+            fieldCount--;
+        }
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (!Character.isWhitespace(buffer[i])) return false;
+        }
+        return true;
+    }
+
+    // --- Parsowanie pól w miejscu ---
+
+    private boolean fieldEquals(int field, char[] expected) {
+        int start = fieldStart[field];
+        int length = fieldEnd[field] - start;
+        if (length != expected.length) return false;
+        for (int i = 0; i < length; i++) {
+            if (buffer[start + i] != expected[i]) return false;
+        }
+        return true;
+    }
+
+    private AssetType parseType(int field) {
+        for (int t = 0; t < TYPES.length; t++) {
+            if (fieldEquals(field, TYPE_NAMES[t])) return TYPES[t];
+        }
+        throw error("Unknown asset type: " + fieldText(field), field);
+    }
+
+    private int parseInt(int field) {
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        boolean negative = start < end && buffer[start] == '-';
+        int i = negative || (start < end && buffer[start] == '+') ? start + 1 : start;
+        if (i == end) throw error("Invalid integer: " + fieldText(field), field);
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) throw error("Invalid integer: " + fieldText(field), field);
+            value = value * 10 + digit;
+            if (value > (long) Integer.MAX_VALUE + 1) throw error("Integer out of range: " + fieldText(field), field);
+        }
+        value = negative ? -value : value;
+        if (value > Integer.MAX_VALUE) throw error("Integer out of range: " + fieldText(field), field);
+        return (int) value;
+    }
+
+    // Kwota w jednostkach Money: zapis dziesiętny (do 8 cyfr po kropce) jest czytany dokładnie,
+    // inne zapisy (wykładnik, więcej cyfr) przez Double.parseDouble z zaokrągleniem do jednostki
+    private long parseMoney(int field) {
+        long units = Money.parse(buffer, fieldStart[field], fieldEnd[field]);
+        if (units != Long.MIN_VALUE) {
+            return units;
+        }
+        try {
+            return Money.of(Double.parseDouble(fieldText(field)));
+        } catch (IllegalArgumentException e) {
+            throw error("Invalid number: " + fieldText(field), field);
+        }
+    }
+
+    private String fieldText(int field) {
+        return new String(buffer, fieldStart[field], fieldEnd[field] - fieldStart[field]);
+    }
+
+    private DataIntegrityException error(String message, int field) {
+        int column = (field < fieldCount ? fieldStart[field] : position) - lineStart + 1;
+        return new DataIntegrityException(message + " at line " + lineNumber + ", column " + column);
+    }
+
+    // --- Internowanie symboli ---
+
+    // Tablica z adresowaniem otwartym: symbol (z bufora) -> wspólna definicja aktywa.
+    // Dla symbolu, który już był, nie powstaje żaden String.
+    private final class SymbolTable {
+        private Asset[] assets = new Asset[64];
+        private int[] hashes = new int[64];
+        private int size;
+
+        Asset assetFor(AssetType type, double price) {
+            int start = fieldStart[2];
+            int end = fieldEnd[2];
+            int hash = 0;
+            for (int i = start; i < end; i++) {
+                hash = 31 * hash + buffer[i];
+            }
+
+            int mask = assets.length - 1;
+            int slot = mix(hash) & mask;
+            while (assets[slot] != null) {
+                Asset asset = assets[slot];
+                if (hashes[slot] == hash && sameSymbol(asset.getSymbol(), start, end)) {
+                    if (asset.getType() != type) {
+                        // Inny typ pod tym samym symbolem - zachowanie jak przy tworzeniu aktywa per linia
+                        return create(type, start, end, price);
+                    }
+                    return asset;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            Asset asset = create(type, start, end, price);
+            assets[slot] = asset;
+            hashes[slot] = hash;
+            if (++size * 2 > assets.length) {
+                rehash();
+            }
+            return asset;
+        }
+
+        private Asset create(AssetType type, int start, int end, double price) {
+            try {
+                return AssetFactory.create(type, new String(buffer, start, end - start), price);
+            } catch (IllegalArgumentException e) {
+                throw error(e.getMessage(), 2);
+            }
+        }
+
+        private boolean sameSymbol(String symbol, int start, int end) {
+            if (symbol.length() != end - start) return false;
+            for (int i = start; i < end; i++) {
+                if (symbol.charAt(i - start) != buffer[i]) return false;
+            }
+            return true;
+        }
+
+        private void rehash() {
+            Asset[] oldAssets = assets;
+            int[] oldHashes = hashes;
+            assets = new Asset[oldAssets.length * 2];
+            hashes = new int[oldAssets.length * 2];
+            int mask = assets.length - 1;
+            for (int i = 0; i < oldAssets.length; i++) {
+                if (oldAssets[i] == null) continue;
+                int slot = mix(oldHashes[i]) & mask;
+                while (assets[slot] != null) slot = (slot + 1) & mask;
+                assets[slot] = oldAssets[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+
+        private int mix(int hash) {
+            return hash ^ (hash >>> 16);
+        }
+    }
+}
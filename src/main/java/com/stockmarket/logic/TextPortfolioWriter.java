@@ -0,0 +1,118 @@
+package com.stockmarket.logic;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+import com.stockmarket.domain.Asset;
+import com.stockmarket.domain.Money;
+
+// Strumieniowy zapis formatu tekstowego: loty trafiają prosto do bufora znaków,
+// bez budowania listy linii i bez String.format na lot. Zużycie pamięci nie zależy od liczby lotów.
+final class TextPortfolioWriter implements LotVisitor {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Writer out;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+
+    TextPortfolioWriter(Writer out) {
+        this.out = out;
+    }
+
+    void write(Portfolio portfolio) throws IOException {
+        // Format: HEADER|CASH|DAY
+        append("HEADER|");
+        appendMoney(portfolio.getCashUnits());
+        append('|');
+        appendLong(portfolio.getCurrentDay());
+        append('\n');
+
+        try {
+            portfolio.forEachLot(this);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        flushBuffer();
+        out.flush();
+    }
+
+    // Format linii: LOT|TYPE|SYMBOL|PRICE|QTY|PURCHASE_DAY
+    @Override
+    public void visitLot(Asset asset, long lotId, long purchaseDay, long unitPriceUnits, int quantity) {
+        try {
+            append("LOT|");
+            append(asset.getType().name());
+            append('|');
+            append(asset.getSymbol());
+            append('|');
+            appendMoney(unitPriceUnits);
+            append('|');
+            appendLong(quantity);
+            append('|');
+            appendLong(purchaseDay);
+            append('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // --- Bufor ---
+
+    private void ensureCapacity(int chars) throws IOException {
+        if (position + chars > buffer.length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+
+    private void append(char c) throws IOException {
+        ensureCapacity(1);
+        buffer[position++] = c;
+    }
+
+    private void append(String text) throws IOException {
+        int length = text.length();
+        if (length > buffer.length) {
+            flushBuffer();
+            out.write(text);
+            return;
+        }
+        ensureCapacity(length);
+        text.getChars(0, length, buffer, position);
+        position += length;
+    }
+
+    // --- Liczby ---
+
+    private void appendLong(long value) throws IOException {
+        ensureCapacity(20);
+        if (value == Long.MIN_VALUE) {
+            append(Long.toString(value));
+            return;
+        }
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) digits++;
+        int end = position + digits;
+        for (int i = end - 1; i >= position; i--) {
+            buffer[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        position = end;
+    }
+
+    // Dokładny zapis kwoty (Money.format) - bez zaokrąglenia do groszy, odczyt zwraca te same jednostki
+    private void appendMoney(long units) throws IOException {
+        ensureCapacity(Money.MAX_FORMAT_LENGTH);
+        position = Money.format(units, buffer, position);
+    }
+}
@@ -0,0 +1,113 @@
+package com.stockmarket;
+
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.Share;
+import com.stockmarket.domain.TimeInForce;
+import com.stockmarket.logic.AccountRegistry;
+import com.stockmarket.logic.DurablePortfolioStore;
+import com.stockmarket.logic.EndOfDayResult;
+import com.stockmarket.logic.Portfolio;
+
+class AccountRegistryTest {
+
+    @TempDir
+    Path directory;
+
+    // Konto i: surowiec (koszt składowania rośnie z dniami), akcje i zlecenie DAY, które wygasa
+    private static Portfolio account(int i) {
+        Portfolio portfolio = new Portfolio(10_000.0 + i);
+        portfolio.addAsset(new Share("S" + (i % 7), 10.0 + i % 13), 1 + i % 5);
+        portfolio.addAsset(new Commodity("GOLD", 100.0), 2);
+        portfolio.placeOrder(new Order("GOLD", AssetType.COMMODITY, 50.0, 1, OrderType.BUY, TimeInForce.DAY));
+        return portfolio;
+    }
+
+    private static EndOfDayResult runWith(ForkJoinPool pool, int accounts) {
+        AccountRegistry registry = new AccountRegistry(pool);
+        registry.setBatchSize(8);
+        for (int i = 0; i < accounts; i++) {
+            registry.register("acc-" + i, account(i));
+        }
+        return registry.runEndOfDay(3, false);
+    }
+
+    @Test
+    @DisplayName("Parallel end of day should give the same totals as a sequential loop")
+    void testParallelMatchesSequential() {
+        int accounts = 500;
+        double expectedCash = 0.0;
+        double expectedValue = 0.0;
+        for (int i = 0; i < accounts; i++) {
+            Portfolio portfolio = account(i);
+            portfolio.advanceTime(3);
+            expectedCash += portfolio.getCash();
+            expectedValue += portfolio.calculateTotalValue() + portfolio.getReservedCash();
+        }
+        double cash = expectedCash;
+        double value = expectedValue;
+
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(4);
+        try {
+            EndOfDayResult sequential = runWith(single, accounts);
+            EndOfDayResult concurrent = runWith(parallel, accounts);
+
+            assertAll("Totals",
+                () -> assertEquals(accounts, concurrent.getAccountCount()),
+                () -> assertEquals(cash, concurrent.getTotalCash(), 1e-6),
+                () -> assertEquals(value, concurrent.getTotalValue(), 1e-6),
+                () -> assertEquals(0.0, concurrent.getTotalReservedCash(), "DAY orders should expire"),
+                () -> assertEquals(sequential.getTotalValue(), concurrent.getTotalValue()),
+                () -> assertEquals(sequential.getMaxAccountId(), concurrent.getMaxAccountId()),
+                () -> assertTrue(concurrent.getFailedAccounts().isEmpty())
+            );
+        } finally {
+            single.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Registry should track accounts and checkpoint durable ones")
+    void testRegistryAndCheckpoint() throws Exception {
+        AccountRegistry registry = new AccountRegistry();
+        Portfolio plain = new Portfolio(1000.0);
+        registry.register("plain", plain);
+        try (DurablePortfolioStore store = DurablePortfolioStore.open(directory, 5000.0)) {
+            store.getPortfolio().addAsset(new Commodity("OIL", 80.0), 10);
+            registry.register("durable", store);
+            long generation = store.getGeneration();
+
+            EndOfDayResult result = registry.runEndOfDay(1, true);
+
+            assertAll("Registry",
+                () -> assertThrows(IllegalArgumentException.class, () -> registry.register("plain", new Portfolio(1.0))),
+                () -> assertEquals(generation + 1, store.getGeneration()),
+                () -> assertEquals(1, plain.getCurrentDay()),
+                () -> assertEquals(2, result.getAccountCount()),
+                () -> assertEquals("plain", result.getMinAccountId()),
+                () -> assertEquals(store.getPortfolio().calculateTotalValue(), result.getMaxAccountValue(), 1e-9)
+            );
+
+            assertTrue(registry.unregister("plain"));
+            assertFalse(registry.unregister("plain"));
+            assertEquals(1, registry.size());
+            assertEquals(store.getPortfolio(), registry.getPortfolio("durable"));
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.stockmarket;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.logic.BacktestResult;
+import com.stockmarket.logic.BacktestStrategy;
+import com.stockmarket.logic.Backtester;
+import com.stockmarket.logic.Bar;
+import com.stockmarket.logic.BarSource;
+import com.stockmarket.logic.DataIntegrityException;
+import com.stockmarket.logic.EquityCurveWriter;
+import com.stockmarket.logic.OhlcFile;
+import com.stockmarket.logic.Portfolio;
+
+class BacktesterTest {
+
+    private static final String HISTORY =
+            "day,symbol,open,high,low,close,volume\n"
+            + "1,XYZ,100,101,99,100,5000\n"
+            + "1,ABC,50,51,49,50,100\n"
+            + "2,XYZ,98,99,94,96,7000\n"      // luka w dół: BUY @95 realizuje się po limicie 95
+            + "2,ABC,50,52,50,51,100\n"
+            + "3,XYZ,106,110,104,108,9000\n"  // luka w górę: SELL @105 realizuje się po otwarciu 106
+            + "3,ABC,51,51,48,49,100\n"
+            + "5,XYZ,108,109,107,108,1000\n";
+
+    @TempDir
+    Path directory;
+
+    // Dzień 1: zlecenie kupna z limitem poniżej rynku; po realizacji - zlecenie sprzedaży powyżej rynku
+    private static BacktestStrategy limitStrategy() {
+        return new BacktestStrategy() {
+            @Override
+            public void onBar(Bar bar, Portfolio portfolio) {
+                if (bar.getDay() == 1 && bar.getSymbol().equals("XYZ")) {
+                    portfolio.placeOrder(new Order("XYZ", AssetType.SHARE, 95.0, 10, OrderType.BUY));
+                }
+            }
+
+            @Override
+            public void onDayEnd(int day, Portfolio portfolio) {
+                if (day == 2) {
+                    portfolio.placeOrder(new Order("XYZ", AssetType.SHARE, 105.0, 10, OrderType.SELL));
+                }
+            }
+        };
+    }
+
+    private Path writeCsv() throws IOException {
+        Path csv = directory.resolve("history.csv");
+        Files.writeString(csv, HISTORY);
+        return csv;
+    }
+
+    @Test
+    @DisplayName("Resting orders should fill against bars and the equity curve should be streamed per day")
+    void testBacktestFillsOrdersAgainstBars() throws IOException {
+        Portfolio portfolio = new Portfolio(10_000.0);
+        StringWriter curve = new StringWriter();
+        BacktestResult result;
+        try (BarSource source = OhlcFile.openCsv(writeCsv())) {
+            result = new Backtester(portfolio).run(source, limitStrategy(), new EquityCurveWriter(curve));
+        }
+
+        String[] rows = curve.toString().split("\n");
+        assertAll("Backtest",
+            () -> assertEquals(7, result.getBarCount()),
+            () -> assertEquals(4, result.getDayCount()),
+            () -> assertEquals(5, portfolio.getCurrentDay()),
+            () -> assertEquals(20, result.getFilledQuantity()),
+            () -> assertEquals(10_000.0 - 950.0 + 1060.0, portfolio.getCash(), 1e-9),
+            () -> assertEquals(0.0, portfolio.getReservedCash(), 1e-9),
+            () -> assertEquals(0, portfolio.getHoldingsCount()),
+            () -> assertEquals(10_110.0, result.getFinalEquity(), 1e-9),
+            () -> assertEquals(5, rows.length),
+            () -> assertEquals("1,10000.00,0.00,10000.00", rows[1]),
+            () -> assertEquals("5,10110.00,0.00,10110.00", rows[4])
+        );
+    }
+
+    @Test
+    @DisplayName("Memory-mapped binary history should replay exactly like the CSV it was converted from")
+    void testBinaryMatchesCsv() throws IOException {
+        Path csv = writeCsv();
+        Path binary = directory.resolve("history.ohlc");
+        assertEquals(7, OhlcFile.convertCsv(csv, binary));
+
+        StringWriter fromCsv = new StringWriter();
+        StringWriter fromBinary = new StringWriter();
+        BacktestResult csvResult;
+        BacktestResult binaryResult;
+        try (BarSource source = OhlcFile.openCsv(csv)) {
+            csvResult = new Backtester(new Portfolio(10_000.0)).run(source, limitStrategy(), new EquityCurveWriter(fromCsv));
+        }
+        try (BarSource source = OhlcFile.open(binary)) {
+            binaryResult = new Backtester(new Portfolio(10_000.0)).run(source, limitStrategy(), new EquityCurveWriter(fromBinary));
+        }
+
+        assertAll("Same run",
+            () -> assertEquals(fromCsv.toString(), fromBinary.toString()),
+            () -> assertEquals(csvResult.getFinalEquity(), binaryResult.getFinalEquity()),
+            () -> assertEquals(csvResult.getMaxDrawdown(), binaryResult.getMaxDrawdown())
+        );
+    }
+
+    @Test
+    @DisplayName("Corrupted or unordered history should be rejected")
+    void testInvalidHistory() throws IOException {
+        Path unordered = directory.resolve("unordered.csv");
+        Files.writeString(unordered, "2,XYZ,10,11,9,10\n1,XYZ,10,11,9,10\n");
+        Path badBar = directory.resolve("bad.csv");
+        Files.writeString(badBar, "1,XYZ,10,11,12,10\n");
+        Path incomplete = directory.resolve("incomplete.ohlc");
+        Files.write(incomplete, new byte[64]);
+
+        Portfolio portfolio = new Portfolio(1000.0);
+        BacktestStrategy idle = (bar, p) -> { };
+        DataIntegrityException unorderedError = assertThrows(DataIntegrityException.class, () -> {
+            try (BarSource source = OhlcFile.openCsv(unordered)) {
+                new Backtester(portfolio).run(source, idle, null);
+            }
+        });
+        assertAll("Errors",
+            () -> assertTrue(unorderedError.getMessage().contains("line 2"), unorderedError.getMessage()),
+            () -> assertThrows(DataIntegrityException.class, () -> {
+                try (BarSource source = OhlcFile.openCsv(badBar)) {
+                    new Backtester(new Portfolio(1000.0)).run(source, idle, null);
+                }
+            }),
+            () -> assertThrows(DataIntegrityException.class, () -> OhlcFile.open(incomplete))
+        );
+    }
+}
@@ -0,0 +1,144 @@
+package com.stockmarket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.ConcurrentPortfolio;
+
+class ConcurrentPortfolioTest {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 2_000;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // Uruchamia zadanie na wszystkich wątkach jednocześnie i czeka na koniec (wyjątki są przekazywane dalej)
+    private void runConcurrently(ThreadTask task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                task.run(thread);
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+    }
+
+    private interface ThreadTask {
+        void run(int thread) throws Exception;
+    }
+
+    @Test
+    @DisplayName("Concurrent buys, sells and orders should not lose updates")
+    void testNoLostUpdates() throws Exception {
+        double initialCash = 10_000_000.0;
+        ConcurrentPortfolio portfolio = new ConcurrentPortfolio(initialCash);
+
+        // Pary wątków dzielą symbol, więc kolizje na blokadach i w księgach są częste.
+        // Ceny i ilości są dobrane tak, żeby wszystkie kwoty były dokładne w double (brak opłat Share).
+        runConcurrently(thread -> {
+            String symbol = "SYM" + (thread / 2);
+            for (int i = 0; i < ITERATIONS; i++) {
+                portfolio.addAsset(new Share(symbol, 100.0), 10);         // -1000
+                portfolio.sellAsset(symbol, 10, 101.0);                     // +1010
+
+                long buy = portfolio.placeOrder(new Order(symbol, AssetType.SHARE, 50.0, 10, OrderType.BUY));
+                portfolio.cancelOrder(buy);                                 // rezerwacja wraca
+            }
+        });
+
+        double expectedCash = initialCash + THREADS * ITERATIONS * 10.0;
+        assertAll("Final state",
+            () -> assertEquals(expectedCash, portfolio.getCash(), 0.0),
+            () -> assertEquals(0, portfolio.getHoldingsCount()),
+            () -> assertEquals(0, portfolio.getOpenOrderCount())
+        );
+    }
+
+    @Test
+    @DisplayName("Crossing orders from different threads should conserve cash and quantity")
+    void testConcurrentMatching() throws Exception {
+        double initialCash = 10_000_000.0;
+        ConcurrentPortfolio portfolio = new ConcurrentPortfolio(initialCash);
+        portfolio.addAsset(new Share("XYZ", 100.0), THREADS * ITERATIONS);
+        double cashAfterSetup = portfolio.getCash();
+
+        // Połowa wątków sprzedaje, połowa kupuje po tej samej cenie - każda realizacja to przesunięcie 0 gotówki
+        runConcurrently(thread -> {
+            OrderType side = thread % 2 == 0 ? OrderType.SELL : OrderType.BUY;
+            for (int i = 0; i < ITERATIONS; i++) {
+                portfolio.placeOrder(new Order("XYZ", AssetType.SHARE, 100.0, 1, side));
+            }
+        });
+
+        assertAll("Conservation",
+            () -> assertEquals(cashAfterSetup, portfolio.getCash(), 0.0),
+            () -> assertEquals(THREADS * ITERATIONS, portfolio.getAssetQuantity("XYZ")),
+            () -> assertEquals(0, portfolio.getOpenOrderCount())
+        );
+    }
+
+    @Test
+    @DisplayName("CAS reservation should never overdraw cash")
+    void testCashNeverOverdrawn() throws Exception {
+        ConcurrentPortfolio portfolio = new ConcurrentPortfolio(100_000.0);
+        AtomicInteger purchases = new AtomicInteger();
+
+        // Każdy zakup kosztuje 1000; chętnych jest dużo więcej niż gotówki
+        runConcurrently(thread -> {
+            for (int i = 0; i < 100; i++) {
+                try {
+                    portfolio.addAsset(new Share("T" + thread, 100.0), 10);
+                    purchases.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // Brak środków - oczekiwane
+                }
+            }
+        });
+
+        int totalQuantity = 0;
+        for (int t = 0; t < THREADS; t++) {
+            totalQuantity += portfolio.getAssetQuantity("T" + t);
+        }
+        int quantity = totalQuantity;
+        assertAll("Reservation",
+            () -> assertEquals(100, purchases.get()),
+            () -> assertEquals(0.0, portfolio.getCash(), 0.0),
+            () -> assertEquals(100 * 10, quantity)
+        );
+    }
+}
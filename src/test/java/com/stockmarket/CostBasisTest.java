@@ -0,0 +1,237 @@
+package com.stockmarket;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.stockmarket.domain.CostBasisMethod;
+import com.stockmarket.domain.PurchaseLot;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+
+class CostBasisTest {
+
+    private Portfolio portfolio;
+
+    @BeforeEach
+    void setUp() {
+        // Trzy loty XYZ: 10 szt. po 100, 10 szt. po 150, 10 szt. po 120
+        portfolio = new Portfolio(100000.0);
+        portfolio.addAsset(new Share("XYZ", 100.0), 10);
+        portfolio.advanceTime(1);
+        portfolio.addAsset(new Share("XYZ", 150.0), 10);
+        portfolio.advanceTime(1);
+        portfolio.addAsset(new Share("XYZ", 120.0), 10);
+    }
+
+    @Test
+    @DisplayName("LIFO should sell the newest lots first")
+    void testLifo() {
+        double profit = portfolio.sellAsset("XYZ", 15, 200.0, CostBasisMethod.LIFO);
+
+        assertAll("LIFO",
+            () -> assertEquals(15 * 200.0 - (10 * 120.0 + 5 * 150.0), profit, 0.001),
+            () -> assertEquals(10 * 100.0 + 5 * 150.0, portfolio.getCostBasis("XYZ"), 0.001)
+        );
+    }
+
+    @Test
+    @DisplayName("HIFO should sell the most expensive lots first")
+    void testHifo() {
+        double profit = portfolio.sellAsset("XYZ", 15, 200.0, CostBasisMethod.HIFO);
+
+        assertAll("HIFO",
+            () -> assertEquals(15 * 200.0 - (10 * 150.0 + 5 * 120.0), profit, 0.001),
+            () -> assertEquals(10 * 100.0 + 5 * 120.0, portfolio.getCostBasis("XYZ"), 0.001)
+        );
+    }
+
+    @Test
+    @DisplayName("FIFO should take part of the oldest lot and then cross into the next one")
+    void testFifoPartialLots() {
+        double first = portfolio.sellAsset("XYZ", 4, 200.0, CostBasisMethod.FIFO);
+        List<PurchaseLot> afterFirst = portfolio.getLots("XYZ");
+        double second = portfolio.sellAsset("XYZ", 10, 200.0, CostBasisMethod.FIFO);
+        List<PurchaseLot> afterSecond = portfolio.getLots("XYZ");
+
+        assertAll("FIFO",
+            () -> assertEquals(4 * 200.0 - 4 * 100.0, first, 0.001),
+            () -> assertEquals(3, afterFirst.size()),
+            () -> assertEquals(6, afterFirst.get(0).getQuantity()),
+            () -> assertEquals(100.0, afterFirst.get(0).getUnitPrice(), 0.001),
+            () -> assertEquals(10 * 200.0 - (6 * 100.0 + 4 * 150.0), second, 0.001),
+            () -> assertEquals(2, afterSecond.size()),
+            () -> assertEquals(6, afterSecond.get(0).getQuantity()),
+            () -> assertEquals(150.0, afterSecond.get(0).getUnitPrice(), 0.001),
+            () -> assertEquals(10, afterSecond.get(1).getQuantity()),
+            () -> assertEquals(6 * 150.0 + 10 * 120.0, portfolio.getCostBasis("XYZ"), 0.001)
+        );
+    }
+
+    @Test
+    @DisplayName("Average cost should keep the same mean price when the position is sold in parts")
+    void testAverageCostInParts() {
+        double first = portfolio.sellAsset("XYZ", 10, 200.0, CostBasisMethod.AVERAGE_COST);
+        double second = portfolio.sellAsset("XYZ", 10, 200.0, CostBasisMethod.AVERAGE_COST);
+        double remainingBasis = portfolio.getCostBasis("XYZ");
+        double third = portfolio.sellAsset("XYZ", 10, 200.0, CostBasisMethod.AVERAGE_COST);
+
+        Portfolio p = new Portfolio(10000.0);
+        p.addAsset(new Share("ABC", 100.0), 10);
+        p.addAsset(new Share("ABC", 200.0), 10);
+
+        assertAll("Average in parts",
+            () -> assertEquals(10 * (200.0 - 370.0 / 3), first, 0.001),
+            () -> assertEquals(10 * (200.0 - 370.0 / 3), second, 0.001),
+            () -> assertEquals(10 * (200.0 - 370.0 / 3), third, 0.001),
+            () -> assertEquals(30 * 200.0 - 3700.0, first + second + third, 0.001),
+            () -> assertEquals(3700.0 / 3, remainingBasis, 0.001),
+            () -> assertEquals(0.0, p.sellAsset("ABC", 10, 150.0, CostBasisMethod.AVERAGE_COST), 0.001),
+            () -> assertEquals(0.0, p.sellAsset("ABC", 10, 150.0, CostBasisMethod.AVERAGE_COST), 0.001)
+        );
+    }
+
+    @Test
+    @DisplayName("Average cost should use the mean price and keep lots FIFO")
+    void testAverageCost() {
+        double profit = portfolio.sellAsset("XYZ", 15, 200.0, CostBasisMethod.AVERAGE_COST);
+        List<PurchaseLot> lots = portfolio.getLots("XYZ");
+
+        assertAll("Average",
+            () -> assertEquals(15 * (200.0 - 370.0 / 3), profit, 0.001),
+            () -> assertEquals(2, lots.size()),
+            () -> assertEquals(150.0, lots.get(0).getUnitPrice()),
+            () -> assertEquals(5, lots.get(0).getQuantity())
+        );
+    }
+
+    @Test
+    @DisplayName("Specific lot identification should sell from the chosen lot")
+    void testSpecificLot() {
+        long middleLot = portfolio.getLots("XYZ").get(1).getLotId();
+
+        double profit = portfolio.sellLot("XYZ", middleLot, 4, 200.0);
+
+        assertAll("Specific Lot",
+            () -> assertEquals(4 * 50.0, profit, 0.001),
+            () -> assertEquals(6, portfolio.getLots("XYZ").get(1).getQuantity()),
+            () -> assertEquals(26, portfolio.getAssetQuantity(new Share("XYZ", 1.0))),
+            () -> assertThrows(IllegalArgumentException.class, () -> portfolio.sellLot("XYZ", middleLot, 7, 200.0)),
+            () -> assertThrows(IllegalArgumentException.class, () -> portfolio.sellLot("XYZ", 999, 1, 200.0))
+        );
+    }
+
+    @Test
+    @DisplayName("Default method should be used by sellAsset and SPECIFIC_LOT cannot be a default")
+    void testDefaultMethod() {
+        portfolio.setCostBasisMethod(CostBasisMethod.LIFO);
+        double profit = portfolio.sellAsset("XYZ", 10, 200.0);
+
+        assertAll("Default",
+            () -> assertEquals(10 * 80.0, profit, 0.001),
+            () -> assertThrows(IllegalArgumentException.class,
+                () -> portfolio.setCostBasisMethod(CostBasisMethod.SPECIFIC_LOT)),
+            () -> assertThrows(IllegalArgumentException.class,
+                () -> portfolio.sellAsset("XYZ", 1, 200.0, CostBasisMethod.SPECIFIC_LOT))
+        );
+    }
+
+    @Test
+    @DisplayName("getLots should return independent copies of the stored lots")
+    void testGetLotsReturnsCopies() {
+        List<PurchaseLot> lots = portfolio.getLots("XYZ");
+        lots.get(0).decreaseQuantity(10);
+
+        assertAll("Copies",
+            () -> assertEquals(3, lots.size()),
+            () -> assertEquals(100.0, lots.get(0).getUnitPrice()),
+            () -> assertEquals(150.0, lots.get(1).getUnitPrice()),
+            () -> assertEquals(10, portfolio.getLots("XYZ").get(0).getQuantity(), "Store must not be modified"),
+            () -> assertEquals(30, portfolio.getAssetQuantity(new Share("XYZ", 1.0)))
+        );
+    }
+
+    @Test
+    @DisplayName("Mixed methods over a long lot history should keep lots and aggregates consistent")
+    void testMixedMethodsLongHistory() {
+        Portfolio p = new Portfolio(1_000_000_000.0);
+        for (int i = 0; i < 2000; i++) {
+            p.addAsset(new Share("DCA", 100.0 + (i * 37) % 101), 3);
+            p.advanceTime(1);
+        }
+        // Bez AVERAGE_COST - przy nim koszt pozycji to pula średnia, a nie suma kosztów lotów
+        CostBasisMethod[] methods = {
+            CostBasisMethod.HIFO, CostBasisMethod.FIFO, CostBasisMethod.LIFO
+        };
+        for (int i = 0; i < 1500; i++) {
+            p.sellAsset("DCA", 2, 150.0, methods[i % methods.length]);
+        }
+
+        List<PurchaseLot> lots = p.getLots("DCA");
+        int quantity = 0;
+        double cost = 0.0;
+        long previousId = Long.MIN_VALUE;
+        boolean ordered = true;
+        for (PurchaseLot lot : lots) {
+            quantity += lot.getQuantity();
+            cost += lot.getQuantity() * lot.getUnitPrice();
+            ordered &= lot.getLotId() > previousId;
+            previousId = lot.getLotId();
+        }
+        int lotQuantity = quantity;
+        double lotCost = cost;
+        boolean lotsOrdered = ordered;
+
+        assertAll("Consistency",
+            () -> assertEquals(3000, lotQuantity),
+            () -> assertEquals(3000, p.getAssetQuantity(new Share("DCA", 1.0))),
+            () -> assertEquals(lotCost, p.getCostBasis("DCA"), 0.01),
+            () -> assertTrue(lotsOrdered, "Lots should stay in purchase order")
+        );
+    }
+
+    @Test
+    @DisplayName("HIFO should pick the right lot after LIFO trims the newest lots and new lots reuse their slots")
+    void testHifoAfterLifoAndNewLots() {
+        Portfolio p = new Portfolio(100000.0);
+        p.addAsset(new Share("ABC", 100.0), 10);
+        p.addAsset(new Share("ABC", 200.0), 10);
+        p.sellAsset("ABC", 1, 150.0, CostBasisMethod.HIFO);
+        p.sellAsset("ABC", 9, 150.0, CostBasisMethod.LIFO);
+        p.addAsset(new Share("ABC", 50.0), 10);
+
+        double profit = p.sellAsset("ABC", 10, 120.0, CostBasisMethod.HIFO);
+
+        assertAll("HIFO after LIFO",
+            () -> assertEquals(10 * 120.0 - 10 * 100.0, profit, 0.001),
+            () -> assertEquals(10 * 50.0, p.getCostBasis("ABC"), 0.001)
+        );
+    }
+
+    @Test
+    @DisplayName("HIFO should pick the right lot after FIFO sales and growing the lot store")
+    void testHifoAfterFifoAndGrowth() {
+        Portfolio p = new Portfolio(100000.0);
+        for (int price = 10; price <= 17; price++) {
+            p.addAsset(new Share("ABC", price), 100);
+        }
+        p.sellAsset("ABC", 1, 20.0, CostBasisMethod.HIFO);
+        p.sellAsset("ABC", 200, 20.0, CostBasisMethod.FIFO);
+        for (int i = 0; i < 3; i++) {
+            p.addAsset(new Share("ABC", 5.0), 100);
+        }
+
+        double profit = p.sellAsset("ABC", 99, 20.0, CostBasisMethod.HIFO);
+
+        assertAll("HIFO after growth",
+            () -> assertEquals(99 * (20.0 - 17.0), profit, 0.001),
+            () -> assertEquals(100 * (12 + 13 + 14 + 15 + 16) + 300 * 5.0, p.getCostBasis("ABC"), 0.001)
+        );
+    }
+}
@@ -0,0 +1,72 @@
+package com.stockmarket;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Money;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+
+class MoneyTest {
+
+    @Test
+    @DisplayName("Should format and parse amounts without losing digits")
+    void testFormatAndParse() {
+        assertAll("Text",
+            () -> assertEquals("150.00", Money.format(Money.of(150.0))),
+            () -> assertEquals("0.07", Money.format(Money.of(0.07))),
+            () -> assertEquals("-12.34567891", Money.format(Money.parse("-12.34567891"))),
+            () -> assertEquals("92233720368.54775807", Money.format(Long.MAX_VALUE)),
+            () -> assertEquals(Long.MAX_VALUE, Money.parse(Money.format(Long.MAX_VALUE))),
+            () -> assertEquals(150_25_000_000L, Money.parse("150.25")),
+            () -> assertThrows(IllegalArgumentException.class, () -> Money.parse("1.123456789")),
+            () -> assertThrows(IllegalArgumentException.class, () -> Money.parse("1e3")),
+            () -> assertThrows(IllegalArgumentException.class, () -> Money.parse("92233720369"))
+        );
+    }
+
+    @Test
+    @DisplayName("Should round and scale amounts exactly")
+    void testArithmetic() {
+        assertAll("Arithmetic",
+            () -> assertEquals(10_000_000L, Money.of(0.1)),
+            () -> assertEquals(0.1, Money.toDouble(Money.of(0.1))),
+            () -> assertEquals(Money.parse("33.33333333"), Money.mulDiv(Money.parse("100"), 1, 3)),
+            () -> assertEquals(Money.parse("66.66666667"), Money.mulDiv(Money.parse("100"), 2, 3)),
+            // Iloczyn poza zakresem long - dzielenie na BigDecimal
+            () -> assertEquals(Long.MAX_VALUE / 7 * 3, Money.mulDiv(Long.MAX_VALUE / 7 * 3, 1L << 40, 1L << 40)),
+            () -> assertThrows(ArithmeticException.class, () -> Money.times(Long.MAX_VALUE / 2, 3)),
+            () -> assertThrows(IllegalArgumentException.class, () -> Money.of(Double.NaN))
+        );
+    }
+
+    @Test
+    @DisplayName("Many small fills should leave no rounding residue in cash")
+    void testLedgerHasNoDrift() {
+        Portfolio portfolio = new Portfolio(10_000.0);
+        portfolio.addAsset(new Share("TICK", 0.1), 100_000);
+        double cashAfterPurchase = portfolio.getCash();
+
+        // 100 000 sprzedaży po 0.1 - w double suma dryfuje, w jednostkach Money wraca dokładnie
+        for (int i = 0; i < 100_000; i++) {
+            portfolio.sellAsset("TICK", 1, 0.1);
+        }
+        for (int i = 0; i < 1000; i++) {
+            long id = portfolio.placeOrder(new Order("TICK", AssetType.SHARE, 0.3, 10, OrderType.BUY));
+            portfolio.cancelOrder(id);
+        }
+
+        assertAll("Ledger",
+            () -> assertEquals(0.0, cashAfterPurchase),
+            () -> assertEquals(Money.of(10_000.0), portfolio.getCashUnits()),
+            () -> assertEquals(0L, portfolio.getReservedCashUnits()),
+            () -> assertEquals(0, portfolio.getHoldingsCount())
+        );
+    }
+}
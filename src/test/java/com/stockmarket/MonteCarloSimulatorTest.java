@@ -0,0 +1,94 @@
+package com.stockmarket;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.MonteCarloSimulator;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PricePathModel;
+import com.stockmarket.logic.SimulationResult;
+
+class MonteCarloSimulatorTest {
+
+    private static final int HORIZON = 20;
+
+    private static Portfolio samplePortfolio() {
+        Portfolio portfolio = new Portfolio(100_000.0);
+        portfolio.addAsset(new Share("AAA", 100.0), 200);
+        portfolio.addAsset(new Share("BBB", 40.0), 500);
+        portfolio.addAsset(new Commodity("GOLD", 1800.0), 10);
+        return portfolio;
+    }
+
+    @Test
+    @DisplayName("Results should depend only on the seed, not on the number of worker threads")
+    void testReproducibleAcrossParallelism() {
+        PricePathModel model = PricePathModel.jumpDiffusion(0.05, 0.25, 4.0, -0.05, 0.1);
+        ForkJoinPool single = new ForkJoinPool(1);
+        ForkJoinPool parallel = new ForkJoinPool(4);
+        try {
+            SimulationResult sequential = new MonteCarloSimulator(model, HORIZON, single).run(s -> samplePortfolio(), 500, 7L);
+            SimulationResult concurrent = new MonteCarloSimulator(model, HORIZON, parallel).run(s -> samplePortfolio(), 500, 7L);
+            SimulationResult otherSeed = new MonteCarloSimulator(model, HORIZON, parallel).run(s -> samplePortfolio(), 500, 8L);
+
+            assertAll("Reproducibility",
+                () -> assertEquals(sequential.getValueAtRisk(0.99), concurrent.getValueAtRisk(0.99)),
+                () -> assertEquals(sequential.getExpectedShortfall(0.95), concurrent.getExpectedShortfall(0.95)),
+                () -> assertEquals(sequential.getMeanTerminalValue(), concurrent.getMeanTerminalValue(), 1e-6),
+                () -> assertTrue(sequential.getValueAtRisk(0.99) != otherSeed.getValueAtRisk(0.99))
+            );
+        } finally {
+            single.shutdown();
+            parallel.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Without volatility every scenario should end at the drifted price")
+    void testDeterministicPath() {
+        double drift = 0.10;
+        SimulationResult result = new MonteCarloSimulator(PricePathModel.gbm(drift, 0.0), HORIZON)
+                .run(s -> samplePortfolio(), 64, 1L);
+
+        // Ten sam portfel zbudowany od razu po cenach końcowych (i z tym samym upływem czasu)
+        double growth = Math.exp(drift * HORIZON / PricePathModel.STEPS_PER_YEAR);
+        Portfolio start = samplePortfolio();
+        Portfolio expected = new Portfolio(start.getCash());
+        expected.loadLot(new Share("AAA", 100.0 * growth), 100.0, 200, 0);
+        expected.loadLot(new Share("BBB", 40.0 * growth), 40.0, 500, 0);
+        expected.loadLot(new Commodity("GOLD", 1800.0 * growth), 1800.0, 10, 0);
+        expected.setCurrentDay(HORIZON);
+        double expectedProfit = expected.calculateTotalValue() - start.calculateTotalValue();
+
+        assertAll("Deterministic",
+            () -> assertEquals(64, result.getScenarioCount()),
+            () -> assertEquals(-expectedProfit, result.getValueAtRisk(0.95), 1e-6),
+            () -> assertEquals(-expectedProfit, result.getExpectedShortfall(0.99), 1e-6),
+            () -> assertEquals(0.0, result.getTerminalStdDev(), 1e-6)
+        );
+    }
+
+    @Test
+    @DisplayName("Jumps should fatten the loss tail compared with plain GBM")
+    void testJumpsFattenTail() {
+        PricePathModel gbm = PricePathModel.gbm(0.0, 0.2);
+        PricePathModel jumps = PricePathModel.jumpDiffusion(0.0, 0.2, 10.0, -0.08, 0.05);
+
+        SimulationResult plain = new MonteCarloSimulator(gbm, HORIZON).run(s -> samplePortfolio(), 4000, 3L);
+        SimulationResult jumpy = new MonteCarloSimulator(jumps, HORIZON).run(s -> samplePortfolio(), 4000, 3L);
+
+        assertAll("Tail",
+            () -> assertTrue(plain.getExpectedShortfall(0.99) >= plain.getValueAtRisk(0.99)),
+            () -> assertTrue(plain.getValueAtRisk(0.99) >= plain.getValueAtRisk(0.95)),
+            () -> assertTrue(jumpy.getExpectedShortfall(0.99) > plain.getExpectedShortfall(0.99),
+                    jumpy + " vs " + plain)
+        );
+    }
+}
@@ -0,0 +1,281 @@
+package com.stockmarket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.Share;
+import com.stockmarket.domain.TimeInForce;
+import com.stockmarket.logic.OrderBook;
+import com.stockmarket.logic.Portfolio;
+
+class OrderBookTest {
+
+    private OrderBook book;
+    private List<double[]> fills;
+
+    @BeforeEach
+    void setUp() {
+        book = new OrderBook("AAPL");
+        fills = new ArrayList<>();
+    }
+
+    private Order buy(double price, int quantity) {
+        return new Order("AAPL", AssetType.SHARE, price, quantity, OrderType.BUY);
+    }
+
+    private Order sell(double price, int quantity) {
+        return new Order("AAPL", AssetType.SHARE, price, quantity, OrderType.SELL);
+    }
+
+    private int submit(long id, Order order) {
+        return book.submit(id, order, (b, s, price, qty) -> fills.add(new double[] {price, qty}));
+    }
+
+    @Test
+    @DisplayName("Orders at the same price level should be matched FIFO")
+    void testFifoWithinPriceLevel() {
+        Order first = sell(100.0, 5);
+        Order second = sell(100.0, 5);
+        submit(1, first);
+        submit(2, second);
+
+        assertSame(first, book.peekBestSellOrder());
+
+        int remaining = submit(3, buy(100.0, 7));
+
+        assertAll("FIFO Matching",
+            () -> assertEquals(0, remaining),
+            () -> assertEquals(2, fills.size()),
+            () -> assertEquals(5, fills.get(0)[1]),
+            () -> assertEquals(2, fills.get(1)[1]),
+            () -> assertSame(second, book.peekBestSellOrder()),
+            () -> assertEquals(3, book.getQuantityAtPrice(OrderType.SELL, 100.0))
+        );
+    }
+
+    @Test
+    @DisplayName("Incoming order should sweep better levels first and trade at resting price")
+    void testPricePriorityAndRestingPrice() {
+        submit(1, sell(102.0, 5));
+        submit(2, sell(101.0, 5));
+        submit(3, sell(105.0, 5));
+
+        int remaining = submit(4, buy(103.0, 20));
+
+        assertAll("Sweep",
+            () -> assertEquals(10, remaining, "Unmatched part should rest in the book"),
+            () -> assertEquals(101.0, fills.get(0)[0]),
+            () -> assertEquals(102.0, fills.get(1)[0]),
+            () -> assertEquals(103.0, book.getBestBidPrice()),
+            () -> assertEquals(105.0, book.getBestAskPrice()),
+            () -> assertEquals(2, book.getRestingCount())
+        );
+    }
+
+    @Test
+    @DisplayName("Cancel should remove order and update best price")
+    void testCancel() {
+        submit(1, buy(100.0, 5));
+        submit(2, buy(99.0, 5));
+
+        OrderBook.RestingOrder cancelled = book.cancel(1);
+
+        assertAll("Cancel",
+            () -> assertEquals(5, cancelled.getRemainingQuantity()),
+            () -> assertEquals(99.0, book.getBestBidPrice()),
+            () -> assertEquals(1, book.getBidLevelCount()),
+            () -> assertNull(book.cancel(1), "Second cancel should be a no-op")
+        );
+    }
+
+    @Test
+    @DisplayName("Should reject order for a different symbol and duplicate ids")
+    void testInvalidSubmissions() {
+        submit(1, buy(100.0, 5));
+        assertAll("Validation",
+            () -> assertThrows(IllegalArgumentException.class,
+                () -> submit(2, new Order("GOOG", AssetType.SHARE, 100.0, 5, OrderType.BUY))),
+            () -> assertThrows(IllegalArgumentException.class, () -> submit(1, buy(101.0, 5)))
+        );
+    }
+
+    // --- Integracja z portfelem ---
+
+    @Test
+    @DisplayName("Portfolio fills should move lots and refund reserved cash")
+    void testPortfolioFillUpdatesCashAndLots() {
+        Portfolio portfolio = new Portfolio(10000.0);
+        portfolio.addAsset(new Share("AAPL", 100.0), 20);
+        double cashAfterBuy = portfolio.getCash();
+
+        portfolio.placeOrder(sell(90.0, 10));
+        portfolio.placeOrder(buy(95.0, 10));
+
+        assertAll("Fill",
+            () -> assertEquals(0, portfolio.getOpenOrderCount()),
+            () -> assertEquals(20, portfolio.getAssetQuantity(new Share("AAPL", 100.0))),
+            () -> assertEquals(cashAfterBuy, portfolio.getCash(), 0.001, "Self-trade at 90 nets to zero cash")
+        );
+    }
+
+    @Test
+    @DisplayName("Books should be kept per symbol")
+    void testBooksPerSymbol() {
+        Portfolio portfolio = new Portfolio(10000.0);
+        portfolio.placeOrder(buy(100.0, 10));
+        portfolio.placeOrder(new Order("GOOG", AssetType.SHARE, 150.0, 10, OrderType.BUY));
+
+        assertAll("Separate Books",
+            () -> assertEquals(100.0, portfolio.peekBestBuyOrder("AAPL").getPriceLimit()),
+            () -> assertEquals(150.0, portfolio.peekBestBuyOrder("GOOG").getPriceLimit()),
+            () -> assertEquals(150.0, portfolio.peekBestBuyOrder().getPriceLimit()),
+            () -> assertNull(portfolio.peekBestSellOrder("AAPL"))
+        );
+    }
+
+    @Test
+    @DisplayName("Cancelling orders should release reserved cash and assets")
+    void testPortfolioCancelReleasesReservation() {
+        Portfolio portfolio = new Portfolio(10000.0);
+        portfolio.addAsset(new Share("AAPL", 100.0), 10);
+        double cash = portfolio.getCash();
+
+        long buyId = portfolio.placeOrder(buy(50.0, 10));
+        long sellId = portfolio.placeOrder(sell(200.0, 10));
+
+        assertThrows(IllegalArgumentException.class, () -> portfolio.sellAsset("AAPL", 1, 100.0),
+            "Reserved quantity should not be sellable");
+
+        assertTrue(portfolio.cancelOrder(buyId));
+        assertTrue(portfolio.cancelOrder(sellId));
+        assertFalse(portfolio.cancelOrder(sellId));
+
+        assertAll("Released",
+            () -> assertEquals(cash, portfolio.getCash(), 0.001),
+            () -> assertEquals(0, portfolio.getOpenOrderCount()),
+            () -> assertEquals(0.0, portfolio.sellAsset("AAPL", 10, 100.0), 0.001)
+        );
+    }
+
+    // --- Czas ważności i zmiana zleceń ---
+
+    @Test
+    @DisplayName("IOC should drop the unfilled rest and FOK should not fill partially")
+    void testImmediateOrders() {
+        Portfolio portfolio = new Portfolio(10000.0);
+        portfolio.addAsset(new Share("AAPL", 100.0), 10);
+        double cash = portfolio.getCash();
+        portfolio.placeOrder(sell(100.0, 5));
+
+        portfolio.placeOrder(new Order("AAPL", AssetType.SHARE, 100.0, 8, OrderType.BUY, TimeInForce.FOK));
+        assertEquals(5, portfolio.getOrderBook("AAPL").getQuantityAtPrice(OrderType.SELL, 100.0), "FOK must not touch the book");
+
+        portfolio.placeOrder(new Order("AAPL", AssetType.SHARE, 100.0, 8, OrderType.BUY, TimeInForce.IOC));
+        portfolio.placeOrder(new Order("AAPL", AssetType.SHARE, 90.0, 3, OrderType.SELL, TimeInForce.IOC));
+
+        assertAll("Immediate",
+            () -> assertEquals(0, portfolio.getOpenOrderCount()),
+            () -> assertEquals(cash, portfolio.getCash(), 0.001, "Unfilled IOC/FOK reservations are released"),
+            () -> assertEquals(10, portfolio.getAssetQuantity(new Share("AAPL", 100.0))),
+            () -> assertEquals(0.0, portfolio.sellAsset("AAPL", 10, 100.0), 0.001)
+        );
+    }
+
+    @Test
+    @DisplayName("DAY orders should expire when time advances, GTC orders should stay")
+    void testDayOrdersExpire() {
+        Portfolio portfolio = new Portfolio(10000.0);
+        double cash = portfolio.getCash();
+        long day = portfolio.placeOrder(new Order("AAPL", AssetType.SHARE, 50.0, 10, OrderType.BUY, TimeInForce.DAY));
+        long gtc = portfolio.placeOrder(buy(40.0, 10));
+
+        portfolio.advanceTime(1);
+
+        assertAll("Expiry",
+            () -> assertFalse(portfolio.isOrderOpen(day)),
+            () -> assertTrue(portfolio.isOrderOpen(gtc)),
+            () -> assertEquals(cash - 400.0, portfolio.getCash(), 0.001)
+        );
+    }
+
+    @Test
+    @DisplayName("Replacing an order should keep priority only when the quantity shrinks")
+    void testReplaceOrder() {
+        Portfolio portfolio = new Portfolio(10000.0);
+        double cash = portfolio.getCash();
+        long first = portfolio.placeOrder(buy(100.0, 10));
+        long second = portfolio.placeOrder(buy(100.0, 10));
+
+        assertEquals(first, portfolio.replaceOrder(first, 100.0, 4));
+        assertEquals(4, portfolio.getOrderBook("AAPL").getRestingOrder(first).getRemainingQuantity());
+        assertEquals(cash - 1400.0, portfolio.getCash(), 0.001);
+
+        long moved = portfolio.replaceOrder(second, 101.0, 10);
+        assertThrows(IllegalArgumentException.class, () -> portfolio.replaceOrder(moved, 1000.0, 100),
+            "Replacement must fit in available cash");
+        assertThrows(IllegalArgumentException.class, () -> portfolio.replaceOrder(second, 100.0, 1));
+
+        assertAll("Replaced",
+            () -> assertTrue(moved > second),
+            () -> assertEquals(101.0, portfolio.peekBestBuyOrder("AAPL").getPriceLimit()),
+            () -> assertEquals(14, portfolio.getOrderBook("AAPL").getQuantityAtPrice(OrderType.BUY, 100.0)
+                + portfolio.getOrderBook("AAPL").getQuantityAtPrice(OrderType.BUY, 101.0)),
+            () -> assertEquals(cash - 400.0 - 1010.0, portfolio.getCash(), 0.001)
+        );
+    }
+
+    // --- Koszyki zleceń ---
+
+    @Test
+    @DisplayName("All-or-nothing basket should leave the portfolio untouched when anything is short")
+    void testBasketAllOrNothing() {
+        Portfolio portfolio = new Portfolio(1000.0);
+        portfolio.addAsset(new Share("AAPL", 50.0), 10);
+        double cash = portfolio.getCash();
+        List<Order> basket = List.of(sell(60.0, 6), buy(40.0, 10), sell(61.0, 5));
+
+        assertThrows(IllegalArgumentException.class,
+            () -> portfolio.placeOrders(basket, Portfolio.BatchMode.ALL_OR_NOTHING));
+
+        assertAll("Untouched",
+            () -> assertEquals(0, portfolio.getOpenOrderCount()),
+            () -> assertEquals(cash, portfolio.getCash(), 0.001),
+            () -> assertEquals(0.0, portfolio.sellAsset("AAPL", 10, 50.0), 0.001, "No quantity left reserved")
+        );
+    }
+
+    @Test
+    @DisplayName("Best-effort basket should skip uncovered orders and match the rest in basket order")
+    void testBasketBestEffort() {
+        Portfolio portfolio = new Portfolio(1000.0);
+        portfolio.addAsset(new Share("AAPL", 50.0), 10);
+        double cash = portfolio.getCash();
+        List<Order> basket = List.of(sell(60.0, 6), buy(40.0, 30), sell(61.0, 5), buy(60.0, 2));
+
+        long[] ids = portfolio.placeOrders(basket, Portfolio.BatchMode.BEST_EFFORT);
+
+        assertAll("Basket",
+            () -> assertTrue(ids[0] > 0),
+            () -> assertEquals(0L, ids[1], "BUY over available cash is skipped"),
+            () -> assertEquals(0L, ids[2], "SELL over available quantity is skipped"),
+            () -> assertEquals(ids[0] + 1, ids[3]),
+            () -> assertEquals(1, portfolio.getOpenOrderCount()),
+            () -> assertEquals(4, portfolio.getOrderBook("AAPL").getQuantityAtPrice(OrderType.SELL, 60.0)),
+            () -> assertEquals(cash, portfolio.getCash(), 0.001, "Self-trade at 60 nets to zero cash")
+        );
+    }
+}
@@ -0,0 +1,142 @@
+package com.stockmarket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioCommand;
+import com.stockmarket.logic.PortfolioEngine;
+
+class PortfolioEngineTest {
+
+    @Test
+    @DisplayName("Commands from many producers should all be applied by the single writer")
+    void testManyProducers() throws Exception {
+        int producers = 4;
+        int iterations = 5_000;
+        Portfolio portfolio = new Portfolio(1_000_000.0);
+        // Mały bufor, żeby producenci często trafiali na pełną kolejkę
+        PortfolioEngine engine = new PortfolioEngine(portfolio, 64);
+        engine.start();
+
+        CountDownLatch done = new CountDownLatch(producers * iterations * 2);
+        AtomicInteger failures = new AtomicInteger();
+        PortfolioCommand.CompletionCallback callback = command -> {
+            if (!command.isSuccess()) failures.incrementAndGet();
+            done.countDown();
+        };
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String symbol = "P" + p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < iterations; i++) {
+                    engine.addAsset(new Share(symbol, 100.0), 10, i, callback);   // -1000
+                    engine.sellAsset(symbol, 10, 102.0, null, i, callback);       // +1020
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        engine.close();
+
+        assertAll("Engine state",
+            () -> assertEquals(0, failures.get()),
+            () -> assertEquals(producers * iterations * 2L, engine.getProcessedCount()),
+            () -> assertEquals(1_000_000.0 + producers * iterations * 20.0, portfolio.getCash(), 0.0),
+            () -> assertEquals(0, portfolio.getHoldingsCount())
+        );
+    }
+
+    @Test
+    @DisplayName("Completion callbacks should carry results and errors")
+    void testResultsAndErrors() throws Exception {
+        Portfolio portfolio = new Portfolio(10_000.0);
+        PortfolioEngine engine = new PortfolioEngine(portfolio, 16);
+        engine.start();
+
+        AtomicLong orderId = new AtomicLong();
+        AtomicReference<RuntimeException> error = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(2);
+
+        engine.placeOrder(new Order("AAPL", AssetType.SHARE, 100.0, 5, OrderType.BUY), 1, command -> {
+            orderId.set(command.getResultId());
+            done.countDown();
+        });
+        engine.sellAsset("NONE", 1, 10.0, null, 2, command -> {
+            error.set(command.getError());
+            done.countDown();
+        });
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        engine.close();
+
+        assertAll("Results",
+            () -> assertEquals(1L, orderId.get()),
+            () -> assertTrue(error.get() instanceof IllegalArgumentException),
+            () -> assertEquals(1, portfolio.getOpenOrderCount()),
+            () -> assertThrows(IllegalStateException.class, () -> engine.advanceTime(1, 3, null))
+        );
+    }
+
+    @Test
+    @DisplayName("A producer waiting on a full buffer should be rejected through its callback when the engine closes")
+    void testCloseRejectsWaitingProducer() throws Exception {
+        Portfolio portfolio = new Portfolio(10_000.0);
+        PortfolioEngine engine = new PortfolioEngine(portfolio, 2);
+        engine.start();
+
+        // Pierwsza komenda blokuje wątek silnika w callbacku, druga zapełnia bufor
+        CountDownLatch gate = new CountDownLatch(1);
+        CountDownLatch queued = new CountDownLatch(1);
+        engine.advanceTime(1, 1, command -> {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        engine.advanceTime(1, 2, command -> queued.countDown());
+
+        AtomicReference<RuntimeException> rejection = new AtomicReference<>();
+        CountDownLatch rejected = new CountDownLatch(1);
+        Thread producer = new Thread(() -> engine.advanceTime(1, 3, command -> {
+            rejection.set(command.getError());
+            rejected.countDown();
+        }));
+        producer.start();
+        Thread.sleep(100);
+
+        Thread closer = new Thread(engine::close);
+        closer.start();
+        boolean rejectedInTime = rejected.await(10, TimeUnit.SECONDS);
+        gate.countDown();
+        closer.join();
+        producer.join();
+
+        assertAll("Close",
+            () -> assertTrue(rejectedInTime),
+            () -> assertTrue(rejection.get() instanceof IllegalStateException),
+            () -> assertTrue(queued.await(0, TimeUnit.SECONDS)),
+            () -> assertEquals(2, engine.getProcessedCount()),
+            () -> assertEquals(2, portfolio.getCurrentDay())
+        );
+    }
+}
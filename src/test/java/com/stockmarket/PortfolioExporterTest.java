@@ -0,0 +1,120 @@
+package com.stockmarket;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Money;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioExporter;
+
+class PortfolioExporterTest {
+
+    private Portfolio portfolio;
+
+    @BeforeEach
+    void setUp() {
+        portfolio = new Portfolio(10000.0);
+        portfolio.addAsset(new Share("AAPL", 150.25), 10);
+        portfolio.advanceTime(2);
+        portfolio.addAsset(new Share("AAPL", 160.0), 5);
+        portfolio.addAsset(new Commodity("GO\"LD", 1800.0), 2);
+        portfolio.placeOrder(new Order("AAPL", AssetType.SHARE, 200.0, 3, OrderType.SELL));
+    }
+
+    private byte[] export(boolean lots, PortfolioExporter.Format format) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PortfolioExporter exporter = new PortfolioExporter(out);
+        if (lots) {
+            exporter.exportLots(portfolio, format);
+        } else {
+            exporter.exportHoldings(portfolio, format);
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    @DisplayName("CSV export should write one row per lot with exact prices and quoted symbols")
+    void testLotsCsv() {
+        String[] lines = new String(export(true, PortfolioExporter.Format.CSV), StandardCharsets.UTF_8).split("\n");
+
+        assertAll("CSV",
+            () -> assertEquals(4, lines.length),
+            () -> assertEquals("SYMBOL,TYPE,LOT_ID,PURCHASE_DAY,UNIT_PRICE,QUANTITY", lines[0]),
+            () -> assertEquals("AAPL,SHARE,1,0,150.25,10", lines[1]),
+            () -> assertEquals("AAPL,SHARE,2,2,160.00,5", lines[2]),
+            () -> assertEquals("\"GO\"\"LD\",COMMODITY,3,2,1800.00,2", lines[3])
+        );
+    }
+
+    @Test
+    @DisplayName("JSON lines export should write one object per holding")
+    void testHoldingsJsonLines() {
+        String[] lines = new String(export(false, PortfolioExporter.Format.JSON_LINES), StandardCharsets.UTF_8).split("\n");
+
+        assertAll("JSON lines",
+            () -> assertEquals(2, lines.length),
+            () -> assertTrue(lines[0].startsWith("{\"symbol\":\"AAPL\",\"type\":\"SHARE\",\"quantity\":15,\"reserved\":3,"
+                + "\"marketPrice\":160.00,\"costBasis\":2302.50,\"value\":"), lines[0]),
+            () -> assertTrue(lines[1].startsWith("{\"symbol\":\"GO\\\"LD\",\"type\":\"COMMODITY\""), lines[1])
+        );
+    }
+
+    @Test
+    @DisplayName("Columnar export should store lot columns in Money units")
+    void testLotsColumnar() throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(export(true, PortfolioExporter.Format.COLUMNAR)));
+
+        assertEquals(0x534D5058, in.readInt());
+        assertEquals(1, in.readShort());
+        assertEquals(2, in.readByte());
+        in.readByte();
+        assertEquals(2, in.readInt());
+        assertEquals(portfolio.getCashUnits(), in.readLong());
+
+        assertEquals(2, in.readInt());
+        assertEquals(AssetType.SHARE.ordinal(), in.readByte());
+        byte[] symbol = new byte[in.readUnsignedShort()];
+        in.readFully(symbol);
+        long[] ids = {in.readLong(), in.readLong()};
+        long[] days = {in.readLong(), in.readLong()};
+        long[] prices = {in.readLong(), in.readLong()};
+        int[] quantities = {in.readInt(), in.readInt()};
+
+        assertAll("Columns",
+            () -> assertEquals("AAPL", new String(symbol, StandardCharsets.UTF_8)),
+            () -> assertArrayEquals(new long[] {1, 2}, ids),
+            () -> assertArrayEquals(new long[] {0, 2}, days),
+            () -> assertArrayEquals(new long[] {Money.of(150.25), Money.of(160.0)}, prices),
+            () -> assertArrayEquals(new int[] {10, 5}, quantities)
+        );
+    }
+
+    @Test
+    @DisplayName("Exporter should reject missing arguments")
+    void testInvalidArguments() {
+        PortfolioExporter exporter = new PortfolioExporter(new ByteArrayOutputStream());
+        assertAll("Arguments",
+            () -> assertThrows(IllegalArgumentException.class, () -> new PortfolioExporter((OutputStream) null)),
+            () -> assertThrows(IllegalArgumentException.class, () -> exporter.exportLots(null, PortfolioExporter.Format.CSV)),
+            () -> assertThrows(IllegalArgumentException.class, () -> exporter.exportHoldings(portfolio, null))
+        );
+    }
+}
@@ -4,16 +4,26 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
 import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.CostBasisMethod;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.Money;
+import com.stockmarket.domain.PurchaseLot;
 import com.stockmarket.domain.Share;
 import com.stockmarket.logic.DataIntegrityException;
 import com.stockmarket.logic.Portfolio;
@@ -108,4 +118,206 @@ class PortfolioFileManagerTest {
             fileManager.loadPortfolio("ghost_file.txt");
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Should save and load binary snapshot with lot details preserved")
+    void testBinarySnapshotRoundTrip() {
+        Portfolio original = new Portfolio(100000.0);
+        original.addAsset(new Share("AAPL", 150.0), 10);
+        original.advanceTime(3);
+        original.addAsset(new Share("AAPL", 155.5), 4);
+        original.addAsset(new Commodity("GOLD", 1800.0), 2);
+        original.addAsset(new Currency("EUR", 4.3), 100);
+        original.sellAsset("AAPL", 3, 160.0);
+
+        fileManager.savePortfolioBinary(original, TEST_FILENAME);
+        Portfolio loaded = fileManager.loadPortfolio(TEST_FILENAME);
+        List<PurchaseLot> lots = loaded.getLots("AAPL");
+
+        assertAll("Binary Reconstruction",
+            () -> assertEquals(original.getCash(), loaded.getCash(), "Cash should be exact in binary format"),
+            () -> assertEquals(3, loaded.getCurrentDay()),
+            () -> assertEquals(3, loaded.getHoldingsCount()),
+            () -> assertEquals(2, lots.size()),
+            () -> assertEquals(7, lots.get(0).getQuantity()),
+            () -> assertEquals(0, lots.get(0).getPurchaseDate()),
+            () -> assertEquals(155.5, lots.get(1).getUnitPrice()),
+            () -> assertEquals(3, lots.get(1).getPurchaseDate()),
+            () -> assertEquals(original.calculateTotalValue(), loaded.calculateTotalValue(), 0.0001)
+        );
+    }
+
+    @Test
+    @DisplayName("Should throw exception for truncated binary snapshot")
+    void testLoadTruncatedBinarySnapshot() throws IOException {
+        Portfolio original = new Portfolio(1000.0);
+        original.addAsset(new Share("AAPL", 10.0), 10);
+        fileManager.savePortfolioBinary(original, TEST_FILENAME);
+
+        Path path = Paths.get(TEST_FILENAME);
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 6));
+
+        assertThrows(DataIntegrityException.class, () -> fileManager.loadPortfolio(TEST_FILENAME));
+    }
+
+    @Test
+    @DisplayName("Should report line and column of a malformed field")
+    void testLoadErrorReportsLineAndColumn() throws IOException {
+        try (PrintWriter out = new PrintWriter(new FileWriter(TEST_FILENAME))) {
+            out.println("HEADER|10000.00|0");
+            out.println("LOT|SHARE|AAPL|150.00|10|0");
+            out.println("LOT|SHARE|AAPL|150.00|1x|0");
+        }
+
+        DataIntegrityException e = assertThrows(DataIntegrityException.class,
+            () -> fileManager.loadPortfolio(TEST_FILENAME));
+        assertTrue(e.getMessage().contains("line 3, column 23"), e.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should load CRLF files with blank lines and many symbols")
+    void testLoadCrlfAndManySymbols() throws IOException {
+        StringBuilder content = new StringBuilder("HEADER|500.25|7\r\n\r\n");
+        for (int i = 0; i < 300; i++) {
+            content.append("LOT|COMMODITY|SYM").append(i % 100).append("|1.5|").append(i + 1).append("|3\r\n");
+        }
+        Files.write(Paths.get(TEST_FILENAME), content.toString().getBytes());
+
+        Portfolio loaded = fileManager.loadPortfolio(TEST_FILENAME);
+
+        assertAll("CRLF Load",
+            () -> assertEquals(500.25, loaded.getCash(), 0.0001),
+            () -> assertEquals(7, loaded.getCurrentDay()),
+            () -> assertEquals(100, loaded.getHoldingsCount()),
+            () -> assertEquals(3, loaded.getLots("SYM42").size()),
+            () -> assertEquals(43 + 143 + 243, loaded.getAssetQuantity(new Commodity("SYM42", 1.0)))
+        );
+    }
+
+    @Test
+    @DisplayName("Streaming save should produce the same lines as the formatted holdings data")
+    void testStreamingSaveMatchesHoldingsData() throws IOException {
+        Portfolio original = new Portfolio(123456.789);
+        original.addAsset(new Share("AAPL", 150.256), 10);
+        original.advanceTime(12);
+        original.addAsset(new Commodity("GOLD", 1800.5), 2);
+        original.addAsset(new Currency("EUR", 0.07), 1000);
+
+        fileManager.savePortfolio(original, TEST_FILENAME);
+        List<String> lines = Files.readAllLines(Paths.get(TEST_FILENAME));
+
+        String[] expectedLots = original.getHoldingsData();
+        assertEquals("HEADER|" + Money.format(original.getCashUnits()) + "|12", lines.get(0));
+        assertEquals(expectedLots.length + 1, lines.size());
+        for (int i = 0; i < expectedLots.length; i++) {
+            assertEquals("LOT|" + expectedLots[i], lines.get(i + 1));
+        }
+    }
+
+    @Test
+    @DisplayName("Repeated text and binary round-trips should keep cash and lot prices exact")
+    void testRoundTripsDoNotDrift() {
+        Portfolio portfolio = new Portfolio(1000.0);
+        portfolio.addAsset(new Currency("EUR", 0.123456), 3);   // cash z 8 cyframi po kropce
+        portfolio.addAsset(new Share("PENNY", 0.0137), 7000);
+        long cash = portfolio.getCashUnits();
+
+        for (int i = 0; i < 5; i++) {
+            fileManager.savePortfolio(portfolio, TEST_FILENAME);
+            portfolio = fileManager.loadPortfolio(TEST_FILENAME);
+            fileManager.savePortfolioBinary(portfolio, TEST_FILENAME);
+            portfolio = fileManager.loadPortfolio(TEST_FILENAME);
+        }
+
+        Portfolio loaded = portfolio;
+        assertAll("Exact state",
+            () -> assertEquals(cash, loaded.getCashUnits()),
+            () -> assertEquals(Money.parse("0.123456"), loaded.getLots("EUR").get(0).getUnitPriceUnits()),
+            () -> assertEquals(Money.parse("0.0137"), loaded.getLots("PENNY").get(0).getUnitPriceUnits())
+        );
+    }
+
+    @Test
+    @DisplayName("Text save should write large lot prices with all eight decimals")
+    void testTextSaveKeepsLargePriceUnits() throws IOException {
+        // 4.9e18 jednostek - więcej niż double zapisuje dokładnie
+        try (PrintWriter out = new PrintWriter(new FileWriter(TEST_FILENAME))) {
+            out.println("HEADER|100.00|3");
+            out.println("LOT|COMMODITY|GOLD|49012345678.12345679|1|2");
+        }
+        fileManager.savePortfolio(fileManager.loadPortfolio(TEST_FILENAME), TEST_FILENAME);
+
+        assertEquals("LOT|COMMODITY|GOLD|49012345678.12345679|1|2", Files.readAllLines(Paths.get(TEST_FILENAME)).get(1));
+    }
+
+    @Test
+    @DisplayName("Lazy load should page lots on demand within the resident limit and match an eager load")
+    void testLazyLoadPagesLots() {
+        Portfolio original = new Portfolio(1e9);
+        for (int i = 0; i < 3000; i++) {
+            if (i % 100 == 0) original.advanceTime(1);
+            original.addAsset(new Share("AAPL", 100.0 + i % 7), 1 + i % 3);
+            if (i < 1500) original.addAsset(new Share("MSFT", 50.0 + i % 5), 2);
+            if (i < 200) original.addAsset(new Commodity("GOLD", 1800.0 + i), 1);
+        }
+        fileManager.savePortfolioBinary(original, TEST_FILENAME);
+
+        Portfolio eager = fileManager.loadPortfolio(TEST_FILENAME);
+        Portfolio lazy = fileManager.loadPortfolioLazy(TEST_FILENAME, 2000);
+        long residentAfterLoad = lazy.getResidentLotCount();
+        double lazyValue = lazy.calculateTotalValue();
+
+        // FIFO bierze tylko pierwszą stronę lotów; pełny odczyt MSFT wypycha AAPL z pamięci
+        double firstSale = lazy.sellAsset("AAPL", 5, 120.0);
+        long residentAfterSale = lazy.getResidentLotCount();
+        List<PurchaseLot> msftLots = lazy.getLots("MSFT");
+        long residentAfterScan = lazy.getResidentLotCount();
+        // Ponowne wczytanie AAPL zaczyna od częściowo sprzedanego lotu
+        double secondSale = lazy.sellAsset("AAPL", 2500, 120.0);
+        double hifoSale = lazy.sellAsset("GOLD", 10, 2000.0, CostBasisMethod.HIFO);
+
+        double eagerFirstSale = eager.sellAsset("AAPL", 5, 120.0);
+        double eagerSecondSale = eager.sellAsset("AAPL", 2500, 120.0);
+        double eagerHifoSale = eager.sellAsset("GOLD", 10, 2000.0, CostBasisMethod.HIFO);
+
+        // Zapis w miejsce pliku, z którego czyta portfel leniwy
+        fileManager.savePortfolioBinary(lazy, TEST_FILENAME);
+        Portfolio reloaded = fileManager.loadPortfolio(TEST_FILENAME);
+
+        assertAll("Lazy portfolio",
+            () -> assertEquals(0, residentAfterLoad),
+            () -> assertEquals(original.calculateTotalValue(), lazyValue, 1e-6),
+            () -> assertTrue(residentAfterSale > 0 && residentAfterSale <= 1024, "Only the head page should be loaded"),
+            () -> assertEquals(1500, msftLots.size()),
+            () -> assertEquals(1500, residentAfterScan, "Least recently used holding should be evicted"),
+            () -> assertEquals(eagerFirstSale, firstSale),
+            () -> assertEquals(eagerSecondSale, secondSale),
+            () -> assertEquals(eagerHifoSale, hifoSale),
+            () -> assertEquals(eager.calculateTotalValue(), lazy.calculateTotalValue(), 1e-6),
+            () -> assertEquals(Arrays.asList(eager.getHoldingsData()), Arrays.asList(reloaded.getHoldingsData()))
+        );
+    }
+
+    @Test
+    @DisplayName("Text save over the lazily loaded source file should keep all lots")
+    void testLazyLoadThenTextSaveToSameFile() {
+        Portfolio original = new Portfolio(1e6);
+        for (int i = 0; i < 500; i++) {
+            original.addAsset(new Share("AAPL", 100.0 + i % 9), 1 + i % 4);
+            if (i < 50) original.addAsset(new Commodity("GOLD", 1800.0 + i), 1);
+        }
+        fileManager.savePortfolioBinary(original, TEST_FILENAME);
+
+        Portfolio lazy = fileManager.loadPortfolioLazy(TEST_FILENAME, 100);
+        fileManager.savePortfolio(lazy, TEST_FILENAME);
+        Portfolio reloaded = fileManager.loadPortfolio(TEST_FILENAME);
+
+        assertAll("Text save",
+            () -> assertEquals(550, lazy.getResidentLotCount(), "Lots should be detached from the file"),
+            () -> assertEquals(500, reloaded.getLots("AAPL").size()),
+            () -> assertEquals(Arrays.asList(original.getHoldingsData()), Arrays.asList(reloaded.getHoldingsData())),
+            () -> assertEquals(original.getCostBasis("GOLD"), reloaded.getCostBasis("GOLD"), 1e-6)
+        );
+    }
+}
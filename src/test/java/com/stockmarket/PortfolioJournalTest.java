@@ -0,0 +1,261 @@
+package com.stockmarket;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.CostBasisMethod;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.PurchaseLot;
+import com.stockmarket.domain.Share;
+import com.stockmarket.domain.TimeInForce;
+import com.stockmarket.logic.DurablePortfolioStore;
+import com.stockmarket.logic.Portfolio;
+
+class PortfolioJournalTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("portfolio-store");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    // Ten sam ciąg zmian dla portfela w pamięci i portfela trwałego
+    private static void applyMutations(Portfolio portfolio) {
+        portfolio.addAsset(new Share("AAPL", 150.0), 10);
+        portfolio.advanceTime(3);
+        portfolio.addAsset(new Commodity("GOLD", 1800.0), 4);
+        portfolio.addAsset(new Share("AAPL", 170.0), 5);
+        portfolio.setCostBasisMethod(CostBasisMethod.HIFO);
+        portfolio.sellAsset("AAPL", 3, 180.0);
+        portfolio.sellLot("AAPL", 1, 2, 175.0);
+        portfolio.placeOrder(new Order("AAPL", AssetType.SHARE, 190.0, 4, OrderType.SELL));
+        long buy = portfolio.placeOrder(new Order("MSFT", AssetType.SHARE, 300.0, 2, OrderType.BUY));
+        portfolio.placeOrder(new Order("AAPL", AssetType.SHARE, 195.0, 3, OrderType.BUY)); // dopasowanie
+        portfolio.cancelOrder(buy);
+        portfolio.placeOrder(new Order("GOLD", AssetType.COMMODITY, 1900.0, 1, OrderType.SELL));
+        portfolio.advanceTime(2);
+    }
+
+    private static void assertSameState(Portfolio expected, Portfolio actual) {
+        assertAll("Recovered state",
+            () -> assertEquals(expected.getCash(), actual.getCash(), 1e-9),
+            () -> assertEquals(expected.getCurrentDay(), actual.getCurrentDay()),
+            () -> assertEquals(expected.getCostBasisMethod(), actual.getCostBasisMethod()),
+            () -> assertEquals(expected.getOpenOrderCount(), actual.getOpenOrderCount()),
+            () -> assertArrayEquals(sorted(expected.getHoldingsData()), sorted(actual.getHoldingsData())),
+            () -> assertEquals(expected.calculateTotalValue(), actual.calculateTotalValue(), 1e-9)
+        );
+    }
+
+    private static List<Long> lotIds(Portfolio portfolio, String symbol) {
+        List<Long> ids = new ArrayList<>();
+        for (PurchaseLot lot : portfolio.getLots(symbol)) {
+            ids.add(lot.getLotId());
+        }
+        return ids;
+    }
+
+    private static String[] sorted(String[] lines) {
+        String[] copy = lines.clone();
+        Arrays.sort(copy);
+        return copy;
+    }
+
+    @Test
+    @DisplayName("Should recover snapshot plus journal after an unclean shutdown")
+    void testRecoveryWithoutClose() throws IOException {
+        Portfolio expected = new Portfolio(100000.0);
+        applyMutations(expected);
+
+        DurablePortfolioStore store = DurablePortfolioStore.open(directory, 100000.0, 4, 1000);
+        applyMutations(store.getPortfolio());
+        store.sync(); // bez close - symulacja awarii po zatwierdzeniu
+
+        try (DurablePortfolioStore recovered = DurablePortfolioStore.open(directory, 0.0)) {
+            Portfolio portfolio = recovered.getPortfolio();
+            assertSameState(expected, portfolio);
+            assertEquals(lotIds(expected, "AAPL"), lotIds(portfolio, "AAPL"));
+
+            // Kolejne zlecenie dostaje to samo id co w portfelu referencyjnym
+            Order next = new Order("AAPL", AssetType.SHARE, 500.0, 1, OrderType.SELL);
+            assertEquals(expected.placeOrder(next), portfolio.placeOrder(next));
+        }
+    }
+
+    @Test
+    @DisplayName("Should ignore a torn record at the end of the journal")
+    void testTornTail() throws IOException {
+        Portfolio expected = new Portfolio(50000.0);
+        applyMutations(expected);
+
+        try (DurablePortfolioStore store = DurablePortfolioStore.open(directory, 50000.0)) {
+            applyMutations(store.getPortfolio());
+        }
+
+        // Niedokończony rekord: długość i crc bez danych
+        Path journal = directory.resolve("journal-0.log");
+        Files.write(journal, new byte[] {0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND);
+
+        try (DurablePortfolioStore recovered = DurablePortfolioStore.open(directory, 0.0)) {
+            assertSameState(expected, recovered.getPortfolio());
+            recovered.getPortfolio().advanceTime(1);
+        }
+        // Ogon został obcięty, więc nowe rekordy po nim są czytelne
+        try (DurablePortfolioStore reopened = DurablePortfolioStore.open(directory, 0.0)) {
+            assertEquals(expected.getCurrentDay() + 1, reopened.getPortfolio().getCurrentDay());
+        }
+    }
+
+    @Test
+    @DisplayName("Should checkpoint periodically and keep only the latest generation")
+    void testCheckpoint() throws IOException {
+        Portfolio expected = new Portfolio(100000.0);
+        DurablePortfolioStore store = DurablePortfolioStore.open(directory, 100000.0, 1, 5);
+        for (int i = 0; i < 7; i++) {
+            expected.addAsset(new Share("S" + i, 10.0 + i), 3);
+            store.getPortfolio().addAsset(new Share("S" + i, 10.0 + i), 3);
+        }
+        store.close();
+
+        assertAll("Generations",
+            () -> assertEquals(1, store.getGeneration()),
+            () -> assertTrue(Files.exists(directory.resolve("snapshot-1.bin"))),
+            () -> assertFalse(Files.exists(directory.resolve("snapshot-0.bin"))),
+            () -> assertFalse(Files.exists(directory.resolve("journal-0.log")))
+        );
+
+        try (DurablePortfolioStore recovered = DurablePortfolioStore.open(directory, 0.0)) {
+            assertSameState(expected, recovered.getPortfolio());
+        }
+    }
+
+    @Test
+    @DisplayName("Should restore open orders and lot ids from a checkpoint snapshot")
+    void testCheckpointWithOpenOrders() throws IOException {
+        Portfolio expected = new Portfolio(100000.0);
+        applyMutations(expected);
+
+        try (DurablePortfolioStore store = DurablePortfolioStore.open(directory, 100000.0)) {
+            applyMutations(store.getPortfolio());
+            store.checkpoint();
+        }
+
+        try (DurablePortfolioStore recovered = DurablePortfolioStore.open(directory, 0.0)) {
+            Portfolio portfolio = recovered.getPortfolio();
+            assertSameState(expected, portfolio);
+            assertEquals(lotIds(expected, "AAPL"), lotIds(portfolio, "AAPL"));
+
+            // Zlecenie kupna dopasowane do odtworzonego zlecenia sprzedaży
+            Order buy = new Order("GOLD", AssetType.COMMODITY, 1950.0, 1, OrderType.BUY);
+            expected.placeOrder(buy);
+            portfolio.placeOrder(buy);
+            assertSameState(expected, portfolio);
+        }
+    }
+
+    @Test
+    @DisplayName("Should replay symbol references across several sessions of one journal")
+    void testSymbolDictionaryAcrossReopen() throws IOException {
+        Portfolio expected = new Portfolio(50000.0);
+        applyMutations(expected);
+        applyMutations(expected);
+
+        // Każda sesja dopisuje do tego samego dziennika i nadaje numery symboli od nowa
+        try (DurablePortfolioStore store = DurablePortfolioStore.open(directory, 50000.0)) {
+            applyMutations(store.getPortfolio());
+        }
+        try (DurablePortfolioStore store = DurablePortfolioStore.open(directory, 0.0)) {
+            applyMutations(store.getPortfolio());
+        }
+
+        try (DurablePortfolioStore recovered = DurablePortfolioStore.open(directory, 0.0)) {
+            assertAll("Dictionary",
+                () -> assertFalse(Files.exists(directory.resolve("snapshot-1.bin"))),
+                () -> assertEquals(lotIds(expected, "AAPL"), lotIds(recovered.getPortfolio(), "AAPL"))
+            );
+            assertSameState(expected, recovered.getPortfolio());
+        }
+    }
+
+    @Test
+    @DisplayName("Should replay time in force, expiry and replaced orders")
+    void testReplayOrderLifecycle() throws IOException {
+        Portfolio expected = new Portfolio(20000.0);
+        try (DurablePortfolioStore store = DurablePortfolioStore.open(directory, 20000.0)) {
+            for (Portfolio portfolio : List.of(expected, store.getPortfolio())) {
+                portfolio.addAsset(new Share("AAPL", 150.0), 10);
+                portfolio.placeOrder(new Order("AAPL", AssetType.SHARE, 140.0, 5, OrderType.BUY, TimeInForce.DAY));
+                long sell = portfolio.placeOrder(new Order("AAPL", AssetType.SHARE, 160.0, 6, OrderType.SELL));
+                portfolio.replaceOrder(sell, 155.0, 4);
+                portfolio.placeOrder(new Order("AAPL", AssetType.SHARE, 156.0, 6, OrderType.BUY, TimeInForce.IOC));
+                portfolio.advanceTime(1);
+                portfolio.placeOrder(new Order("AAPL", AssetType.SHARE, 130.0, 2, OrderType.BUY, TimeInForce.DAY));
+            }
+            store.checkpoint();
+            store.getPortfolio().advanceTime(1);
+        }
+        expected.advanceTime(1);
+
+        try (DurablePortfolioStore recovered = DurablePortfolioStore.open(directory, 0.0)) {
+            assertEquals(0, expected.getOpenOrderCount());
+            assertSameState(expected, recovered.getPortfolio());
+        }
+    }
+
+    @Test
+    @DisplayName("Should recover cash when a checkpoint falls inside an order basket")
+    void testCheckpointInsideBasket() throws IOException {
+        List<Order> basket = List.of(
+            new Order("AAPL", AssetType.SHARE, 140.0, 5, OrderType.BUY),
+            new Order("MSFT", AssetType.SHARE, 300.0, 2, OrderType.BUY),
+            new Order("AAPL", AssetType.SHARE, 170.0, 4, OrderType.SELL),
+            new Order("GOOG", AssetType.SHARE, 100.0, 3, OrderType.BUY));
+        Portfolio expected = new Portfolio(20000.0);
+        // Dziennik: ADD_ASSET + 4 x PLACE_ORDER, checkpoint po trzecim rekordzie (w połowie koszyka)
+        try (DurablePortfolioStore store = DurablePortfolioStore.open(directory, 20000.0, 1, 3)) {
+            for (Portfolio portfolio : List.of(expected, store.getPortfolio())) {
+                portfolio.addAsset(new Share("AAPL", 150.0), 10);
+                portfolio.placeOrders(basket, Portfolio.BatchMode.ALL_OR_NOTHING);
+            }
+            assertEquals(1, store.getGeneration());
+        }
+
+        try (DurablePortfolioStore recovered = DurablePortfolioStore.open(directory, 0.0)) {
+            Portfolio portfolio = recovered.getPortfolio();
+            assertAll("Basket",
+                () -> assertEquals(expected.getCash(), portfolio.getCash(), 0.0),
+                () -> assertEquals(expected.getReservedCash(), portfolio.getReservedCash(), 0.0),
+                () -> assertEquals(4, portfolio.getOpenOrderCount())
+            );
+            assertSameState(expected, portfolio);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.stockmarket;
+
+import java.util.Arrays;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerFactory;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.stockmarket.domain.AssetType;
+import com.stockmarket.domain.Order;
+import com.stockmarket.domain.OrderType;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.JmxMetricsExporter;
+import com.stockmarket.logic.LatencyHistogram;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioMetrics;
+import com.stockmarket.logic.TextMetricsExporter;
+
+class PortfolioMetricsTest {
+
+    @Test
+    @DisplayName("Histogram percentiles should stay within the bucket precision")
+    void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 10_000; nanos++) {
+            histogram.record(nanos * 100);
+        }
+
+        assertAll("Percentiles",
+            () -> assertEquals(10_000, histogram.getCount()),
+            () -> assertEquals(1_000_000, histogram.getMaxNanos()),
+            () -> assertEquals(500_050.0, histogram.getMeanNanos(), 1e-6),
+            () -> assertEquals(500_000, histogram.getPercentileNanos(50), 500_000 * 0.0625),
+            () -> assertEquals(990_000, histogram.getPercentileNanos(99), 990_000 * 0.0625),
+            () -> assertEquals(1_000_000, histogram.getPercentileNanos(100))
+        );
+    }
+
+    @Test
+    @DisplayName("Portfolio should record operations and size gauges only when metrics are enabled")
+    void testPortfolioMetrics() {
+        Portfolio portfolio = new Portfolio(10000.0);
+        portfolio.addAsset(new Share("AAPL", 100.0), 5);
+        assertNull(portfolio.getMetrics());
+
+        PortfolioMetrics metrics = new PortfolioMetrics("account-1");
+        portfolio.setMetrics(metrics);
+        portfolio.addAsset(new Share("AAPL", 100.0), 5);
+        portfolio.sellAsset("AAPL", 2, 110.0);
+        long orderId = portfolio.placeOrder(new Order("AAPL", AssetType.SHARE, 90.0, 1, OrderType.BUY));
+        portfolio.cancelOrder(orderId);
+        portfolio.calculateTotalValue();
+
+        StringBuilder dump = new StringBuilder();
+        new TextMetricsExporter(dump).export(metrics);
+
+        assertAll("Metrics",
+            () -> assertEquals(1, metrics.getCount(PortfolioMetrics.Operation.ADD_ASSET)),
+            () -> assertEquals(1, metrics.getCount(PortfolioMetrics.Operation.SELL_ASSET)),
+            () -> assertEquals(1, metrics.getCount(PortfolioMetrics.Operation.PLACE_ORDER)),
+            () -> assertEquals(1, metrics.getCount(PortfolioMetrics.Operation.CANCEL_ORDER)),
+            () -> assertEquals(1, metrics.getCount(PortfolioMetrics.Operation.CALCULATE_TOTAL_VALUE)),
+            () -> assertEquals(2L, metrics.readGauges().get("lots")),
+            () -> assertEquals(1L, metrics.readGauges().get("holdings")),
+            () -> assertTrue(dump.toString().startsWith("METRICS account-1\n")),
+            () -> assertTrue(dump.toString().contains("PLACE_ORDER count=1 mean_us=")),
+            () -> assertFalse(dump.toString().contains("LOAD_PORTFOLIO")),
+            () -> assertTrue(dump.toString().contains("GAUGE maxLotsPerHolding=2\n"))
+        );
+    }
+
+    @Test
+    @DisplayName("Basket and replace orders should be recorded, and replaced metrics should lose the gauges")
+    void testBasketReplaceAndMetricsSwap() {
+        Portfolio portfolio = new Portfolio(10000.0);
+        portfolio.addAsset(new Share("AAPL", 100.0), 5);
+        PortfolioMetrics metrics = new PortfolioMetrics("account-1");
+        portfolio.setMetrics(metrics);
+
+        long[] ids = portfolio.placeOrders(Arrays.asList(
+                new Order("AAPL", AssetType.SHARE, 90.0, 2, OrderType.BUY),
+                new Order("AAPL", AssetType.SHARE, 120.0, 1, OrderType.SELL)), Portfolio.BatchMode.ALL_OR_NOTHING);
+        portfolio.replaceOrder(ids[0], 90.0, 1);
+        portfolio.replaceOrder(ids[1], 125.0, 1);
+
+        PortfolioMetrics next = new PortfolioMetrics("account-1b");
+        portfolio.setMetrics(next);
+
+        assertAll("Metrics",
+            () -> assertEquals(3, metrics.getCount(PortfolioMetrics.Operation.PLACE_ORDER)),
+            () -> assertEquals(2, metrics.getCount(PortfolioMetrics.Operation.CANCEL_ORDER)),
+            () -> assertTrue(metrics.readGauges().isEmpty()),
+            () -> assertEquals(2L, next.readGauges().get("openOrders"))
+        );
+    }
+
+    @Test
+    @DisplayName("JMX exporter should expose live counters and gauges")
+    void testJmxExporter() throws Exception {
+        MBeanServer server = MBeanServerFactory.newMBeanServer();
+        PortfolioMetrics metrics = new PortfolioMetrics("account \"2\"");
+        Portfolio portfolio = new Portfolio(1000.0);
+        portfolio.setMetrics(metrics);
+        ObjectName name = JmxMetricsExporter.objectName(metrics.getName());
+
+        try (JmxMetricsExporter exporter = new JmxMetricsExporter(server)) {
+            exporter.export(metrics);
+            portfolio.addAsset(new Share("AAPL", 10.0), 1);
+
+            assertAll("MBean",
+                () -> assertEquals(1L, server.getAttribute(name, "ADD_ASSET.Count")),
+                () -> assertEquals(1L, server.getAttribute(name, "Gauge.lots")),
+                () -> assertTrue((Long) server.getAttribute(name, "ADD_ASSET.MaxNanos") > 0)
+            );
+            server.invoke(name, "reset", null, null);
+            assertEquals(0L, server.getAttribute(name, "ADD_ASSET.Count"));
+        }
+        assertFalse(server.isRegistered(name));
+    }
+}
@@ -1,5 +1,8 @@
 package com.stockmarket;
 
+import java.util.List;
+import java.util.Locale;
+
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -18,6 +21,7 @@ import com.stockmarket.domain.Order;
 import com.stockmarket.domain.OrderType;
 import com.stockmarket.domain.Share;
 import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PortfolioReport;
 
 public class PortfolioTest {
 
@@ -85,6 +89,68 @@ public class PortfolioTest {
         );
     }
     
+    // --- Aggregate Valuation Tests ---
+    @Test
+    @DisplayName("Aggregated valuation should match lot-by-lot valuation for every asset type")
+    void testAggregatedValuationMatchesLots() {
+        Portfolio p = new Portfolio(1_000_000.0);
+        Commodity gold = new Commodity("GOLD", 100.0);
+        Share cheap = new Share("CHEAP", 10.0);
+        Currency eur = new Currency("EUR", 4.0);
+
+        // Zakupy codzienne (DCA) - różne wielkości lotów
+        for (int day = 0; day < 20; day++) {
+            p.addAsset(gold, 3);
+            p.addAsset(cheap, day % 2 == 0 ? 5 : 200);
+            p.addAsset(eur, 10);
+            p.advanceTime(1);
+        }
+        p.addAsset(gold, 7); // lot kupiony "dziś" - naliczany jako 1 dzień
+        p.sellAsset("CHEAP", 103, 12.0);
+        p.sellAsset("GOLD", 10, 110.0);
+
+        // GOLD: 1 lot po 2 szt. (dzień 3), 16 lotów po 3 szt. (dni 4..19), 7 szt. dziś (dzień 20)
+        double expectedGold = gold.calculateRealValue(2, 17) + gold.calculateRealValue(7, 0);
+        for (int day = 4; day < 20; day++) {
+            expectedGold += gold.calculateRealValue(3, 20 - day);
+        }
+        // CHEAP: sprzedany lot dnia 0 w całości i 98 szt. z lotu dnia 1
+        double expectedCheap = cheap.calculateRealValue(102, 0);
+        for (int day = 2; day < 20; day++) {
+            expectedCheap += cheap.calculateRealValue(day % 2 == 0 ? 5 : 200, 0);
+        }
+        double expectedEur = eur.calculateRealValue(200, 0);
+        double expectedTotal = expectedGold + expectedCheap + expectedEur;
+
+        assertAll("Aggregates",
+            () -> assertEquals(57, p.getAssetQuantity(gold)),
+            () -> assertEquals(expectedTotal, p.calculateHoldingsValue(), 0.0001),
+            () -> assertEquals(2 * 100.0 + 16 * 300.0 + 700.0, p.getCostBasis("GOLD"), 0.0001),
+            () -> assertEquals((2 * 3 + 3 * (4 + 19) * 16 / 2 + 7 * 20) / 57.0, p.getAveragePurchaseDay("GOLD"), 0.0001)
+        );
+    }
+
+    @Test
+    @DisplayName("Cached valuation should follow buys, sells, price changes and days")
+    void testCachedValuationTracksChanges() {
+        // "polled" jest wyceniany po każdej zmianie (ścieżka przyrostowa), "fresh" tylko raz na końcu
+        Portfolio polled = new Portfolio(1_000_000.0);
+        Portfolio fresh = new Portfolio(1_000_000.0);
+
+        for (int step = 0; step < 300; step++) {
+            for (Portfolio p : new Portfolio[] {polled, fresh}) {
+                p.addAsset(new Share("S" + step % 7, 10.0 + step % 5), 20 + step % 90);
+                p.addAsset(new Commodity("GOLD", 100.0 + step % 3), 2);
+                if (step % 4 == 3) p.sellAsset("S" + step % 7, 15, 11.0);
+                if (step % 50 == 49) p.sellAsset("GOLD", p.getAssetQuantity(new Commodity("GOLD", 1.0)), 90.0);
+                if (step % 10 == 0) p.advanceTime(1);
+            }
+            polled.calculateTotalValue();
+        }
+
+        assertEquals(fresh.calculateTotalValue(), polled.calculateTotalValue(), 1e-6);
+    }
+
     @Test
     @DisplayName("Should throw exception when selling quantity is negative")
     void testSellAssetNegativeValue() {
@@ -193,8 +259,126 @@ public class PortfolioTest {
         );
     }
 
+    @Test
+    @DisplayName("Report should pick top holdings per type and page through the same order")
+    void testReportTopNAndPages() {
+        Portfolio reportPortfolio = new Portfolio(100000.0);
+        for (int i = 1; i <= 20; i++) {
+            reportPortfolio.addAsset(new Share("S" + i, 10.0 * i), 10);
+        }
+        reportPortfolio.addAsset(new Currency("USD", 1.0), 1000);
+        reportPortfolio.addAsset(new Currency("EUR", 1.1), 1000);
+
+        PortfolioReport report = reportPortfolio.report();
+        List<PortfolioReport.Row> top = report.topN(AssetType.SHARE, 3);
+        List<PortfolioReport.Row> all = report.page(0, report.getRowCount());
+        List<PortfolioReport.Row> page = report.page(19, 2);
+
+        assertAll("Report Rows",
+            () -> assertEquals(22, report.getRowCount()),
+            () -> assertEquals(List.of("S20", "S19", "S18"), List.of(top.get(0).getSymbol(), top.get(1).getSymbol(), top.get(2).getSymbol())),
+            () -> assertEquals(AssetType.SHARE, all.get(0).getType()),
+            () -> assertEquals("S1", page.get(0).getSymbol(), "Last share row"),
+            () -> assertEquals("EUR", page.get(1).getSymbol(), "First currency row"),
+            () -> assertTrue(report.page(30, 5).isEmpty()),
+            () -> assertEquals(reportPortfolio.calculateTotalValue(), report.getTotalValue(), 1e-9)
+        );
+    }
+
+    @Test
+    @DisplayName("Streamed report should keep the fixed-width layout")
+    void testReportLayout() {
+        Portfolio reportPortfolio = new Portfolio(1000.0);
+        reportPortfolio.addAsset(new Currency("USD", 2.5), 4);
+
+        String[] lines = reportPortfolio.generateReport().split("\n");
+        StringBuilder page = new StringBuilder();
+        reportPortfolio.report().writeTo(page, 0, 0);
+
+        assertAll("Layout",
+            () -> assertEquals(String.format("%-10s | %-10s | %-10s | %s", "TYPE", "SYMBOL", "QUANTITY", "VALUE"), lines[2]),
+            () -> assertEquals(String.format(Locale.US, "%-10s | %-10s | %-10d | %.2f", "CURRENCY", "USD", 4,
+                reportPortfolio.calculateHoldingsValue()), lines[4]),
+            () -> assertEquals(String.format(Locale.US, "CASH: %.2f", reportPortfolio.getCash()), lines[6]),
+            () -> assertEquals(lines.length - 1, page.toString().split("\n").length, "Empty page keeps header and totals")
+        );
+    }
+
+    @Test
+    @DisplayName("Report should round half-cent values exactly like %.2f")
+    void testReportHalfCentRounding() {
+        Portfolio halfCents = new Portfolio(1.005);
+        String cashOnly = halfCents.generateReport();
+
+        Portfolio negative = new Portfolio(100.0);
+        negative.addAsset(new Share("NEG", 4.875), 1);     // wartość 4.875 - 5 = -0.125
+        negative.addAsset(new Share("TINY", 4.996), 1);    // wartość ok. -0.004
+        String report = negative.generateReport();
+
+        assertAll("Rounding",
+            () -> assertTrue(cashOnly.contains("CASH: 1.01\n"), cashOnly),
+            () -> assertTrue(report.contains(String.format(Locale.US, "| %.2f\n", -0.125)), report),
+            () -> assertTrue(report.contains("| -0.13\n"), report),
+            () -> assertTrue(report.contains("| -0.00\n"), report),
+            () -> assertTrue(report.contains(String.format(Locale.US, "CASH: %.2f\n", negative.getCash())), report)
+        );
+    }
+
     // --- Extra Coverage Tests (Pokrycie Czerwonych Linii) ---
 
+    @Test
+    @DisplayName("Order with a null or empty symbol should be rejected with IllegalArgumentException")
+    void testOrderWithoutSymbol() {
+        assertAll("Symbol validation",
+            () -> assertThrows(IllegalArgumentException.class,
+                () -> new Order(null, AssetType.SHARE, 100.0, 1, OrderType.BUY)),
+            () -> assertThrows(IllegalArgumentException.class,
+                () -> new Order(" ", AssetType.SHARE, 100.0, 1, OrderType.BUY))
+        );
+    }
+
+    @Test
+    @DisplayName("BUY order without an asset type should be rejected before anything is reserved")
+    void testBuyOrderWithoutAssetType() {
+        double cash = portfolio.getCash();
+        assertAll("Asset type validation",
+            () -> assertThrows(IllegalArgumentException.class,
+                () -> portfolio.placeOrder(new Order("AAPL", null, 100.0, 1, OrderType.BUY))),
+            () -> assertThrows(IllegalArgumentException.class,
+                () -> new Order("AAPL", AssetType.SHARE, 100.0, 1, null)),
+            () -> assertEquals(cash, portfolio.getCash()),
+            () -> assertEquals(0.0, portfolio.getReservedCash())
+        );
+    }
+
+    @Test
+    @DisplayName("Holdings index should stay consistent while many symbols are added and sold out")
+    void testHoldingsIndexChurn() {
+        Portfolio large = new Portfolio(1e7);
+        for (int i = 0; i < 3000; i++) {
+            large.addAsset(new Share("CH" + i, 10.0), 1 + i % 5);
+        }
+        for (int i = 0; i < 3000; i += 3) {
+            large.sellAsset("CH" + i, 1 + i % 5, 10.0);
+        }
+        for (int i = 0; i < 3000; i += 6) {
+            large.addAsset(new Share("CH" + i, 20.0), 2);
+        }
+
+        int expectedHoldings = 3000 - 1000 + 500;
+        int mismatches = 0;
+        for (int i = 0; i < 3000; i++) {
+            double expectedBasis = i % 6 == 0 ? 40.0 : i % 3 == 0 ? 0.0 : 10.0 * (1 + i % 5);
+            if (large.getCostBasis("CH" + i) != expectedBasis) mismatches++;
+        }
+        int wrong = mismatches;
+        assertAll("Index",
+            () -> assertEquals(expectedHoldings, large.getHoldingsCount()),
+            () -> assertEquals(0, wrong),
+            () -> assertEquals(0.0, large.getCostBasis("CH-missing"))
+        );
+    }
+
     @Test
     @DisplayName("Should throw exception when placing NULL order")
     void testPlaceNullOrder() {
@@ -0,0 +1,128 @@
+package com.stockmarket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import com.stockmarket.domain.Commodity;
+import com.stockmarket.domain.Currency;
+import com.stockmarket.domain.PurchaseLot;
+import com.stockmarket.domain.Share;
+import com.stockmarket.logic.Portfolio;
+import com.stockmarket.logic.PriceFeed;
+
+class PriceFeedTest {
+
+    private PriceFeed feed;
+    private Portfolio portfolio;
+
+    @BeforeEach
+    void setUp() {
+        feed = new PriceFeed();
+        portfolio = new Portfolio(1_000_000.0);
+        feed.subscribe(portfolio::markToMarket);
+    }
+
+    @Test
+    @DisplayName("Batched ticks should mark holdings to the last price without touching caller assets")
+    void testBatchMarksHoldings() {
+        Share apple = new Share("AAPL", 100.0);
+        Currency eur = new Currency("EUR", 4.0);
+        portfolio.addAsset(apple, 20);
+        portfolio.addAsset(eur, 1000);
+        portfolio.calculateTotalValue(); // wycena w pamięci podręcznej przed tickami
+
+        int aapl = feed.register("AAPL");
+        int euro = feed.register("EUR");
+        int other = feed.register("MSFT");
+        feed.applyBatch(new int[] {aapl, euro, aapl, other}, new double[] {110.0, 4.2, 120.0, 300.0}, 4);
+
+        assertAll("Mark to market",
+            () -> assertEquals(120.0 * 20 + eur.calculateRealValue(0, 0)
+                    + new Currency("EUR", 4.2).calculateRealValue(1000, 0), portfolio.calculateHoldingsValue(), 1e-9),
+            () -> assertEquals(100.0, apple.getMarketPrice(), "Asset passed to addAsset must not change"),
+            () -> assertEquals(4L, feed.getTickCount())
+        );
+    }
+
+    @Test
+    @DisplayName("Changing the price on the caller's asset should not affect the held position")
+    void testCallerAssetIsNotShared() {
+        Share apple = new Share("AAPL", 100.0);
+        portfolio.addAsset(apple, 20);
+        double valueBefore = portfolio.calculateHoldingsValue();
+
+        apple.setMarketPrice(500.0);
+        double valueAfterCallerChange = portfolio.calculateHoldingsValue();
+        // Sprzedaż przelicza pozycję od nowa - nadal po cenie z addAsset
+        portfolio.sellAsset("AAPL", 1, 100.0);
+        double valueAfterSale = portfolio.calculateHoldingsValue();
+        portfolio.addAsset(new Share("AAPL", 110.0), 11);
+
+        assertAll("Owned definition",
+            () -> assertEquals(100.0 * 20, valueBefore, 1e-9),
+            () -> assertEquals(valueBefore, valueAfterCallerChange, 1e-9),
+            () -> assertEquals(100.0 * 19, valueAfterSale, 1e-9),
+            () -> assertEquals(110.0 * 30, portfolio.calculateHoldingsValue(), 1e-9),
+            () -> assertEquals(500.0, apple.getMarketPrice())
+        );
+    }
+
+    @Test
+    @DisplayName("Each batch should report every changed symbol exactly once")
+    void testBatchDeduplication() {
+        List<Integer> reported = new ArrayList<>();
+        feed.subscribe((source, ids, count) -> {
+            for (int i = 0; i < count; i++) reported.add(ids[i]);
+        });
+
+        feed.tick("A", 1.0);
+        feed.tick("B", 2.0);
+        feed.tick("A", 3.0);
+        feed.flush();
+        feed.flush(); // pusta partia - bez powiadomień
+
+        assertAll("Batch",
+            () -> assertEquals(List.of(feed.idOf("A"), feed.idOf("B")), reported),
+            () -> assertEquals(3.0, feed.getPrice("A")),
+            () -> assertEquals(Double.NaN, feed.getPrice("UNKNOWN")),
+            () -> assertThrows(IllegalArgumentException.class, () -> feed.tick("A", -1.0))
+        );
+    }
+
+    @Test
+    @DisplayName("Share small-lot fees and storage costs should follow the new price")
+    void testValuationAfterTicksMatchesLots() {
+        Share share = new Share("XYZ", 10.0);
+        Commodity gold = new Commodity("GOLD", 50.0);
+        // Ilości 1..150: przy cenie 10 "małe" są loty < 100, przy cenie 25 loty < 40
+        for (int quantity = 1; quantity <= 150; quantity++) {
+            portfolio.addAsset(share, quantity);
+        }
+        portfolio.addAsset(gold, 10);
+        portfolio.advanceTime(5);
+        portfolio.calculateTotalValue();
+
+        double[] ticks = {25.0, 7.5, 1000.0, 0.01, 12.5};
+        for (double price : ticks) {
+            feed.tick("XYZ", price);
+            feed.tick("GOLD", price * 3);
+            feed.flush();
+
+            Share marked = new Share("XYZ", price);
+            Commodity markedGold = new Commodity("GOLD", price * 3);
+            double expected = 0.0;
+            for (PurchaseLot lot : portfolio.getLots("XYZ")) {
+                expected += marked.calculateRealValue(lot.getQuantity(), 0);
+            }
+            expected += markedGold.calculateRealValue(10, 5);
+            assertEquals(expected, portfolio.calculateHoldingsValue(), 1e-6, "price " + price);
+        }
+    }
+}